@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -56,6 +58,8 @@ import com.raytheon.uf.common.serialization.annotations.DynamicSerializeElement;
  *                                     mapping since SBN will be in the OPSNET mapping
  * Oct 17, 2014   2753     ccody       Sorting by Ascending Subscription Name in the BUG
  *                                     does not sort properly
+ * Oct 17, 2026            agent       Add versions and the changes between
+ *                                     versions.
  * 
  * </pre>
  * 
@@ -72,6 +76,32 @@ public class BandwidthGraphData {
     @DynamicSerializeElement
     private Map<Network, SortedSet<BandwidthBucketDescription>> networkBucketMap;
 
+    /** Version of the data on the server, 0 if not versioned */
+    @DynamicSerializeElement
+    private long version;
+
+    /**
+     * True if this only holds the buckets and subscriptions that changed since
+     * the base version
+     */
+    @DynamicSerializeElement
+    private boolean changesOnly;
+
+    /** The version the changes are relative to */
+    @DynamicSerializeElement
+    private long baseVersion;
+
+    /** Network -> start times of the buckets removed since the base version */
+    @DynamicSerializeElement
+    private Map<Network, List<Long>> removedBucketMap;
+
+    /**
+     * Network -> registry ids of the subscriptions removed since the base
+     * version
+     */
+    @DynamicSerializeElement
+    private Map<Network, List<String>> removedSubscriptionMap;
+
     /**
      * Constructor.
      */
@@ -79,6 +109,8 @@ public class BandwidthGraphData {
         networkDataMap = new HashMap<Network, List<SubscriptionWindowData>>(2);
         networkBucketMap = new HashMap<Network, SortedSet<BandwidthBucketDescription>>(
                 2);
+        removedBucketMap = new HashMap<Network, List<Long>>(2);
+        removedSubscriptionMap = new HashMap<Network, List<String>>(2);
     }
 
     /**
@@ -368,4 +400,251 @@ public class BandwidthGraphData {
             networkDataMap.put(network, ndm.get(network));
         }
     }
+
+    /**
+     * Get the buckets and subscriptions that changed since an older version of
+     * the data.
+     * 
+     * @param base
+     *            the older version
+     * @return the changes, with changesOnly set
+     */
+    public BandwidthGraphData getChangesSince(BandwidthGraphData base) {
+        BandwidthGraphData changes = new BandwidthGraphData();
+        changes.version = version;
+        changes.baseVersion = base.version;
+        changes.changesOnly = true;
+
+        Set<Network> networks = new HashSet<Network>(networkBucketMap.keySet());
+        networks.addAll(base.networkBucketMap.keySet());
+        for (Network network : networks) {
+            Map<Long, BandwidthBucketDescription> oldBuckets = new HashMap<Long, BandwidthBucketDescription>();
+            SortedSet<BandwidthBucketDescription> baseBuckets = base.networkBucketMap
+                    .get(network);
+            if (baseBuckets != null) {
+                for (BandwidthBucketDescription bucket : baseBuckets) {
+                    oldBuckets.put(bucket.getBucketStartTime(), bucket);
+                }
+            }
+
+            SortedSet<BandwidthBucketDescription> buckets = networkBucketMap
+                    .get(network);
+            if (buckets != null) {
+                SortedSet<BandwidthBucketDescription> changed = new TreeSet<BandwidthBucketDescription>();
+                for (BandwidthBucketDescription bucket : buckets) {
+                    BandwidthBucketDescription old = oldBuckets
+                            .remove(bucket.getBucketStartTime());
+                    if (old == null || !isSameBucket(old, bucket)) {
+                        changed.add(bucket);
+                    }
+                }
+                if (!changed.isEmpty() || baseBuckets == null) {
+                    changes.networkBucketMap.put(network, changed);
+                }
+            }
+            if (!oldBuckets.isEmpty()) {
+                changes.removedBucketMap.put(network,
+                        new ArrayList<Long>(oldBuckets.keySet()));
+            }
+        }
+
+        networks = new HashSet<Network>(networkDataMap.keySet());
+        networks.addAll(base.networkDataMap.keySet());
+        for (Network network : networks) {
+            Map<String, SubscriptionWindowData> oldSubs = new HashMap<String, SubscriptionWindowData>();
+            List<SubscriptionWindowData> baseSubs = base.networkDataMap
+                    .get(network);
+            if (baseSubs != null) {
+                for (SubscriptionWindowData sub : baseSubs) {
+                    oldSubs.put(sub.getRegistryId(), sub);
+                }
+            }
+
+            List<SubscriptionWindowData> subs = networkDataMap.get(network);
+            if (subs != null) {
+                List<SubscriptionWindowData> changed = new ArrayList<SubscriptionWindowData>();
+                for (SubscriptionWindowData sub : subs) {
+                    SubscriptionWindowData old = oldSubs
+                            .remove(sub.getRegistryId());
+                    if (!sub.equals(old)) {
+                        changed.add(sub);
+                    }
+                }
+                if (!changed.isEmpty() || baseSubs == null) {
+                    changes.networkDataMap.put(network, changed);
+                }
+            }
+            if (!oldSubs.isEmpty()) {
+                changes.removedSubscriptionMap.put(network,
+                        new ArrayList<String>(oldSubs.keySet()));
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * Apply changes returned by {@link #getChangesSince(BandwidthGraphData)}
+     * to this data. This data is not modified.
+     * 
+     * @param changes
+     *            the changes, or the complete data of a new version
+     * @return the data with the changes applied
+     * @throws IllegalArgumentException
+     *             if the changes are not relative to this version
+     */
+    public BandwidthGraphData applyChanges(BandwidthGraphData changes) {
+        if (!changes.changesOnly) {
+            return changes;
+        }
+        if (changes.baseVersion != version) {
+            throw new IllegalArgumentException("Changes are relative to version "
+                    + changes.baseVersion + ", not " + version);
+        }
+
+        BandwidthGraphData result = new BandwidthGraphData();
+        result.version = changes.version;
+
+        Set<Network> networks = new HashSet<Network>(networkBucketMap.keySet());
+        networks.addAll(changes.networkBucketMap.keySet());
+        for (Network network : networks) {
+            Map<Long, BandwidthBucketDescription> buckets = new TreeMap<Long, BandwidthBucketDescription>();
+            if (networkBucketMap.containsKey(network)) {
+                for (BandwidthBucketDescription bucket : networkBucketMap
+                        .get(network)) {
+                    buckets.put(bucket.getBucketStartTime(), bucket);
+                }
+            }
+            List<Long> removed = changes.removedBucketMap.get(network);
+            if (removed != null) {
+                buckets.keySet().removeAll(removed);
+            }
+            if (changes.networkBucketMap.containsKey(network)) {
+                for (BandwidthBucketDescription bucket : changes.networkBucketMap
+                        .get(network)) {
+                    buckets.put(bucket.getBucketStartTime(), bucket);
+                }
+            }
+            result.networkBucketMap.put(network,
+                    new TreeSet<BandwidthBucketDescription>(buckets.values()));
+        }
+
+        networks = new HashSet<Network>(networkDataMap.keySet());
+        networks.addAll(changes.networkDataMap.keySet());
+        for (Network network : networks) {
+            Map<String, SubscriptionWindowData> subs = new LinkedHashMap<String, SubscriptionWindowData>();
+            if (networkDataMap.containsKey(network)) {
+                for (SubscriptionWindowData sub : networkDataMap.get(network)) {
+                    subs.put(sub.getRegistryId(), sub);
+                }
+            }
+            List<String> removed = changes.removedSubscriptionMap.get(network);
+            if (removed != null) {
+                subs.keySet().removeAll(removed);
+            }
+            if (changes.networkDataMap.containsKey(network)) {
+                for (SubscriptionWindowData sub : changes.networkDataMap
+                        .get(network)) {
+                    subs.put(sub.getRegistryId(), sub);
+                }
+            }
+            result.networkDataMap.put(network,
+                    new ArrayList<SubscriptionWindowData>(subs.values()));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return true if this holds any buckets, subscriptions or removals
+     */
+    public boolean hasChanges() {
+        return !networkBucketMap.isEmpty() || !networkDataMap.isEmpty()
+                || !removedBucketMap.isEmpty()
+                || !removedSubscriptionMap.isEmpty();
+    }
+
+    private static boolean isSameBucket(BandwidthBucketDescription a,
+            BandwidthBucketDescription b) {
+        return a.getNetwork() == b.getNetwork()
+                && a.getBucketSize() == b.getBucketSize()
+                && a.getUsedBytes() == b.getUsedBytes()
+                && a.getBucketTimeMinutes() == b.getBucketTimeMinutes();
+    }
+
+    /**
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version
+     *            the version to set
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the changesOnly
+     */
+    public boolean isChangesOnly() {
+        return changesOnly;
+    }
+
+    /**
+     * @param changesOnly
+     *            the changesOnly to set
+     */
+    public void setChangesOnly(boolean changesOnly) {
+        this.changesOnly = changesOnly;
+    }
+
+    /**
+     * @return the baseVersion
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * @param baseVersion
+     *            the baseVersion to set
+     */
+    public void setBaseVersion(long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    /**
+     * @return the removedBucketMap
+     */
+    public Map<Network, List<Long>> getRemovedBucketMap() {
+        return removedBucketMap;
+    }
+
+    /**
+     * @param removedBucketMap
+     *            the removedBucketMap to set
+     */
+    public void setRemovedBucketMap(Map<Network, List<Long>> removedBucketMap) {
+        this.removedBucketMap = removedBucketMap;
+    }
+
+    /**
+     * @return the removedSubscriptionMap
+     */
+    public Map<Network, List<String>> getRemovedSubscriptionMap() {
+        return removedSubscriptionMap;
+    }
+
+    /**
+     * @param removedSubscriptionMap
+     *            the removedSubscriptionMap to set
+     */
+    public void setRemovedSubscriptionMap(
+            Map<Network, List<String>> removedSubscriptionMap) {
+        this.removedSubscriptionMap = removedSubscriptionMap;
+    }
 }
@@ -43,6 +43,7 @@ import com.raytheon.uf.common.util.StringUtil;
  * Jan 07, 2013   1451     djohnson    Use TimeUtil.newGmtCalendar().
  * Nov 25, 2013   2545     mpduff      Add Network.
  * Jan 23, 2014   2636     mpduff      Removed binStartTimes, add base time and offset.
+ * Oct 17, 2026            agent       Add equals and hashCode.
  * 
  * </pre>
  * 
@@ -194,6 +195,45 @@ public class TimeWindowData implements Comparable<TimeWindowData> {
         this.baseTime = baseTime;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result
+                + (int) (timeWindowStartTime ^ (timeWindowStartTime >>> 32));
+        result = prime * result
+                + (int) (timeWindowEndTime ^ (timeWindowEndTime >>> 32));
+        result = prime * result + ((network == null) ? 0 : network.hashCode());
+        result = prime * result + (int) (baseTime ^ (baseTime >>> 32));
+        result = prime * result + offset;
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TimeWindowData)) {
+            return false;
+        }
+        TimeWindowData other = (TimeWindowData) obj;
+        return timeWindowStartTime == other.timeWindowStartTime
+                && timeWindowEndTime == other.timeWindowEndTime
+                && network == other.network && baseTime == other.baseTime
+                && offset == other.offset;
+    }
+
     /**
      * {@inheritDoc}
      */
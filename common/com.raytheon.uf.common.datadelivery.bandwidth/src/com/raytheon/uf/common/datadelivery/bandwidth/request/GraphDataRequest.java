@@ -37,6 +37,7 @@ import com.raytheon.uf.common.time.util.TimeUtil;
  * ------------ ---------- ----------- --------------------------
  * Nov 25, 2012   1269     mpduff      Initial creation.
  * Jan 07, 2013   1451     djohnson    Use TimeUtil.newGmtCalendar().
+ * Oct 17, 2026            agent       Add the version the requester has.
  * 
  * </pre>
  * 
@@ -53,6 +54,13 @@ public class GraphDataRequest implements IServerRequest {
     @DynamicSerializeElement
     private int duration;
 
+    /**
+     * Version of the graph data the requester already has, 0 for none. Only
+     * the changes since that version are returned.
+     */
+    @DynamicSerializeElement
+    private long version;
+
     /**
      * Constructor.
      */
@@ -94,4 +102,18 @@ public class GraphDataRequest implements IServerRequest {
     public void setDuration(int duration) {
         this.duration = duration;
     }
+
+    /**
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version the version to set
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
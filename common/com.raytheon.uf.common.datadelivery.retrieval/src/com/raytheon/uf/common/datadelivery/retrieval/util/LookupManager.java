@@ -93,6 +93,7 @@ import com.raytheon.uf.common.util.CollectionUtil;
  * Oct 12, 2017  6440     bsteffen  Refresh level lookups.
  * Oct 19, 2017  6465     tjensen   Rename Collections to URLParserInfo. Add
  *                                  CrawlerDates
+ * Oct 17, 2026           agent     Added getParameterLookupVersion.
  *
  * </pre>
  *
@@ -143,6 +144,9 @@ public class LookupManager {
 
     private Date paramFileTime;
 
+    /** Incremented whenever the parameter lookups or regexes are reloaded */
+    private volatile long parameterLookupVersion;
+
     private final Map<String, Date> urlParserInfoFileTimes = new HashMap<>(2);
 
     private final Map<String, Date> layerFileTimes = new HashMap<>(2);
@@ -223,6 +227,7 @@ public class LookupManager {
                     paramNameRegexes = sortByValue(newParamNameRegexes);
                     paramLevelRegexes = sortByValue(newParamLevelRegexes);
                     regexFileTime = file.getTimeStamp();
+                    parameterLookupVersion++;
                 }
             } catch (Exception e) {
                 statusHandler.handle(Priority.PROBLEM,
@@ -348,6 +353,20 @@ public class LookupManager {
 
         generalParameters = newGeneralParameters;
         dataSetParameters = newDataSetParameters;
+        parameterLookupVersion++;
+    }
+
+    /**
+     * Get the version of the parameter lookups and regexes. The version
+     * changes whenever either is reloaded from its file, so anything derived
+     * from them can tell it is out of date.
+     *
+     * @return the version
+     */
+    public long getParameterLookupVersion() {
+        loadParameters();
+        loadParameterRegexes();
+        return parameterLookupVersion;
     }
 
     /**
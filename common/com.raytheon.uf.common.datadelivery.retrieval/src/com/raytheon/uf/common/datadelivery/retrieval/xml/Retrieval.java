@@ -19,6 +19,10 @@
  **/
 package com.raytheon.uf.common.datadelivery.retrieval.xml;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlEnum;
 import javax.xml.bind.annotation.XmlEnumValue;
 
@@ -47,6 +51,8 @@ import com.raytheon.uf.common.serialization.annotations.DynamicSerializeElement;
  * Jul 25, 2014  2732     ccody     Add Date Time to SubscriptionRetrievalEvent
  *                                  message.
  * Jul 25, 2017  6186     rjpeter   Only one attribute per retrieval
+ * Oct 17, 2026           agent     Add coalescedAttributes for requests that
+ *                                  combine several variables.
  *
  * </pre>
  *
@@ -99,6 +105,13 @@ public class Retrieval<T extends Time, C extends Coverage> {
     @DynamicSerializeElement
     private RetrievalAttribute<T, C> attribute;
 
+    /**
+     * Attributes fetched by the same request as {@link #attribute}, null or
+     * empty unless the service combines several variables into one request.
+     */
+    @DynamicSerializeElement
+    private List<RetrievalAttribute<T, C>> coalescedAttributes;
+
     public RetrievalAttribute<T, C> getAttribute() {
         return attribute;
     }
@@ -107,6 +120,34 @@ public class Retrieval<T extends Time, C extends Coverage> {
         this.attribute = attribute;
     }
 
+    public List<RetrievalAttribute<T, C>> getCoalescedAttributes() {
+        return coalescedAttributes;
+    }
+
+    public void setCoalescedAttributes(
+            List<RetrievalAttribute<T, C>> coalescedAttributes) {
+        this.coalescedAttributes = coalescedAttributes;
+    }
+
+    /**
+     * Get every attribute covered by this retrieval, the primary attribute
+     * first.
+     *
+     * @return the attributes
+     */
+    public List<RetrievalAttribute<T, C>> getAttributes() {
+        if (coalescedAttributes == null || coalescedAttributes.isEmpty()) {
+            return attribute == null
+                    ? Collections.<RetrievalAttribute<T, C>> emptyList()
+                    : Collections.singletonList(attribute);
+        }
+        List<RetrievalAttribute<T, C>> attributes = new ArrayList<>(
+                coalescedAttributes.size() + 1);
+        attributes.add(attribute);
+        attributes.addAll(coalescedAttributes);
+        return attributes;
+    }
+
     public String getOwner() {
         return owner;
     }
@@ -52,6 +52,7 @@ import com.raytheon.uf.common.serialization.annotations.DynamicSerializeElement;
  * Sep 20, 2017  6413     tjensen   Updated for ParameterGroups
  * Nov 15, 2017  6498     tjensen   Updated to build ParameterGroups from
  *                                  Parameters if not available.
+ * Oct 17, 2026           agent     Added getEntries for level ranges.
  *
  * </pre>
  *
@@ -161,4 +162,14 @@ public class RetrievalAttribute<T extends Time, C extends Coverage> {
                 + "' contains multiple level entries.");
     }
 
+    /**
+     * Get the level entries of the single LevelGroup in the ParameterGroup. A
+     * coalesced attribute may hold a range of levels.
+     *
+     * @return the level entries, in request order
+     */
+    public List<ParameterLevelEntry> getEntries() {
+        return getLevelGroup().getLevels();
+    }
+
 }
@@ -0,0 +1,5 @@
+#! /bin/bash
+# Add the index used to claim pending retrievals in batches by provider,
+# state and priority to an existing subscription_retrieval table.
+
+psql -U awipsadmin -d metadata -c "CREATE INDEX IF NOT EXISTS subscription_retrieval_providerStatePriorityIdx ON subscription_retrieval (provider, state, priority, id);"
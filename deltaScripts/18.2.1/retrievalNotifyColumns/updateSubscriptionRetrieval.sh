@@ -0,0 +1,6 @@
+#! /bin/bash
+# Add the requestRetrievalTime, network and subscriptionType columns to the
+# subscription_retrieval table. Existing records leave them empty and are
+# read from their serialized retrieval instead.
+
+psql -U awipsadmin -d metadata -f updateSubscriptionRetrieval.sql
@@ -0,0 +1,31 @@
+-- Columns for the retrieval fields read when notifying subscriptions
+
+-- On any exception, except an already existing column, abort the transaction.
+\set ON_ERROR_STOP 1
+BEGIN TRANSACTION;
+
+DO $$
+  BEGIN
+    ALTER TABLE subscription_retrieval ADD COLUMN requestRetrievalTime bigint;
+  EXCEPTION
+    WHEN duplicate_column THEN RAISE NOTICE 'requestRetrievalTime already exists. Continuing...';
+  END;
+$$;
+
+DO $$
+  BEGIN
+    ALTER TABLE subscription_retrieval ADD COLUMN network varchar(255);
+  EXCEPTION
+    WHEN duplicate_column THEN RAISE NOTICE 'network already exists. Continuing...';
+  END;
+$$;
+
+DO $$
+  BEGIN
+    ALTER TABLE subscription_retrieval ADD COLUMN subscriptionType varchar(255);
+  EXCEPTION
+    WHEN duplicate_column THEN RAISE NOTICE 'subscriptionType already exists. Continuing...';
+  END;
+$$;
+
+COMMIT;
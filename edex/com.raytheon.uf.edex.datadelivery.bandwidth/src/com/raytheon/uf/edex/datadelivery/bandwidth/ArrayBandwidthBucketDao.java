@@ -0,0 +1,490 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.raytheon.uf.common.datadelivery.registry.Network;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.common.status.UFStatus.Priority;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthBucketDao;
+import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalPlan;
+import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
+
+/**
+ * {@link IBandwidthBucketDao} that stores the buckets for each network in
+ * parallel primitive arrays instead of a map of {@link BandwidthBucket}
+ * objects. Buckets are appended to the end and deleted from the front, so the
+ * arrays are used as a sliding window. When every bucket is the same length,
+ * which is the case for buckets created by a {@link RetrievalPlan}, lookups by
+ * time are arithmetic on the first start time rather than a search.
+ *
+ * Lists returned from this dao are read-only views that create a
+ * {@link BandwidthBucket} copy when an element is accessed, rather than
+ * copying every bucket up front. A view reflects later size updates to its
+ * buckets, but not buckets created or deleted after it was returned.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class ArrayBandwidthBucketDao implements IBandwidthBucketDao {
+
+    private static final IUFStatusHandler statusHandler = UFStatus
+            .getHandler(ArrayBandwidthBucketDao.class);
+
+    private static final AtomicLong idSequence = new AtomicLong(1);
+
+    private final Map<Network, BucketArrays> allBuckets = new EnumMap<>(
+            Network.class);
+    {
+        for (Network network : Network.values()) {
+            allBuckets.put(network, new BucketArrays(network));
+        }
+    }
+
+    @Override
+    public void create(BandwidthBucket bandwidthBucket) {
+        if (bandwidthBucket.getId() == BandwidthUtil.DEFAULT_IDENTIFIER) {
+            bandwidthBucket.setIdentifier(idSequence.incrementAndGet());
+        }
+        allBuckets.get(bandwidthBucket.getNetwork()).put(bandwidthBucket);
+    }
+
+    @Override
+    public void update(BandwidthBucket bandwidthBucket) {
+        BucketArrays buckets = allBuckets.get(bandwidthBucket.getNetwork());
+        int index = buckets.indexOf(bandwidthBucket.getBucketStartTime());
+        if (index != BucketArrays.NOT_FOUND) {
+            buckets.set(index, bandwidthBucket);
+        }
+    }
+
+    @Override
+    public void deleteBucketsUpToTime(long timeToDeleteUpTo, Network network) {
+        int removed = allBuckets.get(network).removeUpTo(timeToDeleteUpTo);
+        if (removed > 0) {
+            statusHandler.info("resize() - Removed [" + removed
+                    + "] buckets up to [" + timeToDeleteUpTo + "]");
+        }
+    }
+
+    @Override
+    public List<BandwidthBucket> getAll(Network network) {
+        BucketArrays buckets = allBuckets.get(network);
+        return buckets.view(buckets.head, buckets.tail);
+    }
+
+    @Override
+    public BandwidthBucket getLastBucket(Network network) {
+        BucketArrays buckets = allBuckets.get(network);
+        return buckets.isEmpty() ? null : buckets.get(buckets.tail - 1);
+    }
+
+    @Override
+    public BandwidthBucket getFirstBucket(Network network) {
+        BucketArrays buckets = allBuckets.get(network);
+        return buckets.isEmpty() ? null : buckets.get(buckets.head);
+    }
+
+    @Override
+    public List<BandwidthBucket> getWhereStartTimeIsLessThanOrEqualTo(long time,
+            Network network) {
+        BucketArrays buckets = allBuckets.get(network);
+        int floor = buckets.floorIndex(time);
+        if (floor == BucketArrays.NOT_FOUND) {
+            return Collections.emptyList();
+        }
+        return buckets.view(buckets.head, floor + 1);
+    }
+
+    @Override
+    public BandwidthBucket getByStartTime(long startTime, Network network) {
+        BucketArrays buckets = allBuckets.get(network);
+        int index = buckets.indexOf(startTime);
+        return index == BucketArrays.NOT_FOUND ? null : buckets.get(index);
+    }
+
+    @Override
+    public SortedSet<BandwidthBucket> getBucketsInWindow(Long startMillis,
+            Long endMillis, Network network) {
+        if (statusHandler.isPriorityEnabled(Priority.DEBUG)) {
+            statusHandler.debug("startMillis: " + new Date(startMillis) + "\n"
+                    + "endMillis: " + new Date(endMillis));
+        }
+
+        BucketArrays buckets = allBuckets.get(network);
+
+        // Same boundary rules as InMemoryBandwidthBucketDao
+        int startIndex = buckets.ceilingIndex(startMillis);
+        if (startIndex != BucketArrays.NOT_FOUND
+                && buckets.startTimes[startIndex] > endMillis) {
+            startIndex = buckets.floorIndex(startMillis);
+        }
+        if (startIndex == BucketArrays.NOT_FOUND && !buckets.isEmpty()) {
+            startIndex = buckets.tail - 1;
+        }
+
+        int endIndex = buckets.floorIndex(endMillis);
+        if (endIndex != BucketArrays.NOT_FOUND
+                && buckets.startTimes[endIndex] < startMillis) {
+            endIndex = buckets.ceilingIndex(endMillis);
+        }
+        if (endIndex == BucketArrays.NOT_FOUND && !buckets.isEmpty()) {
+            endIndex = buckets.head;
+        }
+
+        if (startIndex == BucketArrays.NOT_FOUND
+                || endIndex == BucketArrays.NOT_FOUND) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid start and end times requested for getBucketsInWindow(): start time [%s], end time [%s], bucket start key [%s], bucket end key [%s].",
+                    startMillis, endMillis, null, null));
+        }
+        if (startIndex > endIndex) {
+            throw new IllegalArgumentException(
+                    "Failed to get Bucket SubMap: \nstartMillis: "
+                            + new Date(startMillis) + "\nendMillis: "
+                            + new Date(endMillis) + "\nstartKey: "
+                            + new Date(buckets.startTimes[startIndex])
+                            + "\nendKey: "
+                            + new Date(buckets.startTimes[endIndex]));
+        }
+
+        return new TreeSet<>(buckets.view(startIndex, endIndex + 1));
+    }
+
+    @Override
+    public void copyState(IBandwidthBucketDao bucketsDao) {
+        for (Network network : Network.values()) {
+            if (bucketsDao instanceof ArrayBandwidthBucketDao) {
+                allBuckets.put(network, new BucketArrays(
+                        ((ArrayBandwidthBucketDao) bucketsDao).allBuckets
+                                .get(network)));
+            } else {
+                BucketArrays buckets = new BucketArrays(network);
+                for (BandwidthBucket bucket : bucketsDao.getAll(network)) {
+                    buckets.put(bucket);
+                }
+                allBuckets.put(network, buckets);
+            }
+        }
+    }
+
+    @Override
+    public BandwidthBucket getBucketContainingTime(long millis,
+            Network network) {
+        BucketArrays buckets = allBuckets.get(network);
+        int floor = buckets.floorIndex(millis);
+        return floor == BucketArrays.NOT_FOUND ? null : buckets.get(floor);
+    }
+
+    /**
+     * The buckets for a single network, sorted by start time and held between
+     * head (inclusive) and tail.
+     */
+    private static class BucketArrays {
+
+        private static final int NOT_FOUND = -1;
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final Network network;
+
+        private long[] startTimes;
+
+        private long[] bucketSizes;
+
+        private long[] currentSizes;
+
+        private long[] ids;
+
+        private int head;
+
+        private int tail;
+
+        /** Distance between every bucket start time, 0 if they differ. */
+        private long spacing;
+
+        private BucketArrays(Network network) {
+            this.network = network;
+            allocate(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Copy constructor.
+         */
+        private BucketArrays(BucketArrays from) {
+            this.network = from.network;
+            this.startTimes = Arrays.copyOfRange(from.startTimes, from.head,
+                    from.startTimes.length);
+            this.bucketSizes = Arrays.copyOfRange(from.bucketSizes, from.head,
+                    from.bucketSizes.length);
+            this.currentSizes = Arrays.copyOfRange(from.currentSizes,
+                    from.head, from.currentSizes.length);
+            this.ids = Arrays.copyOfRange(from.ids, from.head, from.ids.length);
+            this.head = 0;
+            this.tail = from.tail - from.head;
+            this.spacing = from.spacing;
+        }
+
+        private boolean isEmpty() {
+            return head == tail;
+        }
+
+        private int size() {
+            return tail - head;
+        }
+
+        private BandwidthBucket get(int index) {
+            return new BandwidthBucket(ids[index], startTimes[index],
+                    bucketSizes[index], currentSizes[index], network);
+        }
+
+        private void set(int index, BandwidthBucket bucket) {
+            bucketSizes[index] = bucket.getBucketSize();
+            currentSizes[index] = bucket.getCurrentSize();
+            ids[index] = bucket.getId();
+        }
+
+        private void put(BandwidthBucket bucket) {
+            long startTime = bucket.getBucketStartTime();
+            if (!isEmpty() && startTime <= startTimes[tail - 1]) {
+                int index = indexOf(startTime);
+                if (index != NOT_FOUND) {
+                    set(index, bucket);
+                } else {
+                    insert(bucket);
+                }
+                return;
+            }
+
+            if (tail == startTimes.length) {
+                compact(size() + 1);
+            }
+            if (size() == 1) {
+                spacing = startTime - startTimes[head];
+            } else if (size() > 1 && startTime - startTimes[tail - 1] != spacing) {
+                spacing = 0;
+            }
+            startTimes[tail] = startTime;
+            set(tail, bucket);
+            tail++;
+        }
+
+        /**
+         * Insert a bucket before the end of the arrays. Buckets are not created
+         * out of order by the retrieval plan, so this is only expected when
+         * copying from another dao.
+         */
+        private void insert(BandwidthBucket bucket) {
+            // Always move to new arrays to leave existing views untouched
+            compact(size() + 1);
+            int index = -Arrays.binarySearch(startTimes, head, tail,
+                    bucket.getBucketStartTime()) - 1;
+            int toMove = tail - index;
+            System.arraycopy(startTimes, index, startTimes, index + 1, toMove);
+            System.arraycopy(bucketSizes, index, bucketSizes, index + 1,
+                    toMove);
+            System.arraycopy(currentSizes, index, currentSizes, index + 1,
+                    toMove);
+            System.arraycopy(ids, index, ids, index + 1, toMove);
+            startTimes[index] = bucket.getBucketStartTime();
+            set(index, bucket);
+            tail++;
+            computeSpacing();
+        }
+
+        private int removeUpTo(long time) {
+            int floor = floorIndex(time);
+            if (floor == NOT_FOUND) {
+                return 0;
+            }
+            int removed = floor + 1 - head;
+            head = floor + 1;
+            if (isEmpty()) {
+                head = 0;
+                tail = 0;
+                spacing = 0;
+            }
+            return removed;
+        }
+
+        private int indexOf(long startTime) {
+            if (isEmpty()) {
+                return NOT_FOUND;
+            }
+            if (spacing > 0) {
+                long offset = startTime - startTimes[head];
+                if (offset < 0 || offset % spacing != 0) {
+                    return NOT_FOUND;
+                }
+                long index = head + offset / spacing;
+                return index < tail ? (int) index : NOT_FOUND;
+            }
+            int index = Arrays.binarySearch(startTimes, head, tail, startTime);
+            return index < 0 ? NOT_FOUND : index;
+        }
+
+        /**
+         * @return the index of the latest bucket starting at or before the
+         *         time
+         */
+        private int floorIndex(long time) {
+            if (isEmpty() || time < startTimes[head]) {
+                return NOT_FOUND;
+            }
+            if (spacing > 0) {
+                long index = head + (time - startTimes[head]) / spacing;
+                return (int) Math.min(index, tail - 1);
+            }
+            int index = Arrays.binarySearch(startTimes, head, tail, time);
+            return index < 0 ? -index - 2 : index;
+        }
+
+        /**
+         * @return the index of the earliest bucket starting at or after the
+         *         time
+         */
+        private int ceilingIndex(long time) {
+            if (isEmpty() || time > startTimes[tail - 1]) {
+                return NOT_FOUND;
+            }
+            if (time <= startTimes[head]) {
+                return head;
+            }
+            if (spacing > 0) {
+                long offset = time - startTimes[head];
+                return (int) (head + (offset + spacing - 1) / spacing);
+            }
+            int index = Arrays.binarySearch(startTimes, head, tail, time);
+            return index < 0 ? -index - 1 : index;
+        }
+
+        private void computeSpacing() {
+            spacing = size() > 1 ? startTimes[head + 1] - startTimes[head] : 0;
+            for (int i = head + 2; i < tail && spacing != 0; i++) {
+                if (startTimes[i] - startTimes[i - 1] != spacing) {
+                    spacing = 0;
+                }
+            }
+        }
+
+        /**
+         * Move the live buckets to the front of new arrays, so that views
+         * handed out over the old arrays are not disturbed.
+         */
+        private void compact(int required) {
+            int live = size();
+            int capacity = startTimes.length;
+            while (capacity < required * 2) {
+                capacity <<= 1;
+            }
+            long[] oldStartTimes = startTimes;
+            long[] oldBucketSizes = bucketSizes;
+            long[] oldCurrentSizes = currentSizes;
+            long[] oldIds = ids;
+            allocate(capacity);
+            System.arraycopy(oldStartTimes, head, startTimes, 0, live);
+            System.arraycopy(oldBucketSizes, head, bucketSizes, 0, live);
+            System.arraycopy(oldCurrentSizes, head, currentSizes, 0, live);
+            System.arraycopy(oldIds, head, ids, 0, live);
+            head = 0;
+            tail = live;
+        }
+
+        private void allocate(int capacity) {
+            startTimes = new long[capacity];
+            bucketSizes = new long[capacity];
+            currentSizes = new long[capacity];
+            ids = new long[capacity];
+        }
+
+        private List<BandwidthBucket> view(int from, int to) {
+            return new BucketView(this, from, to);
+        }
+    }
+
+    /**
+     * Read-only list over a range of a {@link BucketArrays}, creating each
+     * {@link BandwidthBucket} on access.
+     */
+    private static class BucketView extends AbstractList<BandwidthBucket>
+            implements RandomAccess {
+
+        private final Network network;
+
+        private final long[] startTimes;
+
+        private final long[] bucketSizes;
+
+        private final long[] currentSizes;
+
+        private final long[] ids;
+
+        private final int from;
+
+        private final int size;
+
+        private BucketView(BucketArrays buckets, int from, int to) {
+            this.network = buckets.network;
+            this.startTimes = buckets.startTimes;
+            this.bucketSizes = buckets.bucketSizes;
+            this.currentSizes = buckets.currentSizes;
+            this.ids = buckets.ids;
+            this.from = from;
+            this.size = Math.max(0, to - from);
+        }
+
+        @Override
+        public BandwidthBucket get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(
+                        "Index: " + index + ", Size: " + size);
+            }
+            int i = from + index;
+            return new BandwidthBucket(ids[i], startTimes[i], bucketSizes[i],
+                    currentSizes[i], network);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
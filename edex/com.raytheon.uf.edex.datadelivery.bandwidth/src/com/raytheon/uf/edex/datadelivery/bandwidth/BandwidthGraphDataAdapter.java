@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,7 @@ import com.raytheon.uf.common.registry.handler.RegistryHandlerException;
 import com.raytheon.uf.common.time.util.TimeUtil;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
 import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalManager;
 import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalPlan;
 import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalStatus;
@@ -85,6 +87,12 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalStatus;
  * Mar 16, 2016  3919     tjensen   Cleanup unneeded interfaces
  * Oct 25, 2017  6484     tjensen   Merged SubscriptionRetrievals and
  *                                  BandwidthAllocations
+ * Oct 17, 2026           agent     Keep the subscription windows until
+ *                                  allocations change, index them by
+ *                                  registry id.
+ * Oct 17, 2026           agent     Keep the bucket descriptions until the
+ *                                  retrieval plan changes, drop the windows
+ *                                  when subscriptions change.
  *
  * </pre>
  *
@@ -93,10 +101,19 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalStatus;
 
 public class BandwidthGraphDataAdapter {
 
+    /**
+     * Longest the subscription windows are reused for, in case allocations
+     * were changed without going through the dao
+     */
+    private static final long MAX_WINDOW_AGE_MILLIS = 5 * TimeUtil.MILLIS_PER_MINUTE;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final RetrievalManager retrievalManager;
 
+    /** Looked up from the context factory when null */
+    private IBandwidthDao<?, ?> bandwidthDao;
+
     /** handler for DataSetMetaData objects from the registry **/
     private final DataSetMetaDataHandler dataSetMetaDataHandler;
 
@@ -106,13 +123,69 @@ public class BandwidthGraphDataAdapter {
     /** handler for DataSet objects from the registry **/
     private final DataSetHandler dataSetHandler;
 
+    /** Network -> bucket descriptions from the current time forward */
+    private final Map<Network, BucketDescriptions> bucketDescriptionMap = new HashMap<>();
+
+    /** Network -> subscription windows, sorted by time */
+    private Map<Network, List<SubscriptionWindowData>> networkMap;
+
+    /** Allocation change count the windows were built from */
+    private long windowChangeCount;
+
+    private final AtomicLong subscriptionChangeCount = new AtomicLong();
+
+    /** Subscription change count the windows were built from */
+    private long windowSubscriptionChangeCount;
+
+    private long windowBuildMillis;
+
+    /**
+     * The bucket descriptions of a retrieval plan and when they were read.
+     */
+    private static class BucketDescriptions {
+
+        private final SortedSet<BandwidthBucketDescription> descriptions;
+
+        /** Change count of the plan the descriptions were read from */
+        private final long planChangeCount;
+
+        /**
+         * Start of the first bucket, the descriptions start with a later
+         * bucket once this has passed
+         */
+        private final long firstBucketMillis;
+
+        private BucketDescriptions(
+                SortedSet<BandwidthBucketDescription> descriptions,
+                long planChangeCount) {
+            this.descriptions = descriptions;
+            this.planChangeCount = planChangeCount;
+            this.firstBucketMillis = descriptions.isEmpty() ? Long.MIN_VALUE
+                    : descriptions.first().getBucketStartTime();
+        }
+    }
+
     /**
      * Get graph Data
      *
      * @param retrievalManager
      */
     public BandwidthGraphDataAdapter(RetrievalManager retrievalManager) {
+        this(retrievalManager, null);
+    }
+
+    /**
+     * Get graph Data
+     *
+     * @param retrievalManager
+     * @param bandwidthDao
+     *            the dao to read allocations from, null for the dao of the
+     *            {@link EdexBandwidthContextFactory}
+     */
+    public BandwidthGraphDataAdapter(RetrievalManager retrievalManager,
+            IBandwidthDao<?, ?> bandwidthDao) {
         this.retrievalManager = retrievalManager;
+        this.bandwidthDao = bandwidthDao;
         this.dataSetMetaDataHandler = DataDeliveryHandlers
                 .getDataSetMetaDataHandler();
         this.subscriptionHandler = DataDeliveryHandlers
@@ -121,44 +194,98 @@ public class BandwidthGraphDataAdapter {
     }
 
     /**
-     * Return the adapted graph data.
+     * Return the adapted graph data. The bucket descriptions are read again
+     * when their retrieval plan has changed or its first bucket has passed.
+     * The subscription windows need the allocations from the database and the
+     * subscriptions from the registry, so they are only rebuilt when
+     * allocations have changed or {@link #subscriptionsChanged()} was called.
      *
      * @return the data
      */
-    @SuppressWarnings("rawtypes")
-    public BandwidthGraphData get() {
+    public synchronized BandwidthGraphData get() {
         final BandwidthGraphData bandwidthGraphData = new BandwidthGraphData();
 
         Collection<RetrievalPlan> retrievalPlans = retrievalManager
                 .getRetrievalPlans().values();
-        Map<Network, List<SubscriptionWindowData>> networkMap = new HashMap<>();
-        Map<String, List<BandwidthAllocation>> subAllocationMap = new HashMap<>();
+        List<Network> networks = new ArrayList<>(retrievalPlans.size());
 
         // One retrieval plan per network
         for (RetrievalPlan retrievalPlan : retrievalPlans) {
             Network network = retrievalPlan.getNetwork();
-            if (!networkMap.containsKey(network)) {
-                networkMap.put(network,
-                        new ArrayList<SubscriptionWindowData>());
+            networks.add(network);
+
+            // Read before the buckets, so a change made while reading them
+            // is seen next time
+            long planChangeCount = retrievalPlan.getChangeCount();
+            long now = TimeUtil.currentTimeMillis();
+            BucketDescriptions buckets = bucketDescriptionMap.get(network);
+            if (buckets == null || buckets.planChangeCount != planChangeCount
+                    || now > buckets.firstBucketMillis) {
+                // Get all buckets that are in the retrieval plan from the
+                // current time forward
+                final SortedSet<BandwidthBucket> bandwidthBuckets = retrievalPlan
+                        .getBucketsInWindow(now, Long.MAX_VALUE);
+
+                // % utilized graph data
+                buckets = new BucketDescriptions(
+                        toDescriptions(bandwidthBuckets), planChangeCount);
+                bucketDescriptionMap.put(network, buckets);
             }
+            // Shared like the windows, nothing modifies them once sent
+            bandwidthGraphData.addBucketDescriptions(network,
+                    buckets.descriptions);
+        }
+
+        if (bandwidthDao == null) {
+            bandwidthDao = EdexBandwidthContextFactory
+                    .getInstance().bandwidthDao;
+        }
+        long changeCount = bandwidthDao.getAllocationChangeCount();
+        long subscriptionCount = subscriptionChangeCount.get();
+        if (networkMap == null || changeCount != windowChangeCount
+                || subscriptionCount != windowSubscriptionChangeCount
+                || !networkMap.keySet().containsAll(networks)
+                || TimeUtil.currentTimeMillis()
+                        - windowBuildMillis > MAX_WINDOW_AGE_MILLIS) {
+            windowBuildMillis = TimeUtil.currentTimeMillis();
+            networkMap = getSubscriptionWindows(networks);
+            windowChangeCount = changeCount;
+            windowSubscriptionChangeCount = subscriptionCount;
+        }
 
-            // Get all buckets that are in the retrieval plan from the current
-            // time forward
-            final SortedSet<BandwidthBucket> bandwidthBuckets = retrievalPlan
-                    .getBucketsInWindow(TimeUtil.currentTimeMillis(),
-                            Long.MAX_VALUE);
+        /*
+         * The windows are shared by every returned graph data, only the maps
+         * are copied since callers merge into them.
+         */
+        bandwidthGraphData.setNetworkDataMap(new HashMap<>(networkMap));
+
+        return bandwidthGraphData;
+    }
 
-            // % utilized graph data
-            SortedSet<BandwidthBucketDescription> buckets = toDescriptions(
-                    bandwidthBuckets);
-            bandwidthGraphData.addBucketDescriptions(network, buckets);
+    /**
+     * Rebuild the subscription windows on the next {@link #get()}.
+     * Subscriptions can change their name or priority, or be removed, before
+     * or without any allocation changing. Does not wait for a {@link #get()}
+     * in progress.
+     */
+    public void subscriptionsChanged() {
+        subscriptionChangeCount.incrementAndGet();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Map<Network, List<SubscriptionWindowData>> getSubscriptionWindows(
+            List<Network> networks) {
+        Map<Network, Map<String, SubscriptionWindowData>> windowsByNetwork = new HashMap<>();
+        Map<String, List<BandwidthAllocation>> subAllocationMap = new HashMap<>();
+
+        for (Network network : networks) {
+            windowsByNetwork.put(network,
+                    new HashMap<String, SubscriptionWindowData>());
 
             List<BandwidthAllocation> allocationList = null;
             try {
                 // Latency window data
-                allocationList = EdexBandwidthContextFactory
-                        .getInstance().bandwidthDao
-                                .getBandwidthAllocations(network);
+                allocationList = bandwidthDao.getBandwidthAllocations(network);
             } catch (Exception e) {
                 logger.error("Unable to retrieve BandwidthAlloactions!", e);
                 allocationList = Collections.emptyList();
@@ -189,6 +316,9 @@ public class BandwidthGraphDataAdapter {
             Subscription sub = null;
             DataSet dataSet = null;
             boolean adhocCheck = false;
+            // looked up at most once per subscription
+            Date adhocBaseRefTime = null;
+            boolean adhocLookedUp = false;
 
             try {
                 sub = subscriptionHandler.getById(registryId);
@@ -205,15 +335,14 @@ public class BandwidthGraphDataAdapter {
                     int offset = ba.getDataSetAvailablityDelay();
                     Network network = ba.getNetwork();
 
-                    SubscriptionWindowData windowData = null;
-                    List<SubscriptionWindowData> subList = networkMap
+                    Map<String, SubscriptionWindowData> windows = windowsByNetwork
                             .get(network);
-                    for (SubscriptionWindowData subData : subList) {
-                        if (subData.getRegistryId().equals(registryId)) {
-                            windowData = subData;
-                            break;
-                        }
+                    if (windows == null) {
+                        windows = new HashMap<>();
+                        windowsByNetwork.put(network, windows);
                     }
+                    SubscriptionWindowData windowData = windows
+                            .get(registryId);
 
                     if (windowData == null) {
                         windowData = new SubscriptionWindowData();
@@ -221,32 +350,19 @@ public class BandwidthGraphDataAdapter {
                         windowData.setPriority(priority);
                         windowData.setRegistryId(registryId);
                         windowData.setSubscriptionName(sub.getName());
-                        networkMap.get(network).add(windowData);
+                        windows.put(registryId, windowData);
                     }
 
                     // adhoc sub, calculate true base reftime
                     if (adhocCheck && ba.getStartTime().equals(baseRefTime)) {
-
-                        DataSetMetaData dataSetMetaData = null;
-
-                        try {
-                            dataSetMetaData = dataSetMetaDataHandler
-                                    .getByDataSetDate(sub.getDataSetName(),
-                                            sub.getProvider(),
-                                            sub.getTime().getStart());
-                        } catch (RegistryHandlerException e) {
-                            logger.error(
-                                    "No DataSetMetaData matching query! DataSetName: "
-                                            + sub.getDataSetName()
-                                            + " Provider: " + sub.getProvider()
-                                            + " Time: "
-                                            + sub.getTime().getStart(),
-                                    e);
+                        if (!adhocLookedUp) {
+                            adhocLookedUp = true;
+                            adhocBaseRefTime = getAdhocBaseRefTime(sub);
                         }
 
-                        if (dataSetMetaData != null) {
+                        if (adhocBaseRefTime != null) {
                             // set the actual baseRefTime
-                            baseRefTime = dataSetMetaData.getDate();
+                            baseRefTime = adhocBaseRefTime;
                         }
                     }
 
@@ -267,9 +383,34 @@ public class BandwidthGraphDataAdapter {
             }
         }
 
-        bandwidthGraphData.setNetworkDataMap(networkMap);
+        Map<Network, List<SubscriptionWindowData>> networkMap = new HashMap<>();
+        for (Map.Entry<Network, Map<String, SubscriptionWindowData>> entry : windowsByNetwork
+                .entrySet()) {
+            List<SubscriptionWindowData> subList = new ArrayList<>(
+                    entry.getValue().values());
+            for (SubscriptionWindowData windowData : subList) {
+                Collections.sort(windowData.getWindowDataList());
+            }
+            networkMap.put(entry.getKey(), subList);
+        }
+        return networkMap;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Date getAdhocBaseRefTime(Subscription sub) {
+        DataSetMetaData dataSetMetaData = null;
+
+        try {
+            dataSetMetaData = dataSetMetaDataHandler.getByDataSetDate(
+                    sub.getDataSetName(), sub.getProvider(),
+                    sub.getTime().getStart());
+        } catch (RegistryHandlerException e) {
+            logger.error("No DataSetMetaData matching query! DataSetName: "
+                    + sub.getDataSetName() + " Provider: " + sub.getProvider()
+                    + " Time: " + sub.getTime().getStart(), e);
+        }
 
-        return bandwidthGraphData;
+        return dataSetMetaData == null ? null : dataSetMetaData.getDate();
     }
 
     /**
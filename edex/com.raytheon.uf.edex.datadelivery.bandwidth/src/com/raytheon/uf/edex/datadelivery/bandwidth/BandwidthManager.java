@@ -28,8 +28,10 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -188,6 +190,16 @@ import com.raytheon.uf.edex.registry.ebxml.util.RegistryIdUtil;
  * Dec 12, 2017  6522     mapeters  Add thread-based logging for retrieval
  * Feb 02, 2018  6471     tjensen   Improve handling of subscriptions that are
  *                                  too big to schedule
+ * Oct 17, 2026           agent     Schedule subscription lists as one batch:
+ *                                  metadata looked up once per dataset, one
+ *                                  store and one plan pass for all retrievals.
+ * Oct 17, 2026           agent     Determine the required latency against one
+ *                                  proposed bandwidth manager, rolled back
+ *                                  between attempts.
+ * Oct 17, 2026           agent     Keep one graph data adapter so its
+ *                                  subscription windows are reused.
+ * Oct 17, 2026           agent     Tell the graph data adapter when
+ *                                  subscriptions change.
  *
  * </pre>
  *
@@ -248,6 +260,9 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
 
     private IBandwidthChangedCallback bandwidthChangedCallback;
 
+    /** Created on the first graph data request */
+    private volatile BandwidthGraphDataAdapter graphDataAdapter;
+
     public BandwidthManager(IBandwidthDbInit dbInit,
             IBandwidthDao<T, C> bandwidthDao, RetrievalManager retrievalManager,
             BandwidthDaoUtil<T, C> bandwidthDaoUtil, RegistryIdUtil idUtil,
@@ -539,7 +554,8 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
      */
 
     /**
-     * Schedule the list of subscriptions.
+     * Schedule the list of subscriptions. Recurring subscriptions are
+     * scheduled together, see {@link #scheduleBatch(List)}.
      *
      * @param subscriptions
      *            the subscriptions
@@ -549,13 +565,17 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
             List<Subscription<T, C>> insubscriptions) {
         Set<UnscheduledAllocationReport> unscheduledAllocations = new HashSet<>();
         Map<String, SubscriptionRequestEvent> subscriptionEventsMap = new HashMap<>();
+        List<Subscription<T, C>> subscriptionsToSchedule = new ArrayList<>();
 
         for (Subscription<T, C> subscription : orderSubscriptionsByPriority(
                 insubscriptions)) {
 
-            List<UnscheduledAllocationReport> unscheduled = subscriptionUpdated(
-                    subscription);
-            unscheduledAllocations.addAll(unscheduled);
+            if (subscription instanceof AdhocSubscription) {
+                unscheduledAllocations
+                        .addAll(subscriptionUpdated(subscription));
+            } else if (unscheduleForUpdate(subscription)) {
+                subscriptionsToSchedule.add(subscription);
+            }
 
             /*
              * Create a subscription event or increment an existing event's
@@ -582,6 +602,8 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
             }
         }
 
+        unscheduledAllocations.addAll(scheduleBatch(subscriptionsToSchedule));
+
         /*
          * publish the subscription events.
          */
@@ -594,6 +616,126 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
         return unscheduledAllocations;
     }
 
+    /**
+     * Schedule retrievals for the subscriptions as one batch. DataSetMetaData
+     * is looked up once per dataset rather than once per subscription, and the
+     * retrievals of all subscriptions are stored together and handed to the
+     * {@link RetrievalManager} in one call, so each plan schedules them in a
+     * single pass, highest priority first.
+     *
+     * @param subscriptions
+     *            the subscriptions, already removed from the plans
+     * @return the list of unscheduled allocation reports
+     */
+    @SuppressWarnings("rawtypes")
+    private List<UnscheduledAllocationReport> scheduleBatch(
+            List<Subscription<T, C>> subscriptions) {
+        if (subscriptions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        IPerformanceTimer timer = TimeUtil.getPerformanceTimer();
+        timer.start();
+
+        Map<Subscription<T, C>, RetrievalPlan> plans = new LinkedHashMap<>();
+        Map<String, List<DataSetMetaData>> dsmdMap = new HashMap<>();
+        for (Subscription<T, C> subscription : subscriptions) {
+            if (subscription instanceof RecurringSubscription
+                    && !((RecurringSubscription<T, C>) subscription)
+                            .shouldSchedule()) {
+                continue;
+            }
+            RetrievalPlan plan = bandwidthDaoUtil
+                    .getRetrievalPlan(subscription.getRoute());
+            if (plan == null) {
+                continue;
+            }
+            plans.put(subscription, plan);
+
+            String key = getDataSetKey(subscription);
+            if (!dsmdMap.containsKey(key)) {
+                List<DataSetMetaData> dsmdList = null;
+                try {
+                    dsmdList = DataDeliveryHandlers.getDataSetMetaDataHandler()
+                            .getDataSetMetaDataToDate(
+                                    subscription.getDataSetName(),
+                                    subscription.getProvider(),
+                                    plan.getPlanEnd().getTime());
+                } catch (RegistryHandlerException e1) {
+                    dsmdList = Collections.emptyList();
+                    logger.error(
+                            "Unable to look-up list of DataSetMetData during scheduling. ",
+                            e1);
+                }
+                dsmdMap.put(key, dsmdList);
+            }
+        }
+        timer.lap("metadata lookup");
+
+        Map<Subscription<T, C>, SortedSet<Date>> retrievalTimesMap = new LinkedHashMap<>();
+        for (Entry<Subscription<T, C>, RetrievalPlan> entry : plans
+                .entrySet()) {
+            Subscription<T, C> subscription = entry.getKey();
+            RetrievalPlan plan = entry.getValue();
+            SortedSet<Date> retrievalTimes = subscription.getRetrievalTimes(
+                    plan.getPlanStart().getTime(), plan.getPlanEnd().getTime(),
+                    dsmdMap.get(getDataSetKey(subscription)),
+                    SubscriptionUtil.getInstance());
+            if (!retrievalTimes.isEmpty()) {
+                retrievalTimesMap.put(subscription, retrievalTimes);
+            }
+        }
+        timer.lap("retrieval times");
+
+        List<BandwidthAllocation> reservations = new ArrayList<>();
+        for (Entry<Subscription<T, C>, SortedSet<Date>> entry : retrievalTimesMap
+                .entrySet()) {
+            logger.info("Scheduling subscription " + entry.getKey().getName());
+            reservations.addAll(
+                    createReservations(entry.getKey(), entry.getValue()));
+        }
+        timer.lap("creating retrievals");
+
+        bandwidthDao.store(reservations);
+        timer.lap("storing retrievals");
+
+        List<UnscheduledAllocationReport> unscheduled = reservations.isEmpty()
+                ? Collections.emptyList()
+                : retrievalManager.schedule(reservations);
+        timer.lap("scheduling retrievals");
+
+        timer.stop();
+        timer.logLaps("scheduleBatch() subscriptions [" + subscriptions.size()
+                + "] dataSets [" + dsmdMap.size() + "] retrievals ["
+                + reservations.size() + "]", performanceHandler);
+
+        if (!unscheduled.isEmpty()) {
+            logger.warn(unscheduled.size()
+                    + " allocations unscheduled while scheduling "
+                    + retrievalTimesMap.size() + " subscriptions");
+            if (logger.isDebugEnabled()) {
+                logger.debug(StringUtil.createMessage(
+                        "The following allocations were unscheduled:",
+                        unscheduled, 3));
+            }
+        }
+        return unscheduled;
+    }
+
+    /**
+     * The key of the DataSetMetaData a subscription is scheduled against.
+     * Includes the route as plans on different networks end at different
+     * times.
+     *
+     * @param subscription
+     * @return the key
+     */
+    private static String getDataSetKey(Subscription<?, ?> subscription) {
+        return new StringBuilder(subscription.getDataSetName()).append(':')
+                .append(subscription.getProvider()).append(':')
+                .append(subscription.getRoute()).toString();
+    }
+
     /**
      * Schedule retrievals for Subscriptions in the list.
      *
@@ -998,9 +1140,40 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
         IPerformanceTimer timer = TimeUtil.getPerformanceTimer();
         timer.start();
 
+        List<BandwidthAllocation> reservations = createReservations(
+                subscription, baseReferenceTimes);
+        timer.lap("creating retrievals");
+
+        bandwidthDao.store(reservations);
+        timer.lap("storing retrievals");
+
+        List<UnscheduledAllocationReport> unscheduled = reservations.isEmpty()
+                ? Collections.emptyList()
+                : retrievalManager.schedule(reservations);
+        timer.lap("scheduling retrievals");
+
+        timer.stop();
+        final int numberOfBandwidthSubscriptions = baseReferenceTimes.size();
+        timer.logLaps(
+                "aggregate() bandwidthSubscriptions ["
+                        + numberOfBandwidthSubscriptions + "]",
+                performanceHandler);
+
+        return unscheduled;
+    }
+
+    /**
+     * Create the retrievals of a subscription for the base reference times,
+     * with their start and end times set.
+     *
+     * @param subscription
+     * @param baseReferenceTimes
+     * @return the retrievals to schedule
+     */
+    private List<BandwidthAllocation> createReservations(
+            Subscription subscription, SortedSet<Date> baseReferenceTimes) {
         List<BandwidthAllocation> retrievals = getAggregator()
                 .aggregate(subscription, baseReferenceTimes);
-        timer.lap("aggregator");
         if (CollectionUtil.isNullOrEmpty(retrievals)) {
             return Collections.emptyList();
         }
@@ -1050,24 +1223,7 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
                 reservations.add(retrieval);
             }
         }
-        timer.lap("creating retrievals");
-
-        bandwidthDao.store(reservations);
-        timer.lap("storing retrievals");
-
-        List<UnscheduledAllocationReport> unscheduled = reservations.isEmpty()
-                ? Collections.emptyList()
-                : retrievalManager.schedule(reservations);
-        timer.lap("scheduling retrievals");
-
-        timer.stop();
-        final int numberOfBandwidthSubscriptions = baseReferenceTimes.size();
-        timer.logLaps(
-                "aggregate() bandwidthSubscriptions ["
-                        + numberOfBandwidthSubscriptions + "]",
-                performanceHandler);
-
-        return unscheduled;
+        return reservations;
     }
 
     /*
@@ -1218,6 +1374,20 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
             }
         }
 
+        if (unscheduleForUpdate(subscription)) {
+            return schedule(subscription);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Remove the existing allocations of an updated recurring subscription.
+     *
+     * @param subscription
+     *            the updated subscription
+     * @return true if the subscription should be scheduled again
+     */
+    private boolean unscheduleForUpdate(Subscription<T, C> subscription) {
         // First see if BandwidthManager has seen the subscription before.
         List<BandwidthAllocation> bandwidthAllocations = bandwidthDao
                 .getBandwidthAllocationsByRegistryId(subscription.getId());
@@ -1227,7 +1397,7 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
         if (bandwidthAllocations.isEmpty()
                 && ((RecurringSubscription<?, ?>) subscription).shouldSchedule()
                 && !subscription.isUnscheduled()) {
-            return schedule(subscription);
+            return true;
         } else if (subscription.getStatus() == SubscriptionStatus.DEACTIVATED
                 || subscription.isUnscheduled()) {
             remove(bandwidthAllocations);
@@ -1238,12 +1408,12 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
                 scheduleUnscheduledSubscriptions(subscription.getName());
             }
 
-            return Collections.emptyList();
+            return false;
 
         } else {
             // Normal update, unschedule old allocations and create new ones
             remove(bandwidthAllocations);
-            return schedule(subscription);
+            return true;
         }
     }
 
@@ -1257,7 +1427,29 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
      * @return the graph data
      */
     protected BandwidthGraphData getBandwidthGraphData() {
-        return new BandwidthGraphDataAdapter(retrievalManager).get();
+        BandwidthGraphDataAdapter adapter = graphDataAdapter;
+        if (adapter == null) {
+            synchronized (this) {
+                adapter = graphDataAdapter;
+                if (adapter == null) {
+                    adapter = new BandwidthGraphDataAdapter(retrievalManager,
+                            bandwidthDao);
+                    graphDataAdapter = adapter;
+                }
+            }
+        }
+        return adapter.get();
+    }
+
+    /**
+     * Rebuild the subscription windows of the graph data on the next request,
+     * for a subscription that was inserted, updated or removed.
+     */
+    protected void bandwidthGraphSubscriptionsChanged() {
+        BandwidthGraphDataAdapter adapter = graphDataAdapter;
+        if (adapter != null) {
+            adapter.subscriptionsChanged();
+        }
     }
 
     /**
@@ -1320,15 +1512,15 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
      *
      * @param subscription
      *            the subscription
+     * @param proposedBandwidthManager
+     *            the proposed bandwidth manager, rolled back to its checkpoint
+     *            before scheduling
      * @return set of unscheduled allocation reports
      */
     private Set<UnscheduledAllocationReport> findScheduleConflicts(
             final Subscription<T, C> subscription,
-            BandwidthMap copyOfCurrentMap) {
-
-        BandwidthManager<T, C> proposedBandwidthManager = null;
-        proposedBandwidthManager = startProposedBandwidthManager(
-                copyOfCurrentMap);
+            InMemoryBandwidthManager<T, C> proposedBandwidthManager) {
+        proposedBandwidthManager.rollback();
         Set<UnscheduledAllocationReport> unscheduled = proposedBandwidthManager
                 .scheduleSubscriptions(Arrays.asList(subscription));
         return unscheduled;
@@ -1456,13 +1648,27 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
         int requiredLatency = -1;
         int defaultLatency = subscription.getLatencyInMinutes();
 
+        /*
+         * Copy the current state once, every attempt rolls back to that copy
+         * rather than starting and copying into a new bandwidth manager.
+         */
+        BandwidthMap copyOfCurrentMap = BandwidthMap
+                .load(InMemoryBandwidthContextFactory.getBandwidthMapConfig());
+        BandwidthManager<T, C> proposedBwManager = startProposedBandwidthManager(
+                copyOfCurrentMap);
+        if (!(proposedBwManager instanceof InMemoryBandwidthManager)) {
+            logger.error(
+                    "Unable to start a proposed bandwidth manager to determine the required latency");
+            return requiredLatency;
+        }
+        final InMemoryBandwidthManager<T, C> proposed = (InMemoryBandwidthManager<T, C>) proposedBwManager;
+        proposed.checkpoint();
+
         // Attempt to schedule with latency doubled default
         Subscription<T, C> clone = subscription.copy();
         clone.setLatencyInMinutes(defaultLatency * 2);
-        BandwidthMap copyOfCurrentMap = BandwidthMap
-                .load(InMemoryBandwidthContextFactory.getBandwidthMapConfig());
         Set<UnscheduledAllocationReport> conflicts = findScheduleConflicts(
-                clone, copyOfCurrentMap);
+                clone, proposed);
 
         /*
          * If doubling latency allows subscription to be scheduled, determine
@@ -1483,7 +1689,7 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
                             clone.setLatencyInMinutes(valueToCheck);
 
                             boolean valueWouldWork = findScheduleConflicts(
-                                    clone, copyOfCurrentMap).isEmpty();
+                                    clone, proposed).isEmpty();
 
                             /*
                              * Check if one more restrictive value would not
@@ -1493,8 +1699,8 @@ public abstract class BandwidthManager<T extends Time, C extends Coverage>
                             if (valueWouldWork) {
                                 clone.setLatencyInMinutes(valueToCheck - 1);
 
-                                return findScheduleConflicts(clone,
-                                        copyOfCurrentMap).isEmpty() ? 1 : 0;
+                                return findScheduleConflicts(clone, proposed)
+                                        .isEmpty() ? 1 : 0;
                             }
                             // This would still be unscheduled
                             return -1;
@@ -172,6 +172,10 @@ import com.raytheon.uf.edex.registry.ebxml.util.RegistryIdUtil;
  *                                  BandwidthAllocations
  * Dec 12, 2017  6522     mapeters  Add thread-based logging for retrieval
  * Feb 02, 2018  6471     tjensen   Added UnscheduledAllocationReports
+ * Oct 17, 2026           agent     Added PlanHorizonTask to create plan
+ *                                  buckets ahead of need.
+ * Oct 17, 2026           agent     Rebuild the graph subscription windows
+ *                                  when subscriptions change.
  *
  * </pre>
  *
@@ -535,6 +539,7 @@ public abstract class EdexBandwidthManager<T extends Time, C extends Coverage>
 
                 remove(bandwidthDao
                         .getBandwidthAllocationsByRegistryId(event.getId()));
+                bandwidthGraphSubscriptionsChanged();
 
                 try {
                     /*
@@ -623,6 +628,7 @@ public abstract class EdexBandwidthManager<T extends Time, C extends Coverage>
                 }
             }
 
+            bandwidthGraphSubscriptionsChanged();
             logger.info("Subscription Inserted: " + subscription.getName());
             sendSubscriptionNotificationEvent(event, subscription,
                     isLocalOrigination);
@@ -691,6 +697,7 @@ public abstract class EdexBandwidthManager<T extends Time, C extends Coverage>
                 subscriptionUpdated(subscription);
             }
 
+            bandwidthGraphSubscriptionsChanged();
             logger.info("Subscription Updated: " + subscription.getName());
             sendSubscriptionNotificationEvent(event, subscription,
                     isLocalOrigination);
@@ -1083,6 +1090,8 @@ public abstract class EdexBandwidthManager<T extends Time, C extends Coverage>
                     TimeUnit.MINUTES);
             scheduler.scheduleAtFixedRate(new MaintenanceTask(), 30, 30,
                     TimeUnit.MINUTES);
+            scheduler.scheduleWithFixedDelay(new PlanHorizonTask(), 1, 5,
+                    TimeUnit.MINUTES);
         }
         return unscheduledNames;
     }
@@ -1287,4 +1296,24 @@ public abstract class EdexBandwidthManager<T extends Time, C extends Coverage>
             }
         }
     }
+
+    /**
+     * Private inner work thread used to create the buckets past the end of
+     * each RetrievalPlan ahead of need, so moving the end of a plan forward
+     * from the MaintenanceTask or while scheduling rarely has to create them.
+     */
+    private class PlanHorizonTask implements Runnable {
+        @Override
+        public void run() {
+            for (RetrievalPlan plan : retrievalManager.getRetrievalPlans()
+                    .values()) {
+                try {
+                    plan.extendHorizon();
+                } catch (Throwable t) {
+                    logger.error("PlanHorizonTask: Unable to extend the "
+                            + plan.getNetwork() + " retrieval plan", t);
+                }
+            }
+        }
+    }
 }
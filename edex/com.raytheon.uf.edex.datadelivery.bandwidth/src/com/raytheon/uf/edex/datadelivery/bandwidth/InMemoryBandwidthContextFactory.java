@@ -52,6 +52,7 @@ import com.raytheon.uf.edex.registry.ebxml.util.RegistryIdUtil;
  * May 22, 2014  2808     dhladky   Scheduling unscheduled
  * Mar 16, 2016  3919     tjensen   Cleanup unneeded interfaces
  * Feb 02, 2018  6471     tjensen   Improve configuration file management
+ * Oct 17, 2026           agent     Use ArrayBandwidthBucketDao for buckets.
  *
  * </pre>
  *
@@ -67,7 +68,7 @@ class InMemoryBandwidthContextFactory implements BandwidthContextFactory {
 
     private final IBandwidthDao dao = new InMemoryBandwidthDao();
 
-    private final IBandwidthBucketDao bandwidthBucketsDao = new InMemoryBandwidthBucketDao();
+    private final IBandwidthBucketDao bandwidthBucketsDao = new ArrayBandwidthBucketDao();
 
     private final IBandwidthDbInit dbInit = new InMemoryBandwidthDbInit();
 
@@ -20,10 +20,18 @@
 package com.raytheon.uf.edex.datadelivery.bandwidth;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.raytheon.uf.common.datadelivery.bandwidth.data.SubscriptionStatusSummary;
@@ -31,7 +39,6 @@ import com.raytheon.uf.common.datadelivery.registry.Coverage;
 import com.raytheon.uf.common.datadelivery.registry.Network;
 import com.raytheon.uf.common.datadelivery.registry.Subscription;
 import com.raytheon.uf.common.datadelivery.registry.Time;
-import com.raytheon.uf.common.dataplugin.persist.IPersistableDataObject;
 import com.raytheon.uf.common.util.ReflectionUtil;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
@@ -42,6 +49,12 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
  * Provides a {@link IBandwidthDao} implementation in memory. Intentionally
  * package-private.
  *
+ * Allocations are kept in insertion order and indexed by id, subscription id,
+ * network and status, and bandwidth bucket. The indexes are keyed by the values
+ * an allocation had when it was last stored or updated, so callers must update
+ * an allocation after changing any of those fields, as they would have to for
+ * the database backed dao.
+ *
  * <pre>
  *
  * SOFTWARE HISTORY
@@ -71,6 +84,11 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
  * Sep 18, 2017  6415     rjpeter   Purge SubscriptionRetrieval
  * Oct 25, 2017  6484     tjensen   Merged SubscriptionRetrievals and
  *                                  BandwidthAllocations
+ * Oct 17, 2026           agent     Index allocations by id, subscription,
+ *                                  network and status, and bucket instead of
+ *                                  scanning a single queue.
+ * Oct 17, 2026           agent     Add copyState() for proposal checkpoints.
+ * Oct 17, 2026           agent     Count allocation changes.
  *
  * </pre>
  *
@@ -81,17 +99,96 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
 
     private static final AtomicLong idSequence = new AtomicLong(1);
 
+    /**
+     * An allocation as it was stored, along with the values it is indexed by.
+     */
+    private static final class IndexedAllocation {
+
+        private final long sequence;
+
+        private final BandwidthAllocation allocation;
+
+        private final String subscriptionId;
+
+        private final NetworkStatus networkStatus;
+
+        private final long bandwidthBucket;
+
+        private IndexedAllocation(long sequence,
+                BandwidthAllocation allocation) {
+            this.sequence = sequence;
+            this.allocation = allocation;
+            this.subscriptionId = allocation.getSubscriptionId();
+            this.networkStatus = new NetworkStatus(allocation.getNetwork(),
+                    allocation.getStatus());
+            this.bandwidthBucket = allocation.getBandwidthBucket();
+        }
+    }
+
+    /**
+     * Key for the network and status index, either value may be null.
+     */
+    private static final class NetworkStatus {
+
+        private final Network network;
+
+        private final RetrievalStatus status;
+
+        private NetworkStatus(Network network, RetrievalStatus status) {
+            this.network = network;
+            this.status = status;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(network, status);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof NetworkStatus)) {
+                return false;
+            }
+            NetworkStatus other = (NetworkStatus) obj;
+            return network == other.network && status == other.status;
+        }
+    }
+
     /*
-     * Explicitly ConcurrentLinkedQueue so we can use methods that require that
-     * type to be concurrently safe
+     * Writes are serialized on this lock so the indexes always agree with each
+     * other, reads only use the concurrent collections.
      */
-    private final ConcurrentLinkedQueue<BandwidthAllocation> bandwidthAllocations = new ConcurrentLinkedQueue<>();
+    private final Object writeLock = new Object();
+
+    /* Guarded by writeLock */
+    private long insertionSequence;
+
+    /* Written while holding writeLock */
+    private volatile long allocationChangeCount;
+
+    /*
+     * Allocations by insertion sequence, re-stored allocations move to the end
+     * just as they did when everything was in a single queue.
+     */
+    private final ConcurrentSkipListMap<Long, IndexedAllocation> allocationsBySequence = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<Long, IndexedAllocation> allocationsById = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, NavigableSet<Long>> sequencesBySubscriptionId = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<NetworkStatus, NavigableSet<Long>> sequencesByNetworkStatus = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, NavigableSet<Long>> sequencesByBucket = new ConcurrentHashMap<>();
 
     @Override
     public List<BandwidthAllocation> getBandwidthAllocations(Network network) {
         List<BandwidthAllocation> allocations = new ArrayList<>();
 
-        for (BandwidthAllocation current : bandwidthAllocations) {
+        for (BandwidthAllocation current : resolve(
+                getNetworkStatusSequences(network, null))) {
             if (current.getNetwork() == network) {
                 allocations.add(current.copy());
             }
@@ -109,7 +206,14 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
             return (allocations);
         }
 
-        for (BandwidthAllocation current : bandwidthAllocations) {
+        NavigableSet<Long> sequences = new TreeSet<>();
+        for (Long bandwidthBucketId : bandwidthBucketIdList) {
+            if (bandwidthBucketId != null) {
+                addAll(sequences, sequencesByBucket.get(bandwidthBucketId));
+            }
+        }
+
+        for (BandwidthAllocation current : resolve(sequences)) {
             long bandwidthBucketId = current.getBandwidthBucket();
             Long bandwidthBucketIdLong = Long.valueOf(bandwidthBucketId);
             if ((current.getNetwork() == network) && (bandwidthBucketIdList
@@ -126,7 +230,8 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
             RetrievalStatus state) {
         List<BandwidthAllocation> allocations = new ArrayList<>();
 
-        for (BandwidthAllocation current : bandwidthAllocations) {
+        for (BandwidthAllocation current : resolve(
+                getNetworkStatusSequences(null, state))) {
             if (state.equals(current.getStatus())) {
                 allocations.add(current.copy());
             }
@@ -141,7 +246,8 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
 
         List<BandwidthAllocation> allocations = new ArrayList<>();
 
-        for (BandwidthAllocation current : bandwidthAllocations) {
+        for (BandwidthAllocation current : resolve(sequencesByNetworkStatus
+                .get(new NetworkStatus(network, RetrievalStatus.DEFERRED)))) {
             if (network == current.getNetwork()
                     && RetrievalStatus.DEFERRED.equals(current.getStatus())
                     && !current.getEndTime().after(endTime)) {
@@ -158,7 +264,8 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
 
         final List<BandwidthAllocation> results = new ArrayList<>(2);
 
-        for (BandwidthAllocation current : bandwidthAllocations) {
+        for (BandwidthAllocation current : resolve(
+                sequencesBySubscriptionId.get(registryId))) {
             if (registryId.equals(current.getSubscriptionId())) {
                 results.add(current.copy());
             }
@@ -175,22 +282,27 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
 
     @Override
     public void store(BandwidthAllocation bandwidthAllocation) {
-        replaceOldOrAddToCollection(bandwidthAllocations, bandwidthAllocation);
+        replaceOldOrAdd(bandwidthAllocation);
     }
 
     @Override
     public void createOrUpdate(BandwidthAllocation allocation) {
-        replaceOldOrAddToCollection(bandwidthAllocations, allocation);
+        replaceOldOrAdd(allocation);
     }
 
     @Override
     public void update(BandwidthAllocation allocation) {
-        replaceOldOrAddToCollection(bandwidthAllocations, allocation);
+        replaceOldOrAdd(allocation);
     }
 
     @Override
     public List<BandwidthAllocation> getBandwidthAllocations() {
-        return new ArrayList<>(bandwidthAllocations);
+        List<BandwidthAllocation> allocations = new ArrayList<>(
+                allocationsBySequence.size());
+        for (IndexedAllocation indexed : allocationsBySequence.values()) {
+            allocations.add(indexed.allocation);
+        }
+        return allocations;
     }
 
     @Override
@@ -202,23 +314,49 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
 
     @Override
     public BandwidthAllocation getBandwidthAllocation(long id) {
-        BandwidthAllocation ba = null;
-        for (BandwidthAllocation current : bandwidthAllocations) {
-            if (current.getId() == id) {
-                ba = current;
-                break;
+        IndexedAllocation indexed = allocationsById.get(id);
+        return indexed == null ? null : indexed.allocation;
+    }
+
+    @Override
+    public void purgeBandwidthAllocationsBeforeDate(Date threshold) {
+        synchronized (writeLock) {
+            Iterator<IndexedAllocation> iter = allocationsBySequence.values()
+                    .iterator();
+            while (iter.hasNext()) {
+                IndexedAllocation indexed = iter.next();
+                if (threshold.after(indexed.allocation.getEndTime())) {
+                    removeFromIndexes(indexed);
+                }
             }
         }
-        return ba;
     }
 
     @Override
-    public void purgeBandwidthAllocationsBeforeDate(Date threshold) {
-        Iterator<BandwidthAllocation> iter = bandwidthAllocations.iterator();
-        while (iter.hasNext()) {
-            BandwidthAllocation alloc = iter.next();
-            if (threshold.after(alloc.getEndTime())) {
-                iter.remove();
+    public long getAllocationChangeCount() {
+        return allocationChangeCount;
+    }
+
+    /**
+     * Replace every stored allocation with a copy of the allocations stored in
+     * the other dao.
+     *
+     * @param other
+     *            the dao to copy from
+     */
+    public void copyState(IBandwidthDao<?, ?> other) {
+        if (other == this) {
+            return;
+        }
+        synchronized (writeLock) {
+            allocationsBySequence.clear();
+            allocationsById.clear();
+            sequencesBySubscriptionId.clear();
+            sequencesByNetworkStatus.clear();
+            sequencesByBucket.clear();
+            for (BandwidthAllocation allocation : other
+                    .getBandwidthAllocations()) {
+                replaceOldOrAdd(allocation.copy());
             }
         }
     }
@@ -230,37 +368,135 @@ class InMemoryBandwidthDao<T extends Time, C extends Coverage>
         return idSequence.getAndIncrement();
     }
 
-    private <M extends IPersistableDataObject<Long>> void replaceOldOrAddToCollection(
-            ConcurrentLinkedQueue<M> collection, M obj) {
-        if (obj.getIdentifier() == BandwidthUtil.DEFAULT_IDENTIFIER) {
-            // Have to reflectively set the identifier since it's not part of
-            // the interface
-            ReflectionUtil.setter(obj, "identifier", getNextId());
-        } else {
-            // Always use a greater id than any of the objects in the collection
-            long idValue = idSequence.get();
-            while (obj.getIdentifier() + 1 > idValue) {
-                idValue = idSequence.incrementAndGet();
+    private void replaceOldOrAdd(BandwidthAllocation obj) {
+        synchronized (writeLock) {
+            if (obj.getIdentifier() == BandwidthUtil.DEFAULT_IDENTIFIER) {
+                // Have to reflectively set the identifier since it's not part
+                // of the interface
+                ReflectionUtil.setter(obj, "identifier", getNextId());
+            } else {
+                // Always use a greater id than any of the objects in the
+                // collection
+                long idValue = idSequence.get();
+                while (obj.getIdentifier() + 1 > idValue) {
+                    idValue = idSequence.incrementAndGet();
+                }
+                IndexedAllocation old = allocationsById
+                        .get(obj.getIdentifier());
+                if (old != null) {
+                    removeFromIndexes(old);
+                }
+            }
+
+            allocationChangeCount++;
+            IndexedAllocation indexed = new IndexedAllocation(
+                    insertionSequence++, obj);
+            allocationsBySequence.put(indexed.sequence, indexed);
+            allocationsById.put(obj.getIdentifier(), indexed);
+            if (indexed.subscriptionId != null) {
+                addToIndex(sequencesBySubscriptionId, indexed.subscriptionId,
+                        indexed.sequence);
             }
-            removeFromCollection(collection, obj);
+            addToIndex(sequencesByNetworkStatus, indexed.networkStatus,
+                    indexed.sequence);
+            addToIndex(sequencesByBucket, indexed.bandwidthBucket,
+                    indexed.sequence);
+        }
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private void removeFromIndexes(IndexedAllocation indexed) {
+        allocationChangeCount++;
+        allocationsBySequence.remove(indexed.sequence);
+        allocationsById.remove(indexed.allocation.getIdentifier(), indexed);
+        if (indexed.subscriptionId != null) {
+            removeFromIndex(sequencesBySubscriptionId, indexed.subscriptionId,
+                    indexed.sequence);
         }
+        removeFromIndex(sequencesByNetworkStatus, indexed.networkStatus,
+                indexed.sequence);
+        removeFromIndex(sequencesByBucket, indexed.bandwidthBucket,
+                indexed.sequence);
+    }
 
-        collection.add(obj);
+    private static <K> void addToIndex(
+            ConcurrentMap<K, NavigableSet<Long>> index, K key, long sequence) {
+        NavigableSet<Long> sequences = index.get(key);
+        if (sequences == null) {
+            sequences = new ConcurrentSkipListSet<>();
+            index.put(key, sequences);
+        }
+        sequences.add(sequence);
     }
 
-    private static <M extends IPersistableDataObject<Long>> void removeFromCollection(
-            ConcurrentLinkedQueue<M> collection, M obj) {
-        for (Iterator<M> iter = collection.iterator(); iter.hasNext();) {
-            M old = iter.next();
-            if (old.getIdentifier().equals(obj.getIdentifier())) {
-                iter.remove();
-                break;
+    private static <K> void removeFromIndex(
+            ConcurrentMap<K, NavigableSet<Long>> index, K key, long sequence) {
+        NavigableSet<Long> sequences = index.get(key);
+        if (sequences != null) {
+            sequences.remove(sequence);
+            if (sequences.isEmpty()) {
+                index.remove(key);
             }
         }
     }
 
+    /**
+     * Collect the sequences for every indexed network and status pair matching
+     * the arguments, a null argument matches any value.
+     */
+    private NavigableSet<Long> getNetworkStatusSequences(Network network,
+            RetrievalStatus status) {
+        NavigableSet<Long> sequences = new TreeSet<>();
+        for (Map.Entry<NetworkStatus, NavigableSet<Long>> entry : sequencesByNetworkStatus
+                .entrySet()) {
+            NetworkStatus key = entry.getKey();
+            if ((network == null || network == key.network)
+                    && (status == null || status == key.status)) {
+                addAll(sequences, entry.getValue());
+            }
+        }
+        return sequences;
+    }
+
+    private static void addAll(Collection<Long> sequences,
+            Collection<Long> toAdd) {
+        if (toAdd != null) {
+            sequences.addAll(toAdd);
+        }
+    }
+
+    /**
+     * Look up the allocations for the given sequences in insertion order,
+     * skipping any removed since the sequences were read.
+     */
+    private List<BandwidthAllocation> resolve(NavigableSet<Long> sequences) {
+        if (sequences == null) {
+            return new ArrayList<>(0);
+        }
+        List<BandwidthAllocation> allocations = new ArrayList<>(
+                sequences.size());
+        for (Long sequence : sequences) {
+            IndexedAllocation indexed = allocationsBySequence.get(sequence);
+            if (indexed != null) {
+                allocations.add(indexed.allocation);
+            }
+        }
+        return allocations;
+    }
+
     @Override
     public void remove(List<BandwidthAllocation> bas) {
-        this.bandwidthAllocations.removeAll(bas);
+        synchronized (writeLock) {
+            for (BandwidthAllocation ba : bas) {
+                IndexedAllocation indexed = allocationsById
+                        .get(ba.getIdentifier());
+                // Only the stored instance is removed, not an equal copy
+                if (indexed != null && indexed.allocation == ba) {
+                    removeFromIndexes(indexed);
+                }
+            }
+        }
     }
 }
@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import com.raytheon.uf.common.datadelivery.bandwidth.ProposeScheduleResponse;
 import com.raytheon.uf.common.datadelivery.registry.AdhocSubscription;
@@ -35,10 +36,13 @@ import com.raytheon.uf.common.serialization.SerializationException;
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthBucketDao;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDbInit;
 import com.raytheon.uf.edex.datadelivery.bandwidth.interfaces.IBandwidthInitializer;
+import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.InMemoryBandwidthBucketAllocationAssociator;
 import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalManager;
+import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalPlan;
 import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.UnscheduledAllocationReport;
 import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthDaoUtil;
 import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
@@ -77,6 +81,8 @@ import com.raytheon.uf.edex.registry.ebxml.util.RegistryIdUtil;
  * Aug 29, 2017  6186     rjpeter   Override queueRetrieval to do nothing
  * Nov 22, 2017  6484     tjensen   Improve logging
  * Feb 02, 2018  6471     tjensen   Added UnscheduledAllocationReports
+ * Oct 17, 2026           agent     Added checkpoint() and rollback() so one
+ *                                  instance can try several proposals.
  *
  * </pre>
  *
@@ -96,6 +102,12 @@ class InMemoryBandwidthManager<T extends Time, C extends Coverage>
     public static final String[] IN_MEMORY_BANDWIDTH_MANAGER_FILES = BandwidthUtil
             .getSpringFileNamesForMode(MODE_NAME);
 
+    /** Allocations saved by {@link #checkpoint()}. */
+    private InMemoryBandwidthDao<T, C> checkpointDao;
+
+    /** Retrieval plans saved by {@link #checkpoint()}. */
+    private RetrievalManager checkpointRetrievalManager;
+
     /**
      * {@link IBandwidthInitializer} which will make a copy of the current
      * running EDEX {@link BandwidthManager} data.
@@ -151,6 +163,51 @@ class InMemoryBandwidthManager<T extends Time, C extends Coverage>
                 null);
     }
 
+    /**
+     * Save the current allocations and retrieval plans so they can be restored
+     * with {@link #rollback()}. This lets a proposal be tried against the
+     * same copy of the EDEX state repeatedly without starting a new
+     * instance, and re-copying that state, for every attempt.
+     */
+    void checkpoint() {
+        InMemoryBandwidthDao<T, C> dao = new InMemoryBandwidthDao<>();
+        IBandwidthBucketDao bucketsDao = new ArrayBandwidthBucketDao();
+        InMemoryBandwidthBucketAllocationAssociator associator = new InMemoryBandwidthBucketAllocationAssociator(
+                dao, bucketsDao);
+
+        Map<Network, RetrievalPlan> plans = new TreeMap<>();
+        for (Network network : retrievalManager.getRetrievalPlans()
+                .keySet()) {
+            RetrievalPlan plan = new RetrievalPlan();
+            plan.setNetwork(network);
+            plan.setBandwidthDao(dao);
+            plan.setBucketsDao(bucketsDao);
+            plan.setAssociator(associator);
+            plans.put(network, plan);
+        }
+        RetrievalManager manager = new RetrievalManager(dao);
+        manager.setRetrievalPlans(plans);
+
+        dao.copyState(bandwidthDao);
+        manager.copyState(retrievalManager);
+
+        checkpointDao = dao;
+        checkpointRetrievalManager = manager;
+    }
+
+    /**
+     * Restore the allocations and retrieval plans saved by the last
+     * {@link #checkpoint()}.
+     */
+    void rollback() {
+        if (checkpointDao == null) {
+            throw new IllegalStateException(
+                    "rollback() called without a checkpoint");
+        }
+        ((InMemoryBandwidthDao<T, C>) bandwidthDao).copyState(checkpointDao);
+        retrievalManager.copyState(checkpointRetrievalManager);
+    }
+
     @Override
     protected String[] getSpringFilesForNewInstance() {
         return IN_MEMORY_BANDWIDTH_MANAGER_FILES;
@@ -48,6 +48,7 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
  * ------------ ---------- ----------- --------------------------
  * Jun 18, 2013 2106       djohnson     Extracted from {@link RetrievalPlan}.
  * Dec 17, 2013 2636       bgonzale     Throw exception if attempt to overfill the bucket.
+ * Oct 17, 2026            agent        Added constructor taking every field.
  * 
  * </pre>
  * 
@@ -90,6 +91,30 @@ public class BandwidthBucket implements Comparable<BandwidthBucket>,
         this.network = network;
     }
 
+    /**
+     * Constructor taking every field, for daos that do not store
+     * {@link BandwidthBucket} instances directly.
+     * 
+     * @param id
+     *            the identifier
+     * @param bucketStartTime
+     *            the bucket start time
+     * @param sizeInBytes
+     *            the bucket size
+     * @param currentSize
+     *            the number of allocated bytes
+     * @param network
+     *            the network
+     */
+    public BandwidthBucket(long id, long bucketStartTime, long sizeInBytes,
+            long currentSize, Network network) {
+        this.id = id;
+        this.bucketStartTime = bucketStartTime;
+        this.bucketSize = sizeInBytes;
+        this.currentSize = currentSize;
+        this.network = network;
+    }
+
     /**
      * Copy constructor.
      * 
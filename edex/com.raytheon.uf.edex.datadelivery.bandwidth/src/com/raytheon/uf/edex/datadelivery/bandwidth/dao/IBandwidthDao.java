@@ -58,6 +58,7 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalStatus;
  * Sep 18, 2017  6415     rjpeter   Purge SubscriptionRetrieval
  * Oct 25, 2017  6484     tjensen   Merged SubscriptionRetrievals and
  *                                  BandwidthAllocations
+ * Oct 17, 2026           agent     Add getAllocationChangeCount().
  * </pre>
  *
  * @author djohnson
@@ -193,4 +194,13 @@ public interface IBandwidthDao<T extends Time, C extends Coverage> {
      */
     void purgeBandwidthAllocationsBeforeDate(Date purgeThreshold)
             throws DataAccessLayerException;
+
+    /**
+     * Get a count that changes whenever allocations are stored, updated or
+     * removed through this dao, so callers can tell whether data derived
+     * from the allocations is stale.
+     *
+     * @return the count
+     */
+    long getAllocationChangeCount();
 }
@@ -0,0 +1,99 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.handler;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthGraphData;
+
+/**
+ * Versions the bandwidth graph data handed to clients. Each distinct graph
+ * gets a new version and the most recent versions are kept, so a client that
+ * sends the version it has gets back only what changed since then.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class BandwidthGraphDataVersions {
+
+    private final int maxVersions;
+
+    /** Version -> graph data, oldest first */
+    private final Map<Long, BandwidthGraphData> versions = new LinkedHashMap<>();
+
+    private BandwidthGraphData latest;
+
+    /*
+     * Starts from the clock so versions handed out before a restart are not
+     * reused for different data after it.
+     */
+    private long nextVersion = System.currentTimeMillis();
+
+    /**
+     * Constructor.
+     *
+     * @param maxVersions
+     *            how many versions to keep changes from
+     */
+    BandwidthGraphDataVersions(int maxVersions) {
+        this.maxVersions = Math.max(1, maxVersions);
+    }
+
+    /**
+     * Version the current graph data and get what a client needs to be up to
+     * date.
+     *
+     * @param current
+     *            the current graph data, not modified afterwards
+     * @param clientVersion
+     *            the version the client has, 0 for none
+     * @return the changes since the client version, or all the current data
+     *         if that version is no longer kept
+     */
+    synchronized BandwidthGraphData getUpdate(BandwidthGraphData current,
+            long clientVersion) {
+        if (latest == null || current.getChangesSince(latest).hasChanges()) {
+            current.setVersion(nextVersion++);
+            versions.put(current.getVersion(), current);
+            latest = current;
+            Iterator<Long> oldest = versions.keySet().iterator();
+            while (versions.size() > maxVersions) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        BandwidthGraphData base = versions.get(clientVersion);
+        if (base == null) {
+            return latest;
+        }
+        return latest.getChangesSince(base);
+    }
+}
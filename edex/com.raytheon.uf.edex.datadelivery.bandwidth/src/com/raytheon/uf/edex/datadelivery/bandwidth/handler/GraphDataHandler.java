@@ -20,12 +20,14 @@
 package com.raytheon.uf.edex.datadelivery.bandwidth.handler;
 
 import com.raytheon.uf.common.datadelivery.bandwidth.BandwidthService;
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthGraphData;
 import com.raytheon.uf.common.datadelivery.bandwidth.request.GraphDataRequest;
 import com.raytheon.uf.common.datadelivery.bandwidth.response.GraphDataResponse;
 import com.raytheon.uf.common.serialization.comm.IRequestHandler;
 
 /**
- * TODO Add Description
+ * Handles requests for the bandwidth utilization graph data, returning only
+ * the changes since the version the requester has.
  * 
  * <pre>
  * 
@@ -36,6 +38,8 @@ import com.raytheon.uf.common.serialization.comm.IRequestHandler;
  * Nov 25, 2012   2369     mpduff      Initial creation.
  * Dec 06, 2012   1397     djohnson    Delegate to the bandwidth service.
  * Mar 16, 2016   3919     tjensen     Cleanup unneeded interfaces
+ * Oct 17, 2026            agent       Return changes since the requested
+ *                                     version.
  * 
  * </pre>
  * 
@@ -45,8 +49,14 @@ import com.raytheon.uf.common.serialization.comm.IRequestHandler;
 
 public class GraphDataHandler implements IRequestHandler<GraphDataRequest> {
 
+    /** How many graph data versions changes are kept from */
+    private static final int MAX_VERSIONS = 16;
+
     private final BandwidthService bandwidthService;
 
+    private final BandwidthGraphDataVersions versions = new BandwidthGraphDataVersions(
+            MAX_VERSIONS);
+
     public GraphDataHandler(BandwidthService bandwidthService) {
         this.bandwidthService = bandwidthService;
     }
@@ -56,17 +66,23 @@ public class GraphDataHandler implements IRequestHandler<GraphDataRequest> {
      */
     @Override
     public Object handleRequest(GraphDataRequest request) throws Exception {
-        return getResponse();
+        return getResponse(request.getVersion());
     }
 
     /**
      * Get the response object.
      * 
+     * @param version
+     *            the version of the graph data the requester has
      * @return GraphDataResponse
      */
-    private GraphDataResponse getResponse() {
+    private GraphDataResponse getResponse(long version) {
         GraphDataResponse response = new GraphDataResponse();
-        response.setGraphData(bandwidthService.getBandwidthGraphData());
+        BandwidthGraphData graphData = bandwidthService.getBandwidthGraphData();
+        if (graphData != null) {
+            graphData = versions.getUpdate(graphData, version);
+        }
+        response.setGraphData(graphData);
 
         return response;
     }
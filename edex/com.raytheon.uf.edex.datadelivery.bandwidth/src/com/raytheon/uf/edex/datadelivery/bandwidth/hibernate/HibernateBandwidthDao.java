@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -69,6 +70,7 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalStatus;
  * Sep 18, 2017  6415     rjpeter   Purge SubscriptionRetrieval
  * Oct 25, 2017  6484     tjensen   Merged SubscriptionRetrievals and
  *                                  BandwidthAllocations
+ * Oct 17, 2026           agent     Count allocation changes.
  *
  * </pre>
  *
@@ -81,6 +83,8 @@ public class HibernateBandwidthDao<T extends Time, C extends Coverage>
 
     private BandwidthAllocationDao bandwidthAllocationDao;
 
+    private final AtomicLong allocationChangeCount = new AtomicLong();
+
     /**
      * Constructor.
      */
@@ -122,26 +126,31 @@ public class HibernateBandwidthDao<T extends Time, C extends Coverage>
         for (BandwidthAllocation retrieval : retrievals) {
             bandwidthAllocationDao.create(retrieval);
         }
+        allocationChangeCount.incrementAndGet();
     }
 
     @Override
     public void remove(List<BandwidthAllocation> bandwidthAllocations) {
         bandwidthAllocationDao.deleteAll(bandwidthAllocations);
+        allocationChangeCount.incrementAndGet();
     }
 
     @Override
     public void store(BandwidthAllocation bandwidthAllocation) {
         bandwidthAllocationDao.create(bandwidthAllocation);
+        allocationChangeCount.incrementAndGet();
     }
 
     @Override
     public void createOrUpdate(BandwidthAllocation allocation) {
         bandwidthAllocationDao.createOrUpdate(allocation);
+        allocationChangeCount.incrementAndGet();
     }
 
     @Override
     public void update(BandwidthAllocation allocation) {
         bandwidthAllocationDao.update(allocation);
+        allocationChangeCount.incrementAndGet();
     }
 
     @Override
@@ -194,6 +203,12 @@ public class HibernateBandwidthDao<T extends Time, C extends Coverage>
     public void purgeBandwidthAllocationsBeforeDate(Date threshold)
             throws DataAccessLayerException {
         bandwidthAllocationDao.deleteBeforeDate(threshold);
+        allocationChangeCount.incrementAndGet();
+    }
+
+    @Override
+    public long getAllocationChangeCount() {
+        return allocationChangeCount.get();
     }
 
     /**
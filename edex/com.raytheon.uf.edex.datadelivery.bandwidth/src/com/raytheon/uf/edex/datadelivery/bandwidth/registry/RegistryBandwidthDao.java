@@ -36,6 +36,7 @@ import com.raytheon.uf.edex.database.dao.DaoConfig;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Nov 15, 2013 1736       dhladky     Dao for registry bandwidth gathering
+ * Oct 17, 2026            agent       Add queryAllByTimeRange()
  * 
  * </pre>
  * 
@@ -88,6 +89,35 @@ public class RegistryBandwidthDao extends CoreDao {
         }
     }
     
+    /**
+     * Retrieves all RegistryBandwidthRecords in the timePeriod range, ordered
+     * by timePeriod. All times are in millis since 0 GMT of each day
+     * 
+     * @param startMillis
+     *            inclusive
+     * @param endMillis
+     *            exclusive
+     * @return the records, empty if none exist
+     * @throws DataAccessLayerException
+     */
+    @SuppressWarnings("unchecked")
+    public List<RegistryBandwidthRecord> queryAllByTimeRange(long startMillis,
+            long endMillis) throws DataAccessLayerException {
+
+        List<String> fields = new ArrayList<String>(2);
+        List<Object> values = new ArrayList<Object>(2);
+        List<String> operands = new ArrayList<String>(2);
+        fields.add(FIELD);
+        values.add(startMillis);
+        operands.add(GREATERTHANEQUAL);
+        fields.add(FIELD);
+        values.add(endMillis);
+        operands.add(LESSTHAN);
+
+        return (List<RegistryBandwidthRecord>) queryByCriteria(fields, values,
+                operands, null, FIELD, true);
+    }
+
     /**
      * Add or update an existing RegistryBandwidthRecord
      * 
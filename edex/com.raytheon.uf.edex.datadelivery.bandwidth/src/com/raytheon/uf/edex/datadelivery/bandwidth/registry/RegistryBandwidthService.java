@@ -20,6 +20,9 @@ package com.raytheon.uf.edex.datadelivery.bandwidth.registry;
  * further licensing information.
  **/
 import java.util.Calendar;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import com.raytheon.uf.common.datadelivery.registry.Network;
 import com.raytheon.uf.common.status.IUFStatusHandler;
@@ -41,6 +44,10 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthBucketDao;
  * ------------ ---------- ----------- --------------------------
  * Nov 16, 2013  1736     dhladky      Initial creation
  * Feb 14, 2014  2636     mpduff       Logging cleanup.
+ * Oct 17, 2026           agent        Look up the registry bandwidth of a
+ *                                     range of buckets in one query.
+ * Oct 17, 2026           agent        Match records within half a bucket in
+ *                                     millis, not minutes.
  * 
  * </pre>
  * 
@@ -157,6 +164,60 @@ public class RegistryBandwidthService {
         return 0;
     }
 
+    /**
+     * Gives the time averaged bandwidth utilization for the registry of each of
+     * a range of consecutive buckets, whether or not the buckets exist yet.
+     * The records of the whole day are read in a single query, and the
+     * current bandwidth is used for buckets without a record.
+     * 
+     * @param firstBucketMillis
+     *            start time of the first bucket
+     * @param bucketCount
+     *            number of buckets
+     * @return kilobytes per second for each bucket
+     */
+    public int[] getRegistryBandwidth(long firstBucketMillis, int bucketCount) {
+
+        int[] bandwidth = new int[bucketCount];
+
+        if (network == Network.OPSNET) {
+
+            NavigableMap<Long, Integer> bytesByTimePeriod = new TreeMap<>();
+            RegistryBandwidthDao rbd = new RegistryBandwidthDao();
+            try {
+                for (RegistryBandwidthRecord rbr : rbd
+                        .queryAllByTimeRange(0, TimeUtil.MILLIS_PER_DAY)) {
+                    bytesByTimePeriod.put(rbr.getTimePeriod(), rbr.getBytes());
+                }
+            } catch (DataAccessLayerException dale) {
+                statusHandler.handle(Priority.PROBLEM,
+                        "Could not lookup Registry Bandwidth Records! ", dale);
+            }
+
+            long bucketMillis = getBucketMillis();
+            Integer current = null;
+            for (int i = 0; i < bucketCount; i++) {
+                // same window as getRegistryBandwidthRecord(Calendar)
+                long timePeriodKey = getTimeKey(
+                        firstBucketMillis + i * bucketMillis);
+                Entry<Long, Integer> entry = bytesByTimePeriod
+                        .lowerEntry(timePeriodKey + bucketMillis / 2);
+                if (entry != null
+                        && entry.getKey() >= timePeriodKey - bucketMillis / 2) {
+                    bandwidth[i] = convertBytesToKilobytes(entry.getValue());
+                } else {
+                    // No record for this bucket, try current
+                    if (current == null) {
+                        current = getCurrentRegistryBandwidth();
+                    }
+                    bandwidth[i] = current;
+                }
+            }
+        }
+
+        return bandwidth;
+    }
+
     /**
      * Retrieve a registry bandwidth record
      * 
@@ -171,8 +232,8 @@ public class RegistryBandwidthService {
 
         if (timePeriodKey != null) {
             try {
-                long startMillis = timePeriodKey - bucketSize / 2;
-                long endMillis = timePeriodKey + bucketSize / 2;
+                long startMillis = timePeriodKey - getBucketMillis() / 2;
+                long endMillis = timePeriodKey + getBucketMillis() / 2;
                 rbr = rbd.queryByTimeRange(startMillis, endMillis);
             } catch (DataAccessLayerException dale) {
                 statusHandler.handle(Priority.PROBLEM,
@@ -245,6 +306,15 @@ public class RegistryBandwidthService {
         }
     }
 
+    /**
+     * The bucket size is in minutes, the time period keys are in millis.
+     * 
+     * @return the bucket size in millis
+     */
+    private long getBucketMillis() {
+        return bucketSize * TimeUtil.MILLIS_PER_MINUTE;
+    }
+
     /**
      * Records in the DB are kept by millis on a one day cycle
      * 
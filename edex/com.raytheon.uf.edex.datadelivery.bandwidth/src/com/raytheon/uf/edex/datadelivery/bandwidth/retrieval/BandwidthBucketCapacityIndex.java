@@ -0,0 +1,422 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
+
+import java.util.Arrays;
+
+import com.raytheon.uf.common.datadelivery.registry.Subscription.SubscriptionPriority;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+
+/**
+ * Segment tree over the {@link BandwidthBucket}s of a single
+ * {@link RetrievalPlan}, ordered by bucket start time. Each bucket holds its
+ * free bytes and the lowest priority of the {@link BandwidthAllocation}s
+ * occupying it, so that "total free bytes in a window", "first bucket in a
+ * window with N bytes free" and "first bucket in a window with a lower
+ * priority occupant" are O(log n) instead of a walk of every bucket.
+ *
+ * Buckets are addressed by slot, a position that stays stable until the next
+ * {@link #append(long, long, int)}, {@link #removeUpTo(long)} or
+ * {@link #clear()}. Buckets are only ever appended to the end of the plan and
+ * removed from the front, so the tree is stored as a sliding range of leaves
+ * that is compacted when it runs out of room.
+ *
+ * This class is not thread-safe, access must be guarded by the owning
+ * {@link RetrievalPlan}'s write lock.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class BandwidthBucketCapacityIndex {
+
+    /** Occupant value for a bucket with no {@link BandwidthAllocation}s. */
+    public static final int NO_OCCUPANT = -1;
+
+    /** Returned by the slot searches when no bucket matches. */
+    public static final int NOT_FOUND = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /** Bucket start times, live between head (inclusive) and tail. */
+    private long[] startTimes;
+
+    /** Sum of free bytes, used for window totals. */
+    private long[] freeBytesSum;
+
+    /** Max of free bytes, used to find a bucket with room. */
+    private long[] freeBytesMax;
+
+    /** Max of occupant priority ordinals, used to find displaceable buckets. */
+    private long[] occupantMax;
+
+    private int capacity;
+
+    private int head;
+
+    private int tail;
+
+    /**
+     * Constructor.
+     */
+    public BandwidthBucketCapacityIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Remove all buckets from the index.
+     */
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @return the number of buckets in the index
+     */
+    public int size() {
+        return tail - head;
+    }
+
+    /**
+     * Add a bucket to the end of the index.
+     *
+     * @param bucketStartTime
+     *            the bucket start time, must be later than any bucket already
+     *            in the index
+     * @param availableBytes
+     *            the bytes available in the bucket
+     * @param lowestOccupantPriority
+     *            the ordinal of the lowest priority allocation in the bucket,
+     *            or {@link #NO_OCCUPANT}
+     */
+    public void append(long bucketStartTime, long availableBytes,
+            int lowestOccupantPriority) {
+        if (tail > head && bucketStartTime <= startTimes[tail - 1]) {
+            throw new IllegalArgumentException("Bucket [" + bucketStartTime
+                    + "] must start after the last indexed bucket ["
+                    + startTimes[tail - 1] + "]");
+        }
+        if (tail == capacity) {
+            compact(size() + 1);
+        }
+        startTimes[tail] = bucketStartTime;
+        setLeaf(tail, Math.max(0, availableBytes), availableBytes,
+                lowestOccupantPriority);
+        tail++;
+    }
+
+    /**
+     * Update the values for an indexed bucket.
+     *
+     * @param bucketStartTime
+     *            the bucket start time
+     * @param availableBytes
+     *            the bytes available in the bucket
+     * @param lowestOccupantPriority
+     *            the ordinal of the lowest priority allocation in the bucket,
+     *            or {@link #NO_OCCUPANT}
+     * @return true if the bucket was indexed and updated
+     */
+    public boolean update(long bucketStartTime, long availableBytes,
+            int lowestOccupantPriority) {
+        int pos = Arrays.binarySearch(startTimes, head, tail, bucketStartTime);
+        if (pos < 0) {
+            return false;
+        }
+        setLeaf(pos, Math.max(0, availableBytes), availableBytes,
+                lowestOccupantPriority);
+        return true;
+    }
+
+    /**
+     * Remove all buckets with a start time up to and including the specified
+     * time.
+     *
+     * @param time
+     *            the latest start time to remove
+     */
+    public void removeUpTo(long time) {
+        while (head < tail && startTimes[head] <= time) {
+            setLeaf(head, 0, Long.MIN_VALUE, NO_OCCUPANT);
+            head++;
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+    }
+
+    /**
+     * Resolve the slots for the buckets in the specified window, using the
+     * same boundary rules as
+     * {@link com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthBucketDao#getBucketsInWindow(Long, Long, com.raytheon.uf.common.datadelivery.registry.Network)}.
+     *
+     * @param startMillis
+     *            the start time for buckets to include
+     * @param endMillis
+     *            the end time for buckets to include
+     * @return the window
+     * @throws IllegalArgumentException
+     *             if no buckets can be found for the window
+     */
+    public Window getWindow(long startMillis, long endMillis) {
+        int startSlot = ceilingSlot(startMillis);
+        if (startSlot != NOT_FOUND && startTimes[startSlot] > endMillis) {
+            startSlot = floorSlot(startMillis);
+        }
+        if (startSlot == NOT_FOUND && tail > head) {
+            startSlot = tail - 1;
+        }
+
+        int endSlot = floorSlot(endMillis);
+        if (endSlot != NOT_FOUND && startTimes[endSlot] < startMillis) {
+            endSlot = ceilingSlot(endMillis);
+        }
+        if (endSlot == NOT_FOUND && tail > head) {
+            endSlot = head;
+        }
+
+        if (startSlot == NOT_FOUND || endSlot == NOT_FOUND
+                || startSlot > endSlot) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid start and end times requested for getWindow(): start time [%s], end time [%s], indexed buckets [%s].",
+                    startMillis, endMillis, size()));
+        }
+        return new Window(startSlot, endSlot);
+    }
+
+    /**
+     * Get the total free bytes of the buckets in the window.
+     *
+     * @param window
+     *            the window
+     * @return the free bytes
+     */
+    public long getAvailableBytes(Window window) {
+        long total = 0;
+        int lo = window.first + capacity;
+        int hi = window.last + capacity + 1;
+        while (lo < hi) {
+            if ((lo & 1) == 1) {
+                total += freeBytesSum[lo++];
+            }
+            if ((hi & 1) == 1) {
+                total += freeBytesSum[--hi];
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        return total;
+    }
+
+    /**
+     * Get the free bytes of a single bucket.
+     *
+     * @param slot
+     *            the slot
+     * @return the free bytes
+     */
+    public long getAvailableBytes(int slot) {
+        return freeBytesSum[capacity + slot];
+    }
+
+    /**
+     * Get the start time of the bucket in a slot.
+     *
+     * @param slot
+     *            the slot
+     * @return the bucket start time
+     */
+    public long getBucketStartTime(int slot) {
+        return startTimes[slot];
+    }
+
+    /**
+     * Find the first slot, between fromSlot and toSlot inclusive, whose bucket
+     * has at least the specified number of bytes free.
+     *
+     * @param fromSlot
+     *            the first slot to consider
+     * @param toSlot
+     *            the last slot to consider
+     * @param minBytes
+     *            the number of bytes required
+     * @return the slot, or {@link #NOT_FOUND}
+     */
+    public int findFirstWithAvailableBytes(int fromSlot, int toSlot,
+            long minBytes) {
+        return findFirst(freeBytesMax, 1, 0, capacity - 1, fromSlot, toSlot,
+                minBytes);
+    }
+
+    /**
+     * Find the first slot, between fromSlot and toSlot inclusive, whose bucket
+     * contains an allocation with a lower priority than the one specified.
+     *
+     * @param fromSlot
+     *            the first slot to consider
+     * @param toSlot
+     *            the last slot to consider
+     * @param priority
+     *            the priority
+     * @return the slot, or {@link #NOT_FOUND}
+     */
+    public int findFirstWithLowerPriorityOccupant(int fromSlot, int toSlot,
+            SubscriptionPriority priority) {
+        return findFirst(occupantMax, 1, 0, capacity - 1, fromSlot, toSlot,
+                priority.ordinal() + 1L);
+    }
+
+    /**
+     * Descend the tree to the left-most leaf in [from, to] whose value is at
+     * least min.
+     */
+    private int findFirst(long[] tree, int node, int nodeLo, int nodeHi,
+            int from, int to, long min) {
+        if (nodeHi < from || nodeLo > to || tree[node] < min) {
+            return NOT_FOUND;
+        }
+        if (nodeLo == nodeHi) {
+            return nodeLo;
+        }
+        int mid = (nodeLo + nodeHi) >>> 1;
+        int found = findFirst(tree, 2 * node, nodeLo, mid, from, to, min);
+        if (found == NOT_FOUND) {
+            found = findFirst(tree, 2 * node + 1, mid + 1, nodeHi, from, to,
+                    min);
+        }
+        return found;
+    }
+
+    private int ceilingSlot(long time) {
+        int pos = Arrays.binarySearch(startTimes, head, tail, time);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return pos < tail ? pos : NOT_FOUND;
+    }
+
+    private int floorSlot(long time) {
+        int pos = Arrays.binarySearch(startTimes, head, tail, time);
+        if (pos < 0) {
+            pos = -pos - 2;
+        }
+        return pos >= head ? pos : NOT_FOUND;
+    }
+
+    private void setLeaf(int slot, long sum, long max, long occupant) {
+        int node = capacity + slot;
+        freeBytesSum[node] = sum;
+        freeBytesMax[node] = max;
+        occupantMax[node] = occupant;
+        for (node >>= 1; node > 0; node >>= 1) {
+            pull(node);
+        }
+    }
+
+    private void pull(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        freeBytesSum[node] = freeBytesSum[left] + freeBytesSum[right];
+        freeBytesMax[node] = Math.max(freeBytesMax[left], freeBytesMax[right]);
+        occupantMax[node] = Math.max(occupantMax[left], occupantMax[right]);
+    }
+
+    /**
+     * Move the live leaves to the front of the tree, growing it if needed to
+     * hold at least the required number of buckets with room to spare.
+     */
+    private void compact(int required) {
+        int live = size();
+        long[] oldStartTimes = startTimes;
+        long[] oldFree = freeBytesMax;
+        long[] oldOccupants = occupantMax;
+        int oldCapacity = capacity;
+        int oldHead = head;
+
+        int newCapacity = oldCapacity;
+        while (newCapacity < required * 2) {
+            newCapacity <<= 1;
+        }
+        allocate(newCapacity);
+
+        System.arraycopy(oldStartTimes, oldHead, startTimes, 0, live);
+        for (int i = 0; i < live; i++) {
+            int node = capacity + i;
+            long free = oldFree[oldCapacity + oldHead + i];
+            freeBytesSum[node] = Math.max(0, free);
+            freeBytesMax[node] = free;
+            occupantMax[node] = oldOccupants[oldCapacity + oldHead + i];
+        }
+        for (int node = capacity - 1; node > 0; node--) {
+            pull(node);
+        }
+        tail = live;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        startTimes = new long[capacity];
+        freeBytesSum = new long[2 * capacity];
+        freeBytesMax = new long[2 * capacity];
+        occupantMax = new long[2 * capacity];
+        Arrays.fill(freeBytesMax, Long.MIN_VALUE);
+        Arrays.fill(occupantMax, NO_OCCUPANT);
+        head = 0;
+        tail = 0;
+    }
+
+    /**
+     * An inclusive range of slots resolved from a time window.
+     */
+    public static class Window {
+
+        private final int first;
+
+        private final int last;
+
+        private Window(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * @return the first slot in the window
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * @return the last slot in the window
+         */
+        public int getLast() {
+            return last;
+        }
+    }
+}
@@ -48,6 +48,10 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
  * Jan 08, 2013  2645     bgonzale  Update allocations in the multimap when
  *                                  setting status to PROCESSING.
  * Aug 02, 2017  6186     rjpeter   Removed agentType
+ * Oct 17, 2026           agent     Synchronize access, the associator is
+ *                                  shared by the plans of every network.
+ * Oct 17, 2026           agent     copyState() replaces the associations and
+ *                                  uses this dao's copies of the allocations.
  *
  * </pre>
  *
@@ -74,35 +78,35 @@ public class InMemoryBandwidthBucketAllocationAssociator
     }
 
     @Override
-    public void addToBucket(BandwidthBucket bucket,
+    public synchronized void addToBucket(BandwidthBucket bucket,
             BandwidthAllocation allocation) {
         allocations.put(bucket.getIdentifier(), allocation);
         bucketsDao.update(bucket);
     }
 
     @Override
-    public void addToBucket(BandwidthBucket bucket,
+    public synchronized void addToBucket(BandwidthBucket bucket,
             BandwidthReservation reservation) {
         reservations.put(bucket.getIdentifier(), reservation);
         bucketsDao.update(bucket);
     }
 
     @Override
-    public void removeFromBucket(BandwidthBucket bucket,
+    public synchronized void removeFromBucket(BandwidthBucket bucket,
             BandwidthAllocation reservation) {
         allocations.remove(bucket.getIdentifier(), reservation);
         bucketsDao.update(bucket);
     }
 
     @Override
-    public void removeFromBucket(BandwidthBucket bucket,
+    public synchronized void removeFromBucket(BandwidthBucket bucket,
             BandwidthReservation reservation) {
         reservations.remove(bucket.getIdentifier(), reservation);
         bucketsDao.update(bucket);
     }
 
     @Override
-    public String showBucket(BandwidthBucket bucket) {
+    public synchronized String showBucket(BandwidthBucket bucket) {
         StringBuilder sb = new StringBuilder();
         sb.append(bucket.toString()).append("\n");
 
@@ -119,7 +123,8 @@ public class InMemoryBandwidthBucketAllocationAssociator
     }
 
     @Override
-    public BandwidthAllocation getNextReservation(BandwidthBucket bucket) {
+    public synchronized BandwidthAllocation getNextReservation(
+            BandwidthBucket bucket) {
         BandwidthAllocation allocation = null;
         for (BandwidthAllocation o : allocations.get(bucket.getIdentifier())) {
             if (RetrievalStatus.READY.equals(o.getStatus())) {
@@ -141,22 +146,31 @@ public class InMemoryBandwidthBucketAllocationAssociator
     }
 
     @Override
-    public List<BandwidthAllocation> getBandwidthAllocationsForBucket(
+    public synchronized List<BandwidthAllocation> getBandwidthAllocationsForBucket(
             BandwidthBucket bucket) {
         return new ArrayList<>(allocations.get(bucket.getIdentifier()));
     }
 
     @Override
-    public List<BandwidthReservation> getBandwidthReservationsForBucket(
+    public synchronized List<BandwidthReservation> getBandwidthReservationsForBucket(
             BandwidthBucket bucket) {
         return new ArrayList<>(reservations.get(bucket.getIdentifier()));
     }
 
     /**
-     * {@inheritDoc}
+     * Replaces the associations with those of the other associator. Where this
+     * associator's dao holds its own copy of an allocation, that copy is
+     * associated rather than the other associator's instance, so changes made
+     * through one never show up in the other.
      */
     @Override
-    public void copyState(IBandwidthBucketAllocationAssociator other) {
+    public synchronized void copyState(
+            IBandwidthBucketAllocationAssociator other) {
+        if (other == this) {
+            return;
+        }
+        allocations.clear();
+        reservations.clear();
         for (Network network : Network.values()) {
             final List<BandwidthBucket> buckets = bucketsDao.getAll(network);
             for (BandwidthBucket bucket : buckets) {
@@ -164,14 +178,14 @@ public class InMemoryBandwidthBucketAllocationAssociator
                 final List<BandwidthAllocation> bandwidthAllocationsForBucket = other
                         .getBandwidthAllocationsForBucket(bucket);
                 for (BandwidthAllocation allocation : bandwidthAllocationsForBucket) {
-                    this.addToBucket(bucket, allocation);
+                    BandwidthAllocation copy = bandwidthDao
+                            .getBandwidthAllocation(allocation.getId());
+                    allocations.put(bucket.getIdentifier(),
+                            copy == null ? allocation : copy);
                 }
 
-                final List<BandwidthReservation> bandwidthReservationsForBucket = other
-                        .getBandwidthReservationsForBucket(bucket);
-                for (BandwidthReservation reservation : bandwidthReservationsForBucket) {
-                    this.addToBucket(bucket, reservation);
-                }
+                reservations.putAll(bucket.getIdentifier(),
+                        other.getBandwidthReservationsForBucket(bucket));
             }
         }
     }
@@ -21,10 +21,8 @@ package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
 
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.SortedMap;
-import java.util.SortedSet;
 import java.util.TreeMap;
 
 import com.raytheon.uf.common.status.IUFStatusHandler;
@@ -60,6 +58,10 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
  * Mar 16, 2016  3919     tjensen   Cleanup unneeded interfaces
  * May 23, 2016  5639     tjensen   Fix reprioritization
  * Feb 02, 2018  6471     tjensen   Added UnscheduledAllocationReports. Made static
+ * Oct 17, 2026           agent     Use the plan's BandwidthBucketCapacityIndex
+ *                                  instead of walking every bucket in the
+ *                                  window. Stop collecting lower priority
+ *                                  allocations once enough room is found.
  *
  * </pre>
  *
@@ -112,20 +114,30 @@ public class PriorityRetrievalScheduler {
         boolean notScheduled = true;
 
         // Get the buckets that are in the 'window' for the BandwidthAllocation.
-        SortedSet<BandwidthBucket> window = plan
-                .getBucketsInWindow(startTimeMillis, endTimeMillis);
-
-        // Look through the buckets in the window for bandwidth.
-        Iterator<BandwidthBucket> itr = window.iterator();
+        BandwidthBucketCapacityIndex index = plan.getCapacityIndex();
+        BandwidthBucketCapacityIndex.Window window = index
+                .getWindow(startTimeMillis, endTimeMillis);
 
         long bandwidthRequired = allocation.getEstimatedSizeInBytes();
         boolean split = false;
 
         SortedMap<BandwidthBucket, Object> reservations = new TreeMap<>();
 
-        while (notScheduled && itr.hasNext()) {
+        /*
+         * Only look through the buckets in the window that have bandwidth, and
+         * only if the window has enough in total to hold the allocation.
+         */
+        long minAvailable = bandwidthRequired > 0 ? 1 : 0;
+        int slot = BandwidthBucketCapacityIndex.NOT_FOUND;
+        if (index.getAvailableBytes(window) >= bandwidthRequired) {
+            slot = index.findFirstWithAvailableBytes(window.getFirst(),
+                    window.getLast(), minAvailable);
+        }
 
-            BandwidthBucket bucket = itr.next();
+        while (notScheduled && slot != BandwidthBucketCapacityIndex.NOT_FOUND) {
+
+            BandwidthBucket bucket = plan
+                    .getBucket(index.getBucketStartTime(slot));
             // How much is available?
             long available = bucket.getAvailableBytes();
 
@@ -181,6 +193,9 @@ public class PriorityRetrievalScheduler {
                  */
                 bandwidthRequired -= available;
             }
+
+            slot = index.findFirstWithAvailableBytes(slot + 1,
+                    window.getLast(), minAvailable);
         }
 
         // If still not scheduled,
@@ -226,11 +241,11 @@ public class PriorityRetrievalScheduler {
          * Look in the window between start and end times to see if there are
          * lower priority retrievals that can be moved.
          */
-        SortedSet<BandwidthBucket> window = plan.getBucketsInWindow(startKey,
+        BandwidthBucketCapacityIndex index = plan.getCapacityIndex();
+        BandwidthBucketCapacityIndex.Window window = index.getWindow(startKey,
                 endKey);
 
         boolean enoughBandwidth = false;
-        long total = 0;
         long requestSize = request.getEstimatedSizeInBytes();
         List<BandwidthAllocation> lowerPriorityRequests = new ArrayList<>();
 
@@ -238,15 +253,18 @@ public class PriorityRetrievalScheduler {
          * Calculate how much bandwidth is already available before trying to
          * make room.
          */
-        for (BandwidthBucket bucket : window) {
-            total += bucket.getAvailableBytes();
-        }
+        long total = index.getAvailableBytes(window);
         if (total < requestSize) {
-            for (BandwidthBucket bucket : window) {
+            // Only visit buckets holding something of lower priority
+            int slot = index.findFirstWithLowerPriorityOccupant(
+                    window.getFirst(), window.getLast(), request.getPriority());
+            while (!enoughBandwidth
+                    && slot != BandwidthBucketCapacityIndex.NOT_FOUND) {
+                BandwidthBucket bucket = plan
+                        .getBucket(index.getBucketStartTime(slot));
                 for (BandwidthAllocation o : plan
                         .getBandwidthAllocationsForBucket(bucket)) {
                     long estimatedSizeInBytes = o.getEstimatedSizeInBytes();
-                    bucket.getAvailableBytes();
 
                     // Priority Enum has Highest Priority = lowest value
                     if (request.compareTo(o) == -1) {
@@ -259,6 +277,8 @@ public class PriorityRetrievalScheduler {
                         break;
                     }
                 }
+                slot = index.findFirstWithLowerPriorityOccupant(slot + 1,
+                        window.getLast(), request.getPriority());
             }
         } else {
             /*
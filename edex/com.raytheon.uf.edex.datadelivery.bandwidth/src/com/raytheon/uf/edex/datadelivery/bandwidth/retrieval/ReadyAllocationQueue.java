@@ -0,0 +1,199 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+
+/**
+ * The {@link RetrievalStatus#READY} {@link BandwidthAllocation}s of a single
+ * {@link RetrievalPlan}, ordered by the start time of the earliest
+ * {@link BandwidthBucket} they occupy, then by priority, then by the order
+ * they became ready. Lets the plan hand out the next allocation without
+ * walking every past bucket.
+ *
+ * Polling is lock free. Adding and removing allocations is serialized on the
+ * queue so an allocation is never queued twice.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class ReadyAllocationQueue {
+
+    /**
+     * A queued allocation and the bucket it is queued under.
+     */
+    static final class Ready {
+
+        private final long bucketStartTime;
+
+        private final int priority;
+
+        private final long sequence;
+
+        private final BandwidthAllocation allocation;
+
+        private Ready(long bucketStartTime, int priority, long sequence,
+                BandwidthAllocation allocation) {
+            this.bucketStartTime = bucketStartTime;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.allocation = allocation;
+        }
+
+        long getBucketStartTime() {
+            return bucketStartTime;
+        }
+
+        BandwidthAllocation getAllocation() {
+            return allocation;
+        }
+    }
+
+    private static final Comparator<Ready> ORDER = new Comparator<Ready>() {
+        @Override
+        public int compare(Ready o1, Ready o2) {
+            int result = Long.compare(o1.bucketStartTime, o2.bucketStartTime);
+            if (result == 0) {
+                result = Integer.compare(o1.priority, o2.priority);
+            }
+            if (result == 0) {
+                result = Long.compare(o1.sequence, o2.sequence);
+            }
+            return result;
+        }
+    };
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentSkipListSet<Ready> queue = new ConcurrentSkipListSet<>(
+            ORDER);
+
+    private final ConcurrentMap<Long, Ready> byAllocationId = new ConcurrentHashMap<>();
+
+    /**
+     * Queue the allocation under the bucket if it is
+     * {@link RetrievalStatus#READY}, otherwise remove it from the queue. An
+     * allocation already queued stays under the earlier of its buckets.
+     *
+     * @param allocation
+     *            the allocation
+     * @param bucketStartTime
+     *            the start time of a bucket it occupies
+     */
+    synchronized void update(BandwidthAllocation allocation,
+            long bucketStartTime) {
+        if (!RetrievalStatus.READY.equals(allocation.getStatus())) {
+            remove(allocation);
+            return;
+        }
+
+        Ready old = byAllocationId.get(allocation.getId());
+        if (old != null) {
+            queue.remove(old);
+            bucketStartTime = Math.min(bucketStartTime, old.bucketStartTime);
+        }
+        int priority = allocation.getPriority() == null ? Integer.MAX_VALUE
+                : allocation.getPriority().ordinal();
+        Ready ready = new Ready(bucketStartTime, priority,
+                sequence.getAndIncrement(), allocation);
+        byAllocationId.put(allocation.getId(), ready);
+        queue.add(ready);
+    }
+
+    /**
+     * Remove the allocation from the queue.
+     *
+     * @param allocation
+     *            the allocation
+     */
+    synchronized void remove(BandwidthAllocation allocation) {
+        Ready old = byAllocationId.remove(allocation.getId());
+        if (old != null) {
+            queue.remove(old);
+        }
+    }
+
+    /**
+     * Remove and return the first allocation queued under a bucket starting in
+     * the range, both boundaries are inclusive.
+     *
+     * @param earliestBucketStartTime
+     *            the earliest bucket start time
+     * @param latestBucketStartTime
+     *            the latest bucket start time
+     * @return the allocation, or null if there is none
+     */
+    Ready poll(long earliestBucketStartTime, long latestBucketStartTime) {
+        Ready probe = new Ready(earliestBucketStartTime, Integer.MIN_VALUE,
+                Long.MIN_VALUE, null);
+        Ready first;
+        while ((first = queue.ceiling(probe)) != null
+                && first.bucketStartTime <= latestBucketStartTime) {
+            // Another thread may have claimed it first
+            if (queue.remove(first)) {
+                byAllocationId.remove(first.allocation.getId(), first);
+                return first;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove every allocation queued under a bucket starting at or before the
+     * time.
+     *
+     * @param bucketStartTime
+     *            the bucket start time
+     * @return the removed allocations, in queue order
+     */
+    synchronized List<BandwidthAllocation> removeUpTo(long bucketStartTime) {
+        List<BandwidthAllocation> removed = new ArrayList<>();
+        Ready ready;
+        while ((ready = poll(Long.MIN_VALUE, bucketStartTime)) != null) {
+            removed.add(ready.allocation);
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all allocations.
+     */
+    synchronized void clear() {
+        queue.clear();
+        byAllocationId.clear();
+    }
+}
@@ -2,6 +2,7 @@ package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -56,6 +57,10 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
  * Aug 02, 2017  6186     rjpeter   Removed RetrievalManagerNotifyEvent.
  * Nov 15, 2017  6498     tjensen   Improved logging on deferred allocations
  * Feb 02, 2018  6471     tjensen   Added UnscheduledAllocationReports
+ * Oct 17, 2026           agent     Rely on the plan's own locking rather than
+ *                                  synchronizing on the plan.
+ * Oct 17, 2026           agent     Schedule each plan's allocations as one
+ *                                  batch.
  *
  * </pre>
  *
@@ -85,7 +90,8 @@ public class RetrievalManager {
     }
 
     /**
-     * Schedule the allocations.
+     * Schedule the allocations. Allocations are scheduled in priority order,
+     * each plan receiving its allocations as a single batch.
      *
      * @param bandwidthAllocations
      *            The BandwidthAllocations to schedule.
@@ -100,6 +106,7 @@ public class RetrievalManager {
         bandwidthAllocations.addAll(inallocations);
         Collections.sort(bandwidthAllocations);
 
+        Map<RetrievalPlan, List<BandwidthAllocation>> planAllocations = new LinkedHashMap<>();
         for (BandwidthAllocation bandwidthAllocation : bandwidthAllocations) {
             Network network = bandwidthAllocation.getNetwork();
             RetrievalPlan plan = getRetrievalPlans().get(network);
@@ -124,10 +131,13 @@ public class RetrievalManager {
                     bandwidthAllocation.setStatus(RetrievalStatus.DEFERRED);
                     bandwidthDao.createOrUpdate(bandwidthAllocation);
                 } else {
-                    synchronized (plan) {
-                        unscheduled.addAll(plan.schedule(bandwidthAllocation));
-                        bandwidthDao.createOrUpdate(bandwidthAllocation);
+                    List<BandwidthAllocation> allocations = planAllocations
+                            .get(plan);
+                    if (allocations == null) {
+                        allocations = new ArrayList<>();
+                        planAllocations.put(plan, allocations);
                     }
+                    allocations.add(bandwidthAllocation);
                 }
             } else {
                 throw new IllegalArgumentException(String.format(
@@ -135,6 +145,14 @@ public class RetrievalManager {
             }
         }
 
+        for (Entry<RetrievalPlan, List<BandwidthAllocation>> entry : planAllocations
+                .entrySet()) {
+            unscheduled.addAll(entry.getKey().schedule(entry.getValue()));
+            for (BandwidthAllocation bandwidthAllocation : entry.getValue()) {
+                bandwidthDao.createOrUpdate(bandwidthAllocation);
+            }
+        }
+
         // Update any unscheduled allocations
         for (UnscheduledAllocationReport uas : unscheduled) {
             BandwidthAllocation allocation = uas.getUnscheduled();
@@ -150,9 +168,7 @@ public class RetrievalManager {
 
         RetrievalPlan plan = getRetrievalPlans().get(network);
         if (plan != null) {
-            synchronized (plan) {
-                return plan.nextAllocation(agentType);
-            }
+            return plan.nextAllocation(agentType);
         }
         return null;
     }
@@ -170,9 +186,7 @@ public class RetrievalManager {
 
         RetrievalPlan plan = getRetrievalPlans().get(network);
         if (plan != null) {
-            synchronized (plan) {
-                return plan.getRecentAllocations();
-            }
+            return plan.getRecentAllocations();
         }
 
         return allocations;
@@ -185,18 +199,14 @@ public class RetrievalManager {
     public void remove(BandwidthAllocation allocation) {
         RetrievalPlan plan = getRetrievalPlans().get(allocation.getNetwork());
         if (plan != null) {
-            synchronized (plan) {
-                plan.remove(allocation);
-            }
+            plan.remove(allocation);
         }
     }
 
     public void updateBandwidthAllocation(BandwidthAllocation allocation) {
         RetrievalPlan plan = getRetrievalPlans().get(allocation.getNetwork());
         if (plan != null) {
-            synchronized (plan) {
-                plan.updateBandwidthReservation(allocation);
-            }
+            plan.updateBandwidthReservation(allocation);
         }
     }
 
@@ -266,9 +276,7 @@ public class RetrievalManager {
      */
     public void initRetrievalPlans() {
         for (RetrievalPlan retrievalPlan : this.getRetrievalPlans().values()) {
-            synchronized (retrievalPlan) {
-                retrievalPlan.init();
-            }
+            retrievalPlan.init();
         }
         statusHandler.info("Initialized Retrieval Manager...");
     }
@@ -21,12 +21,15 @@ package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -85,6 +88,19 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.util.BandwidthUtil;
  * Sep 18, 2017  6415     rjpeter   Call deleteBucketUpToTime
  * Dec 18, 2017  6484     tjensen   Mark planStart and planEnd as volatile
  * Feb 02, 2018  6471     tjensen   Made PriorityRetrivalScheduler static
+ * Oct 17, 2026           agent     Maintain a BandwidthBucketCapacityIndex for
+ *                                  the scheduler's window queries.
+ * Oct 17, 2026           agent     Hand out READY allocations from a queue
+ *                                  instead of walking every past bucket.
+ * Oct 17, 2026           agent     Guard buckets and requestMap with one
+ *                                  read-write lock so read-only queries no
+ *                                  longer block each other.
+ * Oct 17, 2026           agent     Add schedule(List) to schedule a batch of
+ *                                  allocations under one lock acquisition.
+ * Oct 17, 2026           agent     Create buckets in batches ahead of the end
+ *                                  of the plan, see extendHorizon().
+ * Oct 17, 2026           agent     Count changes to the plan for callers
+ *                                  caching what they read from it.
  *
  * </pre>
  *
@@ -98,6 +114,8 @@ public class RetrievalPlan {
     private static final IUFStatusHandler statusHandler = UFStatus
             .getHandler(RetrievalPlan.class);
 
+    private static final int DEFAULT_HORIZON_MINUTES = 120;
+
     private IBandwidthDao<?, ?> bandwidthDao;
 
     // which retrieval plan
@@ -109,17 +127,17 @@ public class RetrievalPlan {
     private int planDays;
 
     /*
-     * NOTE: If you must read or make changes to the buckets and requestMap, you
-     * must acquire the locks in the following order: buckets first, then
-     * requestMap
+     * NOTE: The buckets, requestMap and capacityIndex are all guarded by
+     * planLock. Read-only queries take the read lock, anything that changes
+     * bucket sizes, bucket contents or the requestMap takes the write lock.
+     * The write lock may be acquired while holding the write lock, but never
+     * while holding only the read lock.
      */
+    private final ReentrantReadWriteLock planLock = new ReentrantReadWriteLock();
 
     private IBandwidthBucketDao bucketsDao;
 
-    // access to buckets should always be synchronized on bucketsLock..
-    private final Object bucketsLock = new Object();
-
-    // access to requestMap should always be synchronized on requestMap itself..
+    // access to requestMap should always be guarded by planLock..
     private final Map<Long, Set<Long>> requestMap = new HashMap<>();
 
     // Number of minutes of bandwidth per bucket.
@@ -133,6 +151,30 @@ public class RetrievalPlan {
 
     private IBandwidthBucketAllocationAssociator associator;
 
+    // access to capacityIndex should always be guarded by planLock..
+    private final BandwidthBucketCapacityIndex capacityIndex = new BandwidthBucketCapacityIndex();
+
+    /*
+     * READY allocations in bucket then priority order, kept current on
+     * add/remove/update. Safe to poll without holding planLock.
+     */
+    private final ReadyAllocationQueue readyAllocations = new ReadyAllocationQueue();
+
+    /**
+     * How far past the end of the plan {@link #extendHorizon()} keeps buckets
+     * created, so moving the end of the plan forward rarely has to create
+     * any.
+     */
+    private int horizonMinutes = DEFAULT_HORIZON_MINUTES;
+
+    /**
+     * Serializes bucket creation, which is mostly done outside planLock.
+     */
+    private final Object bucketCreationLock = new Object();
+
+    /** Incremented whenever planLock is write locked */
+    private volatile long changeCount;
+
     /**
      * Constructor.
      */
@@ -154,50 +196,26 @@ public class RetrievalPlan {
         }
 
         if (found) {
-            // create registry bandwidth service
-            RegistryBandwidthService rbs = new RegistryBandwidthService(
-                    bucketsDao, network, bucketMinutes);
-            long bucketMillis = bucketMinutes * TimeUtil.MILLIS_PER_MINUTE;
-            Calendar currentBucket = BandwidthUtil.now();
-            planStart = BandwidthUtil.now();
-            planEnd = TimeUtil.newGmtCalendar(planStart.getTime());
-            planEnd.add(Calendar.DAY_OF_YEAR, planDays);
-            long currentMillis = currentBucket.getTimeInMillis();
-            long planEndMillis = planEnd.getTimeInMillis();
-            // Make the buckets...
-
-            while (!(currentMillis > planEndMillis)) {
-
-                int bw = map.getBandwidth(network, currentBucket);
-                // Get the bucket size..
-                // buckets are (bandwidth [kilobytes/second] * milliseconds per
-                // minute *
-                // bucket minutes)/bits per byte) ...
-                bytesPerBucket = BandwidthUtil
-                        .convertKilobytesPerSecondToBytesPerSpecifiedMinutes(bw,
-                                bucketMinutes);
-
-                bucketsDao.create(new BandwidthBucket(currentMillis,
-                        bytesPerBucket, network));
-
-                currentMillis += bucketMillis;
-            }
-
-            // subtract registry traffic from total available bytes/per second
-            for (BandwidthBucket bucket : bucketsDao.getAll(network)) {
-                long startMillis = bucket.getBucketStartTime();
-                int registryBytesPerSecond = 0;
+            /*
+             * Hold both locks, in the same order as bucket creation, so the
+             * plan is never seen half initialized.
+             */
+            synchronized (bucketCreationLock) {
+                lockForChange();
                 try {
-                    registryBytesPerSecond = rbs
-                            .getRegistryBandwidth(startMillis);
-                } catch (IllegalArgumentException e) {
-                    statusHandler.error(
-                            "Failed to init registry bandwidth calculation.  Registry bandwidth will be ignored.",
-                            e);
+                    planStart = BandwidthUtil.now();
+                    planEnd = TimeUtil.newGmtCalendar(planStart.getTime());
+                    planEnd.add(Calendar.DAY_OF_YEAR, planDays);
+
+                    // Make the buckets, plus the horizon past the end of the
+                    // plan
+                    capacityIndex.clear();
+                    createBuckets(planStart.getTimeInMillis(),
+                            planEnd.getTimeInMillis() + getHorizonMillis());
+                    rebuildCapacityIndex();
+                } finally {
+                    planLock.writeLock().unlock();
                 }
-                bucket.setBucketSize(
-                        bucket.getBucketSize() - (registryBytesPerSecond
-                                * TimeUtil.SECONDS_PER_MINUTE * bucketMinutes));
             }
 
             statusHandler.info("Retrieval Plan: available bandwidth: "
@@ -234,23 +252,47 @@ public class RetrievalPlan {
      */
     public List<UnscheduledAllocationReport> schedule(
             BandwidthAllocation bandwidthAllocation) {
-        // First make sure we have the same path
-        if (!(network == bandwidthAllocation.getNetwork())) {
-            throw new IllegalArgumentException(
-                    "BandwidthAllocation [" + bandwidthAllocation.getId()
-                            + "] does not have the same path ["
-                            + bandwidthAllocation.getNetwork()
-                            + "] as the RetrievalPlan [" + network + "]");
+        return schedule(Collections.singletonList(bandwidthAllocation));
+    }
+
+    /**
+     * Schedule the {@link BandwidthAllocation}s in the order given, holding
+     * the plan lock for the whole batch.
+     *
+     * @param bandwidthAllocations
+     *            the allocations
+     * @return the list of unscheduled allocation reports
+     */
+    public List<UnscheduledAllocationReport> schedule(
+            List<BandwidthAllocation> bandwidthAllocations) {
+        boolean resize = false;
+        for (BandwidthAllocation bandwidthAllocation : bandwidthAllocations) {
+            // First make sure we have the same path
+            if (!(network == bandwidthAllocation.getNetwork())) {
+                throw new IllegalArgumentException("BandwidthAllocation ["
+                        + bandwidthAllocation.getId()
+                        + "] does not have the same path ["
+                        + bandwidthAllocation.getNetwork()
+                        + "] as the RetrievalPlan [" + network + "]");
+            }
+            resize |= planEnd.before(bandwidthAllocation.getStartTime());
         }
 
-        if (planEnd.before(bandwidthAllocation.getStartTime())) {
+        if (resize) {
             resize();
         }
 
-        synchronized (bucketsLock) {
-            return PriorityRetrievalScheduler.schedule(this,
-                    bandwidthAllocation);
+        List<UnscheduledAllocationReport> unscheduled = new ArrayList<>();
+        lockForChange();
+        try {
+            for (BandwidthAllocation bandwidthAllocation : bandwidthAllocations) {
+                unscheduled.addAll(PriorityRetrievalScheduler.schedule(this,
+                        bandwidthAllocation));
+            }
+        } finally {
+            planLock.writeLock().unlock();
         }
+        return unscheduled;
     }
 
     public void resize() {
@@ -282,64 +324,162 @@ public class RetrievalPlan {
          * sure that the plan maintains "planDays" of schedule.
          */
         if (newEndOfPlan.after(planEnd)) {
-
-            synchronized (bucketsLock) {
-                /*
-                 * Get the last bucket and add buckets to make up the
-                 * difference. Make the buckets...
-                 */
-                long bucketMillis = bucketMinutes * TimeUtil.MILLIS_PER_MINUTE;
-                long newPlanEndMillis = newEndOfPlan.getTimeInMillis();
-                BandwidthBucket bucket = bucketsDao.getLastBucket(network);
-                Calendar currentBucket = BandwidthUtil.now();
-                currentBucket.setTimeInMillis(bucket.getBucketStartTime());
-                long currentBucketMillis = bucket.getBucketStartTime();
-
-                // Add the buckets minutes to the last bucket and add
-                // buckets until we have the new plan size.
-                currentBucketMillis += bucketMillis;
-                // create Registry Bandwidth Service
-                RegistryBandwidthService rbs = new RegistryBandwidthService(
-                        bucketsDao, network, bucketMinutes);
-
-                while (!(currentBucketMillis > newPlanEndMillis)) {
-
-                    int bw = map.getBandwidth(network, currentBucket);
-                    // subtract registry traffic from total available bytes/per
-                    // second
-                    int registryBytesPerSecond = rbs
-                            .getRegistryBandwidth(currentBucketMillis);
-                    bw = bw - registryBytesPerSecond;
-                    // Get the bucket size..
-                    // buckets are (bandwidth * kilobytes/second * 60 seconds *
-                    // bucket minutes)/bits per byte) ...
-                    bytesPerBucket = BandwidthUtil
-                            .convertKilobytesPerSecondToBytesPerSpecifiedMinutes(
-                                    bw, bucketMinutes);
-                    bucketsDao.create(new BandwidthBucket(currentBucketMillis,
-                            bytesPerBucket, network));
-
-                    currentBucketMillis += bucketMillis;
-                    statusHandler.info("resize() - Adding bucket [" + bucket
-                            + "] bandwidth = [" + bw + "]");
-                }
-            }
+            // Usually extendHorizon() has already created them
+            extendTo(newEndOfPlan.getTimeInMillis());
         }
         // Now remove buckets from the front of the map who's time slot
         // is past and are empty
         long newStart = newStartOfPlan.getTimeInMillis();
 
+        lockForChange();
         try {
-            bucketsDao.deleteBucketsUpToTime(newStart, network);
-        } catch (DataAccessLayerException e) {
-            statusHandler.handle(Priority.PROBLEM,
-                    "Unable to remove empty buckets!", e);
+            try {
+                bucketsDao.deleteBucketsUpToTime(newStart, network);
+                capacityIndex.removeUpTo(newStart);
+                requeueReadyAllocationsAfter(newStart);
+            } catch (DataAccessLayerException e) {
+                statusHandler.handle(Priority.PROBLEM,
+                        "Unable to remove empty buckets!", e);
+            }
+        } finally {
+            planLock.writeLock().unlock();
         }
 
         this.planStart = newStartOfPlan;
         this.planEnd = newEndOfPlan;
     }
 
+    /**
+     * Create buckets past the end of the plan, in one batch, once fewer than
+     * half of {@link #getHorizonMinutes()} remain. Meant to be called
+     * periodically from a background thread so {@link #resize()}, and
+     * {@link #schedule(List)} through it, rarely have to create buckets
+     * themselves.
+     */
+    public void extendHorizon() {
+        Calendar end = planEnd;
+        if (end == null) {
+            // Not initialized
+            return;
+        }
+        long lowWaterMillis = end.getTimeInMillis() + getHorizonMillis() / 2;
+        BandwidthBucket last = getLastBucket();
+        if (last == null || last.getBucketStartTime() < lowWaterMillis) {
+            extendTo(end.getTimeInMillis() + getHorizonMillis());
+        }
+    }
+
+    /**
+     * Create any buckets missing between the last bucket and the time.
+     *
+     * @param endMillis
+     *            the latest start time of a bucket to create
+     */
+    private void extendTo(long endMillis) {
+        synchronized (bucketCreationLock) {
+            BandwidthBucket last = getLastBucket();
+            long firstBucketMillis = last == null
+                    ? planStart.getTimeInMillis()
+                    : last.getBucketStartTime() + getBucketMillis();
+            createBuckets(firstBucketMillis, endMillis);
+        }
+    }
+
+    private BandwidthBucket getLastBucket() {
+        planLock.readLock().lock();
+        try {
+            return bucketsDao.getLastBucket(network);
+        } finally {
+            planLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Create the buckets starting at the first time through the end time. The
+     * bucket sizes are looked up before taking planLock, which is then only
+     * held to add the buckets. Callers must hold bucketCreationLock.
+     *
+     * @param firstBucketMillis
+     *            the start time of the first bucket
+     * @param endMillis
+     *            the latest start time of a bucket to create
+     */
+    private void createBuckets(long firstBucketMillis, long endMillis) {
+        if (firstBucketMillis > endMillis) {
+            return;
+        }
+        long bucketMillis = getBucketMillis();
+        int count = (int) ((endMillis - firstBucketMillis) / bucketMillis) + 1;
+        long[] sizes = getBucketSizes(firstBucketMillis, count);
+
+        lockForChange();
+        try {
+            long bucketStartMillis = firstBucketMillis;
+            for (long size : sizes) {
+                bucketsDao.create(
+                        new BandwidthBucket(bucketStartMillis, size, network));
+                capacityIndex.append(bucketStartMillis, size,
+                        BandwidthBucketCapacityIndex.NO_OCCUPANT);
+                bucketStartMillis += bucketMillis;
+            }
+            bytesPerBucket = sizes[count - 1];
+        } finally {
+            planLock.writeLock().unlock();
+        }
+
+        statusHandler.info("Retrieval Plan [" + network + "]: added " + count
+                + " buckets from [" + new Date(firstBucketMillis) + "] to ["
+                + new Date(firstBucketMillis + (count - 1) * bucketMillis)
+                + "]");
+    }
+
+    /**
+     * Get the sizes of consecutive buckets: the bandwidth of the route less
+     * the bandwidth used by the registry.
+     *
+     * @param firstBucketMillis
+     *            the start time of the first bucket
+     * @param count
+     *            the number of buckets
+     * @return the bucket sizes in bytes
+     */
+    private long[] getBucketSizes(long firstBucketMillis, int count) {
+        int[] registryKilobytesPerSecond;
+        try {
+            registryKilobytesPerSecond = new RegistryBandwidthService(
+                    bucketsDao, network, bucketMinutes)
+                            .getRegistryBandwidth(firstBucketMillis, count);
+        } catch (IllegalArgumentException e) {
+            statusHandler.error(
+                    "Failed to calculate registry bandwidth.  Registry bandwidth will be ignored.",
+                    e);
+            registryKilobytesPerSecond = new int[count];
+        }
+
+        long bucketMillis = getBucketMillis();
+        Calendar bucketStart = TimeUtil.newGmtCalendar();
+        long[] sizes = new long[count];
+        for (int i = 0; i < count; i++) {
+            bucketStart.setTimeInMillis(firstBucketMillis + i * bucketMillis);
+            int bw = map.getBandwidth(network, bucketStart)
+                    - registryKilobytesPerSecond[i];
+            // buckets are (bandwidth [kilobytes/second] * 60 seconds * bucket
+            // minutes) bytes
+            sizes[i] = BandwidthUtil
+                    .convertKilobytesPerSecondToBytesPerSpecifiedMinutes(
+                            Math.max(0, bw), bucketMinutes);
+        }
+        return sizes;
+    }
+
+    private long getBucketMillis() {
+        return bucketMinutes * TimeUtil.MILLIS_PER_MINUTE;
+    }
+
+    private long getHorizonMillis() {
+        return horizonMinutes * TimeUtil.MILLIS_PER_MINUTE;
+    }
+
     /**
      * Show the contents of the {@link RetrievalPlan}.
      *
@@ -348,9 +488,14 @@ public class RetrievalPlan {
     public String showPlan() {
         StringBuilder sb = new StringBuilder();
 
-        List<BandwidthBucket> buckets = bucketsDao.getAll(network);
-        for (BandwidthBucket bucket : buckets) {
-            sb.append(showBucket(bucket));
+        planLock.readLock().lock();
+        try {
+            List<BandwidthBucket> buckets = bucketsDao.getAll(network);
+            for (BandwidthBucket bucket : buckets) {
+                sb.append(showBucket(bucket));
+            }
+        } finally {
+            planLock.readLock().unlock();
         }
 
         return sb.toString();
@@ -364,7 +509,12 @@ public class RetrievalPlan {
      * @return the String to display
      */
     public String showBucket(BandwidthBucket bucket) {
-        return associator.showBucket(bucket);
+        planLock.readLock().lock();
+        try {
+            return associator.showBucket(bucket);
+        } finally {
+            planLock.readLock().unlock();
+        }
     }
 
     public void setPlanDays(int planDays) {
@@ -375,6 +525,19 @@ public class RetrievalPlan {
         return planDays;
     }
 
+    /**
+     * @param horizonMinutes
+     *            how far past the end of the plan to create buckets ahead of
+     *            need
+     */
+    public void setHorizonMinutes(int horizonMinutes) {
+        this.horizonMinutes = horizonMinutes;
+    }
+
+    public int getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
     public void setNetwork(Network network) {
         this.network = network;
     }
@@ -403,28 +566,19 @@ public class RetrievalPlan {
      * @return
      */
     public BandwidthAllocation nextAllocation(String agentType) {
-        BandwidthAllocation reservation = null;
-
-        synchronized (bucketsLock) {
-
-            // Get the portion of the Map that is before the
-            // current time (DO NOT want to return future reservations)
-            final List<BandwidthBucket> buckets = bucketsDao
-                    .getWhereStartTimeIsLessThanOrEqualTo(
-                            TimeUtil.currentTimeMillis(), network);
-
-            // Iterate over the buckets and find the first
-            // BandwidthAllocation that is in the READY state
-            for (BandwidthBucket bucket : buckets) {
-                reservation = associator.getNextReservation(bucket);
-                if (reservation != null) {
-                    // TODO: do validity check for expired allocations
-                    break;
-                }
+        // DO NOT want to return future reservations
+        final long now = TimeUtil.currentTimeMillis();
+
+        ReadyAllocationQueue.Ready ready;
+        while ((ready = readyAllocations.poll(Long.MIN_VALUE, now)) != null) {
+            BandwidthAllocation reservation = ready.getAllocation();
+            if (claim(reservation)) {
+                // TODO: do validity check for expired allocations
+                return reservation;
             }
         }
 
-        return reservation;
+        return null;
     }
 
     /**
@@ -437,31 +591,47 @@ public class RetrievalPlan {
     public List<BandwidthAllocation> getRecentAllocations() {
         List<BandwidthAllocation> reservations = null;
 
-        synchronized (bucketsLock) {
-
-            // Get the portion of the Map that is before the
-            // current time (DO NOT want to return future reservations)
-            final List<BandwidthBucket> buckets = bucketsDao
-                    .getWhereStartTimeIsLessThanOrEqualTo(
-                            TimeUtil.currentTimeMillis(), network);
-
-            // Iterate over the buckets and find all
-            // BandwidthAllocation that are in the READY state
-            for (BandwidthBucket bucket : buckets) {
-                BandwidthAllocation allocationReservation = associator
-                        .getNextReservation(bucket);
-                if (allocationReservation != null) {
-                    if (reservations == null) {
-                        reservations = new ArrayList<>();
-                    }
-                    reservations.add(allocationReservation);
+        // DO NOT want to return future reservations
+        final long now = TimeUtil.currentTimeMillis();
+
+        // Find the first BandwidthAllocation that is in the READY state for
+        // each bucket
+        long earliest = Long.MIN_VALUE;
+        ReadyAllocationQueue.Ready ready;
+        while ((ready = readyAllocations.poll(earliest, now)) != null) {
+            BandwidthAllocation allocationReservation = ready.getAllocation();
+            if (claim(allocationReservation)) {
+                if (reservations == null) {
+                    reservations = new ArrayList<>();
                 }
+                reservations.add(allocationReservation);
+                earliest = ready.getBucketStartTime() + 1;
             }
         }
 
         return reservations;
     }
 
+    /**
+     * Move a polled READY allocation to PROCESSING.
+     *
+     * @param allocation
+     *            the allocation
+     * @return false if the allocation is no longer READY or was removed from
+     *         persistence
+     */
+    private boolean claim(BandwidthAllocation allocation) {
+        if (!RetrievalStatus.READY.equals(allocation.getStatus())) {
+            return false;
+        }
+        if (bandwidthDao.getBandwidthAllocation(allocation.getId()) == null) {
+            return false;
+        }
+        allocation.setStatus(RetrievalStatus.PROCESSING);
+        bandwidthDao.createOrUpdate(allocation);
+        return true;
+    }
+
     public void updateRequestMapping(long requestId,
             Set<BandwidthBucket> buckets) {
         Set<Long> bucketIds = new TreeSet<>();
@@ -469,8 +639,11 @@ public class RetrievalPlan {
             bucketIds.add(bucket.getBucketStartTime());
         }
 
-        synchronized (requestMap) {
+        lockForChange();
+        try {
             requestMap.put(requestId, bucketIds);
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
@@ -481,28 +654,30 @@ public class RetrievalPlan {
      *            the allocation
      */
     public void remove(BandwidthAllocation allocation) {
+        readyAllocations.remove(allocation);
 
-        synchronized (bucketsLock) {
-            // Must have both monitors
-            synchronized (requestMap) {
-                Set<Long> bucketIds = requestMap.get(allocation.getId());
-                if (bucketIds == null) {
-                    // This can happen when an allocation/reservation is in a
-                    // DEFERRED state, at a minimum
-                    return;
-                }
-                for (Long bucketId : bucketIds) {
-                    // get bucket without checks. sometimes the
-                    // first bucket may have been removed.
-                    BandwidthBucket bucket = getBucketNoChecks(bucketId);
-                    if (bucket != null) {
-                        bucket.setCurrentSize(
-                                Math.max(0, bucket.getCurrentSize() - allocation
-                                        .getEstimatedSizeInBytes()));
-                        associator.removeFromBucket(bucket, allocation);
-                    }
+        lockForChange();
+        try {
+            Set<Long> bucketIds = requestMap.get(allocation.getId());
+            if (bucketIds == null) {
+                // This can happen when an allocation/reservation is in a
+                // DEFERRED state, at a minimum
+                return;
+            }
+            for (Long bucketId : bucketIds) {
+                // get bucket without checks. sometimes the
+                // first bucket may have been removed.
+                BandwidthBucket bucket = getBucketNoChecks(bucketId);
+                if (bucket != null) {
+                    bucket.setCurrentSize(
+                            Math.max(0, bucket.getCurrentSize() - allocation
+                                    .getEstimatedSizeInBytes()));
+                    associator.removeFromBucket(bucket, allocation);
+                    updateCapacityIndex(bucket);
                 }
             }
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
@@ -514,30 +689,50 @@ public class RetrievalPlan {
      */
     public void remove(BandwidthReservation reservation) {
 
-        synchronized (bucketsLock) {
-            // Must have both monitors
-            synchronized (requestMap) {
-                Set<Long> bucketIds = requestMap.get(reservation.getId());
-                if (bucketIds == null) {
-                    // This can happen when an allocation/reservation is in a
-                    // DEFERRED state, at a minimum
-                    return;
-                }
-                for (Long bucketId : bucketIds) {
-                    // get bucket without checks. sometimes the
-                    // first bucket may have been removed.
-                    BandwidthBucket bucket = getBucketNoChecks(bucketId);
-                    if (bucket != null) {
-                        bucket.setCurrentSize(
-                                Math.max(0, bucket.getCurrentSize()
-                                        - reservation.getSize()));
-                        associator.removeFromBucket(bucket, reservation);
-                    }
+        lockForChange();
+        try {
+            Set<Long> bucketIds = requestMap.get(reservation.getId());
+            if (bucketIds == null) {
+                // This can happen when an allocation/reservation is in a
+                // DEFERRED state, at a minimum
+                return;
+            }
+            for (Long bucketId : bucketIds) {
+                // get bucket without checks. sometimes the
+                // first bucket may have been removed.
+                BandwidthBucket bucket = getBucketNoChecks(bucketId);
+                if (bucket != null) {
+                    bucket.setCurrentSize(
+                            Math.max(0, bucket.getCurrentSize()
+                                    - reservation.getSize()));
+                    associator.removeFromBucket(bucket, reservation);
+                    updateCapacityIndex(bucket);
                 }
             }
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Take the write lock of planLock, counting the change about to be made.
+     */
+    private void lockForChange() {
+        planLock.writeLock().lock();
+        changeCount++;
+    }
+
+    /**
+     * Get a count of the changes made to the buckets, allocations and
+     * reservations of the plan. Anything read from the plan while the count
+     * is unchanged is still current.
+     *
+     * @return the change count
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
     public Calendar getPlanEnd() {
         // Don't want an inadvertent change to plan end, so make a copy of the
         // Calendar Object and return that.
@@ -559,31 +754,36 @@ public class RetrievalPlan {
      */
     public void updateBandwidthReservation(BandwidthAllocation allocation) {
         final long id = allocation.getId();
-        synchronized (bucketsLock) {
-            // Must have both monitors
-            synchronized (requestMap) {
-                if (!requestMap.containsKey(id)) {
-                    statusHandler
-                            .warn("The request map should always contain a mapping for a bandwidth allocation prior to reaching this point.  "
-                                    + "Adding to the map manually, but seeing this message without expecting it signifies a logic error, "
-                                    + "and bandwidth is not being properly managed!");
-                    BandwidthBucket bucket = bucketsDao.getFirstBucket(network);
-                    addToBucket(bucket, allocation);
-                    allocation.setBandwidthBucket(bucket.getBucketStartTime());
-                    bandwidthDao.createOrUpdate(allocation);
-
-                    TreeSet<BandwidthBucket> set = Sets.newTreeSet();
-                    set.add(bucket);
-                    updateRequestMapping(id, set);
-                }
+        lockForChange();
+        try {
+            if (!requestMap.containsKey(id)) {
+                statusHandler
+                        .warn("The request map should always contain a mapping for a bandwidth allocation prior to reaching this point.  "
+                                + "Adding to the map manually, but seeing this message without expecting it signifies a logic error, "
+                                + "and bandwidth is not being properly managed!");
+                BandwidthBucket bucket = bucketsDao.getFirstBucket(network);
+                addToBucket(bucket, allocation);
+                allocation.setBandwidthBucket(bucket.getBucketStartTime());
+                bandwidthDao.createOrUpdate(allocation);
+
+                TreeSet<BandwidthBucket> set = Sets.newTreeSet();
+                set.add(bucket);
+                updateRequestMapping(id, set);
+            }
 
-                Set<Long> bucketIds = requestMap.get(id);
-                for (Long bucketId : bucketIds) {
-                    BandwidthBucket bucket = getBucket(bucketId);
-                    associator.removeFromBucket(bucket, allocation);
-                    associator.addToBucket(bucket, allocation);
-                }
+            Set<Long> bucketIds = requestMap.get(id);
+            for (Long bucketId : bucketIds) {
+                BandwidthBucket bucket = getBucket(bucketId);
+                associator.removeFromBucket(bucket, allocation);
+                associator.addToBucket(bucket, allocation);
+                updateCapacityIndex(bucket);
             }
+            if (!bucketIds.isEmpty()) {
+                readyAllocations.update(allocation,
+                        bucketIds.iterator().next());
+            }
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
@@ -597,7 +797,13 @@ public class RetrievalPlan {
      *             if no bucket exists with the id
      */
     public BandwidthBucket getBucket(long bucketId) {
-        BandwidthBucket bucket = bucketsDao.getByStartTime(bucketId, network);
+        BandwidthBucket bucket;
+        planLock.readLock().lock();
+        try {
+            bucket = bucketsDao.getByStartTime(bucketId, network);
+        } finally {
+            planLock.readLock().unlock();
+        }
         Preconditions.checkNotNull(bucket,
                 "Unable to find bucket for start time [" + bucketId + "]");
         return bucket;
@@ -627,7 +833,13 @@ public class RetrievalPlan {
      */
     public SortedSet<BandwidthBucket> getBucketsInWindow(long earliestTime,
             long latestTime) {
-        return bucketsDao.getBucketsInWindow(earliestTime, latestTime, network);
+        planLock.readLock().lock();
+        try {
+            return bucketsDao.getBucketsInWindow(earliestTime, latestTime,
+                    network);
+        } finally {
+            planLock.readLock().unlock();
+        }
     }
 
     /**
@@ -644,7 +856,8 @@ public class RetrievalPlan {
             BandwidthAllocation allocation) {
         long bucketStartTime = bucket.getBucketStartTime();
 
-        synchronized (bucketsLock) {
+        lockForChange();
+        try {
             BandwidthBucket actualBucket = getBucket(bucketStartTime);
             long bucketSize = actualBucket.getBucketSize();
             long totalSize = actualBucket.getCurrentSize()
@@ -654,6 +867,8 @@ public class RetrievalPlan {
             totalSize = totalSize > bucketSize ? bucketSize : totalSize;
             actualBucket.setCurrentSize(totalSize);
             associator.addToBucket(actualBucket, allocation);
+            updateCapacityIndex(actualBucket);
+            readyAllocations.update(allocation, bucketStartTime);
             if (statusHandler.isPriorityEnabled(Priority.DEBUG)) {
                 statusHandler.debug("Adding (constrained) to bucket "
                         + actualBucket.getBucketStartTime() + " with size "
@@ -663,6 +878,8 @@ public class RetrievalPlan {
                         + "k.  Remaining in bucket "
                         + actualBucket.getAvailableBytes() / 1000 + "k");
             }
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
@@ -680,11 +897,14 @@ public class RetrievalPlan {
             BandwidthAllocation allocation) {
         long bucketStartTime = bucket.getBucketStartTime();
 
-        synchronized (bucketsLock) {
+        lockForChange();
+        try {
             BandwidthBucket actualBucket = getBucket(bucketStartTime);
             actualBucket.setCurrentSize(actualBucket.getCurrentSize()
                     + allocation.getEstimatedSizeInBytes());
             associator.addToBucket(actualBucket, allocation);
+            updateCapacityIndex(actualBucket);
+            readyAllocations.update(allocation, bucketStartTime);
             if (statusHandler.isPriorityEnabled(Priority.DEBUG)) {
                 statusHandler.debug("Adding to bucket "
                         + actualBucket.getBucketStartTime() + " with size "
@@ -694,6 +914,8 @@ public class RetrievalPlan {
                         + "k.  Remaining in bucket "
                         + actualBucket.getAvailableBytes() / 1000 + "k");
             }
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
@@ -711,11 +933,13 @@ public class RetrievalPlan {
             BandwidthReservation reservation) {
         long bucketStartTime = bucket.getBucketStartTime();
 
-        synchronized (bucketsLock) {
+        lockForChange();
+        try {
             BandwidthBucket actualBucket = getBucket(bucketStartTime);
             actualBucket.setCurrentSize(
                     actualBucket.getCurrentSize() + reservation.getSize());
             associator.addToBucket(actualBucket, reservation);
+            updateCapacityIndex(actualBucket);
             if (statusHandler.isPriorityEnabled(Priority.DEBUG)) {
                 statusHandler.debug("Adding to bucket "
                         + actualBucket.getBucketStartTime() + " with size "
@@ -724,9 +948,107 @@ public class RetrievalPlan {
                         + "k.  Remaining in bucket "
                         + actualBucket.getAvailableBytes() / 1000 + "k");
             }
+        } finally {
+            planLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Get the capacity index for the buckets of this plan. Callers must hold
+     * the plan's write lock, which is the case for anything invoked from
+     * {@link #schedule(BandwidthAllocation)}.
+     *
+     * @return the capacity index
+     */
+    BandwidthBucketCapacityIndex getCapacityIndex() {
+        return capacityIndex;
+    }
+
+    /**
+     * Update the capacity index entry for a bucket from its current size and
+     * associated allocations.
+     *
+     * @param bucket
+     *            the bucket
+     */
+    private void updateCapacityIndex(BandwidthBucket bucket) {
+        capacityIndex.update(bucket.getBucketStartTime(),
+                bucket.getAvailableBytes(), getLowestOccupantPriority(bucket));
+    }
+
+    /**
+     * Rebuild the capacity index from the buckets dao and associator.
+     */
+    private void rebuildCapacityIndex() {
+        capacityIndex.clear();
+        for (BandwidthBucket bucket : bucketsDao.getAll(network)) {
+            capacityIndex.append(bucket.getBucketStartTime(),
+                    bucket.getAvailableBytes(),
+                    getLowestOccupantPriority(bucket));
+        }
+    }
+
+    /**
+     * Rebuild the READY allocation queue from the buckets dao and associator.
+     */
+    private void rebuildReadyAllocations() {
+        readyAllocations.clear();
+        for (BandwidthBucket bucket : bucketsDao.getAll(network)) {
+            for (BandwidthAllocation allocation : associator
+                    .getBandwidthAllocationsForBucket(bucket)) {
+                readyAllocations.update(allocation,
+                        bucket.getBucketStartTime());
+            }
+        }
+    }
+
+    /**
+     * Re-queue the READY allocations whose earliest bucket was removed under
+     * their next remaining bucket, if any.
+     *
+     * @param deletedUpTo
+     *            buckets were deleted up to and including this time
+     */
+    private void requeueReadyAllocationsAfter(long deletedUpTo) {
+        List<BandwidthAllocation> orphaned = readyAllocations
+                .removeUpTo(deletedUpTo);
+        if (orphaned.isEmpty()) {
+            return;
+        }
+        for (BandwidthAllocation allocation : orphaned) {
+            Set<Long> bucketIds = requestMap.get(allocation.getId());
+            if (bucketIds == null) {
+                continue;
+            }
+            for (Long bucketId : bucketIds) {
+                if (bucketId > deletedUpTo
+                        && getBucketNoChecks(bucketId) != null) {
+                    readyAllocations.update(allocation, bucketId);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the ordinal of the lowest priority {@link BandwidthAllocation} in the
+     * bucket.
+     *
+     * @param bucket
+     *            the bucket
+     * @return the ordinal, or {@link BandwidthBucketCapacityIndex#NO_OCCUPANT}
+     */
+    private int getLowestOccupantPriority(BandwidthBucket bucket) {
+        int lowest = BandwidthBucketCapacityIndex.NO_OCCUPANT;
+        for (BandwidthAllocation allocation : associator
+                .getBandwidthAllocationsForBucket(bucket)) {
+            if (allocation.getPriority() != null) {
+                lowest = Math.max(lowest, allocation.getPriority().ordinal());
+            }
+        }
+        return lowest;
+    }
+
     /**
      * Retrieve the {@link BandwidthAllocation}s for a {@link BandwidthBucket}.
      *
@@ -736,7 +1058,12 @@ public class RetrievalPlan {
      */
     public List<BandwidthAllocation> getBandwidthAllocationsForBucket(
             BandwidthBucket bucket) {
-        return associator.getBandwidthAllocationsForBucket(bucket);
+        planLock.readLock().lock();
+        try {
+            return associator.getBandwidthAllocationsForBucket(bucket);
+        } finally {
+            planLock.readLock().unlock();
+        }
     }
 
     /**
@@ -748,7 +1075,12 @@ public class RetrievalPlan {
      */
     public List<BandwidthReservation> getBandwidthReservationsForBucket(
             BandwidthBucket bucket) {
-        return associator.getBandwidthReservationsForBucket(bucket);
+        planLock.readLock().lock();
+        try {
+            return associator.getBandwidthReservationsForBucket(bucket);
+        } finally {
+            planLock.readLock().unlock();
+        }
     }
 
     /**
@@ -767,15 +1099,33 @@ public class RetrievalPlan {
      *            the other plan
      */
     public void copyState(RetrievalPlan fromPlan) {
-        this.bucketsDao.copyState(fromPlan.bucketsDao);
-        this.bucketMinutes = fromPlan.bucketMinutes;
-        this.bytesPerBucket = fromPlan.bytesPerBucket;
-        this.planDays = fromPlan.planDays;
-        this.planEnd = TimeUtil.newGmtCalendar(fromPlan.planEnd.getTime());
-        this.planStart = TimeUtil.newGmtCalendar(fromPlan.planStart.getTime());
-        this.requestMap.clear();
-        this.requestMap.putAll(fromPlan.requestMap);
-        this.associator.copyState(fromPlan.associator);
+        fromPlan.planLock.readLock().lock();
+        try {
+            lockForChange();
+            try {
+                this.bucketsDao.copyState(fromPlan.bucketsDao);
+                this.bucketMinutes = fromPlan.bucketMinutes;
+                this.bytesPerBucket = fromPlan.bytesPerBucket;
+                this.planDays = fromPlan.planDays;
+                this.planEnd = TimeUtil
+                        .newGmtCalendar(fromPlan.planEnd.getTime());
+                this.planStart = TimeUtil
+                        .newGmtCalendar(fromPlan.planStart.getTime());
+                this.requestMap.clear();
+                for (Map.Entry<Long, Set<Long>> entry : fromPlan.requestMap
+                        .entrySet()) {
+                    this.requestMap.put(entry.getKey(),
+                            new TreeSet<>(entry.getValue()));
+                }
+                this.associator.copyState(fromPlan.associator);
+                rebuildCapacityIndex();
+                rebuildReadyAllocations();
+            } finally {
+                planLock.writeLock().unlock();
+            }
+        } finally {
+            fromPlan.planLock.readLock().unlock();
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,393 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.harvester.crawler;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.edex.datadelivery.retrieval.interfaces.IExtractMetaData;
+
+import opendap.dap.DAS;
+
+/**
+ * Extracts the metadata of crawler links on a bounded executor. Each host is
+ * limited to a number of concurrent requests and successive requests to a
+ * host are spaced by a politeness delay, so extracting a large collection
+ * does not hammer a provider. Links wait in a queue per host and are only
+ * handed to the executor once their host may take another request, so a busy
+ * host never ties up threads other hosts could use. One extractor is meant to
+ * be shared by everything crawling the same hosts. Links are handed back as
+ * their extraction finishes, so they can be parsed while the rest are still
+ * being fetched.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Queue links per host instead of blocking
+ *                                  executor threads on the host limits.
+ *
+ * </pre>
+ *
+ */
+class CrawlLinkExtractor {
+
+    private static final IUFStatusHandler statusHandler = UFStatus
+            .getHandler(CrawlLinkExtractor.class);
+
+    /** Starts delayed host requests and retries, its thread never finishes */
+    private static final ScheduledExecutorService delayTimer = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("crawl-metadata-delay-%d").setDaemon(true)
+                    .build());
+
+    /**
+     * The requests made to one host and the links waiting for it, guarded by
+     * its own lock.
+     */
+    private static class Host {
+
+        private final Deque<Task> waiting = new ArrayDeque<>();
+
+        private int active;
+
+        /** Earliest time the next request to the host may start */
+        private long nextStartMillis;
+
+        private boolean drainScheduled;
+    }
+
+    /**
+     * A link to extract.
+     */
+    private static class Task {
+
+        private final Extraction extraction;
+
+        private final CrawlerLink link;
+
+        private final IExtractMetaData<String, DAS> mde;
+
+        private final String collectionName;
+
+        private int attempt = 1;
+
+        private Task(Extraction extraction, CrawlerLink link,
+                IExtractMetaData<String, DAS> mde, String collectionName) {
+            this.extraction = extraction;
+            this.link = link;
+            this.mde = mde;
+            this.collectionName = collectionName;
+        }
+    }
+
+    /**
+     * A link whose extraction finished.
+     */
+    static class Result {
+
+        private final CrawlerLink link;
+
+        private final boolean extracted;
+
+        private Result(CrawlerLink link, boolean extracted) {
+            this.link = link;
+            this.extracted = extracted;
+        }
+
+        /**
+         * @return the link
+         */
+        CrawlerLink getLink() {
+            return link;
+        }
+
+        /**
+         * @return true if the metadata of the link was extracted
+         */
+        boolean isExtracted() {
+            return extracted;
+        }
+    }
+
+    /**
+     * The extraction of a list of links.
+     */
+    static class Extraction {
+
+        private final BlockingQueue<Result> done = new LinkedBlockingQueue<>();
+
+        private final Queue<Future<?>> futures = new ConcurrentLinkedQueue<>();
+
+        private volatile boolean cancelled;
+
+        private int remaining;
+
+        private Extraction(int size) {
+            this.remaining = size;
+        }
+
+        /**
+         * @return true if there are links whose result has not been returned
+         *         by {@link #next()}
+         */
+        boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Wait for at least one link to finish and get the results of all the
+         * links that have finished.
+         *
+         * @return the results
+         * @throws InterruptedException
+         */
+        List<Result> next() throws InterruptedException {
+            List<Result> results = new ArrayList<>();
+            if (remaining > 0) {
+                results.add(done.take());
+                done.drainTo(results);
+                remaining -= results.size();
+            }
+            return results;
+        }
+
+        /**
+         * Stop extracting the links that have not finished.
+         */
+        void cancel() {
+            cancelled = true;
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private final ExecutorService executor;
+
+    private final int maxRequestsPerHost;
+
+    private final long hostDelayMillis;
+
+    private final int maxRetries;
+
+    private final long retryIntervalMillis;
+
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param executor
+     *            runs the extractions
+     * @param maxRequestsPerHost
+     *            most extractions from one host at once
+     * @param hostDelayMillis
+     *            least time between the start of two extractions from one
+     *            host
+     * @param maxRetries
+     *            number of times a failed extraction is retried
+     * @param retryIntervalMillis
+     *            time to wait before retrying a failed extraction
+     */
+    CrawlLinkExtractor(ExecutorService executor, int maxRequestsPerHost,
+            long hostDelayMillis, int maxRetries, long retryIntervalMillis) {
+        this.executor = executor;
+        this.maxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+        this.hostDelayMillis = Math.max(0L, hostDelayMillis);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryIntervalMillis = Math.max(0L, retryIntervalMillis);
+    }
+
+    /**
+     * Start extracting the metadata of links. Each link waits in the queue of
+     * its host until the host may take another request.
+     *
+     * @param links
+     * @param extractors
+     *            creates the extractor used for a link, called on this thread
+     * @param collectionName
+     *            used in log messages
+     * @return the extraction
+     */
+    Extraction extract(List<CrawlerLink> links,
+            Supplier<IExtractMetaData<String, DAS>> extractors,
+            String collectionName) {
+        Extraction extraction = new Extraction(links.size());
+        for (CrawlerLink link : links) {
+            enqueue(getHost(link.getUrl()), new Task(extraction, link,
+                    extractors.get(), collectionName));
+        }
+        return extraction;
+    }
+
+    private void enqueue(Host host, Task task) {
+        synchronized (host) {
+            host.waiting.add(task);
+        }
+        drain(host);
+    }
+
+    /**
+     * Hand the waiting links of a host to the executor while the host may take
+     * another request. When the politeness delay holds the next link back, a
+     * drain is scheduled for when it ends.
+     */
+    private void drain(Host host) {
+        synchronized (host) {
+            while (host.active < maxRequestsPerHost
+                    && !host.waiting.isEmpty()) {
+                long now = System.currentTimeMillis();
+                if (now < host.nextStartMillis) {
+                    if (!host.drainScheduled) {
+                        host.drainScheduled = true;
+                        delayTimer.schedule(() -> {
+                            synchronized (host) {
+                                host.drainScheduled = false;
+                            }
+                            drain(host);
+                        }, host.nextStartMillis - now, TimeUnit.MILLISECONDS);
+                    }
+                    return;
+                }
+
+                Task task = host.waiting.poll();
+                if (task.extraction.cancelled) {
+                    task.extraction.done.add(new Result(task.link, false));
+                    continue;
+                }
+                host.active++;
+                host.nextStartMillis = now + hostDelayMillis;
+                AtomicBoolean started = new AtomicBoolean();
+                FutureTask<Void> future = new FutureTask<Void>(
+                        () -> extract(host, task, started), null) {
+                    @Override
+                    protected void done() {
+                        // Cancelled before it ran, so it never will
+                        if (isCancelled()
+                                && started.compareAndSet(false, true)) {
+                            finish(host, task, false, false);
+                        }
+                    }
+                };
+                try {
+                    task.extraction.futures.add(future);
+                    executor.execute(future);
+                } catch (RejectedExecutionException e) {
+                    host.active--;
+                    statusHandler.error("Unable to extract metadata for "
+                            + task.link.getUrl(), e);
+                    task.extraction.done.add(new Result(task.link, false));
+                }
+            }
+        }
+    }
+
+    /**
+     * Make one attempt at extracting a link. A failed attempt goes back to
+     * the queue of its host after the retry interval, the thread does not wait
+     * for it.
+     */
+    private void extract(Host host, Task task, AtomicBoolean started) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        String url = task.link.getUrl();
+        boolean extracted = false;
+        boolean retry = false;
+        try {
+            task.link.setMetadata(task.mde.extractMetaData(url));
+            task.mde.setDataDate();
+            extracted = true;
+        } catch (Exception e) {
+            statusHandler.error(
+                    "Error while extracting metadata for dataset group "
+                            + task.collectionName + " from " + url
+                            + " on attempt " + task.attempt,
+                    e);
+            retry = task.attempt <= maxRetries && !task.extraction.cancelled;
+            if (!retry) {
+                statusHandler.error(
+                        "Unable to retrieve metadata for dataset group "
+                                + task.collectionName + ": " + url);
+            }
+        } finally {
+            finish(host, task, extracted, retry);
+        }
+    }
+
+    /**
+     * Free the request of a host, then report the link or queue its retry.
+     */
+    private void finish(Host host, Task task, boolean extracted,
+            boolean retry) {
+        synchronized (host) {
+            host.active--;
+        }
+        if (retry) {
+            task.attempt++;
+            delayTimer.schedule(() -> enqueue(host, task), retryIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            task.extraction.done.add(new Result(task.link, extracted));
+        }
+        drain(host);
+    }
+
+    private Host getHost(String url) {
+        return hosts.computeIfAbsent(getHostName(url), h -> new Host());
+    }
+
+    private static String getHostName(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            if (host != null) {
+                return host.toLowerCase();
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through, the whole url is the key
+        }
+        return url;
+    }
+}
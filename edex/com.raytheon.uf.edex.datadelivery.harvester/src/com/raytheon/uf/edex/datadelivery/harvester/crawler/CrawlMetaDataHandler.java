@@ -21,8 +21,11 @@ package com.raytheon.uf.edex.datadelivery.harvester.crawler;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.raytheon.uf.common.datadelivery.harvester.CrawlAgent;
 import com.raytheon.uf.common.datadelivery.harvester.HarvesterConfig;
 import com.raytheon.uf.common.datadelivery.registry.Provider;
@@ -35,14 +38,13 @@ import com.raytheon.uf.common.time.util.TimeUtil;
 import com.raytheon.uf.edex.database.DataAccessLayerException;
 import com.raytheon.uf.edex.database.query.DatabaseQuery;
 import com.raytheon.uf.edex.datadelivery.harvester.MetaDataHandler;
-import com.raytheon.uf.edex.datadelivery.retrieval.interfaces.IExtractMetaData;
+import com.raytheon.uf.edex.datadelivery.harvester.crawler.CrawlLinkExtractor.Extraction;
+import com.raytheon.uf.edex.datadelivery.harvester.crawler.CrawlLinkExtractor.Result;
 import com.raytheon.uf.edex.datadelivery.retrieval.interfaces.IParseMetaData;
 import com.raytheon.uf.edex.datadelivery.retrieval.metadata.Link;
 import com.raytheon.uf.edex.datadelivery.retrieval.metadata.ServiceTypeFactory;
 import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDapServiceFactory;
 
-import opendap.dap.DAS;
-
 /**
  * Processes links that have been found for known URLParserInfos by the crawler
  * and parses them for metadata to add to the registry.
@@ -78,6 +80,12 @@ import opendap.dap.DAS;
  * Aug 31, 2017  6430     rjpeter   Added timing information.
  * Oct 04, 2017  6465     tjensen   Get URLParserInfos from config file
  * Oct 31, 2017  6484     tjensen   Added retries on extractMetadata
+ * Oct 17, 2026           agent     Extract links in parallel with per host
+ *                                  limits and parse them as they finish.
+ * Oct 17, 2026           agent     Share one extraction pool between handlers,
+ *                                  parse extracted links in batches.
+ * Oct 17, 2026           agent     Share the host limits between handlers,
+ *                                  parse links as soon as they are extracted.
  *
  * </pre>
  *
@@ -100,6 +108,30 @@ public class CrawlMetaDataHandler extends MetaDataHandler {
     private static final long RETRY_INTERVAL_MS = Long
             .getLong("retrieval.retry.millis", 5000);
 
+    /** Number of threads extracting metadata */
+    private static final int EXTRACT_THREADS = Integer
+            .getInteger("harvester.crawl.extract.threads", 8);
+
+    /** Most metadata extractions from one host at once */
+    private static final int EXTRACT_MAX_PER_HOST = Integer
+            .getInteger("harvester.crawl.extract.max.per.host", 2);
+
+    /** Least time between starting two extractions from one host */
+    private static final long EXTRACT_HOST_DELAY_MS = Long
+            .getLong("harvester.crawl.extract.host.delay.millis", 500);
+
+    /** Extracts metadata for every handler, its threads never finish */
+    private static final ExecutorService extractExecutor = Executors
+            .newFixedThreadPool(EXTRACT_THREADS,
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("crawl-metadata-extract-%d")
+                            .setDaemon(true).build());
+
+    /** Shared so handlers crawling the same host share its limits */
+    private static final CrawlLinkExtractor linkExtractor = new CrawlLinkExtractor(
+            extractExecutor, EXTRACT_MAX_PER_HOST, EXTRACT_HOST_DELAY_MS,
+            MAX_RETRIES, RETRY_INTERVAL_MS);
+
     private final CrawlerLinkDao crawlerLinkDao = new CrawlerLinkDao();
 
     public CrawlMetaDataHandler(ProviderHandler providerHandler) {
@@ -149,80 +181,44 @@ public class CrawlMetaDataHandler extends MetaDataHandler {
                             .retrieveServiceFactory(provider.getServiceType());
                     serviceFactory.setProvider(provider);
 
-                    IExtractMetaData<String, DAS> mde = serviceFactory
-                            .getExtractor();
-
-                    List<CrawlerLink> removes = new ArrayList<>();
-                    for (CrawlerLink link : crawlerLinks) {
+                    Extraction extraction = linkExtractor.extract(
+                            crawlerLinks, serviceFactory::getExtractor,
+                            collectionName);
+                    String dataDateFormat = agent.getDateFormat();
+                    IParseMetaData mdp = serviceFactory.getParser();
+                    int extracted = 0;
 
-                        String url = link.getUrl();
-
-                        int retries = 0;
-                        while (retries <= MAX_RETRIES) {
-                            try {
-                                link.setMetadata(mde.extractMetaData(url));
-                                mde.setDataDate();
-                                break;
-                            } catch (Exception e) {
-                                statusHandler
-                                        .error("Error while extracting metadata for dataset group "
-                                                + collectionName + " from "
-                                                + url + " on attempt "
-                                                + (retries + 1), e);
-                            }
-                            retries += 1;
-                            if (retries > MAX_RETRIES) {
-                                statusHandler
-                                        .error("Unable to retrieve metadata for dataset group "
-                                                + collectionName + ": " + url);
-                                /*
-                                 * If we can't extract it, we can't parse it, so
-                                 * remove
-                                 */
-                                removes.add(link);
-                            } else {
-                                try {
-                                    Thread.sleep(RETRY_INTERVAL_MS);
-                                } catch (InterruptedException e2) {
-                                    break;
+                    // Parse the links that have finished while the rest run
+                    while (extraction.hasNext()) {
+                        List<CrawlerLink> links = new ArrayList<>();
+                        List<CrawlerLink> removes = new ArrayList<>();
+                        try {
+                            for (Result result : extraction.next()) {
+                                if (result.isExtracted()) {
+                                    links.add(result.getLink());
+                                } else {
+                                    /*
+                                     * If we can't extract it, we can't parse
+                                     * it, so remove
+                                     */
+                                    removes.add(result.getLink());
                                 }
                             }
+                        } catch (InterruptedException e) {
+                            extraction.cancel();
+                            Thread.currentThread().interrupt();
+                            return;
                         }
-                    }
-                    crawlerLinks.removeAll(removes);
-                    crawlerLinkDao.setAllProcessed(removes);
-
-                    if (!crawlerLinks.isEmpty()) {
-                        // now start parsing the metadata objects
-                        String dataDateFormat = agent.getDateFormat();
-
-                        IParseMetaData mdp = serviceFactory.getParser();
 
-                        ITimer timer = TimeUtil.getTimer();
-                        timer.start();
-                        try {
-                            List<Link> links = crawlerLinks.stream()
-                                    .map(CrawlerLink::asLink)
-                                    .collect(Collectors.toList());
-                            mdp.parseMetaData(provider, links, urlParserInfo,
+                        crawlerLinkDao.setAllProcessed(removes);
+                        if (!links.isEmpty()) {
+                            extracted += links.size();
+                            parseMetaData(mdp, provider, links, urlParserInfo,
                                     dataDateFormat);
-                            crawlerLinkDao.setAllProcessed(crawlerLinks);
-                            statusHandler.info("Successfully processed "
-                                    + links.size() + " links for "
-                                    + providerName + " : " + collectionName);
-                            crawlerLinkDao.createLinks(crawlerLinks);
-                        } catch (Exception e) {
-                            statusHandler
-                                    .error("Unable to parse metadata for dataset group"
-                                            + collectionName, e);
                         }
-                        timer.stop();
-                        statusHandler.info("Parsed and stored metadata from ["
-                                + providerName + "] for model ["
-                                + urlParserInfo.getName() + "] in [" + TimeUtil
-                                        .prettyDuration(timer.getElapsedTime())
-                                + "]");
-                    } else {
+                    }
+
+                    if (extracted == 0) {
                         statusHandler.info("No new data for " + providerName
                                 + " : " + collectionName);
                     }
@@ -237,6 +233,42 @@ public class CrawlMetaDataHandler extends MetaDataHandler {
         }
     }
 
+    /**
+     * Parse the metadata of extracted links and store it.
+     *
+     * @param mdp
+     * @param provider
+     * @param crawlerLinks
+     *            links with their metadata extracted
+     * @param urlParserInfo
+     * @param dataDateFormat
+     */
+    private void parseMetaData(IParseMetaData mdp, Provider provider,
+            List<CrawlerLink> crawlerLinks, URLParserInfo urlParserInfo,
+            String dataDateFormat) {
+        String providerName = provider.getName();
+        String collectionName = crawlerLinks.get(0).getCollectionName();
+
+        ITimer timer = TimeUtil.getTimer();
+        timer.start();
+        try {
+            List<Link> links = crawlerLinks.stream().map(CrawlerLink::asLink)
+                    .collect(Collectors.toList());
+            mdp.parseMetaData(provider, links, urlParserInfo, dataDateFormat);
+            crawlerLinkDao.setAllProcessed(crawlerLinks);
+            statusHandler.info("Successfully processed " + links.size()
+                    + " links for " + providerName + " : " + collectionName);
+            crawlerLinkDao.createLinks(crawlerLinks);
+        } catch (Exception e) {
+            statusHandler.error("Unable to parse metadata for dataset group"
+                    + collectionName, e);
+        }
+        timer.stop();
+        statusHandler.info("Parsed and stored metadata from [" + providerName
+                + "] for model [" + urlParserInfo.getName() + "] in ["
+                + TimeUtil.prettyDuration(timer.getElapsedTime()) + "]");
+    }
+
     public void removeOldLinks() {
         List<String> providerNames = null;
         DatabaseQuery q = new DatabaseQuery(CrawlerLink.class);
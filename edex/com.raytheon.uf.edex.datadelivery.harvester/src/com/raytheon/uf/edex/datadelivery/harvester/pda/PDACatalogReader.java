@@ -0,0 +1,215 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.harvester.pda;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.raytheon.uf.common.status.IUFStatusHandler;
+import com.raytheon.uf.common.status.UFStatus;
+import com.raytheon.uf.common.status.UFStatus.Priority;
+
+import net.opengis.cat.csw.v_2_0_2.BriefRecordType;
+
+/**
+ * Reads the BriefRecords of a PDA GetRecords catalog one at a time with StAX,
+ * binding only the record being read rather than the whole response. Each
+ * record is handed to a record handler on the executor. Only a limited number
+ * of records are read ahead of the handlers, so the memory used does not
+ * depend on the size of the catalog.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class PDACatalogReader {
+
+    private static final IUFStatusHandler statusHandler = UFStatus
+            .getHandler(PDACatalogReader.class);
+
+    static final QName BRIEF_RECORD = new QName(
+            "http://www.opengis.net/cat/csw/2.0.2", "BriefRecord");
+
+    private static final XMLInputFactory inputFactory = XMLInputFactory
+            .newInstance();
+
+    static {
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(
+                XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Handles one record of the catalog.
+     */
+    interface RecordHandler {
+        void handle(BriefRecordType record) throws Exception;
+    }
+
+    /**
+     * Counts of the records read from a catalog.
+     */
+    static class Result {
+
+        private final int handled;
+
+        private final int failed;
+
+        private Result(int handled, int failed) {
+            this.handled = handled;
+            this.failed = failed;
+        }
+
+        /**
+         * @return how many records were handled successfully
+         */
+        int getHandled() {
+            return handled;
+        }
+
+        /**
+         * @return how many records the handler failed on
+         */
+        int getFailed() {
+            return failed;
+        }
+    }
+
+    private final JAXBContext context;
+
+    private final ExecutorService executor;
+
+    private final int maxPending;
+
+    /**
+     * Constructor.
+     *
+     * @param context
+     *            binds the BriefRecords
+     * @param executor
+     *            runs the record handler
+     * @param maxPending
+     *            most records read and not yet handled
+     */
+    PDACatalogReader(JAXBContext context, ExecutorService executor,
+            int maxPending) {
+        this.context = context;
+        this.executor = executor;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Read every BriefRecord of a catalog and hand it to the handler. Returns
+     * once all records have been handled.
+     *
+     * @param is
+     *            the catalog, not closed
+     * @param handler
+     * @return the counts of records handled
+     * @throws XMLStreamException
+     *             if the catalog is not well formed
+     * @throws JAXBException
+     *             if a record could not be bound
+     * @throws InterruptedException
+     */
+    Result read(InputStream is, final RecordHandler handler)
+            throws XMLStreamException, JAXBException, InterruptedException {
+        final Semaphore pending = new Semaphore(maxPending);
+        final AtomicInteger handled = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        Unmarshaller unmarshaller = context.createUnmarshaller();
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+
+        try {
+            BriefRecordType record;
+            while ((record = next(reader, unmarshaller)) != null) {
+                pending.acquire();
+                final BriefRecordType toHandle = record;
+                try {
+                    executor.execute(() -> {
+                        try {
+                            handler.handle(toHandle);
+                            handled.incrementAndGet();
+                        } catch (Exception e) {
+                            statusHandler.handle(Priority.ERROR,
+                                    "Couldn't parse metadata! "
+                                            + toHandle.getTitle(),
+                                    e);
+                            failed.incrementAndGet();
+                        } finally {
+                            pending.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    pending.release();
+                    throw e;
+                }
+            }
+        } finally {
+            reader.close();
+            // Wait for the records already read, even if reading failed
+            pending.acquireUninterruptibly(maxPending);
+            pending.release(maxPending);
+        }
+
+        return new Result(handled.get(), failed.get());
+    }
+
+    /**
+     * Advance to and bind the next BriefRecord.
+     *
+     * @return the record, null at the end of the catalog
+     */
+    private static BriefRecordType next(XMLStreamReader reader,
+            Unmarshaller unmarshaller)
+            throws XMLStreamException, JAXBException {
+        while (reader.hasNext()) {
+            /*
+             * Unmarshalling leaves the reader on the event after the record,
+             * which may be the start of the next record.
+             */
+            if (reader.getEventType() == XMLStreamConstants.START_ELEMENT
+                    && BRIEF_RECORD.equals(reader.getName())) {
+                return unmarshaller.unmarshal(reader, BriefRecordType.class)
+                        .getValue();
+            }
+            reader.next();
+        }
+        return null;
+    }
+}
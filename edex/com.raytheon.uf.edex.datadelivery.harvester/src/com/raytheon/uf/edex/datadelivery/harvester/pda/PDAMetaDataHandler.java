@@ -19,16 +19,21 @@
  **/
 package com.raytheon.uf.edex.datadelivery.harvester.pda;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.io.FileDeleteStrategy;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.raytheon.uf.common.datadelivery.harvester.HarvesterConfig;
 import com.raytheon.uf.common.datadelivery.harvester.HarvesterConfigurationManager;
 import com.raytheon.uf.common.datadelivery.harvester.PDACatalogServiceResponseWrapper;
@@ -43,9 +48,7 @@ import com.raytheon.uf.edex.datadelivery.retrieval.pda.PDAMetaDataParser;
 import com.raytheon.uf.edex.datadelivery.retrieval.pda.PDAServiceFactory;
 import com.raytheon.uf.edex.ogc.common.jaxb.OgcJaxbManager;
 
-import net.opengis.cat.csw.v_2_0_2.AbstractRecordType;
 import net.opengis.cat.csw.v_2_0_2.BriefRecordType;
-import net.opengis.cat.csw.v_2_0_2.GetRecordsResponseType;
 
 /**
  * Harvest PDA MetaData
@@ -63,6 +66,9 @@ import net.opengis.cat.csw.v_2_0_2.GetRecordsResponseType;
  *                                  with transactions.
  * Mar 16, 2016  3919     tjensen   Cleanup unneeded interfaces
  * Mar 08, 2017  6089     tjensen   Drop date format from parseMetadata calls
+ * Oct 17, 2026           agent     Stream catalog file records to parallel
+ *                                  parse threads.
+ * Oct 17, 2026           agent     Share one parse pool between handlers.
  *
  * </pre>
  *
@@ -72,12 +78,29 @@ import net.opengis.cat.csw.v_2_0_2.GetRecordsResponseType;
 
 public class PDAMetaDataHandler extends MetaDataHandler {
 
+    /** Number of threads parsing the records of a catalog file */
+    private static final int PARSE_THREADS = Integer
+            .getInteger("harvester.pda.parse.threads", 4);
+
+    /** Most records read from a catalog file ahead of the parse threads */
+    private static final int PARSE_QUEUE_SIZE = Integer
+            .getInteger("harvester.pda.parse.queue.size", 100);
+
+    /** Parses catalog records for every handler, its threads never finish */
+    private static final ExecutorService parseExecutor = Executors
+            .newFixedThreadPool(PARSE_THREADS,
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("pda-metadata-parse-%d")
+                            .setDaemon(true).build());
+
     private OgcJaxbManager jaxbManager = null;
 
+    private PDACatalogReader catalogReader = null;
+
     private static final String fileExtension = ".xml";
 
     /** CSW class factory **/
-    private static final Class<?>[] classes = new Class<?>[] {
+    static final Class<?>[] classes = new Class<?>[] {
             net.opengis.cat.csw.v_2_0_2.ObjectFactory.class,
             net.opengis.gml.v_3_1_1.ObjectFactory.class,
             net.opengis.filter.v_1_1_0.ObjectFactory.class };
@@ -94,13 +117,12 @@ public class PDAMetaDataHandler extends MetaDataHandler {
      */
     public void processFile(byte[] bytes) throws IOException {
 
-        GetRecordsResponseType briefRecords = null;
         String filePath = "unknown";
         String fileName = null;
         File directory = null;
         HarvesterConfig config = HarvesterConfigurationManager
                 .getPDAConfiguration();
-        Provider provider = config.getProvider();
+        final Provider provider = config.getProvider();
         PDAServiceFactory serviceFactory = (PDAServiceFactory) ServiceTypeFactory
                 .retrieveServiceFactory(provider.getServiceType());
 
@@ -129,61 +151,60 @@ public class PDAMetaDataHandler extends MetaDataHandler {
                     }
                 }
             }
-
-            if (fileName != null) {
-                statusHandler.info("Processing PDA file " + fileName
-                        + " for MetaData.....");
-
-                briefRecords = (GetRecordsResponseType) getJaxbManager()
-                        .unmarshalFromInputStream(
-                                new FileInputStream(fileName));
-            } else {
-                statusHandler.info("No Files available to Process...");
-            }
-
         } catch (SerializationException e) {
             statusHandler.handle(Priority.ERROR,
                     "Couldn't deserialize PDACatalogServiceResponseWrapper!",
                     e);
+            return;
+        }
+
+        if (fileName == null) {
+            statusHandler.info("No Files available to Process...");
+            return;
+        }
+
+        PDACatalogReader reader = getCatalogReader();
+        if (reader == null) {
+            return;
+        }
+
+        statusHandler
+                .info("Processing PDA file " + fileName + " for MetaData.....");
+
+        // Make a parser
+        final PDAMetaDataParser parser = (PDAMetaDataParser) serviceFactory
+                .getParser();
+        PDACatalogReader.Result result = null;
+
+        // stream brief record(s) from the file and send to parser
+        try (InputStream is = new BufferedInputStream(
+                new FileInputStream(fileName))) {
+            // false, only parse dataset, parameter, and datasetname info for
+            // getRecords()
+            result = reader.read(is,
+                    record -> parser.parseMetaData(provider, record, false));
         } catch (IOException e) {
             statusHandler.handle(Priority.ERROR,
                     "Couldn't find or read file! " + fileName, e);
+        } catch (XMLStreamException | JAXBException e) {
+            statusHandler.handle(Priority.ERROR,
+                    "Couldn't read metadata records from file! " + fileName,
+                    e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            statusHandler.handle(Priority.ERROR,
+                    "Interrupted reading metadata records from file! "
+                            + fileName,
+                    e);
         }
 
-        if (briefRecords != null) {
-            // Make a parser
-            PDAMetaDataParser parser = (PDAMetaDataParser) serviceFactory
-                    .getParser();
-            // extract brief record(s) and send to parser
-            List<JAXBElement<? extends AbstractRecordType>> briefs = briefRecords
-                    .getSearchResults().getAbstractRecord();
-            int count = 0;
-            boolean parsed = true;
-
-            for (JAXBElement<? extends AbstractRecordType> brief : briefs) {
-
-                BriefRecordType record = (BriefRecordType) brief.getValue();
-
-                try {
-                    // false, only parse dataset, parameter, and datasetname
-                    // info for getRecords()
-                    parser.parseMetaData(provider, record, false);
-                    count++;
-                } catch (Exception e) {
-                    statusHandler.handle(Priority.ERROR,
-                            "Couldn't parse metadata! "
-                                    + record.getTitle().toString(),
-                            e);
-                    parsed = false;
-                }
-            }
-
-            statusHandler.info("Parsed and stored  " + count
+        if (result != null) {
+            statusHandler.info("Parsed and stored  " + result.getHandled()
                     + " metadata definitions from file:" + fileName);
 
             // If parse was completely successful, cleanup file directory when
             // finished with it. No longer needed.
-            if (parsed) {
+            if (result.getFailed() == 0) {
                 File file = new File(fileName);
                 if (file.exists()) {
                     File dir = new File(file.getParent());
@@ -252,4 +273,26 @@ public class PDAMetaDataHandler extends MetaDataHandler {
         return jaxbManager;
     }
 
+    /**
+     * Gets the reader for streaming BriefRecords from catalog files
+     *
+     * @return
+     */
+    private synchronized PDACatalogReader getCatalogReader() {
+
+        if (catalogReader == null) {
+            try {
+                this.catalogReader = new PDACatalogReader(
+                        JAXBContext.newInstance(classes), parseExecutor,
+                        PARSE_THREADS + PARSE_QUEUE_SIZE);
+            } catch (JAXBException e) {
+                statusHandler.handle(Priority.PROBLEM,
+                        "JAXBContext failed to initialize, can not read CSW catalog files.",
+                        e);
+            }
+        }
+
+        return catalogReader;
+    }
+
 }
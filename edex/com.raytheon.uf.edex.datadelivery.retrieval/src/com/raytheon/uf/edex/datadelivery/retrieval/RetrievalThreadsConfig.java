@@ -38,6 +38,8 @@ import javax.xml.bind.annotation.XmlRootElement;
  * Date         Ticket#    Engineer    Description
  * ------------ ---------- ----------- --------------------------
  * Sep 21, 2017 6433       tgurney     Initial creation
+ * Oct 17, 2026            agent       Add optional maxThreads for the shared
+ *                                     retrieval pool.
  *
  * </pre>
  *
@@ -52,6 +54,14 @@ public class RetrievalThreadsConfig {
     @XmlElement(name = "provider")
     private List<RetrievalThreadsProvider> providers = new ArrayList<>();
 
+    /**
+     * Threads shared by all providers, the threads of each provider are then
+     * a limit rather than a reservation. Defaults to the sum of the provider
+     * threads.
+     */
+    @XmlElement(required = false)
+    private Integer maxThreads;
+
     public List<RetrievalThreadsProvider> getProviders() {
         return providers;
     }
@@ -59,4 +69,12 @@ public class RetrievalThreadsConfig {
     public void setProviders(List<RetrievalThreadsProvider> providers) {
         this.providers = providers;
     }
+
+    public Integer getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(Integer maxThreads) {
+        this.maxThreads = maxThreads;
+    }
 }
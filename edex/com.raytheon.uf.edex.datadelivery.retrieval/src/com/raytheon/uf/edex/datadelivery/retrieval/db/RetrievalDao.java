@@ -1,16 +1,26 @@
 package com.raytheon.uf.edex.datadelivery.retrieval.db;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
-import org.hibernate.LockOptions;
+import org.hibernate.LockMode;
 import org.hibernate.Query;
+import org.hibernate.SQLQuery;
 import org.hibernate.Session;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,6 +58,15 @@ import com.raytheon.uf.edex.datadelivery.retrieval.handlers.SubscriptionNotifyTa
  * Sep 21, 2017  6433     tgurney   Add provider arg to activateNextRetrievalRequest
  * Oct 10, 2017  6415     nabowle   Add getExpiredSubscriptionRetrievals(). Don't
  *                                  notify on PENDING retrievals.
+ * Oct 17, 2026           agent     Add getPendingCountByProvider() and
+ *                                  getBestPendingPriorityByProvider().
+ * Oct 17, 2026           agent     Add activateNextRetrievalRequests() to claim
+ *                                  a batch in one statement.
+ * Oct 17, 2026           agent     Insert new records in JDBC batches from
+ *                                  persistAll().
+ * Oct 17, 2026           agent     Remove activateNextRetrievalRequest().
+ * Oct 17, 2026           agent     Only stop using SKIP LOCKED when the
+ *                                  database rejects the statement.
  *
  * </pre>
  *
@@ -62,8 +81,39 @@ public class RetrievalDao
     private static final IUFStatusHandler statusHandler = UFStatus
             .getHandler(RetrievalDao.class);
 
+    /**
+     * Claims the best PENDING rows of a provider in one statement. Rows locked
+     * by another claimer are skipped rather than waited on. Backed by the
+     * provider/state/priority/id index on the table.
+     */
+    private static final String CLAIM_SKIP_LOCKED_SQL = "update subscription_retrieval set state = :stateRunning "
+            + "where id in (select id from subscription_retrieval "
+            + "where provider = :provider and state = :statePending "
+            + "order by priority, id limit :maxCount for update skip locked) "
+            + "returning id";
+
+    /**
+     * SQLStates of a statement the database does not understand: a syntax
+     * error, as PostgreSQL before 9.5 reports SKIP LOCKED, and an unsupported
+     * feature.
+     */
+    private static final String SYNTAX_ERROR_STATE = "42601";
+
+    private static final String FEATURE_NOT_SUPPORTED_STATE = "0A000";
+
+    private static final int DEFAULT_INSERT_BATCH_SIZE = Integer
+            .getInteger("retrieval.insert.batch.size", 500);
+
     private SubscriptionNotifyTask notifyTask;
 
+    private int insertBatchSize = DEFAULT_INSERT_BATCH_SIZE;
+
+    /**
+     * Whether the database supports {@link #CLAIM_SKIP_LOCKED_SQL}, null until
+     * checked.
+     */
+    private volatile Boolean skipLockedSupported;
+
     /**
      * Constructor.
      */
@@ -79,94 +129,130 @@ public class RetrievalDao
     }
 
     /**
-     * Returns the next PENDING retrieval request, puts it into a RUNNING state,
-     * based on current time. Based on priority and expire time.
+     * @param insertBatchSize
+     *            the most new records persistAll() inserts in one JDBC batch
+     */
+    public void setInsertBatchSize(int insertBatchSize) {
+        this.insertBatchSize = Math.max(1, insertBatchSize);
+    }
+
+    /**
+     * Puts up to maxCount of the best PENDING retrieval requests for the
+     * provider into a RUNNING state and returns them, in priority then id
+     * order. No JVM lock is held: on PostgreSQL the rows are claimed with a
+     * single UPDATE ... RETURNING that skips rows locked by other claimers,
+     * other databases (e.g. H2 in tests) lock the selected rows for update
+     * instead.
      *
      * @param provider
      *            the provider to constrain requests to
-     *
-     * @param syncObj
-     *            synchronize on this object for the entire length of this
-     *            method
-     *
-     * @return
+     * @param maxCount
+     *            the most requests to claim
+     * @return the claimed requests, empty if none were PENDING
+     * @throws DataAccessLayerException
      */
-    public RetrievalRequestRecord activateNextRetrievalRequest(String provider,
-            final Object syncObj) throws DataAccessLayerException {
-        synchronized (syncObj) {
-            Session sess = null;
-            RetrievalRequestRecord rval = null;
-
-            try {
-                sess = getCurrentSession();
-
-                // Find lowest priority item
-                final String minPriHql = "select min(rec.priority) from RetrievalRequestRecord rec "
-                        + "where rec.state = :statePending  and rec.provider = :provider";
-
-                /*
-                 * user lowest id, which is generally first inserted without
-                 * having to worry about duplicate insert time, thus preserving
-                 * ordering
-                 */
-                final String pkHql = "select min(rec.id) from RetrievalRequestRecord rec "
-                        + "where rec.state = :statePending and rec.priority = :minPri and rec.provider = :provider";
-
-                Query minPriQuery = sess.createQuery(minPriHql);
-                setQueryState(minPriQuery, State.PENDING);
-                minPriQuery.setString("provider", provider);
-
-                Query pkQuery = sess.createQuery(pkHql);
-                pkQuery.setString("provider", provider);
-                setQueryState(pkQuery, State.PENDING);
-
-                boolean done = false;
-
-                while (!done) {
-                    Object result = minPriQuery.uniqueResult();
-                    if (result != null) {
-                        int minPri = ((Number) result).intValue();
-                        pkQuery.setInteger("minPri", minPri);
-                        result = pkQuery.uniqueResult();
-                        if (result != null) {
-                            rval = (RetrievalRequestRecord) sess.get(
-                                    RetrievalRequestRecord.class,
-                                    ((Number) result).intValue(),
-                                    LockOptions.UPGRADE);
-
-                            if (rval == null
-                                    || !State.PENDING.equals(rval.getState())) {
-                                /*
-                                 * another thread grabbed request while waiting
-                                 * for upgrade lock, redo sub query, null out
-                                 * rval in case it was due to state change
-                                 */
-                                rval = null;
-                                continue;
-                            }
-                            done = true;
-                        }
-                        /*
-                         * else another thread grabbed last entry for this
-                         * priority, repeat loop
-                         */
-                    } else {
-                        // no Pending entries
-                        done = true;
+    public List<RetrievalRequestRecord> activateNextRetrievalRequests(
+            String provider, int maxCount) throws DataAccessLayerException {
+        try {
+            Session sess = getCurrentSession();
+            if (skipLockedSupported == null) {
+                skipLockedSupported = isPostgreSQL(sess);
+            }
+            if (skipLockedSupported) {
+                try {
+                    return claimSkipLocked(sess, provider, maxCount);
+                } catch (HibernateException e) {
+                    /*
+                     * The failed statement aborted the transaction, so the
+                     * row locking claim can only be used from the next call.
+                     * Anything else, a lost connection or a deadlock, leaves
+                     * SKIP LOCKED in use.
+                     */
+                    if (isUnsupportedStatement(e)) {
+                        skipLockedSupported = false;
+                        statusHandler.warn(
+                                "The database does not support SKIP LOCKED, retrievals will be claimed with row locks",
+                                e);
                     }
+                    throw e;
                 }
+            }
+            return claimLocked(sess, provider, maxCount);
+        } catch (Exception e) {
+            throw new DataAccessLayerException(
+                    "Failed claiming retrievals for provider [" + provider
+                            + "]",
+                    e);
+        }
+    }
 
-                if (rval != null) {
-                    rval.setState(State.RUNNING);
-                    sess.update(rval);
+    /**
+     * @return true if the cause of the exception is the database rejecting
+     *         the statement as a syntax error or unsupported feature
+     */
+    static boolean isUnsupportedStatement(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (SYNTAX_ERROR_STATE.equals(state)
+                        || FEATURE_NOT_SUPPORTED_STATE.equals(state)) {
+                    return true;
                 }
-            } catch (Exception e) {
-                throw new DataAccessLayerException(
-                        "Failed looking up next retrieval", e);
             }
+        }
+        return false;
+    }
 
-            return rval;
+    private List<RetrievalRequestRecord> claimSkipLocked(Session sess,
+            String provider, int maxCount) {
+        SQLQuery claim = sess.createSQLQuery(CLAIM_SKIP_LOCKED_SQL);
+        claim.setString("stateRunning", State.RUNNING.name());
+        claim.setString("statePending", State.PENDING.name());
+        claim.setString("provider", provider);
+        claim.setInteger("maxCount", maxCount);
+        List<Number> ids = claim.list();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Integer> claimedIds = new ArrayList<>(ids.size());
+        for (Number id : ids) {
+            claimedIds.add(id.intValue());
+        }
+        Criteria query = sess.createCriteria(RetrievalRequestRecord.class);
+        query.add(Restrictions.in("id", claimedIds));
+        query.addOrder(Order.asc("priority"));
+        query.addOrder(Order.asc("id"));
+        List<RetrievalRequestRecord> rval = query.list();
+        for (RetrievalRequestRecord rec : rval) {
+            // in case the session had already loaded the row
+            rec.setState(State.RUNNING);
         }
+        return rval;
+    }
+
+    private List<RetrievalRequestRecord> claimLocked(Session sess,
+            String provider, int maxCount) {
+        Criteria query = sess.createCriteria(RetrievalRequestRecord.class);
+        query.add(Restrictions.eq("provider", provider));
+        query.add(Restrictions.eq("state", State.PENDING));
+        query.addOrder(Order.asc("priority"));
+        query.addOrder(Order.asc("id"));
+        query.setMaxResults(maxCount);
+        query.setLockMode(LockMode.PESSIMISTIC_WRITE);
+        List<RetrievalRequestRecord> rval = query.list();
+        for (Iterator<RetrievalRequestRecord> iter = rval.iterator(); iter
+                .hasNext();) {
+            RetrievalRequestRecord rec = iter.next();
+            if (!State.PENDING.equals(rec.getState())) {
+                // claimed by another thread while waiting for the lock
+                iter.remove();
+                continue;
+            }
+            rec.setState(State.RUNNING);
+            sess.update(rec);
+        }
+        return rval;
     }
 
     /**
@@ -257,6 +343,52 @@ public class RetrievalDao
         return rval;
     }
 
+    /**
+     * Returns the number of PENDING retrievals per provider.
+     *
+     * @return the counts, providers without PENDING retrievals are absent
+     * @throws DataAccessLayerException
+     */
+    public Map<String, Integer> getPendingCountByProvider()
+            throws DataAccessLayerException {
+        return getPendingByProvider("count(rec.id)");
+    }
+
+    /**
+     * Returns the lowest (best) priority of the PENDING retrievals per
+     * provider.
+     *
+     * @return the priorities, providers without PENDING retrievals are absent
+     * @throws DataAccessLayerException
+     */
+    public Map<String, Integer> getBestPendingPriorityByProvider()
+            throws DataAccessLayerException {
+        return getPendingByProvider("min(rec.priority)");
+    }
+
+    private Map<String, Integer> getPendingByProvider(String aggregate)
+            throws DataAccessLayerException {
+        Map<String, Integer> rval = new HashMap<>();
+
+        try {
+            String hql = "select rec.provider, " + aggregate
+                    + " from RetrievalRequestRecord rec "
+                    + "where rec.state = :statePending group by rec.provider";
+            Query query = getCurrentSession().createQuery(hql);
+            setQueryState(query, State.PENDING);
+            List<Object[]> result = query.list();
+
+            for (Object[] cols : result) {
+                rval.put((String) cols[0], ((Number) cols[1]).intValue());
+            }
+        } catch (Exception e) {
+            throw new DataAccessLayerException(
+                    "Failed looking up pending retrievals by provider", e);
+        }
+
+        return rval;
+    }
+
     /**
      * Returns any failed request for the given subscription, owner, and url.
      *
@@ -395,9 +527,43 @@ public class RetrievalDao
         }
     }
 
+    /**
+     * Persist the records. On PostgreSQL new records are inserted in JDBC
+     * batches, with their ids allocated a batch at a time, and subscriptions
+     * are notified of the failed or completed ones once all are inserted.
+     */
     @Override
     public void persistAll(Collection<RetrievalRequestRecord> objs) {
-        super.persistAll(objs);
+        Session sess = getCurrentSession();
+        final List<RetrievalRequestRecord> newRecords = new ArrayList<>(
+                objs.size());
+        for (RetrievalRequestRecord rec : objs) {
+            if (rec.getId() == 0) {
+                newRecords.add(rec);
+            }
+        }
+        if (newRecords.size() != objs.size() || newRecords.size() < 2
+                || !isPostgreSQL(sess)) {
+            super.persistAll(objs);
+            return;
+        }
+
+        final RetrievalRequestRecordInserter inserter = new RetrievalRequestRecordInserter(
+                insertBatchSize);
+        sess.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                inserter.insert(connection, newRecords);
+            }
+        });
+        for (RetrievalRequestRecord rec : newRecords) {
+            notify(rec);
+        }
+    }
+
+    private static boolean isPostgreSQL(Session sess) {
+        return ((SessionFactoryImplementor) sess.getSessionFactory())
+                .getDialect() instanceof PostgreSQL81Dialect;
     }
 
     /**
@@ -32,10 +32,13 @@ import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
+import org.hibernate.annotations.Index;
+
+import com.raytheon.uf.common.datadelivery.registry.Network;
 import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval.SubscriptionType;
 import com.raytheon.uf.common.dataplugin.persist.IPersistableDataObject;
 import com.raytheon.uf.common.serialization.SerializationException;
-import com.raytheon.uf.common.serialization.SerializationUtil;
 import com.raytheon.uf.common.time.util.TimeUtil;
 
 /**
@@ -59,6 +62,10 @@ import com.raytheon.uf.common.time.util.TimeUtil;
  * Jul 31, 2017  6186     rjpeter   Refactored to be auto id.
  * Aug 02, 2017  6186     rjpeter   Added latencyExpireTime
  * Oct 23, 2017  6415     nabowle   Added latencyMinutes.
+ * Oct 17, 2026           agent     Index provider, state, priority and id for
+ *                                  batch claiming.
+ * Oct 17, 2026           agent     Store the retrieval compressed, add columns
+ *                                  for the fields read when notifying.
  *
  *
  * </pre>
@@ -67,6 +74,9 @@ import com.raytheon.uf.common.time.util.TimeUtil;
  */
 @Entity
 @Table(name = "subscription_retrieval")
+@org.hibernate.annotations.Table(appliesTo = "subscription_retrieval", indexes = {
+        @Index(name = "subscription_retrieval_providerStatePriorityIdx", columnNames = {
+                "provider", "state", "priority", "id" }) })
 @SequenceGenerator(initialValue = 1, allocationSize = 1, name = "SubscriptionRetrieval", sequenceName = "subscription_retrieval_seq")
 public class RetrievalRequestRecord implements IPersistableDataObject<Integer> {
 
@@ -109,6 +119,22 @@ public class RetrievalRequestRecord implements IPersistableDataObject<Integer> {
     @Column(nullable = false)
     private int latencyMinutes;
 
+    /*
+     * Copies of retrieval fields, so notifying subscriptions does not need to
+     * deserialize the retrieval. Null for records stored before they were
+     * added.
+     */
+    @Column
+    private Long requestRetrievalTime;
+
+    @Column
+    @Enumerated(EnumType.STRING)
+    private Network network;
+
+    @Column
+    @Enumerated(EnumType.STRING)
+    private SubscriptionType subscriptionType;
+
     @Column(nullable = false, length = 100_000)
     private byte[] retrieval;
 
@@ -128,6 +154,7 @@ public class RetrievalRequestRecord implements IPersistableDataObject<Integer> {
         provider = retrieval.getProvider();
         dataSetName = retrieval.getDataSetName();
         insertTime = TimeUtil.newDate();
+        setRetrievalFields(retrieval);
     }
 
     public int getId() {
@@ -202,6 +229,30 @@ public class RetrievalRequestRecord implements IPersistableDataObject<Integer> {
         this.insertTime = insertTime;
     }
 
+    public Long getRequestRetrievalTime() {
+        return requestRetrievalTime;
+    }
+
+    public void setRequestRetrievalTime(Long requestRetrievalTime) {
+        this.requestRetrievalTime = requestRetrievalTime;
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    public void setNetwork(Network network) {
+        this.network = network;
+    }
+
+    public SubscriptionType getSubscriptionType() {
+        return subscriptionType;
+    }
+
+    public void setSubscriptionType(SubscriptionType subscriptionType) {
+        this.subscriptionType = subscriptionType;
+    }
+
     public byte[] getRetrieval() {
         return retrieval;
     }
@@ -221,7 +272,14 @@ public class RetrievalRequestRecord implements IPersistableDataObject<Integer> {
     public void setRetrievalObj(Retrieval retrieval)
             throws SerializationException {
         this.retrievalObj = retrieval;
-        this.retrieval = SerializationUtil.transformToThrift(retrieval);
+        this.retrieval = RetrievalSerializer.serialize(retrieval);
+        setRetrievalFields(retrieval);
+    }
+
+    private void setRetrievalFields(Retrieval retrieval) {
+        requestRetrievalTime = retrieval.getRequestRetrievalTime();
+        network = retrieval.getNetwork();
+        subscriptionType = retrieval.getSubscriptionType();
     }
 
     /**
@@ -233,8 +291,7 @@ public class RetrievalRequestRecord implements IPersistableDataObject<Integer> {
      */
     public Retrieval getRetrievalObj() throws SerializationException {
         if (retrievalObj == null && retrieval != null) {
-            retrievalObj = SerializationUtil
-                    .transformFromThrift(Retrieval.class, retrieval);
+            retrievalObj = RetrievalSerializer.deserialize(retrieval);
         }
         return retrievalObj;
     }
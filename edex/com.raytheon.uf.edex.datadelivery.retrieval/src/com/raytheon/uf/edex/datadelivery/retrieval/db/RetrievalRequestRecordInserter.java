@@ -0,0 +1,144 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Inserts new {@link RetrievalRequestRecord}s with JDBC batches. The ids of a
+ * batch are taken from the sequence in one query and the rows are sent in one
+ * batch, where saving the records one at a time through the session costs a
+ * sequence query and an insert round trip per record.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class RetrievalRequestRecordInserter {
+
+    static final String ALLOCATE_IDS_SQL = "select nextval('subscription_retrieval_seq') from generate_series(1, ?)";
+
+    static final String INSERT_SQL = "insert into subscription_retrieval "
+            + "(id, dsmdUrl, owner, subscriptionName, state, priority, "
+            + "provider, dataSetName, insertTime, latencyExpireTime, "
+            + "latencyMinutes, requestRetrievalTime, network, "
+            + "subscriptionType, retrieval) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final int batchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param batchSize
+     *            the most records to allocate ids for and insert at once
+     */
+    RetrievalRequestRecordInserter(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Insert the records, setting their ids.
+     *
+     * @param connection
+     * @param records
+     *            new records
+     * @throws SQLException
+     */
+    void insert(Connection connection, List<RetrievalRequestRecord> records)
+            throws SQLException {
+        try (PreparedStatement allocate = connection
+                .prepareStatement(ALLOCATE_IDS_SQL);
+                PreparedStatement insert = connection
+                        .prepareStatement(INSERT_SQL)) {
+            for (int start = 0; start < records.size(); start += batchSize) {
+                List<RetrievalRequestRecord> batch = records.subList(start,
+                        Math.min(records.size(), start + batchSize));
+                allocateIds(allocate, batch);
+                for (RetrievalRequestRecord rec : batch) {
+                    setValues(insert, rec);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static void allocateIds(PreparedStatement allocate,
+            List<RetrievalRequestRecord> batch) throws SQLException {
+        allocate.setInt(1, batch.size());
+        int i = 0;
+        try (ResultSet rs = allocate.executeQuery()) {
+            while (rs.next() && i < batch.size()) {
+                batch.get(i++).setId(rs.getInt(1));
+            }
+        }
+        if (i != batch.size()) {
+            throw new SQLException("Allocated " + i + " of " + batch.size()
+                    + " subscription_retrieval ids");
+        }
+    }
+
+    private static void setValues(PreparedStatement insert,
+            RetrievalRequestRecord rec) throws SQLException {
+        int i = 1;
+        insert.setInt(i++, rec.getId());
+        insert.setString(i++, rec.getDsmdUrl());
+        insert.setString(i++, rec.getOwner());
+        insert.setString(i++, rec.getSubscriptionName());
+        insert.setString(i++, name(rec.getState()));
+        insert.setInt(i++, rec.getPriority());
+        insert.setString(i++, rec.getProvider());
+        insert.setString(i++, rec.getDataSetName());
+        insert.setTimestamp(i++, timestamp(rec.getInsertTime()));
+        insert.setTimestamp(i++, timestamp(rec.getLatencyExpireTime()));
+        insert.setInt(i++, rec.getLatencyMinutes());
+        if (rec.getRequestRetrievalTime() == null) {
+            insert.setNull(i++, Types.BIGINT);
+        } else {
+            insert.setLong(i++, rec.getRequestRetrievalTime());
+        }
+        insert.setString(i++, name(rec.getNetwork()));
+        insert.setString(i++, name(rec.getSubscriptionType()));
+        insert.setBytes(i++, rec.getRetrieval());
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private static Timestamp timestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.db;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.serialization.SerializationException;
+import com.raytheon.uf.common.serialization.SerializationUtil;
+
+/**
+ * Serializes the {@link Retrieval} stored in a {@link RetrievalRequestRecord}.
+ * The thrift bytes of a large retrieval are deflated behind a versioned
+ * header. The self describing thrift protocol repeats every class and field
+ * name, so the payload shrinks several times over. Retrievals smaller than
+ * retrieval.serialize.deflate.min.bytes are stored as plain thrift, where the
+ * deflate and inflate would cost more than the bytes saved. Plain thrift
+ * bytes, including those of records written before the header was
+ * introduced, are always read.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Only deflate large retrievals.
+ *
+ * </pre>
+ *
+ */
+public final class RetrievalSerializer {
+
+    /**
+     * Marks an encoded payload. Thrift payloads start with the struct type
+     * byte, so they never start with the magic.
+     */
+    private static final byte[] MAGIC = { (byte) 0xDD, (byte) 0x52 };
+
+    /** Deflated thrift bytes */
+    static final byte VERSION_DEFLATE = 1;
+
+    /** Magic, version and the 4 byte length of the thrift bytes */
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+
+    /** Least thrift bytes that are deflated */
+    private static final int DEFLATE_MIN_BYTES = Integer
+            .getInteger("retrieval.serialize.deflate.min.bytes", 8192);
+
+    private RetrievalSerializer() {
+    }
+
+    /**
+     * Serialize a retrieval.
+     *
+     * @param retrieval
+     * @return the bytes to store
+     * @throws SerializationException
+     */
+    public static byte[] serialize(Retrieval<?, ?> retrieval)
+            throws SerializationException {
+        return encode(SerializationUtil.transformToThrift(retrieval));
+    }
+
+    /**
+     * Deserialize a retrieval stored by {@link #serialize(Retrieval)}, or as
+     * plain thrift bytes by earlier versions.
+     *
+     * @param bytes
+     * @return the retrieval
+     * @throws SerializationException
+     */
+    public static Retrieval<?, ?> deserialize(byte[] bytes)
+            throws SerializationException {
+        return SerializationUtil.transformFromThrift(Retrieval.class,
+                decode(bytes));
+    }
+
+    /**
+     * Encode thrift bytes.
+     *
+     * @param thrift
+     * @return the header followed by the deflated bytes, the thrift bytes if
+     *         they are too few to deflate
+     */
+    static byte[] encode(byte[] thrift) {
+        return encode(thrift, DEFLATE_MIN_BYTES);
+    }
+
+    /**
+     * Encode thrift bytes.
+     *
+     * @param thrift
+     * @param deflateMinBytes
+     *            least thrift bytes that are deflated
+     * @return the header followed by the deflated bytes, the thrift bytes if
+     *         they are fewer than deflateMinBytes
+     */
+    static byte[] encode(byte[] thrift, int deflateMinBytes) {
+        if (thrift.length < deflateMinBytes) {
+            return thrift;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(thrift);
+            deflater.finish();
+
+            byte[] out = new byte[HEADER_LENGTH + thrift.length / 2 + 64];
+            System.arraycopy(MAGIC, 0, out, 0, MAGIC.length);
+            int pos = MAGIC.length;
+            out[pos++] = VERSION_DEFLATE;
+            out[pos++] = (byte) (thrift.length >>> 24);
+            out[pos++] = (byte) (thrift.length >>> 16);
+            out[pos++] = (byte) (thrift.length >>> 8);
+            out[pos++] = (byte) thrift.length;
+
+            while (!deflater.finished()) {
+                if (pos == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                pos += deflater.deflate(out, pos, out.length - pos);
+            }
+            return Arrays.copyOf(out, pos);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decode stored bytes back to thrift bytes.
+     *
+     * @param bytes
+     * @return the thrift bytes, the given bytes if they are not encoded
+     * @throws SerializationException
+     *             if the bytes are corrupt or of an unknown version
+     */
+    static byte[] decode(byte[] bytes) throws SerializationException {
+        if (!isEncoded(bytes)) {
+            return bytes;
+        }
+
+        int pos = MAGIC.length;
+        byte version = bytes[pos++];
+        if (version != VERSION_DEFLATE) {
+            throw new SerializationException(
+                    "Unknown retrieval serialization version " + version);
+        }
+        int length = ((bytes[pos++] & 0xFF) << 24)
+                | ((bytes[pos++] & 0xFF) << 16) | ((bytes[pos++] & 0xFF) << 8)
+                | (bytes[pos++] & 0xFF);
+        if (length < 0) {
+            throw new SerializationException(
+                    "Invalid retrieval length " + length);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, pos, bytes.length - pos);
+            byte[] thrift = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(thrift, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput()
+                        || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new SerializationException("Retrieval is truncated, read "
+                        + read + " of " + length + " bytes");
+            }
+            return thrift;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Retrieval is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean isEncoded(byte[] bytes) {
+        return bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC[0]
+                && bytes[1] == MAGIC[1];
+    }
+}
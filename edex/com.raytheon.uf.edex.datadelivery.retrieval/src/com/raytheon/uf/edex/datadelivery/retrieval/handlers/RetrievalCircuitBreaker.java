@@ -0,0 +1,329 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breakers for the hosts retrievals are made from. After a number of
+ * consecutive failed requests to a host its breaker opens and requests to it
+ * are refused, without touching the network, until the open period ends. The
+ * breaker then lets one trial request through: if it succeeds the breaker
+ * closes, if it fails the breaker opens again for twice as long, up to a
+ * maximum.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class RetrievalCircuitBreaker {
+
+    /**
+     * State of a breaker.
+     */
+    public enum State {
+        /** Requests are allowed */
+        CLOSED,
+        /** Requests are refused */
+        OPEN,
+        /** A trial request has been allowed to test the host */
+        HALF_OPEN
+    }
+
+    /**
+     * A snapshot of the metrics of one breaker.
+     */
+    public static class BreakerMetrics {
+
+        private final State state;
+
+        private final int consecutiveFailures;
+
+        private final long trips;
+
+        private final long rejected;
+
+        private final long remainingOpenMillis;
+
+        private BreakerMetrics(Breaker breaker, long now) {
+            this.state = breaker.state;
+            this.consecutiveFailures = breaker.consecutiveFailures;
+            this.trips = breaker.trips;
+            this.rejected = breaker.rejected;
+            this.remainingOpenMillis = breaker.state == State.CLOSED ? 0
+                    : Math.max(0, breaker.openUntil - now);
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * @return how many times the breaker has opened
+         */
+        public long getTrips() {
+            return trips;
+        }
+
+        /**
+         * @return how many requests the breaker has refused
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getRemainingOpenMillis() {
+            return remainingOpenMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "state=" + state + ", failures=" + consecutiveFailures
+                    + ", trips=" + trips + ", rejected=" + rejected
+                    + ", remainingOpenMillis=" + remainingOpenMillis;
+        }
+    }
+
+    /**
+     * The state of one host, guarded by the circuit breaker.
+     */
+    private static class Breaker {
+
+        private State state = State.CLOSED;
+
+        private int consecutiveFailures;
+
+        /** Open period of the next trip */
+        private long openMillis;
+
+        /** When the next trial request may be made */
+        private long openUntil;
+
+        private long trips;
+
+        private long rejected;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, Breaker> breakers = new HashMap<>();
+
+    private final int failureThreshold;
+
+    private final long initialOpenMillis;
+
+    private final long maxOpenMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param failureThreshold
+     *            consecutive failures that open a breaker
+     * @param initialOpenMillis
+     *            how long a breaker stays open the first time
+     * @param maxOpenMillis
+     *            the longest a breaker stays open
+     */
+    public RetrievalCircuitBreaker(int failureThreshold,
+            long initialOpenMillis, long maxOpenMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialOpenMillis = Math.max(1, initialOpenMillis);
+        this.maxOpenMillis = Math.max(this.initialOpenMillis, maxOpenMillis);
+    }
+
+    /**
+     * Check whether a request may be made to the host. Once the open period
+     * of a breaker ends one trial request is allowed, and another only if the
+     * trial has not reported back within another open period.
+     *
+     * @param host
+     * @return true if the request may be made
+     */
+    public synchronized boolean allowRequest(String host) {
+        Breaker breaker = getBreaker(host);
+        if (breaker.state == State.CLOSED) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= breaker.openUntil) {
+            breaker.state = State.HALF_OPEN;
+            breaker.openUntil = now + breaker.openMillis;
+            logger.info("Trying a request to " + host
+                    + " after its failed requests");
+            return true;
+        }
+        breaker.rejected++;
+        return false;
+    }
+
+    /**
+     * Record a successful request, closing the breaker of the host.
+     *
+     * @param host
+     */
+    public synchronized void recordSuccess(String host) {
+        Breaker breaker = getBreaker(host);
+        if (breaker.state != State.CLOSED) {
+            logger.info("Requests to " + host + " are succeeding again");
+        }
+        breaker.state = State.CLOSED;
+        breaker.consecutiveFailures = 0;
+        breaker.openMillis = 0;
+    }
+
+    /**
+     * Record a failed request, opening the breaker of the host if the trial
+     * request failed or the failure threshold was reached.
+     *
+     * @param host
+     */
+    public synchronized void recordFailure(String host) {
+        Breaker breaker = getBreaker(host);
+        breaker.consecutiveFailures++;
+        // Requests already in flight when the breaker opened do not reopen it
+        if (breaker.state == State.HALF_OPEN
+                || (breaker.state == State.CLOSED
+                        && breaker.consecutiveFailures >= failureThreshold)) {
+            breaker.openMillis = breaker.openMillis == 0 ? initialOpenMillis
+                    : Math.min(maxOpenMillis, breaker.openMillis * 2);
+            breaker.openUntil = System.currentTimeMillis()
+                    + breaker.openMillis;
+            breaker.state = State.OPEN;
+            breaker.trips++;
+            logger.warn("Refusing requests to " + host + " for "
+                    + breaker.openMillis + " ms after "
+                    + breaker.consecutiveFailures + " consecutive failures");
+        }
+    }
+
+    /**
+     * @param host
+     * @return how long until a request to the host may be tried, 0 if the
+     *         breaker is closed
+     */
+    public synchronized long getRemainingOpenMillis(String host) {
+        Breaker breaker = breakers.get(host);
+        if (breaker == null || breaker.state == State.CLOSED) {
+            return 0;
+        }
+        return Math.max(0, breaker.openUntil - System.currentTimeMillis());
+    }
+
+    /**
+     * @param provider
+     * @return how long until a request to any host of the provider may be
+     *         tried, 0 if a breaker of the provider is closed or ready for a
+     *         trial request, or the provider has no breakers yet
+     */
+    public synchronized long getProviderRemainingOpenMillis(String provider) {
+        long now = System.currentTimeMillis();
+        String prefix = provider + "@";
+        long remaining = Long.MAX_VALUE;
+        for (Entry<String, Breaker> entry : breakers.entrySet()) {
+            String host = entry.getKey();
+            if (!host.equals(provider) && !host.startsWith(prefix)) {
+                continue;
+            }
+            Breaker breaker = entry.getValue();
+            if (breaker.state == State.CLOSED || now >= breaker.openUntil) {
+                return 0;
+            }
+            remaining = Math.min(remaining, breaker.openUntil - now);
+        }
+        return remaining == Long.MAX_VALUE ? 0 : remaining;
+    }
+
+    /**
+     * @param host
+     * @return the state of the breaker of the host
+     */
+    public synchronized State getState(String host) {
+        Breaker breaker = breakers.get(host);
+        return breaker == null ? State.CLOSED : breaker.state;
+    }
+
+    /**
+     * @return a snapshot of the metrics of every breaker
+     */
+    public synchronized Map<String, BreakerMetrics> getMetrics() {
+        long now = System.currentTimeMillis();
+        Map<String, BreakerMetrics> metrics = new TreeMap<>();
+        for (Entry<String, Breaker> entry : breakers.entrySet()) {
+            metrics.put(entry.getKey(),
+                    new BreakerMetrics(entry.getValue(), now));
+        }
+        return metrics;
+    }
+
+    /**
+     * Exponential backoff with jitter: a random delay between half and all of
+     * baseMillis * 2^attempt, capped at maxMillis. The jitter keeps retries
+     * of retrievals that failed together from hitting the host together.
+     *
+     * @param baseMillis
+     *            the delay before the first retry
+     * @param maxMillis
+     *            the longest delay
+     * @param attempt
+     *            the number of the failed attempt, starting at 0
+     * @return the delay
+     */
+    public static long backoffMillis(long baseMillis, long maxMillis,
+            int attempt) {
+        long delay = baseMillis;
+        for (int i = 0; i < attempt && delay < maxMillis; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxMillis);
+        if (delay <= 1) {
+            return Math.max(0, delay);
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    private Breaker getBreaker(String host) {
+        Breaker breaker = breakers.get(host);
+        if (breaker == null) {
+            breaker = new Breaker();
+            breakers.put(host, breaker);
+        }
+        return breaker;
+    }
+}
@@ -0,0 +1,471 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Dispatches retrievals for all providers onto one shared pool of worker
+ * threads. Each provider has a concurrency limit that can be changed at any
+ * time, idle providers hold no threads, and when more providers have work
+ * than there are free workers the one with the highest priority pending
+ * retrieval goes first. Providers that have waited longer are aged toward the
+ * front so a busy high priority provider cannot starve the rest.
+ *
+ * The dispatcher only keeps hints of which providers have pending work. The
+ * {@link RetrievalWorker} looks up and processes the actual retrieval and
+ * reports whether there was one.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class RetrievalDispatcher {
+
+    /**
+     * Processes retrievals for the dispatcher.
+     */
+    public interface RetrievalWorker {
+
+        /**
+         * Process the next pending retrieval for the provider.
+         *
+         * @param provider
+         *            the provider
+         * @return true if a retrieval was processed, false if none were pending
+         */
+        boolean processNext(String provider);
+    }
+
+    /**
+     * A snapshot of the metrics of one provider.
+     */
+    public static class ProviderMetrics {
+
+        private final int limit;
+
+        private final int running;
+
+        private final int queueDepth;
+
+        private final long processed;
+
+        private final long averageWaitMillis;
+
+        private final long maxWaitMillis;
+
+        private ProviderMetrics(ProviderQueue queue) {
+            this.limit = queue.limit;
+            this.running = queue.running;
+            this.queueDepth = queue.queueDepth;
+            this.processed = queue.processed;
+            this.averageWaitMillis = queue.processed == 0 ? 0
+                    : queue.totalWaitMillis / queue.processed;
+            this.maxWaitMillis = queue.maxWaitMillis;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getRunning() {
+            return running;
+        }
+
+        /**
+         * @return the number of pending retrievals, as of the last
+         *         {@link RetrievalDispatcher#setQueueDepths(Map, Map)} and counting
+         *         those queued and processed since
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getProcessed() {
+            return processed;
+        }
+
+        /**
+         * @return the average time from being queued to being started
+         */
+        public long getAverageWaitMillis() {
+            return averageWaitMillis;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "limit=" + limit + ", running=" + running + ", queued="
+                    + queueDepth + ", processed=" + processed
+                    + ", avgWaitMillis=" + averageWaitMillis
+                    + ", maxWaitMillis=" + maxWaitMillis;
+        }
+    }
+
+    /**
+     * The dispatch state of one provider, guarded by the dispatcher.
+     */
+    private static class ProviderQueue {
+
+        private int limit;
+
+        private int running;
+
+        private boolean pending;
+
+        /** Lowest (best) priority known to be pending */
+        private int bestPriority = Integer.MAX_VALUE;
+
+        /** Last time the provider was dispatched or became pending */
+        private long waitingSince;
+
+        /** Incremented whenever work is reported for the provider */
+        private long notifications;
+
+        private int queueDepth;
+
+        private long processed;
+
+        private long totalWaitMillis;
+
+        private long maxWaitMillis;
+    }
+
+    private static final long DEFAULT_AGING_MILLIS = 60_000;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final RetrievalWorker worker;
+
+    private final ThreadPoolExecutor workers;
+
+    private final Map<String, ProviderQueue> providers = new HashMap<>();
+
+    private int poolSize;
+
+    private int busy;
+
+    private boolean started;
+
+    private boolean shutdown;
+
+    private long agingMillis = DEFAULT_AGING_MILLIS;
+
+    /**
+     * Constructor.
+     *
+     * @param worker
+     *            processes the retrievals
+     */
+    public RetrievalDispatcher(RetrievalWorker worker) {
+        this.worker = worker;
+        this.workers = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("Retrieval-%d")
+                        .setDaemon(true).build());
+        // Idle providers hold no threads
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Set the concurrency limit of every provider. Providers not in the map can
+     * no longer be dispatched, retrievals already running for them finish.
+     *
+     * @param limits
+     *            the limit for each provider
+     * @param maxThreads
+     *            the size of the shared pool, or a value less than one for the
+     *            sum of the limits
+     */
+    public synchronized void setProviderLimits(Map<String, Integer> limits,
+            int maxThreads) {
+        for (ProviderQueue queue : providers.values()) {
+            queue.limit = 0;
+        }
+        int total = 0;
+        for (Entry<String, Integer> entry : limits.entrySet()) {
+            getProviderQueue(entry.getKey()).limit = entry.getValue();
+            total += entry.getValue();
+        }
+        setPoolSize(maxThreads > 0 ? maxThreads : total);
+        logger.info("Retrieval limits: " + new TreeMap<>(limits)
+                + ", shared threads: " + poolSize);
+        dispatch();
+    }
+
+    /**
+     * Set the concurrency limit of one provider.
+     *
+     * @param provider
+     *            the provider
+     * @param limit
+     *            the limit
+     */
+    public synchronized void setProviderLimit(String provider, int limit) {
+        getProviderQueue(provider).limit = limit;
+        dispatch();
+    }
+
+    /**
+     * @param provider
+     *            the provider
+     * @return whether the provider has a limit greater than zero
+     */
+    public synchronized boolean hasProvider(String provider) {
+        ProviderQueue queue = providers.get(provider);
+        return queue != null && queue.limit > 0;
+    }
+
+    /**
+     * @param agingMillis
+     *            how long a provider has to wait to move ahead of one with a
+     *            pending retrieval one priority better
+     */
+    public synchronized void setAgingMillis(long agingMillis) {
+        this.agingMillis = agingMillis;
+    }
+
+    /**
+     * Start dispatching. Every provider is assumed to have pending work until
+     * the worker reports otherwise.
+     */
+    public synchronized void start() {
+        started = true;
+        for (ProviderQueue queue : providers.values()) {
+            markPending(queue, Integer.MAX_VALUE);
+        }
+        dispatch();
+    }
+
+    /**
+     * Stop dispatching, retrievals already running finish.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Notify that retrievals were queued for the provider.
+     *
+     * @param provider
+     *            the provider
+     * @param priority
+     *            the best priority queued, {@link Integer#MAX_VALUE} if unknown
+     * @param count
+     *            the number of retrievals queued
+     */
+    public synchronized void notifyQueued(String provider, int priority,
+            int count) {
+        ProviderQueue queue = getProviderQueue(provider);
+        queue.queueDepth += count;
+        markPending(queue, priority);
+        dispatch();
+    }
+
+    /**
+     * Replace the queue depths with the number of pending retrievals per
+     * provider, marking the providers with pending retrievals as having work.
+     *
+     * @param depths
+     *            the pending retrievals per provider
+     * @param bestPriorities
+     *            the best pending priority per provider
+     */
+    public synchronized void setQueueDepths(Map<String, Integer> depths,
+            Map<String, Integer> bestPriorities) {
+        for (Entry<String, ProviderQueue> entry : providers.entrySet()) {
+            Integer depth = depths.get(entry.getKey());
+            entry.getValue().queueDepth = depth == null ? 0 : depth;
+        }
+        for (Entry<String, Integer> entry : depths.entrySet()) {
+            ProviderQueue queue = getProviderQueue(entry.getKey());
+            queue.queueDepth = entry.getValue();
+            if (entry.getValue() > 0) {
+                Integer priority = bestPriorities.get(entry.getKey());
+                markPending(queue,
+                        priority == null ? Integer.MAX_VALUE : priority);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Record how long a retrieval waited between being queued and started.
+     *
+     * @param provider
+     *            the provider
+     * @param waitMillis
+     *            the wait
+     */
+    public synchronized void recordWait(String provider, long waitMillis) {
+        ProviderQueue queue = getProviderQueue(provider);
+        queue.processed++;
+        queue.totalWaitMillis += waitMillis;
+        queue.maxWaitMillis = Math.max(queue.maxWaitMillis, waitMillis);
+        if (queue.queueDepth > 0) {
+            queue.queueDepth--;
+        }
+    }
+
+    /**
+     * @return a snapshot of the metrics of every provider
+     */
+    public synchronized Map<String, ProviderMetrics> getMetrics() {
+        Map<String, ProviderMetrics> metrics = new TreeMap<>();
+        for (Entry<String, ProviderQueue> entry : providers.entrySet()) {
+            metrics.put(entry.getKey(), new ProviderMetrics(entry.getValue()));
+        }
+        return metrics;
+    }
+
+    private ProviderQueue getProviderQueue(String provider) {
+        ProviderQueue queue = providers.get(provider);
+        if (queue == null) {
+            queue = new ProviderQueue();
+            providers.put(provider, queue);
+        }
+        return queue;
+    }
+
+    private void markPending(ProviderQueue queue, int priority) {
+        if (!queue.pending) {
+            queue.pending = true;
+            queue.waitingSince = System.currentTimeMillis();
+        }
+        queue.notifications++;
+        queue.bestPriority = Math.min(queue.bestPriority, priority);
+    }
+
+    private void setPoolSize(int size) {
+        size = Math.max(1, size);
+        // Keep core <= max while growing or shrinking
+        if (size > workers.getMaximumPoolSize()) {
+            workers.setMaximumPoolSize(size);
+            workers.setCorePoolSize(size);
+        } else {
+            workers.setCorePoolSize(size);
+            workers.setMaximumPoolSize(size);
+        }
+        poolSize = size;
+    }
+
+    /**
+     * Hand free workers to the providers with pending work, best first.
+     */
+    private void dispatch() {
+        if (!started || shutdown) {
+            return;
+        }
+        while (busy < poolSize) {
+            String provider = selectProvider();
+            if (provider == null) {
+                return;
+            }
+            final String selected = provider;
+            final ProviderQueue queue = providers.get(provider);
+            final long notifications = queue.notifications;
+            queue.running++;
+            queue.waitingSince = System.currentTimeMillis();
+            busy++;
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    process(selected, queue, notifications);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the provider to dispatch next, or null if none may be
+     */
+    private String selectProvider() {
+        long now = System.currentTimeMillis();
+        String best = null;
+        long bestScore = Long.MAX_VALUE;
+        long bestWaitingSince = Long.MAX_VALUE;
+        for (Entry<String, ProviderQueue> entry : providers.entrySet()) {
+            ProviderQueue queue = entry.getValue();
+            if (!queue.pending || queue.running >= queue.limit) {
+                continue;
+            }
+            // Lower is better, aging moves waiting providers forward
+            long score = queue.bestPriority
+                    - (now - queue.waitingSince) / agingMillis;
+            if (score < bestScore || (score == bestScore
+                    && queue.waitingSince < bestWaitingSince)) {
+                best = entry.getKey();
+                bestScore = score;
+                bestWaitingSince = queue.waitingSince;
+            }
+        }
+        return best;
+    }
+
+    private void process(String provider, ProviderQueue queue,
+            long notificationsAtDispatch) {
+        boolean processed = false;
+        try {
+            processed = worker.processNext(provider);
+        } catch (Throwable t) {
+            logger.error("Error occurred processing retrievals for "
+                    + provider, t);
+        } finally {
+            synchronized (this) {
+                queue.running--;
+                busy--;
+                if (processed
+                        || queue.notifications != notificationsAtDispatch) {
+                    // There may be more
+                    queue.pending = true;
+                } else {
+                    // Nothing left, forget the priority hint
+                    queue.pending = false;
+                    queue.bestPriority = Integer.MAX_VALUE;
+                }
+                dispatch();
+            }
+        }
+    }
+}
@@ -21,14 +21,18 @@ package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +48,7 @@ import com.raytheon.uf.common.datadelivery.event.status.DataDeliverySystemStatus
 import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
 import com.raytheon.uf.common.event.EventBus;
 import com.raytheon.uf.common.localization.ILocalizationFile;
+import com.raytheon.uf.common.localization.ILocalizationPathObserver;
 import com.raytheon.uf.common.localization.IPathManager;
 import com.raytheon.uf.common.localization.LocalizationContext;
 import com.raytheon.uf.common.localization.LocalizationContext.LocalizationLevel;
@@ -53,7 +58,9 @@ import com.raytheon.uf.common.localization.exception.LocalizationException;
 import com.raytheon.uf.common.serialization.JAXBManager;
 import com.raytheon.uf.common.serialization.SerializationException;
 import com.raytheon.uf.common.time.domain.api.IDuration;
+import com.raytheon.uf.common.time.util.TimeUtil;
 import com.raytheon.uf.edex.core.EDEXUtil;
+import com.raytheon.uf.edex.database.DataAccessLayerException;
 import com.raytheon.uf.edex.datadelivery.retrieval.RetrievalThreadsConfig;
 import com.raytheon.uf.edex.datadelivery.retrieval.RetrievalThreadsProvider;
 import com.raytheon.uf.edex.datadelivery.retrieval.db.RetrievalDao;
@@ -82,6 +89,16 @@ import com.raytheon.uf.edex.registry.ebxml.init.RegistryInitializedListener;
  *                                  filtering.
  * Aug 02, 2017  6186     rjpeter   Added queueRetrievals and notifyRetrieval.
  * Sep 21, 2017  6433     tgurney   Use per-provider retrieval threads
+ * Oct 17, 2026           agent     Replace the per-provider threads with a
+ *                                  RetrievalDispatcher sharing one pool,
+ *                                  reload retrieval-threads.xml on change.
+ * Oct 17, 2026           agent     Claim retrievals in small batches without a
+ *                                  JVM lock.
+ * Oct 17, 2026           agent     Retry failed retrievals after a backoff
+ *                                  instead of sleeping on the worker thread.
+ * Oct 17, 2026           agent     Hold retrievals refused by a circuit
+ *                                  breaker without counting an attempt, stop
+ *                                  claiming retrievals while it is open.
  *
  * </pre>
  *
@@ -90,6 +107,15 @@ import com.raytheon.uf.edex.registry.ebxml.init.RegistryInitializedListener;
 @Service
 public class RetrievalHandler implements RegistryInitializedListener {
 
+    private static final String RETRIEVAL_THREADS_FILE = "datadelivery/retrieval-threads.xml";
+
+    /** How often to look for pending retrievals the dispatcher missed */
+    private static final long PENDING_SCAN_MILLIS = 30_000;
+
+    private static final long METRICS_LOG_MILLIS = 5 * TimeUtil.MILLIS_PER_MINUTE;
+
+    private static final int DEFAULT_CLAIM_BATCH_SIZE = 4;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final Map<String, DataDeliverySystemStatusDefinition> systemNameToStateMap = Collections
@@ -106,11 +132,62 @@ public class RetrievalHandler implements RegistryInitializedListener {
 
     private final RetrievalTask retrievalTask;
 
-    private final List<RetrievalThread> retrievalThreads = new ArrayList<>();
+    private final RetrievalDispatcher dispatcher;
+
+    /**
+     * Retrievals already put into a RUNNING state for each provider but not
+     * yet processed. Any left over at shutdown are reset to PENDING on the next
+     * start.
+     */
+    private final ConcurrentMap<String, Queue<RetrievalRequestRecord>> claimedRetrievals = new ConcurrentHashMap<>();
+
+    /**
+     * Retrievals waiting to be retried for each provider. They stay in a
+     * RUNNING state, so any left over at shutdown are reset to PENDING on the
+     * next start.
+     */
+    private final ConcurrentMap<String, DelayQueue<DeferredRetrieval>> deferredRetrievals = new ConcurrentHashMap<>();
+
+    /**
+     * Providers not claimed from while every circuit breaker of theirs is
+     * open, each with a scan scheduled for when a breaker lets a trial
+     * request through.
+     */
+    private final Set<String> pausedProviders = ConcurrentHashMap.newKeySet();
+
+    private volatile int claimBatchSize = DEFAULT_CLAIM_BATCH_SIZE;
+
+    /**
+     * A retrieval waiting for its next attempt.
+     */
+    private static class DeferredRetrieval implements Delayed {
+
+        private final RetrievalRequestRecord rec;
+
+        /** Number of attempts already made */
+        private final int attempts;
+
+        private final long readyAtMillis;
 
-    private final Map<String, Object> providerSyncObjects = new HashMap<>();
+        private DeferredRetrieval(RetrievalRequestRecord rec, int attempts,
+                long delayMillis) {
+            this.rec = rec;
+            this.attempts = attempts;
+            this.readyAtMillis = System.currentTimeMillis() + delayMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAtMillis - System.currentTimeMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
 
-    private final Map<String, Object> providerNotifiers = new HashMap<>();
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(readyAtMillis,
+                    ((DeferredRetrieval) o).readyAtMillis);
+        }
+    }
 
     public RetrievalHandler(ScheduledExecutorService scheduledExecutorService,
             RetrievalDao retrievalDao, SubscriptionNotifyTask subNotifyTask,
@@ -121,15 +198,35 @@ public class RetrievalHandler implements RegistryInitializedListener {
         this.subNotifyTask = subNotifyTask;
         this.subnotifyTaskFrequency = subnotifyTaskFrequency;
         this.retrievalTask = retrievalTask;
-        createRetrievalThreads();
+        this.dispatcher = new RetrievalDispatcher(
+                provider -> !EDEXUtil.isShuttingDown()
+                        && scanForRetrievals(provider));
+        loadRetrievalThreadsConfig();
+        PathManagerFactory.getPathManager().addLocalizationPathObserver(
+                RETRIEVAL_THREADS_FILE, new ILocalizationPathObserver() {
+                    @Override
+                    public void fileChanged(ILocalizationFile file) {
+                        try {
+                            loadRetrievalThreadsConfig();
+                        } catch (Exception e) {
+                            logger.error("Unable to reload "
+                                    + RETRIEVAL_THREADS_FILE
+                                    + ", keeping the current retrieval limits",
+                                    e);
+                        }
+                    }
+                });
     }
 
-    /** Creates all retrieval threads listed in XML config. Call only once! */
-    private void createRetrievalThreads() throws Exception {
+    /**
+     * Read the retrieval threads XML config and apply it to the dispatcher.
+     */
+    private void loadRetrievalThreadsConfig() throws Exception {
         // Read config files into map with incremental override
         LocalizationLevel[] levels = new LocalizationLevel[] {
                 LocalizationLevel.BASE, LocalizationLevel.SITE };
         Map<String, Integer> providerThreadCountMap = new HashMap<>();
+        int maxThreads = 0;
         for (LocalizationLevel level : levels) {
             RetrievalThreadsConfig config = getRetrievalThreadsConfig(level);
             if (config != null) {
@@ -138,28 +235,16 @@ public class RetrievalHandler implements RegistryInitializedListener {
                     providerThreadCountMap.put(provider.getName(),
                             provider.getThreads());
                 }
+                if (config.getMaxThreads() != null) {
+                    maxThreads = config.getMaxThreads();
+                }
             }
         }
         if (providerThreadCountMap.isEmpty()) {
             throw new IllegalArgumentException(
                     "No retrieval threads config was found");
         }
-        // Create objects for per-provider synchronization and notify
-        for (String provider : providerThreadCountMap.keySet()) {
-            providerSyncObjects.put(provider, new Object());
-            providerNotifiers.put(provider, new Object());
-        }
-        // Create the threads
-        for (Entry<String, Integer> e : providerThreadCountMap.entrySet()) {
-            for (int i = 1; i <= e.getValue(); i++) {
-                String provider = e.getKey();
-                Object notifier = providerNotifiers.get(provider);
-                RetrievalThread thread = new RetrievalThread(provider,
-                        notifier);
-                thread.setName("Retrieval-" + provider + "-" + i);
-                retrievalThreads.add(thread);
-            }
-        }
+        dispatcher.setProviderLimits(providerThreadCountMap, maxThreads);
     }
 
     private RetrievalThreadsConfig getRetrievalThreadsConfig(
@@ -169,7 +254,7 @@ public class RetrievalHandler implements RegistryInitializedListener {
         LocalizationContext ctx = pathManager
                 .getContext(LocalizationType.COMMON_STATIC, level);
         ILocalizationFile file = PathManagerFactory.getPathManager()
-                .getLocalizationFile(ctx, "datadelivery/retrieval-threads.xml");
+                .getLocalizationFile(ctx, RETRIEVAL_THREADS_FILE);
         RetrievalThreadsConfig config = null;
         if (file.exists()) {
             try (InputStream is = file.openInputStream()) {
@@ -183,38 +268,6 @@ public class RetrievalHandler implements RegistryInitializedListener {
         return config;
     }
 
-    private class RetrievalThread extends Thread {
-
-        private final String provider;
-
-        private final Object notifier;
-
-        public RetrievalThread(String provider, Object notifier) {
-            this.provider = provider;
-            this.notifier = notifier;
-        }
-
-        @Override
-        public void run() {
-            while (!EDEXUtil.isShuttingDown()) {
-                try {
-                    if (!scanForRetrievals(provider)) {
-                        synchronized (notifier) {
-                            try {
-                                notifier.wait(30_000);
-                            } catch (InterruptedException e) {
-                                // ignore
-                            }
-                        }
-                    }
-                } catch (Throwable t) {
-                    logger.error("Error occurred processing retrievals", t);
-                }
-            }
-        }
-
-    }
-
     @Override
     public void executeAfterRegistryInit() {
         // set all Running state retrievals to pending
@@ -222,38 +275,79 @@ public class RetrievalHandler implements RegistryInitializedListener {
         // run the sub notifier every 30 sec for notifications
         scheduledExecutorService.scheduleWithFixedDelay(subNotifyTask, 30_000,
                 subnotifyTaskFrequency.getMillis(), TimeUnit.MILLISECONDS);
-        for (RetrievalThread thread : retrievalThreads) {
-            thread.start();
-        }
+        // pick up retrievals queued without a notification
+        scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                scanForPendingRetrievals();
+            }
+        }, PENDING_SCAN_MILLIS, PENDING_SCAN_MILLIS, TimeUnit.MILLISECONDS);
+        scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                logger.info("Retrieval metrics: " + getProviderMetrics());
+                Map<String, RetrievalCircuitBreaker.BreakerMetrics> breakers = retrievalTask
+                        .getCircuitBreakerMetrics();
+                if (!breakers.isEmpty()) {
+                    logger.info("Retrieval circuit breakers: " + breakers
+                            + ", deferred retrievals: "
+                            + getDeferredRetrievalCounts());
+                }
+            }
+        }, METRICS_LOG_MILLIS, METRICS_LOG_MILLIS, TimeUnit.MILLISECONDS);
+        dispatcher.start();
     }
 
     public void queueRetrievals(
             List<RetrievalRequestRecord> retrievalRequests) {
         retrievalDao.persistAll(retrievalRequests);
-        Set<String> providersToNotify = new HashSet<>();
+        // provider -> {count, best priority}
+        Map<String, int[]> queued = new HashMap<>();
         for (RetrievalRequestRecord r : retrievalRequests) {
-            providersToNotify.add(r.getProvider());
+            int[] providerQueued = queued.get(r.getProvider());
+            if (providerQueued == null) {
+                providerQueued = new int[] { 0, Integer.MAX_VALUE };
+                queued.put(r.getProvider(), providerQueued);
+            }
+            providerQueued[0]++;
+            providerQueued[1] = Math.min(providerQueued[1], r.getPriority());
         }
-        for (String provider : providersToNotify) {
-            notifyRetrieval(provider);
+        for (Entry<String, int[]> entry : queued.entrySet()) {
+            notifyRetrieval(entry.getKey(), entry.getValue()[1],
+                    entry.getValue()[0]);
         }
     }
 
     public void notifyRetrieval(String provider) {
-        Object notifier = providerNotifiers.get(provider);
-        boolean noProviderThreads = true;
-        for (RetrievalThread r : retrievalThreads) {
-            if (r.provider.equals(provider)) {
-                noProviderThreads = false;
-            }
-        }
-        if (noProviderThreads) {
+        notifyRetrieval(provider, Integer.MAX_VALUE, 1);
+    }
+
+    private void notifyRetrieval(String provider, int priority, int count) {
+        if (!dispatcher.hasProvider(provider)) {
             logger.error("Got a retrieval request for " + provider
                     + ", but no retrieval threads for " + provider + " exist!");
         } else {
-            synchronized (notifier) {
-                notifier.notifyAll();
-            }
+            dispatcher.notifyQueued(provider, priority, count);
+        }
+    }
+
+    /**
+     * @return the limit, running and queued retrievals, and wait times of each
+     *         provider
+     */
+    public Map<String, RetrievalDispatcher.ProviderMetrics> getProviderMetrics() {
+        return dispatcher.getMetrics();
+    }
+
+    /**
+     * Update the dispatcher with the pending retrievals in the database.
+     */
+    private void scanForPendingRetrievals() {
+        try {
+            dispatcher.setQueueDepths(retrievalDao.getPendingCountByProvider(),
+                    retrievalDao.getBestPendingPriorityByProvider());
+        } catch (Throwable t) {
+            logger.error("Error occurred looking up pending retrievals", t);
         }
     }
 
@@ -269,16 +363,26 @@ public class RetrievalHandler implements RegistryInitializedListener {
      */
     public boolean scanForRetrievals(String provider) {
         RetrievalRequestRecord rec = null;
+        int attempts = 0;
 
-        try {
-            rec = retrievalDao.activateNextRetrievalRequest(provider,
-                    providerSyncObjects.get(provider));
-        } catch (Exception e) {
-            logger.error("Error occurred looking up next retrieval", e);
-            return false;
+        DeferredRetrieval deferred = getDeferredQueue(provider).poll();
+        if (deferred != null) {
+            rec = deferred.rec;
+            attempts = deferred.attempts;
+        } else {
+            try {
+                rec = nextClaimedRetrieval(provider);
+            } catch (Exception e) {
+                logger.error("Error occurred looking up next retrieval", e);
+                return false;
+            }
         }
 
         if (rec != null) {
+            if (deferred == null && rec.getInsertTime() != null) {
+                dispatcher.recordWait(provider, TimeUtil.currentTimeMillis()
+                        - rec.getInsertTime().getTime());
+            }
             Retrieval retrieval = null;
             try {
                 try {
@@ -293,16 +397,48 @@ public class RetrievalHandler implements RegistryInitializedListener {
 
                 // TODO: return state instead of success to allow for multi
                 // stage and async retrievals
-                boolean success = false;
+                RetrievalTask.Outcome outcome = RetrievalTask.Outcome.FAILED;
                 try {
-                    success = retrievalTask.processRetrieval(retrieval,
+                    outcome = retrievalTask.processRetrieval(retrieval,
                             rec.getPriority());
                 } catch (Exception e) {
                     logger.error("Error occurred processing retrieval ["
                             + retrieval + "]", e);
                 }
 
-                rec.setState(success ? State.COMPLETED : State.FAILED);
+                if (outcome == RetrievalTask.Outcome.REJECTED) {
+                    /*
+                     * No request was made, so wait for the breaker without
+                     * using up a try. Left RUNNING at shutdown, it is reset to
+                     * PENDING on the next start.
+                     */
+                    if (!EDEXUtil.isShuttingDown()) {
+                        long delayMillis = retrievalTask
+                                .getRejectedDelayMillis(retrieval);
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Holding retrieval [" + rec + "] for "
+                                    + delayMillis
+                                    + " ms until its host is tried again");
+                        }
+                        deferRetrieval(provider, rec, attempts, delayMillis);
+                    }
+                    return true;
+                }
+
+                if (outcome == RetrievalTask.Outcome.RETRY
+                        && attempts + 1 < retrievalTask.getMaxTries()
+                        && !EDEXUtil.isShuttingDown()) {
+                    long delayMillis = retrievalTask
+                            .getRetryDelayMillis(retrieval, attempts);
+                    logger.info("Retrying retrieval [" + rec + "] in "
+                            + delayMillis + " ms (tries = " + (attempts + 1)
+                            + ")");
+                    deferRetrieval(provider, rec, attempts + 1, delayMillis);
+                    return true;
+                }
+
+                rec.setState(outcome == RetrievalTask.Outcome.COMPLETED
+                        ? State.COMPLETED : State.FAILED);
                 retrievalDao.completeRetrievalRequest(rec);
             } catch (Exception e) {
                 logger.error("Error occurred updating retrieval record [" + rec
@@ -316,6 +452,124 @@ public class RetrievalHandler implements RegistryInitializedListener {
         return false;
     }
 
+    /**
+     * Hold a retrieval for another attempt after a delay, notifying the
+     * dispatcher once it is ready. The worker is free in the meantime.
+     *
+     * @param provider
+     * @param rec
+     * @param attempts
+     *            the number of attempts already made
+     * @param delayMillis
+     */
+    private void deferRetrieval(final String provider,
+            final RetrievalRequestRecord rec, int attempts, long delayMillis) {
+        getDeferredQueue(provider)
+                .add(new DeferredRetrieval(rec, attempts, delayMillis));
+        scheduledExecutorService.schedule(new Runnable() {
+            @Override
+            public void run() {
+                dispatcher.notifyQueued(provider, rec.getPriority(), 0);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private DelayQueue<DeferredRetrieval> getDeferredQueue(String provider) {
+        DelayQueue<DeferredRetrieval> deferred = deferredRetrievals
+                .get(provider);
+        if (deferred == null) {
+            deferredRetrievals.putIfAbsent(provider,
+                    new DelayQueue<DeferredRetrieval>());
+            deferred = deferredRetrievals.get(provider);
+        }
+        return deferred;
+    }
+
+    /**
+     * @return the number of retrievals waiting to be retried for each provider
+     */
+    public Map<String, Integer> getDeferredRetrievalCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Entry<String, DelayQueue<DeferredRetrieval>> entry : deferredRetrievals
+                .entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the next claimed retrieval for the provider, claiming another
+     * batch from the database when none are left. Nothing is claimed while
+     * every circuit breaker of the provider is open, the retrievals would only
+     * be refused and held in memory; the provider is scanned again once a
+     * breaker lets a trial request through.
+     *
+     * @param provider
+     * @return the retrieval, now in a RUNNING state, or null if none are
+     *         PENDING or the provider is paused
+     * @throws DataAccessLayerException
+     */
+    private RetrievalRequestRecord nextClaimedRetrieval(String provider)
+            throws DataAccessLayerException {
+        Queue<RetrievalRequestRecord> claimed = claimedRetrievals
+                .get(provider);
+        if (claimed == null) {
+            claimedRetrievals.putIfAbsent(provider,
+                    new ConcurrentLinkedQueue<RetrievalRequestRecord>());
+            claimed = claimedRetrievals.get(provider);
+        }
+
+        RetrievalRequestRecord rec = claimed.poll();
+        if (rec == null) {
+            long openMillis = retrievalTask
+                    .getProviderRemainingOpenMillis(provider);
+            if (openMillis > 0) {
+                pauseProvider(provider, openMillis);
+                return null;
+            }
+
+            List<RetrievalRequestRecord> recs = retrievalDao
+                    .activateNextRetrievalRequests(provider, claimBatchSize);
+            if (!recs.isEmpty()) {
+                rec = recs.get(0);
+                claimed.addAll(recs.subList(1, recs.size()));
+            }
+        }
+        return rec;
+    }
+
+    /**
+     * Schedule a scan of a provider whose circuit breakers are open for when
+     * one of them lets a trial request through, unless one is scheduled.
+     *
+     * @param provider
+     * @param delayMillis
+     */
+    private void pauseProvider(final String provider, long delayMillis) {
+        if (pausedProviders.add(provider)) {
+            logger.info("Not claiming retrievals for " + provider + " for "
+                    + delayMillis + " ms, requests to it are failing");
+            scheduledExecutorService.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    pausedProviders.remove(provider);
+                    dispatcher.notifyQueued(provider, Integer.MAX_VALUE, 0);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Set how many retrievals to claim from the database at once for a
+     * provider. Larger batches mean fewer round trips, but a newly queued
+     * higher priority retrieval may wait behind the rest of a batch.
+     *
+     * @param claimBatchSize
+     */
+    public void setClaimBatchSize(int claimBatchSize) {
+        this.claimBatchSize = Math.max(1, claimBatchSize);
+    }
+
     protected void updateSystemStatus(String provider, State retrievalState) {
         // Create system status event
         DataDeliverySystemStatusDefinition newSystemStatusState;
@@ -19,6 +19,10 @@
  **/
 package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +64,13 @@ import com.raytheon.uf.edex.datadelivery.retrieval.metadata.ServiceTypeFactory;
  *                                  field.
  * Jan 30, 2014  2686     dhladky   refactor of retrieval.
  * Jul 27, 2017  6186     rjpeter   Refactored
+ * Oct 17, 2026           agent     Make one attempt per call and leave the
+ *                                  retries to the caller, with backoff and a
+ *                                  circuit breaker per host.
+ * Oct 17, 2026           agent     Count a request without a response as a
+ *                                  failure of its host.
+ * Oct 17, 2026           agent     Return REJECTED for requests the circuit
+ *                                  breaker refuses, they are not attempts.
  *
  * </pre>
  *
@@ -67,10 +78,30 @@ import com.raytheon.uf.edex.datadelivery.retrieval.metadata.ServiceTypeFactory;
  */
 public abstract class RetrievalTask {
 
+    /**
+     * The outcome of processing a retrieval.
+     */
+    public enum Outcome {
+        /** The data was retrieved and processed */
+        COMPLETED,
+        /** The retrieval failed and should not be retried */
+        FAILED,
+        /** The request failed, it may be retried later */
+        RETRY,
+        /**
+         * The circuit breaker of the host refused the request without making
+         * it, it should wait for the breaker without counting as an attempt
+         */
+        REJECTED
+    }
+
     protected static final int maxTries;
 
     protected static final long retryIntervalMs;
 
+    protected static final long maxRetryIntervalMs = Long
+            .getLong("retrieval.retry.max.millis", 120_000);
+
     static {
         int tmp = Integer.getInteger("retrieval.retry.count", 2);
         if (tmp < 0) {
@@ -97,33 +128,129 @@ public abstract class RetrievalTask {
 
     protected final TokenBucket tokenBucket;
 
+    protected final RetrievalCircuitBreaker circuitBreaker = new RetrievalCircuitBreaker(
+            Integer.getInteger("retrieval.circuit.failure.threshold", 3),
+            Long.getLong("retrieval.circuit.open.millis", 30_000),
+            Long.getLong("retrieval.circuit.open.max.millis", 600_000));
+
     public RetrievalTask(TokenBucket tokenBucket) {
         this.tokenBucket = tokenBucket;
     }
 
-    public boolean processRetrieval(Retrieval retrieval, int priority) {
-        boolean success = false;
+    /**
+     * Make one attempt at the retrieval. Requests to a host whose circuit
+     * breaker is open are refused without being made.
+     *
+     * @param retrieval
+     * @param priority
+     * @return the outcome
+     */
+    public Outcome processRetrieval(Retrieval retrieval, int priority) {
+        String host = getHost(retrieval);
+        if (!circuitBreaker.allowRequest(host)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Refused retrieval [" + retrieval
+                        + "], requests to " + host + " are failing");
+            }
+            return Outcome.REJECTED;
+        }
 
+        Outcome outcome = Outcome.FAILED;
         try {
             // send this retrieval to be processed
             IRetrievalResponse retrievalResponse = retrieveData(retrieval,
-                    priority);
+                    priority, host);
 
             if (retrievalResponse != null) {
-                success = processRetrievedData(retrieval, retrievalResponse);
+                outcome = processRetrievedData(retrieval, retrievalResponse)
+                        ? Outcome.COMPLETED : Outcome.FAILED;
             } else {
-                logger.error("Retrieval failed for [" + retrieval
+                logger.error("Retrieval attempt failed for [" + retrieval
                         + "]. No PDOs to store.");
+                outcome = Outcome.RETRY;
             }
         } catch (Exception e) {
             logger.error("Error ocurred during retrieval [" + retrieval + "]",
                     e);
         }
-        return success;
+        return outcome;
     }
 
-    protected IRetrievalResponse retrieveData(Retrieval retrieval, int priority)
-            throws Exception {
+    /**
+     * How long to wait before retrying a retrieval: exponential backoff with
+     * jitter, plus however long the circuit breaker of its host stays open.
+     *
+     * @param retrieval
+     * @param attempt
+     *            the number of the failed attempt, starting at 0
+     * @return the delay
+     */
+    public long getRetryDelayMillis(Retrieval retrieval, int attempt) {
+        return circuitBreaker.getRemainingOpenMillis(getHost(retrieval))
+                + RetrievalCircuitBreaker.backoffMillis(retryIntervalMs,
+                        maxRetryIntervalMs, attempt);
+    }
+
+    /**
+     * How long to hold a retrieval the circuit breaker of its host refused:
+     * until the breaker lets a trial request through, or the backoff of a
+     * first retry if the breaker closed in the meantime.
+     *
+     * @param retrieval
+     * @return the delay
+     */
+    public long getRejectedDelayMillis(Retrieval retrieval) {
+        long remaining = circuitBreaker
+                .getRemainingOpenMillis(getHost(retrieval));
+        return remaining > 0 ? remaining
+                : RetrievalCircuitBreaker.backoffMillis(retryIntervalMs,
+                        maxRetryIntervalMs, 0);
+    }
+
+    /**
+     * @param provider
+     * @return how long until a request to any host of the provider may be
+     *         tried, 0 if one may be tried now
+     */
+    public long getProviderRemainingOpenMillis(String provider) {
+        return circuitBreaker.getProviderRemainingOpenMillis(provider);
+    }
+
+    /**
+     * @return the number of attempts made at a retrieval before it fails
+     */
+    public int getMaxTries() {
+        return maxTries;
+    }
+
+    /**
+     * @return a snapshot of the circuit breaker of every host
+     */
+    public Map<String, RetrievalCircuitBreaker.BreakerMetrics> getCircuitBreakerMetrics() {
+        return circuitBreaker.getMetrics();
+    }
+
+    /**
+     * @param retrieval
+     * @return the provider and host the retrieval is made from, the key of its
+     *         circuit breaker
+     */
+    protected String getHost(Retrieval retrieval) {
+        String host = null;
+        String url = retrieval.getUrl();
+        if (url != null) {
+            try {
+                host = new URI(url.trim()).getHost();
+            } catch (URISyntaxException e) {
+                // fall back to the provider alone
+            }
+        }
+        return host == null ? retrieval.getProvider()
+                : retrieval.getProvider() + "@" + host;
+    }
+
+    protected IRetrievalResponse retrieveData(Retrieval retrieval, int priority,
+            String host) throws Exception {
         ITimer timer = TimeUtil.getTimer();
         timer.start();
         IRetrievalResponse response = null;
@@ -148,27 +275,19 @@ public abstract class RetrievalTask {
             logger.info("Translated provider attribute Request XML: "
                     + request.getRequest());
 
-            int tries = 0;
-
-            while (tries < maxTries) {
-                try {
-                    response = pra.performRequest(retrieval, request);
-                    if (response != null) {
-                        // success
-                        break;
-                    }
-                } catch (Exception e) {
-                    EventBus.publish(new RetrievalEvent(e.getMessage()));
-                    logger.error("Error while processing retrieval request "
-                            + request.getRequest() + "(tries = " + (tries + 1)
-                            + ", " + retrieval + ")", e);
-                }
-                tries += 1;
-                try {
-                    Thread.sleep(retryIntervalMs);
-                } catch (InterruptedException e2) {
-                    break;
+            try {
+                response = pra.performRequest(retrieval, request);
+                // Adapters return null when the host gave no usable response
+                if (response != null) {
+                    circuitBreaker.recordSuccess(host);
+                } else {
+                    circuitBreaker.recordFailure(host);
                 }
+            } catch (Exception e) {
+                circuitBreaker.recordFailure(host);
+                EventBus.publish(new RetrievalEvent(e.getMessage()));
+                logger.error("Error while processing retrieval request "
+                        + request.getRequest() + "(" + retrieval + ")", e);
             }
         } else {
             // null response
@@ -76,6 +76,10 @@ import com.raytheon.uf.edex.datadelivery.retrieval.db.RetrievalRequestRecord;
  * Sep 20, 2017  6413     tjensen   Update for ParameterGroups
  * Oct 09, 2017  6415     nabowle   Fix argument order in call to getSubscriptionStateCounts(),
  *                                  and check for WAITING_RESPONSE.
+ * Oct 17, 2026           agent     List every parameter of a failed coalesced
+ *                                  retrieval.
+ * Oct 17, 2026           agent     Read the request time, network and
+ *                                  subscription type from the record.
  *
  * </pre>
  *
@@ -228,22 +232,25 @@ public class SubscriptionNotifyTask implements Runnable {
     static SubscriptionDelay createSubscriptionDelay(
             RetrievalRequestRecord record, long startTime) {
 
-        Long retrievalRequestTimeLong = null;
-        Network network = null;
-        SubscriptionType subType = null;
-
-        try {
-            Retrieval retrievalObject = record.getRetrievalObj();
-            if (retrievalObject != null) {
-                retrievalRequestTimeLong = retrievalObject
-                        .getRequestRetrievalTime();
-                network = retrievalObject.getNetwork();
-                subType = retrievalObject.getSubscriptionType();
+        Long retrievalRequestTimeLong = record.getRequestRetrievalTime();
+        Network network = record.getNetwork();
+        SubscriptionType subType = record.getSubscriptionType();
+
+        // Records stored before the fields were copied to columns
+        if (network == null && subType == null) {
+            try {
+                Retrieval retrievalObject = record.getRetrievalObj();
+                if (retrievalObject != null) {
+                    retrievalRequestTimeLong = retrievalObject
+                            .getRequestRetrievalTime();
+                    network = retrievalObject.getNetwork();
+                    subType = retrievalObject.getSubscriptionType();
+                }
+            } catch (SerializationException se) {
+                statusHandler.error(
+                        "Error occurred unmarshalling retrieval object for determining Subscriptiong Request time.",
+                        se);
             }
-        } catch (SerializationException se) {
-            statusHandler.error(
-                    "Error occurred unmarshalling retrieval object for determining Subscriptiong Request time.",
-                    se);
         }
 
         if (retrievalRequestTimeLong == null) {
@@ -359,14 +366,15 @@ public class SubscriptionNotifyTask implements Runnable {
                             sb.append("Failed parameters: ");
                             List<String> parameters = new ArrayList<>();
                             for (RetrievalRequestRecord failedRec : failedRecs) {
-                                Retrieval retrieval = failedRec
+                                Retrieval<?, ?> retrieval = failedRec
                                         .getRetrievalObj();
-                                RetrievalAttribute<?, ?> att = retrieval
-                                        .getAttribute();
-                                String paramName = att.getParameterGroup()
-                                        .getAbbrev();
-                                if (!parameters.contains(paramName)) {
-                                    parameters.add(paramName);
+                                for (RetrievalAttribute<?, ?> att : retrieval
+                                        .getAttributes()) {
+                                    String paramName = att.getParameterGroup()
+                                            .getAbbrev();
+                                    if (!parameters.contains(paramName)) {
+                                        parameters.add(paramName);
+                                    }
                                 }
                             }
                             for (String param : parameters) {
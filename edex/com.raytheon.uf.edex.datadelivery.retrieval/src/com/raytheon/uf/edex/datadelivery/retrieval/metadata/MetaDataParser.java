@@ -56,6 +56,7 @@ import com.raytheon.uf.common.registry.handler.RegistryHandlerException;
 import com.raytheon.uf.common.serialization.annotations.DynamicSerialize;
 import com.raytheon.uf.common.time.util.TimeUtil;
 import com.raytheon.uf.edex.datadelivery.retrieval.interfaces.IParseMetaData;
+import com.raytheon.uf.edex.datadelivery.retrieval.metadata.MetaDataRegistryStore.Kind;
 import com.raytheon.uf.edex.datadelivery.retrieval.util.CoverageUtil;
 
 /**
@@ -94,6 +95,11 @@ import com.raytheon.uf.edex.datadelivery.retrieval.util.CoverageUtil;
  * May 04, 2017  6186     rjpeter   Made logger protected.
  * May 09, 2017  6130     tjensen   Updated to support routing to ingest
  * Sep 12, 2017  6413     tjensen   Removed parameters from DataSetName
+ * Oct 17, 2026           agent     Store data sets, parameters and data set
+ *                                  names through the write-behind
+ *                                  MetaDataRegistryStore.
+ * Oct 17, 2026           agent     Skip writes on equal digests, not hash
+ *                                  codes.
  *
  * </pre>
  *
@@ -112,47 +118,62 @@ public abstract class MetaDataParser<O extends Object>
     }
 
     /**
+     * Queue a data set to be stored, unless it is unchanged since it was last
+     * stored. A data set still waiting to be written is combined with the new
+     * one.
+     *
      * @param dataSet
      */
     @SuppressWarnings({ "rawtypes", "unchecked" })
     protected void storeDataSet(final DataSet dataSet) {
+        // equals() ignores the coverage of most data sets, the digest does not
+        String content = MetaDataRegistryStore.digest(dataSet);
+        boolean queued = MetaDataRegistryStore.getInstance().store(
+                Kind.DATA_SET,
+                dataSet.getProviderName() + "/" + dataSet.getDataSetName(),
+                content, dataSet, this::writeDataSet, (pending, ds) -> {
+                    ds.combine(pending);
+                    return ds;
+                });
+        if (!queued) {
+            logger.debug("Dataset [" + dataSet.getDataSetName()
+                    + "] is unchanged since it was stored. No update will be performed.");
+        }
+    }
 
-        String dataSetName = null;
-
-        try {
-
-            boolean store = false;
-            // This returns null if no previous dataSet exists.
-            DataSet currentDataSet = DataDeliveryHandlers.getDataSetHandler()
-                    .getByNameAndProvider(dataSet.getDataSetName(),
-                            dataSet.getProviderName());
+    /**
+     * Write a data set to the registry, combined with the one already there.
+     *
+     * @param dataSet
+     * @throws RegistryHandlerException
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void writeDataSet(final DataSet dataSet)
+            throws RegistryHandlerException {
+        String dataSetName = dataSet.getDataSetName();
+        boolean store = false;
+        // This returns null if no previous dataSet exists.
+        DataSetHandler handler = DataDeliveryHandlers.getDataSetHandler();
+        DataSet currentDataSet = handler.getByNameAndProvider(dataSetName,
+                dataSet.getProviderName());
 
-            if (currentDataSet == null) {
+        if (currentDataSet == null) {
+            store = true;
+        } else {
+            if (!currentDataSet.equals(dataSet)) {
+                dataSet.combine(currentDataSet);
                 store = true;
-            } else {
-                if (!currentDataSet.equals(dataSet)) {
-                    dataSet.combine(currentDataSet);
-                    store = true;
-                }
-            }
-
-            if (store) {
-                dataSetName = dataSet.getDataSetName();
-                DataSetHandler handler = DataDeliveryHandlers
-                        .getDataSetHandler();
-                handler.update(RegistryUtil.registryUser, dataSet);
-                logger.info("Dataset [" + dataSetName
-                        + "] successfully stored in Registry");
-                storeDataSetName(dataSet);
-            } else {
-                logger.info(
-                        "Matching dataset already exists in Registry. No update will be performed.");
             }
+        }
 
-        } catch (RegistryHandlerException e) {
-            logger.error(
-                    "Dataset [" + dataSetName + "] failed to store in Registry",
-                    e);
+        if (store) {
+            handler.update(RegistryUtil.registryUser, dataSet);
+            logger.info("Dataset [" + dataSetName
+                    + "] successfully stored in Registry");
+            storeDataSetName(dataSet);
+        } else {
+            logger.info(
+                    "Matching dataset already exists in Registry. No update will be performed.");
         }
     }
 
@@ -165,6 +186,9 @@ public abstract class MetaDataParser<O extends Object>
     @Override
     public void storeMetaData(final DataSetMetaData<?, ?> metaData) {
 
+        // The data set has to be in the registry before its metadata
+        MetaDataRegistryStore.getInstance().flush();
+
         DataSetMetaDataHandler handler = DataDeliveryHandlers
                 .getDataSetMetaDataHandler();
         final String description = metaData.getDataSetDescription();
@@ -201,10 +225,11 @@ public abstract class MetaDataParser<O extends Object>
     }
 
     /**
-     * Stores the name of the dataset, used in lookups.
+     * Stores the name of the dataset, used in lookups. The name is queued to
+     * be written unless it was already stored.
      */
     @Override
-    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @SuppressWarnings({ "rawtypes" })
     public void storeDataSetName(DataSet dataSetToStore) {
 
         DataSetName dsn = new DataSetName();
@@ -214,14 +239,19 @@ public abstract class MetaDataParser<O extends Object>
         dsn.setDataSetType(dataSetToStore.getDataSetType());
         dsn.setDataSetName(dataSetToStore.getDataSetName());
 
-        try {
-            DataDeliveryHandlers.getDataSetNameHandler()
-                    .update(RegistryUtil.registryUser, dsn);
-            logger.info("DataSetName object store complete, dataset ["
-                    + dsn.getDataSetName() + "]");
-        } catch (RegistryHandlerException e) {
-            logger.error("DataSetName object store failed:", e);
-        }
+        // The name holds nothing but the keys it is stored by
+        String key = dsn.getProviderName() + "/" + dsn.getDataSetType() + "/"
+                + dsn.getDataSetName();
+        MetaDataRegistryStore.getInstance().store(Kind.DATA_SET_NAME, key,
+                key, dsn, this::writeDataSetName);
+    }
+
+    private void writeDataSetName(DataSetName dsn)
+            throws RegistryHandlerException {
+        DataDeliveryHandlers.getDataSetNameHandler()
+                .update(RegistryUtil.registryUser, dsn);
+        logger.info("DataSetName object store complete, dataset ["
+                + dsn.getDataSetName() + "]");
     }
 
     /**
@@ -235,6 +265,9 @@ public abstract class MetaDataParser<O extends Object>
     public void storeMetaData(final List<DataSetMetaData<?, ?>> metaDatas,
             final DataSet dataSet) {
 
+        // The data set has to be in the registry before its metadata
+        MetaDataRegistryStore.getInstance().flush();
+
         DataSetMetaDataHandler handler = DataDeliveryHandlers
                 .getDataSetMetaDataHandler();
         Iterator<DataSetMetaData<?, ?>> iter = metaDatas.iterator();
@@ -311,40 +344,46 @@ public abstract class MetaDataParser<O extends Object>
     }
 
     /**
-     * Store a parameter object to the registry. If necessary, also store the
-     * ParameterLevel Objects needed to successfully store the Parameter Object.
+     * Queue a parameter object to be stored to the registry, unless it is
+     * unchanged since it was last stored.
      *
      * @param parameter
      *            The Parameter Object to store.
      */
     @Override
     public void storeParameter(Parameter parameter) {
+        MetaDataRegistryStore.getInstance().store(Kind.PARAMETER,
+                parameter.getName(),
+                MetaDataRegistryStore.digest(parameter), parameter,
+                this::writeParameter);
+    }
 
-        try {
-
-            ParameterHandler handler = DataDeliveryHandlers
-                    .getParameterHandler();
-            Parameter currentParameter = handler.getByName(parameter.getName());
-            boolean store = false;
+    /**
+     * Store a parameter object to the registry if it differs from the one
+     * already there.
+     *
+     * @param parameter
+     *            The Parameter Object to store.
+     * @throws RegistryHandlerException
+     */
+    private void writeParameter(Parameter parameter)
+            throws RegistryHandlerException {
+        ParameterHandler handler = DataDeliveryHandlers.getParameterHandler();
+        Parameter currentParameter = handler.getByName(parameter.getName());
+        boolean store = false;
 
-            if (currentParameter != null) {
-                if (!currentParameter.equals(parameter)) {
-                    store = true;
-                }
-            } else {
+        if (currentParameter != null) {
+            if (!currentParameter.equals(parameter)) {
                 store = true;
             }
+        } else {
+            store = true;
+        }
 
-            if (store) {
-                handler.update(RegistryUtil.registryUser, parameter);
-                logger.info("Parameter [" + parameter.getName()
-                        + "] successfully stored in Registry");
-            }
-
-        } catch (RegistryHandlerException e) {
-            logger.error(
-                    "Failed to store parameter [" + parameter.getName() + "]",
-                    e);
+        if (store) {
+            handler.update(RegistryUtil.registryUser, parameter);
+            logger.info("Parameter [" + parameter.getName()
+                    + "] successfully stored in Registry");
         }
     }
 
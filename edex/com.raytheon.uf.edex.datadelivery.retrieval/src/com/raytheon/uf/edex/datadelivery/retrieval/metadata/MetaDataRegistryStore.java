@@ -0,0 +1,619 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.metadata;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.raytheon.uf.common.datadelivery.registry.DataDeliveryRegistryObjectTypes;
+import com.raytheon.uf.common.datadelivery.registry.DataSetName;
+import com.raytheon.uf.common.event.EventBus;
+import com.raytheon.uf.common.registry.ebxml.RegistryUtil;
+import com.raytheon.uf.common.registry.event.RemoveRegistryEvent;
+import com.raytheon.uf.common.registry.handler.RegistryHandlerException;
+import com.raytheon.uf.common.serialization.SerializationException;
+import com.raytheon.uf.common.serialization.SerializationUtil;
+
+/**
+ * Write-behind store for the registry objects the harvesters create over and
+ * over: parameters, data sets and data set names. The content of each object
+ * written, usually a {@link #digest(Object)} of it, is kept in a bounded
+ * cache, so an object whose content equals what was last written is skipped
+ * without a registry lookup. The remaining writes are queued, writes of the
+ * same object are coalesced, and the queue is written out in one pass every
+ * flush interval, or sooner once a batch worth of writes is waiting.
+ *
+ * An object is only recorded in the cache once its write succeeded. A failed
+ * write drops the object from the cache and is queued again for the next
+ * flush, up to a number of attempts. Objects of a kind removed from the
+ * registry are dropped from the cache, so they are written again when next
+ * stored.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Compare digests instead of hash codes,
+ *                                  retry failed writes and forget removed
+ *                                  objects.
+ *
+ * </pre>
+ *
+ */
+class MetaDataRegistryStore {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(MetaDataRegistryStore.class);
+
+    /** Most object contents kept */
+    private static final int CACHE_SIZE = Integer
+            .getInteger("harvester.registry.store.cache.size", 10_000);
+
+    /** Writes waiting before a flush is started early */
+    private static final int BATCH_SIZE = Integer
+            .getInteger("harvester.registry.store.batch.size", 200);
+
+    /** Most times a write is attempted before it is dropped */
+    private static final int MAX_ATTEMPTS = Integer
+            .getInteger("harvester.registry.store.max.attempts", 3);
+
+    /** Most time a write waits for a flush */
+    private static final long FLUSH_INTERVAL_MILLIS = Long
+            .getLong("harvester.registry.store.flush.interval.millis", 2_000L);
+
+    private static volatile MetaDataRegistryStore instance;
+
+    /**
+     * The kinds of objects stored, in the order they are written by a flush.
+     * Parameters are written before the data sets that contain them and data
+     * set names are written after their data sets.
+     */
+    enum Kind {
+        PARAMETER(DataDeliveryRegistryObjectTypes.PARAMETER),
+
+        DATA_SET(DataDeliveryRegistryObjectTypes.DATASET),
+
+        DATA_SET_NAME(RegistryUtil.getObjectType(DataSetName.class));
+
+        private final String objectType;
+
+        private Kind(String objectType) {
+            this.objectType = objectType;
+        }
+    }
+
+    /**
+     * Writes an object to the registry.
+     */
+    interface Writer<T> {
+        void write(T object) throws RegistryHandlerException;
+    }
+
+    private static class PendingWrite<T> {
+
+        private final String cacheKey;
+
+        private final Object content;
+
+        private final T object;
+
+        private final Writer<T> writer;
+
+        private final BinaryOperator<T> combiner;
+
+        /** Failed attempts at this write */
+        private final int failures;
+
+        private PendingWrite(String cacheKey, Object content, T object,
+                Writer<T> writer, BinaryOperator<T> combiner, int failures) {
+            this.cacheKey = cacheKey;
+            this.content = content;
+            this.object = object;
+            this.writer = writer;
+            this.combiner = combiner;
+            this.failures = failures;
+        }
+
+        private void write() throws RegistryHandlerException {
+            writer.write(object);
+        }
+
+        /**
+         * @return this write to try again after it failed, combined into a
+         *         newer write of the same object if there is one
+         */
+        private PendingWrite<T> retry(PendingWrite<T> newer) {
+            if (newer == null) {
+                return new PendingWrite<>(cacheKey, content, object, writer,
+                        combiner, failures + 1);
+            }
+            if (newer.combiner == null) {
+                return newer;
+            }
+            return new PendingWrite<>(cacheKey, newer.content,
+                    newer.combiner.apply(object, newer.object), newer.writer,
+                    newer.combiner, newer.failures);
+        }
+    }
+
+    private final Object lock = new Object();
+
+    /** Only one flush writes at a time */
+    private final Object flushLock = new Object();
+
+    /** Content of the last object written, least recently used first */
+    private final LinkedHashMap<String, Object> writtenContent;
+
+    private final Map<Kind, LinkedHashMap<String, PendingWrite<?>>> pending = new EnumMap<>(
+            Kind.class);
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private int pendingCount;
+
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong stored = new AtomicLong();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong retried = new AtomicLong();
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    /**
+     * Constructor. Nothing is flushed until {@link #startFlushing(long)} is
+     * called or {@link #flush()} is called directly.
+     *
+     * @param cacheSize
+     *            most contents kept
+     * @param batchSize
+     *            writes waiting before a flush is started early
+     */
+    MetaDataRegistryStore(final int cacheSize, int batchSize) {
+        this(cacheSize, batchSize, MAX_ATTEMPTS);
+    }
+
+    /**
+     * Constructor. Nothing is flushed until {@link #startFlushing(long)} is
+     * called or {@link #flush()} is called directly.
+     *
+     * @param cacheSize
+     *            most contents kept
+     * @param batchSize
+     *            writes waiting before a flush is started early
+     * @param maxAttempts
+     *            most times a write is attempted before it is dropped
+     */
+    MetaDataRegistryStore(final int cacheSize, int batchSize,
+            int maxAttempts) {
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.writtenContent = new LinkedHashMap<String, Object>(16, 0.75f,
+                true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Object> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        for (Kind kind : Kind.values()) {
+            pending.put(kind, new LinkedHashMap<String, PendingWrite<?>>());
+        }
+    }
+
+    /**
+     * @return the store shared by the metadata parsers, flushing on its own
+     *         thread
+     */
+    static MetaDataRegistryStore getInstance() {
+        if (instance == null) {
+            synchronized (MetaDataRegistryStore.class) {
+                if (instance == null) {
+                    MetaDataRegistryStore store = new MetaDataRegistryStore(
+                            CACHE_SIZE, BATCH_SIZE);
+                    store.startFlushing(FLUSH_INTERVAL_MILLIS);
+                    EventBus.register(store);
+                    instance = store;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Flush the pending writes periodically.
+     *
+     * @param intervalMillis
+     *            time between flushes
+     */
+    void startFlushing(long intervalMillis) {
+        synchronized (lock) {
+            if (flusher != null) {
+                return;
+            }
+            flusher = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("MetaData-registry-store")
+                            .setDaemon(true).build());
+            long interval = Math.max(100L, intervalMillis);
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval,
+                    interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Store an object, replacing any write of the same object still pending.
+     *
+     * @param kind
+     * @param key
+     *            identifies the object within its kind
+     * @param content
+     *            equals the content of the object last written if the object
+     *            is unchanged, null to always write it
+     * @param object
+     * @param writer
+     *            writes the object to the registry
+     * @return false if the write was skipped because the object is unchanged
+     */
+    <T> boolean store(Kind kind, String key, Object content, T object,
+            Writer<T> writer) {
+        return store(kind, key, content, object, writer, null);
+    }
+
+    /**
+     * Store an object, combining it with any write of the same object still
+     * pending.
+     *
+     * @param kind
+     * @param key
+     *            identifies the object within its kind
+     * @param content
+     *            equals the content of the object last written if the object
+     *            is unchanged, null to always write it
+     * @param object
+     * @param writer
+     *            writes the object to the registry
+     * @param combiner
+     *            combines the pending object (first argument) into the new
+     *            one (second argument), null to replace the pending object
+     * @return false if the write was skipped because the object is unchanged
+     */
+    @SuppressWarnings("unchecked")
+    <T> boolean store(Kind kind, String key, Object content, T object,
+            Writer<T> writer, BinaryOperator<T> combiner) {
+        stored.incrementAndGet();
+        String cacheKey = kind.name() + '/' + key;
+        ScheduledExecutorService flushNow = null;
+
+        synchronized (lock) {
+            LinkedHashMap<String, PendingWrite<?>> kindPending = pending
+                    .get(kind);
+            PendingWrite<T> previous = (PendingWrite<T>) kindPending
+                    .get(cacheKey);
+
+            if (previous == null) {
+                Object lastContent = writtenContent.get(cacheKey);
+                if (lastContent != null) {
+                    cacheHits.incrementAndGet();
+                    if (lastContent.equals(content)) {
+                        skipped.incrementAndGet();
+                        return false;
+                    }
+                }
+            } else {
+                coalesced.incrementAndGet();
+                if (combiner != null) {
+                    object = combiner.apply(previous.object, object);
+                }
+            }
+
+            kindPending.put(cacheKey, new PendingWrite<>(cacheKey, content,
+                    object, writer, combiner, 0));
+            if (previous == null && ++pendingCount == batchSize) {
+                flushNow = flusher;
+            }
+        }
+
+        if (flushNow != null) {
+            flushNow.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Write everything pending, kind by kind. Objects stored while a kind is
+     * being written, such as the data set names stored by data set writes,
+     * are written by the same flush if their kind comes later.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            int batch = 0;
+            for (Kind kind : Kind.values()) {
+                for (PendingWrite<?> write : drain(kind)) {
+                    batch++;
+                    try {
+                        write.write();
+                        written.incrementAndGet();
+                        if (write.content != null) {
+                            synchronized (lock) {
+                                writtenContent.put(write.cacheKey,
+                                        write.content);
+                            }
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        if (retry(kind, write)) {
+                            logger.warn("Failed to store " + write.cacheKey
+                                    + " in the registry, it will be retried",
+                                    e);
+                        } else {
+                            logger.error("Failed to store " + write.cacheKey
+                                    + " in the registry", e);
+                        }
+                    }
+                }
+            }
+
+            if (batch > 0) {
+                flushes.incrementAndGet();
+                if (batch > largestBatch.get()) {
+                    largestBatch.set(batch);
+                }
+                logger.info("Flushed " + batch
+                        + " registry writes. Totals: stored " + stored.get()
+                        + ", cache hits " + cacheHits.get()
+                        + ", skipped unchanged " + skipped.get()
+                        + ", coalesced " + coalesced.get() + ", written "
+                        + written.get() + ", failed " + failed.get()
+                        + ", retried " + retried.get()
+                        + ", flushes " + flushes.get() + ", largest batch "
+                        + largestBatch.get());
+            }
+        }
+    }
+
+    /**
+     * Forget what was written for a failed write, the registry may hold it
+     * partly or not at all, and queue it again unless it is out of attempts.
+     *
+     * @return true if the write was queued again
+     */
+    @SuppressWarnings("unchecked")
+    private <T> boolean retry(Kind kind, PendingWrite<T> write) {
+        boolean flushNow = false;
+        ScheduledExecutorService flushExecutor;
+        synchronized (lock) {
+            writtenContent.remove(write.cacheKey);
+            if (write.failures + 1 >= maxAttempts) {
+                return false;
+            }
+            LinkedHashMap<String, PendingWrite<?>> kindPending = pending
+                    .get(kind);
+            PendingWrite<T> newer = (PendingWrite<T>) kindPending
+                    .get(write.cacheKey);
+            kindPending.put(write.cacheKey, write.retry(newer));
+            if (newer == null) {
+                flushNow = ++pendingCount == batchSize;
+            }
+            flushExecutor = flusher;
+        }
+        retried.incrementAndGet();
+        if (flushNow && flushExecutor != null) {
+            flushExecutor.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Forget what was written of the kind of object removed from the
+     * registry, so it is written again the next time it is stored.
+     *
+     * @param event
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void registryObjectRemoved(RemoveRegistryEvent event) {
+        String objectType = event.getObjectType();
+        for (Kind kind : Kind.values()) {
+            if (kind.objectType.equals(objectType)) {
+                evict(kind);
+            }
+        }
+    }
+
+    /**
+     * Forget what was written of a kind of object. The cache is keyed by
+     * name rather than registry id, so all objects of the kind are dropped.
+     *
+     * @param kind
+     */
+    void evict(Kind kind) {
+        String prefix = kind.name() + '/';
+        synchronized (lock) {
+            Iterator<String> iter = writtenContent.keySet().iterator();
+            while (iter.hasNext()) {
+                if (iter.next().startsWith(prefix)) {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Digest the serialized content of a registry object, to compare it with
+     * the content last written without keeping the object.
+     *
+     * @param object
+     *            a dynamically serialized object
+     * @return the digest, null if the object could not be serialized
+     */
+    static String digest(Object object) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(SerializationUtil.transformToThrift(object));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (SerializationException | NoSuchAlgorithmException e) {
+            logger.warn("Unable to digest " + object
+                    + ", it will be written every time it is stored", e);
+            return null;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            logger.error("Failed to flush registry writes", t);
+        }
+    }
+
+    private List<PendingWrite<?>> drain(Kind kind) {
+        synchronized (lock) {
+            LinkedHashMap<String, PendingWrite<?>> kindPending = pending
+                    .get(kind);
+            List<PendingWrite<?>> writes = new ArrayList<>(
+                    kindPending.values());
+            kindPending.clear();
+            pendingCount -= writes.size();
+            return writes;
+        }
+    }
+
+    /**
+     * @return how many writes are waiting for a flush
+     */
+    int getPendingCount() {
+        synchronized (lock) {
+            return pendingCount;
+        }
+    }
+
+    /**
+     * @return how many objects were stored
+     */
+    long getStoredCount() {
+        return stored.get();
+    }
+
+    /**
+     * @return how many stores found a content in the cache
+     */
+    long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return how many stores were skipped because the object was unchanged
+     */
+    long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * @return how many stores replaced or combined with a pending write
+     */
+    long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return how many objects were written to the registry
+     */
+    long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * @return how many registry writes failed
+     */
+    long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return how many failed writes were queued again
+     */
+    long getRetriedCount() {
+        return retried.get();
+    }
+
+    /**
+     * @return how many flushes wrote anything
+     */
+    long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * @return the most writes made by one flush
+     */
+    long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    /**
+     * @return the number of contents cached
+     */
+    int getCacheSize() {
+        synchronized (lock) {
+            return writtenContent.size();
+        }
+    }
+}
@@ -59,6 +59,10 @@ import com.raytheon.uf.edex.datadelivery.retrieval.util.ResponseProcessingUtilit
  * Jul 27, 2017  6186     rjpeter   Use Retrieval
  * Sep 20, 2017  6413     tjensen   Update for ParameterGroups
  * Apr 03, 2018  7240     tjensen   Store data by dataset name with DD prefix
+ * Oct 17, 2026           agent     Add adjustGridInPlace().
+ * Oct 17, 2026           agent     Use the entry of each level of a level
+ *                                  range, allow package-level overriding of
+ *                                  level and record lookups again.
  *
  * </pre>
  *
@@ -105,15 +109,16 @@ public class GridMetadataAdapter
         GridCoverage gridCoverage = attXML.getCoverage()
                 .getRequestGridCoverage();
 
+        List<ParameterLevelEntry> entries = attXML.getEntries();
         if (time.getSelectedTimeIndices() != null) {
             int bin = 0;
             for (String ensemble : ensembles) {
                 for (int i = 0; i < time.getSelectedTimeIndices().size(); i++) {
-                    for (Level level : levels) {
+                    for (int k = 0; k < levels.length; k++) {
                         pdos[bin] = populateGridRecord(
                                 DD_MODEL_PREFIX + retrieval.getDataSetName(),
-                                attXML.getParameterGroup(), attXML.getEntry(),
-                                level, ensemble, gridCoverage);
+                                attXML.getParameterGroup(), entries.get(k),
+                                levels[k], ensemble, gridCoverage);
                         bin++;
                     }
                 }
@@ -121,7 +126,7 @@ public class GridMetadataAdapter
         } else {
 
             pdos[0] = populateGridRecord(retrieval.getSubscriptionName(),
-                    attXML.getParameterGroup(), attXML.getEntry(), levels[0],
+                    attXML.getParameterGroup(), entries.get(0), levels[0],
                     ensembles.get(0), gridCoverage);
 
         }
@@ -135,7 +140,7 @@ public class GridMetadataAdapter
      * @param gridCoverage
      * @return
      */
-    private GridRecord populateGridRecord(String name, ParameterGroup parm,
+    GridRecord populateGridRecord(String name, ParameterGroup parm,
             ParameterLevelEntry entry, Level level, String ensembleId,
             GridCoverage gridCoverage) {
 
@@ -151,7 +156,7 @@ public class GridMetadataAdapter
         return rec;
     }
 
-    private static Level[] getLevels(
+    Level[] getLevels(
             RetrievalAttribute<GriddedTime, GriddedCoverage> attXML) {
         List<Level> levels = new ArrayList<>(1);
         levels.addAll(ResponseProcessingUtilities.getOpenDAPGridLevels(
@@ -194,6 +199,35 @@ public class GridMetadataAdapter
         return returnVals;
     }
 
+    /**
+     * Same as {@link #adjustGrid(int, int, float[], float, boolean)} but
+     * modifies the values in place instead of allocating another grid.
+     *
+     * @param nx
+     * @param ny
+     * @param vals
+     * @param missingValue
+     * @param flip
+     */
+    public static void adjustGridInPlace(int nx, int ny, float[] vals,
+            float missingValue, boolean flip) {
+        for (int i = 0; i < nx * ny; i++) {
+            if (vals[i] == missingValue) {
+                vals[i] = GridUtil.GRID_FILL_VALUE;
+            }
+        }
+
+        if (flip) {
+            float[] row = new float[nx];
+            for (int y = 0; y < ny / 2; y++) {
+                int revy = (ny - 1) - y;
+                System.arraycopy(vals, nx * y, row, 0, nx);
+                System.arraycopy(vals, nx * revy, vals, nx * y, nx);
+                System.arraycopy(row, 0, vals, nx * revy, nx);
+            }
+        }
+    }
+
     /**
      * pre-fill grid and pad when grid from provider is short on values
      *
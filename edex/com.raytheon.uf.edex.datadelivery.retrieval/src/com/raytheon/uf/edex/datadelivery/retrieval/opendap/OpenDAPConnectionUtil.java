@@ -20,6 +20,8 @@
 package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 
 import com.raytheon.opendap.InputStreamWrapper;
 
@@ -44,6 +46,9 @@ import com.raytheon.opendap.InputStreamWrapper;
  * Jun 22, 2017  6222     tgurney   Receive stream wrapper from caller
  * Sep 21, 2017  6441     tgurney   Remove references to dods-1.1.7
  * Jun 12, 2018  7320     rjpeter   Fixed passing of streamWrapper.
+ * Oct 17, 2026           agent     Added openDataStream.
+ * Oct 17, 2026           agent     Send data requests over pooled
+ *                                  connections.
  *
  * </pre>
  *
@@ -79,6 +84,53 @@ public class OpenDAPConnectionUtil {
         return new opendap.dap.DConnect(urlString, streamWrapper);
     }
 
+    /**
+     * Open the DAP2 data (.dods) response of a request, for decoding as it is
+     * read rather than through DConnect. The request is sent over a pooled
+     * keep-alive connection to the provider. The raw stream is passed to the
+     * wrapper before any decompression so it sees the bytes on the wire.
+     *
+     * @param provider
+     *            the provider, selects the connection pool
+     * @param urlString
+     *            the request, i.e. dataset URL and constraint expression
+     * @param streamWrapper
+     *            wrapper of the raw stream, may be null
+     * @return the uncompressed data response, the caller must close it
+     * @throws IOException
+     *             if the server could not be reached or returned an error
+     */
+    public static InputStream openDataStream(String provider,
+            String urlString, InputStreamWrapper streamWrapper)
+            throws IOException {
+        String base = urlString;
+        String constraint = "";
+        int query = urlString.indexOf('?');
+        if (query >= 0) {
+            base = urlString.substring(0, query);
+            constraint = "?" + escapeConstraint(urlString.substring(query + 1));
+        }
+
+        return OpenDAPHttpPool.getPool(provider).get(
+                base + ".dods" + constraint, streamWrapper);
+    }
+
+    /**
+     * Percent encode the characters of a constraint expression that are not
+     * legal in a URL query, e.g. the brackets of a hyperslab.
+     */
+    static String escapeConstraint(String constraint) {
+        StringBuilder escaped = new StringBuilder(constraint.length());
+        for (char c : constraint.toCharArray()) {
+            if ("[]{}|\\\"<> ".indexOf(c) >= 0) {
+                escaped.append('%').append(String.format("%02X", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
     /**
      * Package level constructor so test can call.
      */
@@ -0,0 +1,336 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.raytheon.opendap.InputStreamWrapper;
+
+/**
+ * Keep-alive HTTP connections to OPeNDAP providers, one pool per provider, so
+ * consecutive retrievals from the same server reuse their TCP and TLS
+ * sessions. Connections idle for longer than the idle timeout are closed by a
+ * background task.
+ *
+ * Responses are requested compressed but decompressed here rather than by the
+ * client, so the stream wrapper, and the token bucket behind it, sees the
+ * bytes actually sent over the network.
+ *
+ * A request waits for a free connection for as long as it takes rather than
+ * timing out. How many requests run at once is bounded by the retrieval threads
+ * of the provider and the parallel requests of each retrieval, and a request
+ * returns its connection when its stream is closed, so a full pool only queues
+ * requests.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Added conditional GET.
+ * Oct 17, 2026           agent     Wait for a free connection without a
+ *                                  timeout.
+ *
+ * </pre>
+ *
+ */
+class OpenDAPHttpPool {
+
+    /** Most open connections to a provider */
+    private static final int POOL_SIZE = Integer
+            .getInteger("opendap.connection.pool.size", 4);
+
+    /** Connections idle for longer than this are closed */
+    private static final long IDLE_TIMEOUT_MILLIS = Long
+            .getLong("opendap.connection.idle.timeout.millis", 60_000L);
+
+    private static final int TIMEOUT_MILLIS = Integer
+            .getInteger("opendap.connection.timeout.millis", 60_000);
+
+    private static final ConcurrentMap<String, OpenDAPHttpPool> pools = new ConcurrentHashMap<>();
+
+    private static volatile ScheduledExecutorService evictor;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient client;
+
+    private OpenDAPHttpPool(int poolSize) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(poolSize);
+        connectionManager.setDefaultMaxPerRoute(poolSize);
+        RequestConfig config = RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT_MILLIS)
+                .setConnectionRequestTimeout(0)
+                .setSocketTimeout(TIMEOUT_MILLIS).build();
+        client = HttpClients.custom().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(config).disableContentCompression()
+                .useSystemProperties().build();
+    }
+
+    /**
+     * Get the pool of a provider, creating it on first use.
+     *
+     * @param provider
+     * @return the pool
+     */
+    static OpenDAPHttpPool getPool(String provider) {
+        OpenDAPHttpPool pool = pools.get(provider);
+        if (pool == null) {
+            startEvictor();
+            pool = pools.computeIfAbsent(provider,
+                    p -> new OpenDAPHttpPool(POOL_SIZE));
+        }
+        return pool;
+    }
+
+    /**
+     * @return the most connections a pool opens to its provider
+     */
+    static int getPoolSize() {
+        return POOL_SIZE;
+    }
+
+    private static void startEvictor() {
+        if (evictor == null) {
+            synchronized (pools) {
+                if (evictor == null) {
+                    ScheduledExecutorService service = Executors
+                            .newSingleThreadScheduledExecutor(
+                                    new ThreadFactoryBuilder()
+                                            .setNameFormat(
+                                                    "OpenDAP-idle-evictor")
+                                            .setDaemon(true).build());
+                    long period = Math.max(1_000L, IDLE_TIMEOUT_MILLIS / 2);
+                    service.scheduleWithFixedDelay(
+                            OpenDAPHttpPool::closeIdleConnections, period,
+                            period, TimeUnit.MILLISECONDS);
+                    evictor = service;
+                }
+            }
+        }
+    }
+
+    private static void closeIdleConnections() {
+        for (OpenDAPHttpPool pool : pools.values()) {
+            pool.connectionManager.closeExpiredConnections();
+            pool.connectionManager.closeIdleConnections(IDLE_TIMEOUT_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * GET a url over a pooled connection. Closing the returned stream reads
+     * what is left of the response and returns the connection to the pool.
+     *
+     * @param url
+     * @param streamWrapper
+     *            wrapper of the raw stream, may be null
+     * @return the uncompressed response body
+     * @throws IOException
+     *             if the request failed or the server returned an error
+     */
+    InputStream get(String url, InputStreamWrapper streamWrapper)
+            throws IOException {
+        HttpGet get = new HttpGet(url);
+        get.setHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+
+        CloseableHttpResponse response = client.execute(get);
+        try {
+            int status = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (status != HttpStatus.SC_OK || entity == null) {
+                String message = entity == null
+                        ? response.getStatusLine().getReasonPhrase()
+                        : EntityUtils.toString(entity).trim();
+                throw new IOException("Request " + url + " failed with HTTP "
+                        + status + ": " + message);
+            }
+
+            InputStream is = entity.getContent();
+            if (streamWrapper != null) {
+                is = streamWrapper.wrapStream(is);
+            }
+
+            return new FilterInputStream(decode(entity, is)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        response.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    /**
+     * GET a url over a pooled connection unless it has not changed since a
+     * cached copy was fetched. The validators of the cached copy are sent as
+     * If-None-Match and If-Modified-Since, so an unchanged response costs a
+     * 304 with no body.
+     *
+     * @param url
+     * @param eTag
+     *            entity tag of the cached copy, may be null
+     * @param lastModified
+     *            Last-Modified of the cached copy, may be null
+     * @return the response
+     * @throws IOException
+     *             if the request failed or the server returned an error
+     */
+    ConditionalResponse getIfModified(String url, String eTag,
+            String lastModified) throws IOException {
+        HttpGet get = new HttpGet(url);
+        get.setHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+        if (eTag != null) {
+            get.setHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        }
+        if (lastModified != null) {
+            get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+
+        try (CloseableHttpResponse response = client.execute(get)) {
+            int status = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (status == HttpStatus.SC_NOT_MODIFIED) {
+                EntityUtils.consume(entity);
+                return new ConditionalResponse(null, eTag, lastModified);
+            }
+            if (status != HttpStatus.SC_OK || entity == null) {
+                String message = entity == null
+                        ? response.getStatusLine().getReasonPhrase()
+                        : EntityUtils.toString(entity).trim();
+                throw new IOException("Request " + url + " failed with HTTP "
+                        + status + ": " + message);
+            }
+
+            byte[] body;
+            try (InputStream is = decode(entity, entity.getContent())) {
+                body = IOUtils.toByteArray(is);
+            }
+            return new ConditionalResponse(body,
+                    getHeaderValue(response, HttpHeaders.ETAG),
+                    getHeaderValue(response, HttpHeaders.LAST_MODIFIED));
+        }
+    }
+
+    private static String getHeaderValue(CloseableHttpResponse response,
+            String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    private static InputStream decode(HttpEntity entity, InputStream is)
+            throws IOException {
+        Header encoding = entity.getContentEncoding();
+        if (encoding != null) {
+            if ("gzip".equalsIgnoreCase(encoding.getValue())) {
+                return new GZIPInputStream(is);
+            } else if ("deflate".equalsIgnoreCase(encoding.getValue())) {
+                return new InflaterInputStream(is);
+            }
+        }
+        return is;
+    }
+
+    /**
+     * Response to a conditional GET.
+     */
+    static class ConditionalResponse {
+
+        private final byte[] body;
+
+        private final String eTag;
+
+        private final String lastModified;
+
+        /**
+         * Constructor.
+         *
+         * @param body
+         *            the uncompressed body, null if not modified
+         * @param eTag
+         * @param lastModified
+         */
+        ConditionalResponse(byte[] body, String eTag, String lastModified) {
+            this.body = body;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return true if the cached copy is still current
+         */
+        boolean isNotModified() {
+            return body == null;
+        }
+
+        /**
+         * @return the uncompressed body, null if not modified
+         */
+        byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return the entity tag, may be null
+         */
+        String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return the Last-Modified value, may be null
+         */
+        String getLastModified() {
+            return lastModified;
+        }
+    }
+}
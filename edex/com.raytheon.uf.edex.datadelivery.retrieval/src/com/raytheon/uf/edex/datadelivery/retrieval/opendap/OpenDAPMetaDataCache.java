@@ -0,0 +1,330 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDAPHttpPool.ConditionalResponse;
+
+/**
+ * On-disk cache of OPeNDAP metadata responses (DAS, DDS) keyed by URL. A
+ * cached response is revalidated with its ETag and Last-Modified on every
+ * request, so re-crawling a link that has not changed costs a 304 rather than
+ * the whole response. Responses without either validator are not cached.
+ *
+ * Entries not used for longer than the max age are deleted.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class OpenDAPMetaDataCache {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(OpenDAPMetaDataCache.class);
+
+    private static final boolean ENABLED = Boolean.parseBoolean(
+            System.getProperty("opendap.metadata.cache.enabled", "true"));
+
+    private static final String DIRECTORY = System.getProperty(
+            "opendap.metadata.cache.dir",
+            System.getProperty("edex.home") + "/data/opendapMetaData");
+
+    /** Entries not used for this long are deleted */
+    private static final long MAX_AGE_MILLIS = Long
+            .getLong("opendap.metadata.cache.max.age.millis", 172_800_000L);
+
+    /** Log the totals every this many requests */
+    private static final int LOG_INTERVAL = 100;
+
+    private static final String URL = "url";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static volatile OpenDAPMetaDataCache instance;
+
+    /**
+     * Sends a conditional GET.
+     */
+    interface Fetcher {
+        ConditionalResponse fetch(String url, String eTag,
+                String lastModified) throws IOException;
+    }
+
+    private final File directory;
+
+    private final long maxAgeMillis;
+
+    private final Object pruneLock = new Object();
+
+    private long nextPruneMillis;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong notModified = new AtomicLong();
+
+    private final AtomicLong fetched = new AtomicLong();
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param directory
+     *            holds the cached responses
+     * @param maxAgeMillis
+     *            entries not used for this long are deleted
+     */
+    OpenDAPMetaDataCache(File directory, long maxAgeMillis) {
+        this.directory = directory;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * @return the cache shared by the metadata extractors, null if caching is
+     *         disabled
+     */
+    static OpenDAPMetaDataCache getInstance() {
+        if (ENABLED && instance == null) {
+            synchronized (OpenDAPMetaDataCache.class) {
+                if (instance == null) {
+                    instance = new OpenDAPMetaDataCache(new File(DIRECTORY),
+                            MAX_AGE_MILLIS);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get a metadata response, from the cache if the server reports it has
+     * not changed.
+     *
+     * @param url
+     *            the metadata url, e.g. ending in .das
+     * @param fetcher
+     *            sends the request
+     * @return the uncompressed response
+     * @throws IOException
+     *             if the request failed
+     */
+    byte[] get(String url, Fetcher fetcher) throws IOException {
+        pruneIfDue();
+        long count = requests.incrementAndGet();
+
+        String key = DigestUtils.sha1Hex(url);
+        File bodyFile = new File(directory, key + ".body");
+        File infoFile = new File(directory, key + ".properties");
+        Properties info = readInfo(infoFile, url);
+        byte[] cached = null;
+        if (info != null && bodyFile.isFile()) {
+            try {
+                cached = Files.readAllBytes(bodyFile.toPath());
+            } catch (IOException e) {
+                logger.warn("Unable to read cached response of " + url, e);
+            }
+        }
+
+        ConditionalResponse response;
+        if (cached == null) {
+            response = fetcher.fetch(url, null, null);
+        } else {
+            response = fetcher.fetch(url, info.getProperty(ETAG),
+                    info.getProperty(LAST_MODIFIED));
+        }
+
+        byte[] body;
+        if (response.isNotModified() && cached != null) {
+            notModified.incrementAndGet();
+            bytesSaved.addAndGet(cached.length);
+            infoFile.setLastModified(System.currentTimeMillis());
+            body = cached;
+        } else if (response.isNotModified()) {
+            throw new IOException("Request " + url
+                    + " returned Not Modified without a cached copy");
+        } else {
+            fetched.incrementAndGet();
+            body = response.getBody();
+            write(url, response, bodyFile, infoFile);
+        }
+
+        if (count % LOG_INTERVAL == 0) {
+            logger.info("OPeNDAP metadata cache: requests " + count
+                    + ", not modified " + notModified.get() + ", fetched "
+                    + fetched.get() + ", bytes saved " + bytesSaved.get());
+        }
+        return body;
+    }
+
+    /**
+     * Forget the cached response of a url, e.g. because it could not be
+     * parsed.
+     *
+     * @param url
+     */
+    void remove(String url) {
+        String key = DigestUtils.sha1Hex(url);
+        new File(directory, key + ".properties").delete();
+        new File(directory, key + ".body").delete();
+    }
+
+    private Properties readInfo(File infoFile, String url) {
+        if (!infoFile.isFile()) {
+            return null;
+        }
+        Properties info = new Properties();
+        try (InputStream is = Files.newInputStream(infoFile.toPath())) {
+            info.load(is);
+        } catch (IOException e) {
+            logger.warn("Unable to read cached response info of " + url, e);
+            return null;
+        }
+        // Guard against a hash collision
+        return url.equals(info.getProperty(URL)) ? info : null;
+    }
+
+    private void write(String url, ConditionalResponse response,
+            File bodyFile, File infoFile) {
+        if (response.getETag() == null && response.getLastModified() == null) {
+            return;
+        }
+
+        Properties info = new Properties();
+        info.setProperty(URL, url);
+        if (response.getETag() != null) {
+            info.setProperty(ETAG, response.getETag());
+        }
+        if (response.getLastModified() != null) {
+            info.setProperty(LAST_MODIFIED, response.getLastModified());
+        }
+
+        try {
+            Files.createDirectories(directory.toPath());
+            // The body is in place before the info that validates it
+            Path tmp = Files.createTempFile(directory.toPath(),
+                    bodyFile.getName(), ".tmp");
+            Files.write(tmp, response.getBody());
+            Files.move(tmp, bodyFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            tmp = Files.createTempFile(directory.toPath(),
+                    infoFile.getName(), ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                info.store(os, null);
+            }
+            Files.move(tmp, infoFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to cache response of " + url, e);
+            remove(url);
+        }
+    }
+
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        synchronized (pruneLock) {
+            if (now < nextPruneMillis) {
+                return;
+            }
+            nextPruneMillis = now + Math.max(60_000L, maxAgeMillis / 24);
+        }
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        int pruned = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (now - file.lastModified() <= maxAgeMillis) {
+                continue;
+            }
+            if (name.endsWith(".properties")) {
+                file.delete();
+                new File(directory,
+                        name.substring(0, name.length() - ".properties".length())
+                                + ".body").delete();
+                pruned++;
+            } else if (name.endsWith(".tmp") || (name.endsWith(".body")
+                    && !new File(directory,
+                            name.substring(0, name.length() - ".body".length())
+                                    + ".properties").exists())) {
+                // Left behind by a failed write
+                file.delete();
+            }
+        }
+        if (pruned > 0) {
+            logger.info("Deleted " + pruned
+                    + " unused cached OPeNDAP metadata responses");
+        }
+    }
+
+    /**
+     * @return how many responses were requested
+     */
+    long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return how many responses were served from the cache after the server
+     *         reported them unchanged
+     */
+    long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    /**
+     * @return how many responses were transferred in full
+     */
+    long getFetchedCount() {
+        return fetched.get();
+    }
+
+    /**
+     * @return bytes of responses that did not have to be transferred
+     */
+    long getBytesSaved() {
+        return bytesSaved.get();
+    }
+}
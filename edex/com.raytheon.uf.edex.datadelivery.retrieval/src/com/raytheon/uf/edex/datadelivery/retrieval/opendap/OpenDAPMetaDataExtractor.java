@@ -19,6 +19,7 @@
  **/
 package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -61,6 +62,7 @@ import opendap.dap.parser.ParseException;
  * Jul 08, 2014  3120     dhladky   Fix generics
  * Apr 12, 2015  4400     dhladky   Switched over to DAP2 protocol.
  * Mar 31, 2017  6186     rjpeter   Fixed Generics.
+ * Oct 17, 2026           agent     Get the DAS through the metadata cache.
  *
  * </pre>
  *
@@ -91,8 +93,11 @@ class OpenDAPMetaDataExtractor extends MetaDataExtractor<String, DAS> {
     @Transient
     private transient DAS das;
 
-    OpenDAPMetaDataExtractor(Connection conn) {
+    private final String providerName;
+
+    OpenDAPMetaDataExtractor(Connection conn, String providerName) {
         super(conn);
+        this.providerName = providerName;
         serviceConfig = HarvesterServiceManager.getInstance()
                 .getServiceConfig(ServiceType.OPENDAP);
         sdf = new SimpleDateFormat();
@@ -148,12 +153,37 @@ class OpenDAPMetaDataExtractor extends MetaDataExtractor<String, DAS> {
     private DAS getDASData() throws MalformedURLException, DASException,
             IOException, ParseException, DAP2Exception {
         if (das == null) {
-            DConnect conn = getConnection(rootUrl);
-            das = conn.getDAS();
+            OpenDAPMetaDataCache cache = OpenDAPMetaDataCache.getInstance();
+            if (cache == null) {
+                DConnect conn = getConnection(rootUrl);
+                das = conn.getDAS();
+            } else {
+                das = getCachedDAS(cache);
+            }
         }
         return das;
     }
 
+    /**
+     * Get the DAS through the metadata cache, so an unchanged DAS is not
+     * transferred again.
+     */
+    private DAS getCachedDAS(OpenDAPMetaDataCache cache)
+            throws IOException, ParseException, DAP2Exception {
+        String dasUrl = rootUrl + "." + DAP_TYPE.DAS.getDapType();
+        byte[] response = cache.get(dasUrl, OpenDAPHttpPool
+                .getPool(providerName)::getIfModified);
+        DAS newDas = new DAS();
+        try {
+            newDas.parse(new ByteArrayInputStream(response));
+        } catch (ParseException | DAP2Exception | RuntimeException e) {
+            // Don't keep serving a response that can't be parsed
+            cache.remove(dasUrl);
+            throw e;
+        }
+        return newDas;
+    }
+
     /**
      * Sets the data date for comparison
      *
@@ -20,11 +20,15 @@
 package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -66,8 +70,10 @@ import com.raytheon.uf.common.util.GridUtil;
 import com.raytheon.uf.edex.datadelivery.retrieval.metadata.Link;
 import com.raytheon.uf.edex.datadelivery.retrieval.metadata.MetaDataParser;
 import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDAPMetaDataExtractor.DAP_TYPE;
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDAPParameterTemplates.Template;
 import com.vividsolutions.jts.geom.Coordinate;
 
+import opendap.dap.Attribute;
 import opendap.dap.AttributeTable;
 import opendap.dap.DAS;
 import opendap.dap.NoSuchAttributeException;
@@ -134,6 +140,10 @@ import opendap.dap.NoSuchAttributeException;
  * Jan 30, 2018  6413        rjpeter   Ensure each link gets a new coverage object
  * Feb 21, 2018  7210        nabowle   Recalculate dx for cases where dx*nx slightly
  *                                     exceeds 360.
+ * Oct 17, 2026              agent     Reuse the parameter groups of links with
+ *                                     the same variables.
+ * Oct 17, 2026              agent     Open the parameter parse to replay
+ *                                     tests.
  * </pre>
  *
  * @author dhladky
@@ -141,8 +151,15 @@ import opendap.dap.NoSuchAttributeException;
 
 class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
 
+    /** Most sets of parameter groups kept for reuse */
+    private static final int PARAMETER_TEMPLATES = Integer
+            .getInteger("opendap.parameter.template.cache.size", 64);
+
     private final Pattern levelRangePattern;
 
+    private final OpenDAPParameterTemplates parameterTemplates = new OpenDAPParameterTemplates(
+            PARAMETER_TEMPLATES);
+
     OpenDAPMetaDataParser() {
         serviceConfig = HarvesterServiceManager.getInstance()
                 .getServiceConfig(ServiceType.OPENDAP);
@@ -181,7 +198,7 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
      * @return
      * @throws NoSuchAttributeException
      */
-    private Map<String, ParameterGroup> getParameters(DAS das,
+    Map<String, ParameterGroup> getParameters(DAS das,
             GriddedDataSet dataSet, GriddedDataSetMetaData gdsmd,
             String subName, URLParserInfo urlParserInfo, String dataDateFormat,
             ProjectionType providerProjection) throws NoSuchAttributeException {
@@ -202,7 +219,6 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
         gridCoverage.setSpacingUnit(serviceConfig.getConstantValue("DEGREE"));
         gridCoverage.setFirstGridPointCorner(Corner.LowerLeft);
 
-        Map<String, ParameterGroup> paramGroups = new HashMap<>();
         final String timecon = serviceConfig.getConstantValue("TIME");
         final String size = serviceConfig.getConstantValue("SIZE");
         final String minimum = serviceConfig.getConstantValue("MINIMUM");
@@ -216,10 +232,7 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
         final String data_type = serviceConfig.getConstantValue("DATA_TYPE");
         final String title = serviceConfig.getConstantValue("TITLE");
         final String ens = serviceConfig.getConstantValue("ENS");
-        final String long_name = serviceConfig.getConstantValue("LONG_NAME");
-        final String missing_value = serviceConfig
-                .getConstantValue("MISSING_VALUE");
-        final String fill = Float.toString(GridUtil.GRID_FILL_VALUE);
+        final Set<String> globals = getGlobalNames();
 
         // process globals first
         // process time
@@ -364,15 +377,110 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
             }
         }
 
-        // process the parameters
+        /*
+         * process the parameters, reusing the groups built for a DAS with the
+         * same variables
+         */
+        String signature = getParameterSignature(das, globals,
+                dataSet.getDataSetName(), collectionName, dz, levMin, levMax);
+        Template template = parameterTemplates.get(signature);
+        if (template != null && template.getProviderLevels() != null) {
+            try {
+                if (!template.getProviderLevels().equals(getProviderLevels(
+                        collectionName, gdsmd, dz, levMin, levMax))) {
+                    template = null;
+                }
+            } catch (Exception le) {
+                template = null;
+            }
+        }
+
+        Map<String, ParameterGroup> paramGroups;
+        if (template != null) {
+            paramGroups = parameterTemplates.reuse(template);
+        } else {
+            long start = System.nanoTime();
+            paramGroups = new HashMap<>();
+            if (parseParameters(das, globals, dataSet, gdsmd, paramGroups, dz,
+                    levMin, levMax)) {
+                parameterTemplates.put(signature, paramGroups,
+                        gdsmd.getProviderLevels(), System.nanoTime() - start);
+            }
+        }
+
+        String nameAndDescription = subName + "_Coverage_"
+                + gridCoverage.getNx() + "_X_" + gridCoverage.getNy() + "_Y_"
+                + gridCoverage.getProjectionType();
+        gridCoverage.setName(nameAndDescription);
+
+        try {
+            gridCoverage.initialize();
+        } catch (GridCoverageException e) {
+            logger.error("Error initializing grid coverage ["
+                    + nameAndDescription + "] for dataSet [" + url + "]", e);
+        }
+
+        griddedCoverage.setGridCoverage(gridCoverage);
+        griddedCoverage.generateEnvelopeFromGridCoverage();
+
+        return paramGroups;
+    }
+
+    /**
+     * @return names of the attribute tables of a DAS that are not variables
+     */
+    Set<String> getGlobalNames() {
+        return new HashSet<>(Arrays.asList(
+                serviceConfig.getConstantValue("ENS"),
+                serviceConfig.getConstantValue("NC_GLOBAL"),
+                serviceConfig.getConstantValue("LEV"),
+                serviceConfig.getConstantValue("LON"),
+                serviceConfig.getConstantValue("LAT"),
+                serviceConfig.getConstantValue("TIME")));
+    }
+
+    /**
+     * @return the parameter groups kept for reuse
+     */
+    OpenDAPParameterTemplates getParameterTemplates() {
+        return parameterTemplates;
+    }
+
+    /**
+     * Process the variables of a DAS against the parameter lookups and regexes
+     *
+     * @param das
+     * @param globals
+     *            names of the attribute tables that are not variables
+     * @param dataSet
+     * @param gdsmd
+     * @param paramGroups
+     *            receives the parameter groups
+     * @param dz
+     * @param levMin
+     * @param levMax
+     * @return false if a parameter could not be parsed, so the groups should
+     *         not be reused
+     * @throws NoSuchAttributeException
+     */
+    private boolean parseParameters(DAS das, Set<String> globals,
+            GriddedDataSet dataSet, GriddedDataSetMetaData gdsmd,
+            Map<String, ParameterGroup> paramGroups, double dz, float levMin,
+            float levMax) throws NoSuchAttributeException {
+
+        final String collectionName = dataSet.getCollectionName();
+        final String url = gdsmd.getUrl();
+        final String long_name = serviceConfig.getConstantValue("LONG_NAME");
+        final String missing_value = serviceConfig
+                .getConstantValue("MISSING_VALUE");
+        final String fill = Float.toString(GridUtil.GRID_FILL_VALUE);
+        boolean complete = true;
+
         for (Enumeration<?> e = das.getNames(); e.hasMoreElements();) {
 
             String providerName = (String) e.nextElement();
             // filter out globals
-            if (!providerName.equals(ens) && !providerName.equals(nc_global)
-                    && !providerName.equals(lev) && !providerName.equals(lon)
-                    && !providerName.equals(lat)
-                    && !providerName.equals(timecon)) {
+            if (!globals.contains(providerName)) {
 
                 // regular parameter parsing
                 try {
@@ -437,10 +545,12 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
                         pg = new ParameterGroup(awipsName, paramUnits);
                         paramGroups.put(pg.getKey(), pg);
                     }
-                    parseLevels(pg, description, providerName, missingValue,
-                            collectionName, gdsmd, dz, levMin, levMax);
+                    complete &= parseLevels(pg, description, providerName,
+                            missingValue, collectionName, gdsmd, dz, levMin,
+                            levMax);
 
                 } catch (Exception le) {
+                    complete = false;
                     logger.error(" Couldn't parse Parameter: " + providerName
                             + " dataset: " + collectionName + " url: " + url,
                             le);
@@ -448,25 +558,61 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
             }
         }
 
-        String nameAndDescription = subName + "_Coverage_"
-                + gridCoverage.getNx() + "_X_" + gridCoverage.getNy() + "_Y_"
-                + gridCoverage.getProjectionType();
-        gridCoverage.setName(nameAndDescription);
+        return complete;
+    }
 
-        try {
-            gridCoverage.initialize();
-        } catch (GridCoverageException e) {
-            logger.error("Error initializing grid coverage ["
-                    + nameAndDescription + "] for dataSet [" + url + "]", e);
-        }
+    /**
+     * Build a signature of everything the parameter groups of a DAS are built
+     * from: the name, description and missing value of each variable, the
+     * data set, the level settings and the version of the lookups.
+     *
+     * @param das
+     * @param globals
+     *            names of the attribute tables that are not variables
+     * @param dataSetName
+     * @param collectionName
+     * @param dz
+     * @param levMin
+     * @param levMax
+     * @return the signature
+     * @throws NoSuchAttributeException
+     */
+    String getParameterSignature(DAS das, Set<String> globals,
+            String dataSetName, String collectionName, double dz,
+            float levMin, float levMax) throws NoSuchAttributeException {
+        final String long_name = serviceConfig.getConstantValue("LONG_NAME");
+        final String missing_value = serviceConfig
+                .getConstantValue("MISSING_VALUE");
 
-        griddedCoverage.setGridCoverage(gridCoverage);
-        griddedCoverage.generateEnvelopeFromGridCoverage();
+        StringBuilder signature = new StringBuilder(4096);
+        signature
+                .append(LookupManager.getInstance()
+                        .getParameterLookupVersion())
+                .append('\t').append(collectionName).append('\t')
+                .append(dataSetName).append('\t').append(dz).append('\t')
+                .append(levMin).append('\t').append(levMax);
+        for (Enumeration<?> e = das.getNames(); e.hasMoreElements();) {
+            String providerName = (String) e.nextElement();
+            if (!globals.contains(providerName)) {
+                AttributeTable at = das.getAttributeTable(providerName);
+                signature.append('\n').append(providerName).append('\t')
+                        .append(getAttributeValue(at, long_name)).append('\t')
+                        .append(getAttributeValue(at, missing_value));
+            }
+        }
+        return signature.toString();
+    }
 
-        return paramGroups;
+    private static String getAttributeValue(AttributeTable at, String name) {
+        try {
+            Attribute attribute = at.getAttribute(name);
+            return attribute == null ? null : attribute.getValueAt(0);
+        } catch (Exception e) {
+            return null;
+        }
     }
 
-    private void parseLevels(ParameterGroup pg, String description,
+    private boolean parseLevels(ParameterGroup pg, String description,
             String providerName, String missingValue, String collectionName,
             GriddedDataSetMetaData gdsmd, double dz, float levMin,
             float levMax) {
@@ -559,7 +705,9 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
             logger.error(" Couldn't parse Level info. name: " + providerName
                     + " description: '" + description + "' dataset: "
                     + collectionName + " url: " + gdsmd.getUrl(), e);
+            return false;
         }
+        return true;
     }
 
     /**
@@ -798,6 +946,12 @@ class OpenDAPMetaDataParser extends MetaDataParser<List<Link>> {
 
         List<DataSetMetaData<?, ?>> parsedMetadatas = new ArrayList<>();
 
+        logger.info("Parameter groups reused ["
+                + parameterTemplates.getReuseCount() + "] times and built ["
+                + parameterTemplates.getBuildCount() + "] times, saving ["
+                + TimeUnit.NANOSECONDS
+                        .toMillis(parameterTemplates.getSavedNanos())
+                + "] ms of parameter parsing so far");
         logger.info("Processing [" + parameters.size()
                 + "] parameters for Collection [" + urlParserInfo.getName()
                 + "] ...");
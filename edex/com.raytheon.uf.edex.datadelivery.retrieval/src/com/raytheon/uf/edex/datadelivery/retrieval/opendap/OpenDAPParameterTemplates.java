@@ -0,0 +1,210 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterLevelEntry;
+
+/**
+ * Parameter groups already built from a DAS, keyed by a signature of
+ * everything they were built from. The links of a model cycle mostly share
+ * the same variables, so the groups of one link can be reused for the next
+ * instead of matching every variable against the parameter and level regexes
+ * again.
+ *
+ * Groups are copied going in and coming out, so the parser is free to modify
+ * the ones it gets.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class OpenDAPParameterTemplates {
+
+    /**
+     * The parameter groups built from one DAS.
+     */
+    static class Template {
+
+        private final Map<String, ParameterGroup> parameterGroups;
+
+        private final List<Double> providerLevels;
+
+        private final long buildNanos;
+
+        private Template(Map<String, ParameterGroup> parameterGroups,
+                List<Double> providerLevels, long buildNanos) {
+            this.parameterGroups = parameterGroups;
+            this.providerLevels = providerLevels;
+            this.buildNanos = buildNanos;
+        }
+
+        /**
+         * @return the provider levels the groups were built with, null if
+         *         none of the parameters use provider levels
+         */
+        List<Double> getProviderLevels() {
+            return providerLevels;
+        }
+    }
+
+    private final Map<String, Template> templates;
+
+    private final AtomicLong builds = new AtomicLong();
+
+    private final AtomicLong reuses = new AtomicLong();
+
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param size
+     *            most templates kept
+     */
+    OpenDAPParameterTemplates(final int size) {
+        this.templates = new LinkedHashMap<String, Template>(16, 0.75f,
+                true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Template> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * Get the template built for a signature.
+     *
+     * @param signature
+     * @return the template, null if there is none
+     */
+    Template get(String signature) {
+        synchronized (templates) {
+            return templates.get(signature);
+        }
+    }
+
+    /**
+     * Get a copy of the parameter groups of a template.
+     *
+     * @param template
+     * @return the parameter groups
+     */
+    Map<String, ParameterGroup> reuse(Template template) {
+        reuses.incrementAndGet();
+        savedNanos.addAndGet(template.buildNanos);
+        return copy(template.parameterGroups);
+    }
+
+    /**
+     * Keep a copy of the parameter groups built for a signature.
+     *
+     * @param signature
+     * @param parameterGroups
+     * @param providerLevels
+     *            the provider levels the groups were built with, null if none
+     * @param buildNanos
+     *            how long building the groups took
+     */
+    void put(String signature, Map<String, ParameterGroup> parameterGroups,
+            List<Double> providerLevels, long buildNanos) {
+        builds.incrementAndGet();
+        Template template = new Template(copy(parameterGroups),
+                providerLevels == null ? null
+                        : new ArrayList<>(providerLevels),
+                buildNanos);
+        synchronized (templates) {
+            templates.put(signature, template);
+        }
+    }
+
+    private static Map<String, ParameterGroup> copy(
+            Map<String, ParameterGroup> parameterGroups) {
+        Map<String, ParameterGroup> copy = new HashMap<>(
+                parameterGroups.size());
+        for (Map.Entry<String, ParameterGroup> entry : parameterGroups
+                .entrySet()) {
+            ParameterGroup pg = entry.getValue();
+            ParameterGroup pgCopy = new ParameterGroup(pg.getAbbrev(),
+                    pg.getUnits());
+            for (LevelGroup lg : pg.getGroupedLevels().values()) {
+                LevelGroup lgCopy = new LevelGroup(lg.getName(),
+                        lg.getUnits());
+                lgCopy.setReverseOrder(lg.isReverseOrder());
+                lgCopy.setMasterKey(lg.getMasterKey());
+                for (ParameterLevelEntry level : lg.getLevels()) {
+                    if (level instanceof GriddedParameterLevelEntry) {
+                        GriddedParameterLevelEntry gridded = (GriddedParameterLevelEntry) level;
+                        GriddedParameterLevelEntry levelCopy = new GriddedParameterLevelEntry(
+                                gridded);
+                        levelCopy.setUseProviderLevel(
+                                gridded.isUseProviderLevel());
+                        lgCopy.addLevel(levelCopy);
+                    } else {
+                        lgCopy.addLevel(new ParameterLevelEntry(level));
+                    }
+                }
+                pgCopy.putLevelGroup(lgCopy);
+            }
+            copy.put(entry.getKey(), pgCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * @return how many templates were built
+     */
+    long getBuildCount() {
+        return builds.get();
+    }
+
+    /**
+     * @return how many times a template was reused
+     */
+    long getReuseCount() {
+        return reuses.get();
+    }
+
+    /**
+     * @return the build time saved by reusing templates, in nanoseconds
+     */
+    long getSavedNanos() {
+        return savedNanos.get();
+    }
+}
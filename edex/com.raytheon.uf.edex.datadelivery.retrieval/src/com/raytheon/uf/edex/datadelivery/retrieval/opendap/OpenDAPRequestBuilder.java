@@ -19,6 +19,8 @@
  **/
 package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +63,10 @@ import com.raytheon.uf.edex.datadelivery.retrieval.request.RequestBuilder;
  * Jul 27, 2017  6186     rjpeter   Use Retrieval
  * Sep 12, 2017  6413     tjensen   Removed unnecessary requestLevelStart and
  *                                  End
+ * Oct 17, 2026           agent     Project every attribute of a coalesced
+ *                                  retrieval into one constraint expression.
+ * Oct 17, 2026           agent     Project a range of provider levels as one
+ *                                  hyperslab.
  *
  * </pre>
  *
@@ -82,37 +88,58 @@ class OpenDAPRequestBuilder
         super(retrieval);
 
         // Create URL
-        // this works in this order
-        // Ensemble TIME LEVELS Y X
         StringBuilder buffer = new StringBuilder();
         buffer.append(retrieval.getUrl());
         buffer.append("?");
-        RetrievalAttribute<GriddedTime, GriddedCoverage> att = retrieval
-                .getAttribute();
+        String separator = "";
+        for (RetrievalAttribute<GriddedTime, GriddedCoverage> att : retrieval
+                .getAttributes()) {
+            buffer.append(separator);
+            buffer.append(processProjection(att));
+            separator = ",";
+        }
 
-        buffer.append(att.getEntry().getProviderName());
+        this.openDAPURL = buffer.toString().trim();
+    }
+
+    /**
+     * Gets the DAP projection of a single variable
+     *
+     * @param att
+     * @return
+     */
+    private String processProjection(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att) {
+        // this works in this order
+        // Ensemble TIME LEVELS Y X
+        StringBuilder buffer = new StringBuilder();
+        List<ParameterLevelEntry> entries = att.getEntries();
+        buffer.append(entries.get(0).getProviderName());
         // process ensemble first
-        buffer.append(processEnsemble());
+        buffer.append(processEnsemble(att.getEnsemble()));
         // process time second
         buffer.append(processTime(att.getTime()));
         // process the coverage, w/levels
-        buffer.append(processCoverage(att.getCoverage()));
+        buffer.append(processDAPLevels(entries, retrieval.getUrl()));
+        buffer.append(getCoverageString(att.getCoverage()));
 
-        this.openDAPURL = buffer.toString().trim();
+        return buffer.toString();
     }
 
     /**
-     * Gets a string vertical levels DAP from XML
-     *
-     * @param string
+     * Gets a string vertical levels DAP from XML. Several entries are a range
+     * of consecutive provider levels, in provider order.
      *
-     * @param prcXML
+     * @param entries
+     * @param url
      * @return
      */
-    private String processDAPLevels(ParameterLevelEntry ple, String url) {
+    private String processDAPLevels(List<ParameterLevelEntry> entries,
+            String url) {
 
         StringBuilder buf = new StringBuilder();
 
+        ParameterLevelEntry ple = entries.get(0);
         if (ple instanceof GriddedParameterLevelEntry) {
             GriddedParameterLevelEntry gple = (GriddedParameterLevelEntry) ple;
             if (gple.isUseProviderLevel()) {
@@ -121,10 +148,17 @@ class OpenDAPRequestBuilder
                             .getDataSetMetaDataHandler().getById(url);
                     if (dsmd instanceof GriddedDataSetMetaData) {
                         GriddedDataSetMetaData gdsmd = (GriddedDataSetMetaData) dsmd;
-                        buf.append("["
-                                + gdsmd.findProviderLevelIndex(
-                                        Double.parseDouble(gple.getLevelOne()))
-                                + "]");
+                        int first = gdsmd.findProviderLevelIndex(
+                                Double.parseDouble(gple.getLevelOne()));
+                        if (entries.size() == 1) {
+                            buf.append("[" + first + "]");
+                        } else {
+                            int last = gdsmd.findProviderLevelIndex(
+                                    Double.parseDouble(entries
+                                            .get(entries.size() - 1)
+                                            .getLevelOne()));
+                            buf.append("[" + first + ":1:" + last + "]");
+                        }
                     }
                 } catch (RegistryHandlerException e) {
                     logger.error(
@@ -165,7 +199,7 @@ class OpenDAPRequestBuilder
     public String processCoverage(GriddedCoverage coverage) {
 
         StringBuilder sb = new StringBuilder();
-        sb.append(processDAPLevels(retrieval.getAttribute().getEntry(),
+        sb.append(processDAPLevels(retrieval.getAttribute().getEntries(),
                 retrieval.getUrl()));
         sb.append(getCoverageString(coverage));
 
@@ -210,9 +244,12 @@ class OpenDAPRequestBuilder
      * @return
      */
     public String processEnsemble() {
+        return processEnsemble(retrieval.getAttribute().getEnsemble());
+    }
+
+    private static String processEnsemble(Ensemble e) {
 
-        if (retrieval.getAttribute().getEnsemble() != null) {
-            Ensemble e = retrieval.getAttribute().getEnsemble();
+        if (e != null) {
             int[] range = e.getSelectedRange();
             if (range[0] == range[1]) {
                 return "[" + range[0] + "]";
@@ -21,13 +21,24 @@
 package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.raytheon.opendap.InputStreamWrapper;
 import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
 import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
 import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
 import com.raytheon.uf.common.dataplugin.PluginDataObject;
 import com.raytheon.uf.common.status.IUFStatusHandler;
 import com.raytheon.uf.common.status.UFStatus;
@@ -67,6 +78,14 @@ import com.raytheon.uf.edex.datadelivery.retrieval.response.RetrievalResponse;
  * Jun 22, 2017  6222     tgurney   Use token bucket to rate-limit requests
  * Jun 23, 2017  6322     tgurney   performRequest() throws Exception
  * Jul 27, 2017  6186     rjpeter   Use Retrieval
+ * Oct 17, 2026           agent     Fan coalesced responses out per attribute.
+ * Oct 17, 2026           agent     Decode the response as it is downloaded.
+ * Oct 17, 2026           agent     Fetch coalesced variables in parallel.
+ * Oct 17, 2026           agent     Fall back to DConnect for types the
+ *                                  decoder does not handle.
+ * Oct 17, 2026           agent     Bound the fetch threads.
+ * Oct 17, 2026           agent     Allow package-level splitting of
+ *                                  retrievals for tests.
  *
  * </pre>
  *
@@ -79,6 +98,28 @@ class OpenDAPRetrievalAdapter
     private static final IUFStatusHandler statusHandler = UFStatus
             .getHandler(OpenDAPRetrievalAdapter.class);
 
+    /**
+     * Most requests the variables of a coalesced retrieval are split into and
+     * fetched at once, never more than the connections to a provider.
+     */
+    private static final int PARALLEL_REQUESTS = Math.max(1,
+            Math.min(Integer.getInteger("opendap.retrieval.parallel.requests",
+                    1), OpenDAPHttpPool.getPoolSize()));
+
+    /** Most parts of coalesced retrievals fetched at once off their threads */
+    private static final int FETCH_THREADS = Math.max(1,
+            Integer.getInteger("opendap.retrieval.fetch.threads", 8));
+
+    private static final ThreadPoolExecutor fetchExecutor = new ThreadPoolExecutor(
+            FETCH_THREADS, FETCH_THREADS, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder().setNameFormat("OpenDAP-fetch-%d")
+                    .setDaemon(true).build());
+
+    static {
+        fetchExecutor.allowCoreThreadTimeOut(true);
+    }
+
     /**
      * Wraps an input stream with counting and (optionally) rate limiting
      * streams.
@@ -109,11 +150,17 @@ class OpenDAPRetrievalAdapter
         }
 
         public long getTimeTakenMillis() {
+            if (countingStream == null) {
+                return 0;
+            }
             return countingStream.getLastReadTimeMillis()
                     - countingStream.getFirstReadTimeMillis();
         }
 
         public long getBytesRead() {
+            if (countingStream == null) {
+                return 0;
+            }
             return countingStream.getBytesRead();
         }
     }
@@ -130,17 +177,44 @@ class OpenDAPRetrievalAdapter
             IRetrievalRequestBuilder<GriddedTime, GriddedCoverage> request)
             throws Exception {
 
-        Object data = null;
+        List<String> requests = new ArrayList<>();
+        List<Retrieval<GriddedTime, GriddedCoverage>> parts = splitRetrieval(
+                retrieval, PARALLEL_REQUESTS);
+        if (parts.size() == 1) {
+            requests.add(request.getRequest());
+        } else {
+            for (Retrieval<GriddedTime, GriddedCoverage> part : parts) {
+                requests.add(createRequestMessage(part).getRequest());
+            }
+        }
 
-        CountingInputStreamWrapper streamWrapper = new CountingInputStreamWrapper(
-                getTokenBucket(), getPriority());
-        opendap.dap.DConnect connect = OpenDAPConnectionUtil
-                .getDConnectDAP2(request.getRequest(), streamWrapper);
-        data = connect.getData(null);
-        statusHandler.info("Downloaded "
-                + SizeUtil.prettyByteSize(streamWrapper.getBytesRead()) + " in "
-                + TimeUtil.prettyDuration(streamWrapper.getTimeTakenMillis()));
-        generateRetrievalEvent(retrieval, streamWrapper.getBytesRead());
+        List<CountingInputStreamWrapper> streamWrappers = new ArrayList<>();
+        Object data;
+        try {
+            data = fetch(retrieval.getProvider(), requests, streamWrappers);
+        } catch (OpenDapDataDecoder.UnsupportedTypeException e) {
+            statusHandler.info(e.getMessage() + " in the response for "
+                    + retrieval.getSubscriptionName()
+                    + ", retrieving it with DConnect");
+            CountingInputStreamWrapper streamWrapper = new CountingInputStreamWrapper(
+                    getTokenBucket(), getPriority());
+            streamWrappers.add(streamWrapper);
+            data = OpenDAPConnectionUtil
+                    .getDConnectDAP2(request.getRequest(), streamWrapper)
+                    .getData(null);
+        }
+
+        long bytesRead = 0;
+        long timeTakenMillis = 0;
+        for (CountingInputStreamWrapper streamWrapper : streamWrappers) {
+            bytesRead += streamWrapper.getBytesRead();
+            timeTakenMillis = Math.max(timeTakenMillis,
+                    streamWrapper.getTimeTakenMillis());
+        }
+        statusHandler.info("Downloaded " + SizeUtil.prettyByteSize(bytesRead)
+                + " in " + requests.size() + " request(s) in "
+                + TimeUtil.prettyDuration(timeTakenMillis));
+        generateRetrievalEvent(retrieval, bytesRead);
 
         OpenDapRetrievalResponse rval = null;
 
@@ -158,30 +232,154 @@ class OpenDAPRetrievalAdapter
             IRetrievalResponse response) throws TranslationException {
         Map<String, PluginDataObject[]> map = new HashMap<>();
 
-        OpenDAPTranslator translator;
-        try {
-            translator = getOpenDapTranslator(retrieval);
-        } catch (InstantiationException e) {
-            throw new TranslationException(
-                    "Unable to instantiate a required class!", e);
-        }
-
         OpenDapRetrievalResponse odResponse = (OpenDapRetrievalResponse) response;
         Object payload = odResponse.getPayLoad();
 
         if (payload != null) {
-            PluginDataObject[] pdos = translator.asPluginDataObjects(payload);
+            List<RetrievalAttribute<GriddedTime, GriddedCoverage>> attributes = retrieval
+                    .getAttributes();
+            for (RetrievalAttribute<GriddedTime, GriddedCoverage> att : attributes) {
+                Retrieval<GriddedTime, GriddedCoverage> attRetrieval = retrieval;
+                if (attributes.size() > 1) {
+                    attRetrieval = getAttributeRetrieval(retrieval, att);
+                }
 
-            if (!CollectionUtil.isNullOrEmpty(pdos)) {
-                String pluginName = pdos[0].getPluginName();
-                map.put(pluginName, CollectionUtil.combine(
-                        PluginDataObject.class, map.get(pluginName), pdos));
+                OpenDAPTranslator translator;
+                try {
+                    translator = getOpenDapTranslator(attRetrieval);
+                } catch (InstantiationException e) {
+                    throw new TranslationException(
+                            "Unable to instantiate a required class!", e);
+                }
+
+                PluginDataObject[] pdos = translator
+                        .asPluginDataObjects(payload);
+
+                if (!CollectionUtil.isNullOrEmpty(pdos)) {
+                    String pluginName = pdos[0].getPluginName();
+                    map.put(pluginName, CollectionUtil.combine(
+                            PluginDataObject.class, map.get(pluginName), pdos));
+                }
             }
         }
 
         return map;
     }
 
+    /**
+     * Fetch and decode the requests, all but the first on the fetch executor.
+     *
+     * @param provider
+     * @param requests
+     * @param streamWrappers
+     *            the wrapper of each request is added to this
+     * @return the merged responses
+     * @throws OpenDapDataDecoder.UnsupportedTypeException
+     *             if a response holds a type the decoder does not handle
+     */
+    private OpenDapData fetch(String provider, List<String> requests,
+            List<CountingInputStreamWrapper> streamWrappers) throws Exception {
+        List<Future<OpenDapData>> futures = new ArrayList<>();
+        List<OpenDapData> responses = new ArrayList<>();
+        try {
+            for (String part : requests) {
+                CountingInputStreamWrapper streamWrapper = new CountingInputStreamWrapper(
+                        getTokenBucket(), getPriority());
+                streamWrappers.add(streamWrapper);
+                if (streamWrappers.size() > 1) {
+                    futures.add(fetchExecutor.submit(
+                            () -> fetch(provider, part, streamWrapper)));
+                }
+            }
+
+            // the first part is fetched on this thread
+            responses.add(fetch(provider, requests.get(0),
+                    streamWrappers.get(0)));
+            for (Future<OpenDapData> future : futures) {
+                try {
+                    responses.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        } finally {
+            for (Future<OpenDapData> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return OpenDapData.merge(responses);
+    }
+
+    private static OpenDapData fetch(String provider, String request,
+            CountingInputStreamWrapper streamWrapper) throws Exception {
+        try (InputStream is = OpenDAPConnectionUtil.openDataStream(provider,
+                request, streamWrapper)) {
+            return OpenDapDataDecoder.decode(is);
+        }
+    }
+
+    /**
+     * Split the attributes of a coalesced retrieval into up to
+     * parallelRequests retrievals that can be fetched at once.
+     *
+     * @param retrieval
+     * @param parallelRequests
+     * @return the retrievals, just the given one if it is not split
+     */
+    static List<Retrieval<GriddedTime, GriddedCoverage>> splitRetrieval(
+            Retrieval<GriddedTime, GriddedCoverage> retrieval,
+            int parallelRequests) {
+        List<RetrievalAttribute<GriddedTime, GriddedCoverage>> attributes = retrieval
+                .getAttributes();
+        List<Retrieval<GriddedTime, GriddedCoverage>> parts = new ArrayList<>();
+        if (parallelRequests <= 1 || attributes.size() <= 1) {
+            parts.add(retrieval);
+            return parts;
+        }
+
+        int partSize = (attributes.size() + parallelRequests - 1)
+                / parallelRequests;
+        for (List<RetrievalAttribute<GriddedTime, GriddedCoverage>> partAttributes : Lists
+                .partition(attributes, partSize)) {
+            Retrieval<GriddedTime, GriddedCoverage> part = getAttributeRetrieval(
+                    retrieval, partAttributes.get(0));
+            if (partAttributes.size() > 1) {
+                part.setCoalescedAttributes(new ArrayList<>(
+                        partAttributes.subList(1, partAttributes.size())));
+            }
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    /**
+     * Get a copy of a coalesced retrieval holding only one of its attributes,
+     * so it translates exactly as if that attribute had been retrieved alone.
+     *
+     * @param retrieval
+     * @param att
+     * @return
+     */
+    private static Retrieval<GriddedTime, GriddedCoverage> getAttributeRetrieval(
+            Retrieval<GriddedTime, GriddedCoverage> retrieval,
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att) {
+        Retrieval<GriddedTime, GriddedCoverage> rval = new Retrieval<>();
+        rval.setSubscriptionName(retrieval.getSubscriptionName());
+        rval.setDataSetName(retrieval.getDataSetName());
+        rval.setProvider(retrieval.getProvider());
+        rval.setPlugin(retrieval.getPlugin());
+        rval.setUrl(retrieval.getUrl());
+        rval.setServiceType(retrieval.getServiceType());
+        rval.setOwner(retrieval.getOwner());
+        rval.setDataType(retrieval.getDataType());
+        rval.setSubscriptionType(retrieval.getSubscriptionType());
+        rval.setNetwork(retrieval.getNetwork());
+        rval.setRequestRetrievalTime(retrieval.getRequestRetrievalTime());
+        rval.setAttribute(att);
+        return rval;
+    }
+
     OpenDAPTranslator getOpenDapTranslator(
             Retrieval<GriddedTime, GriddedCoverage> retrieval)
             throws InstantiationException {
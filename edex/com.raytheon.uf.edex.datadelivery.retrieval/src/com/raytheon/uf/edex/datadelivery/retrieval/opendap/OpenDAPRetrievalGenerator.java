@@ -22,17 +22,28 @@ package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
+import com.google.common.collect.Lists;
 import com.raytheon.uf.common.datadelivery.registry.DataSetMetaData;
 import com.raytheon.uf.common.datadelivery.registry.DataType;
 import com.raytheon.uf.common.datadelivery.registry.Ensemble;
 import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
+import com.raytheon.uf.common.datadelivery.registry.GriddedDataSetMetaData;
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
 import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.Network;
 import com.raytheon.uf.common.datadelivery.registry.OpenDapGriddedDataSet;
 import com.raytheon.uf.common.datadelivery.registry.Parameter;
 import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterLevelEntry;
 import com.raytheon.uf.common.datadelivery.registry.ParameterUtils;
 import com.raytheon.uf.common.datadelivery.registry.Provider;
 import com.raytheon.uf.common.datadelivery.registry.Provider.ServiceType;
@@ -83,6 +94,10 @@ import com.raytheon.uf.edex.datadelivery.retrieval.adapters.RetrievalAdapter;
  * Sep 12, 2017  6413     tjensen   Simplified logic. Always retrieve one
  *                                  param/level at a time
  * Oct 10, 2017  6415     nabowle   Use dsmd time to generate the retrieval time.
+ * Oct 17, 2026           agent     Optionally coalesce variables and time
+ *                                  sequences into fewer requests.
+ * Oct 17, 2026           agent     Request consecutive provider levels as one
+ *                                  level range.
  *
  * </pre>
  *
@@ -90,8 +105,83 @@ import com.raytheon.uf.edex.datadelivery.retrieval.adapters.RetrievalAdapter;
  */
 class OpenDAPRetrievalGenerator
         extends RetrievalGenerator<GriddedTime, GriddedCoverage> {
+
+    /**
+     * A retrieval being filled with the attributes of one coalesced request.
+     */
+    private class CoalescedRequest {
+
+        private final Retrieval<GriddedTime, GriddedCoverage> retrieval;
+
+        private final Set<String> variables = new HashSet<>();
+
+        private long bytes;
+
+        private CoalescedRequest(
+                Retrieval<GriddedTime, GriddedCoverage> retrieval,
+                long bytes) {
+            this.retrieval = retrieval;
+            this.variables.add(getVariable(retrieval.getAttribute()));
+            this.bytes = bytes;
+        }
+
+        /**
+         * Add the attribute to this request if it fits. A variable can only
+         * be projected once per request so other level ranges of it must go
+         * in another request.
+         *
+         * @param att
+         * @param attBytes
+         * @return true if added
+         */
+        private boolean add(
+                RetrievalAttribute<GriddedTime, GriddedCoverage> att,
+                long attBytes) {
+            if (bytes + attBytes > maxCoalescedBytes
+                    || !variables.add(getVariable(att))) {
+                return false;
+            }
+            if (retrieval.getCoalescedAttributes() == null) {
+                retrieval.setCoalescedAttributes(
+                        new ArrayList<RetrievalAttribute<GriddedTime, GriddedCoverage>>());
+            }
+            retrieval.getCoalescedAttributes().add(att);
+            bytes += attBytes;
+            return true;
+        }
+    }
+
+    /** Size of a single DAP2 Float32 value */
+    private static final int BYTES_PER_VALUE = 4;
+
+    /** Default for opendap.retrieval.coalesce.max.bytes, 32MB */
+    private static final long DEFAULT_MAX_COALESCED_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Whether variables, levels and time sequences are combined into one
+     * request rather than retrieving one parameter/level/time at a time
+     */
+    private final boolean coalesce;
+
+    /** Largest estimated response of a combined request */
+    private final long maxCoalescedBytes;
+
     public OpenDAPRetrievalGenerator() {
+        this(Boolean.getBoolean("opendap.retrieval.coalesce"),
+                Long.getLong("opendap.retrieval.coalesce.max.bytes",
+                        DEFAULT_MAX_COALESCED_BYTES));
+    }
+
+    /**
+     * Package-level constructor so tests can set the coalescing options.
+     *
+     * @param coalesce
+     * @param maxCoalescedBytes
+     */
+    OpenDAPRetrievalGenerator(boolean coalesce, long maxCoalescedBytes) {
         super(ServiceType.OPENDAP);
+        this.coalesce = coalesce;
+        this.maxCoalescedBytes = maxCoalescedBytes;
     }
 
     /***
@@ -153,6 +243,11 @@ class OpenDAPRetrievalGenerator
             ensembles = sub.getEnsemble().split(1);
         }
 
+        if (coalesce) {
+            return getCoalescedGridRetrievals(dsmd, sub, provider, sfactor,
+                    ensembles);
+        }
+
         List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = new ArrayList<>();
         GriddedTime subTime = sub.getTime();
         for (List<Integer> timeSequence : subTime.getTimeSequences(sfactor)) {
@@ -175,6 +270,183 @@ class OpenDAPRetrievalGenerator
         return retrievals;
     }
 
+    /**
+     * Create the grid type retrievals, combining every parameter/level at the
+     * same times and ensemble member into as few requests as the maximum
+     * response size allows. Each time sequence is requested as one hyperslab
+     * and consecutive provider levels of a variable as one level range, with
+     * the times filling the maximum size before the levels.
+     *
+     * @param dsmd
+     * @param sub
+     * @param provider
+     * @param sfactor
+     * @param ensembles
+     * @return
+     */
+    private List<Retrieval<GriddedTime, GriddedCoverage>> getCoalescedGridRetrievals(
+            DataSetMetaData<GriddedTime, GriddedCoverage> dsmd,
+            Subscription<GriddedTime, GriddedCoverage> sub, Provider provider,
+            int sfactor, List<Ensemble> ensembles) {
+        long gridBytes = (long) BYTES_PER_VALUE
+                * getDimensionalSize(sub.getCoverage());
+        int maxTimes = (int) Math.max(1, maxCoalescedBytes / gridBytes);
+
+        // SBN relays only the primary attribute of a retrieval
+        boolean combineVariables = !Network.SBN.equals(sub.getRoute());
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = new ArrayList<>();
+        for (List<Integer> timeSequence : sub.getTime()
+                .getTimeSequences(sfactor)) {
+            for (List<Integer> timeRange : Lists.partition(timeSequence,
+                    maxTimes)) {
+                GriddedTime time = processTimeRange(timeRange, dsmd.getTime());
+                long levelBytes = gridBytes * timeRange.size();
+                int maxLevels = (int) Math.max(1,
+                        maxCoalescedBytes / levelBytes);
+                List<ParameterGroup> paramList = createLevelRangeList(
+                        sub.getParameterGroups(), dsmd, maxLevels);
+                for (Ensemble ensemble : ensembles) {
+                    List<CoalescedRequest> requests = new ArrayList<>();
+                    for (ParameterGroup param : paramList) {
+                        RetrievalAttribute<GriddedTime, GriddedCoverage> att = getAttribute(
+                                dsmd, sub, param, time, ensemble);
+                        long attBytes = levelBytes * att.getEntries().size();
+                        CoalescedRequest request = null;
+                        if (combineVariables) {
+                            for (CoalescedRequest open : requests) {
+                                if (open.add(att, attBytes)) {
+                                    request = open;
+                                    break;
+                                }
+                            }
+                        }
+                        if (request == null) {
+                            request = new CoalescedRequest(
+                                    getRetrieval(dsmd, sub, provider, att),
+                                    attBytes);
+                            requests.add(request);
+                            retrievals.add(request.retrieval);
+                        }
+                    }
+                }
+            }
+        }
+
+        return retrievals;
+    }
+
+    /**
+     * Split the levels of each parameter into runs of consecutive provider
+     * levels of the same variable, each at most maxLevels long. A level that
+     * isn't one of the data set's provider levels is kept on its own.
+     *
+     * @param pgMap
+     * @param dsmd
+     * @param maxLevels
+     * @return ParameterGroups with a single LevelGroup holding one level range
+     */
+    List<ParameterGroup> createLevelRangeList(
+            Map<String, ParameterGroup> pgMap,
+            DataSetMetaData<GriddedTime, GriddedCoverage> dsmd,
+            int maxLevels) {
+        List<ParameterGroup> pgList = new ArrayList<>();
+
+        for (ParameterGroup pg : pgMap.values()) {
+            for (LevelGroup lg : pg.getGroupedLevels().values()) {
+                List<List<ParameterLevelEntry>> ranges = new ArrayList<>();
+                Map<String, SortedMap<Integer, ParameterLevelEntry>> variables = new LinkedHashMap<>();
+                for (ParameterLevelEntry ple : lg.getLevels()) {
+                    int index = getProviderLevelIndex(dsmd, ple);
+                    if (index < 0) {
+                        ranges.add(Collections.singletonList(ple));
+                    } else {
+                        SortedMap<Integer, ParameterLevelEntry> levels = variables
+                                .get(ple.getProviderName());
+                        if (levels == null) {
+                            levels = new TreeMap<>();
+                            variables.put(ple.getProviderName(), levels);
+                        }
+                        levels.put(index, ple);
+                    }
+                }
+
+                for (SortedMap<Integer, ParameterLevelEntry> levels : variables
+                        .values()) {
+                    List<ParameterLevelEntry> range = null;
+                    int lastIndex = -1;
+                    for (Map.Entry<Integer, ParameterLevelEntry> level : levels
+                            .entrySet()) {
+                        int index = level.getKey();
+                        if (range == null || index != lastIndex + 1
+                                || range.size() >= maxLevels) {
+                            range = new ArrayList<>();
+                            ranges.add(range);
+                        }
+                        range.add(level.getValue());
+                        lastIndex = index;
+                    }
+                }
+
+                for (List<ParameterLevelEntry> range : ranges) {
+                    ParameterGroup newPg = new ParameterGroup(pg.getAbbrev(),
+                            pg.getUnits());
+                    LevelGroup newLg = new LevelGroup(lg.getName(),
+                            lg.getUnits());
+                    newLg.setMasterKey(lg.getMasterKey());
+                    for (ParameterLevelEntry ple : range) {
+                        newLg.addLevel(ple);
+                    }
+                    newPg.putLevelGroup(newLg);
+                    pgList.add(newPg);
+                }
+            }
+        }
+        return pgList;
+    }
+
+    /**
+     * Get the index of the level in the data set's provider levels.
+     *
+     * @param dsmd
+     * @param ple
+     * @return the index, or -1 if the level isn't a provider level
+     */
+    private static int getProviderLevelIndex(
+            DataSetMetaData<GriddedTime, GriddedCoverage> dsmd,
+            ParameterLevelEntry ple) {
+        if (!(ple instanceof GriddedParameterLevelEntry)
+                || !((GriddedParameterLevelEntry) ple).isUseProviderLevel()
+                || !(dsmd instanceof GriddedDataSetMetaData)
+                || ple.getLevelOne() == null) {
+            return -1;
+        }
+        GriddedDataSetMetaData gdsmd = (GriddedDataSetMetaData) dsmd;
+        if (gdsmd.getProviderLevels() == null) {
+            return -1;
+        }
+
+        int index;
+        try {
+            index = gdsmd.findProviderLevelIndex(
+                    Double.parseDouble(ple.getLevelOne()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        return index < gdsmd.getProviderLevels().size() ? index : -1;
+    }
+
+    /**
+     * Get the provider variable an attribute projects.
+     *
+     * @param att
+     * @return
+     */
+    private static String getVariable(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att) {
+        return att.getEntries().get(0).getProviderName();
+    }
+
     /**
      * Get the retrieval
      *
@@ -191,6 +463,23 @@ class OpenDAPRetrievalGenerator
             DataSetMetaData<GriddedTime, GriddedCoverage> dsmd,
             Subscription<GriddedTime, GriddedCoverage> sub, Provider provider,
             ParameterGroup paramGroup, GriddedTime time, Ensemble ensemble) {
+        return getRetrieval(dsmd, sub, provider,
+                getAttribute(dsmd, sub, paramGroup, time, ensemble));
+    }
+
+    /**
+     * Get the retrieval for an attribute
+     *
+     * @param dsmd
+     * @param sub
+     * @param provider
+     * @param att
+     * @return
+     */
+    private Retrieval<GriddedTime, GriddedCoverage> getRetrieval(
+            DataSetMetaData<GriddedTime, GriddedCoverage> dsmd,
+            Subscription<GriddedTime, GriddedCoverage> sub, Provider provider,
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att) {
 
         Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
         retrieval.setSubscriptionName(sub.getName());
@@ -202,6 +491,30 @@ class OpenDAPRetrievalGenerator
         retrieval.setProvider(sub.getProvider());
         retrieval.setDataSetName(sub.getDataSetName());
 
+        // Look up the provider's configured plugin for this data type
+        ProviderType providerType = provider
+                .getProviderType(sub.getDataSetType());
+        retrieval.setPlugin(providerType.getPlugin());
+        retrieval.setAttribute(att);
+
+        return retrieval;
+    }
+
+    /**
+     * Get the retrieval attribute
+     *
+     * @param dsmd
+     * @param sub
+     * @param paramGroup
+     * @param time
+     * @param ensemble
+     * @return
+     */
+    private RetrievalAttribute<GriddedTime, GriddedCoverage> getAttribute(
+            DataSetMetaData<GriddedTime, GriddedCoverage> dsmd,
+            Subscription<GriddedTime, GriddedCoverage> sub,
+            ParameterGroup paramGroup, GriddedTime time, Ensemble ensemble) {
+
         // Coverage and type processing
         GriddedCoverage cov = dsmd.getInstanceCoverage();
 
@@ -221,13 +534,7 @@ class OpenDAPRetrievalGenerator
                 .generateParametersFromGroup(paramGroup, DataType.GRID, dsmd);
         att.setParameter(params.values().iterator().next());
 
-        // Look up the provider's configured plugin for this data type
-        ProviderType providerType = provider
-                .getProviderType(sub.getDataSetType());
-        retrieval.setPlugin(providerType.getPlugin());
-        retrieval.setAttribute(att);
-
-        return retrieval;
+        return att;
     }
 
     @Override
@@ -289,4 +596,26 @@ class OpenDAPRetrievalGenerator
 
         return times;
     }
+
+    /**
+     * Process a sequence of consecutive hours for a single retrieval
+     *
+     * @param timeRange
+     * @param dsmdTime
+     * @return
+     */
+    private GriddedTime processTimeRange(List<Integer> timeRange,
+            GriddedTime dsmdTime) {
+        GriddedTime time = new GriddedTime();
+        time.setEnd(dsmdTime.getEnd());
+        time.setStart(dsmdTime.getStart());
+        time.setNumTimes(dsmdTime.getNumTimes());
+        time.setFormat(dsmdTime.getFormat());
+        time.setStep(dsmdTime.getStep());
+        time.setStepUnit(dsmdTime.getStepUnit());
+        time.setSelectedTimeIndices(new ArrayList<>(timeRange));
+        time.setRequestStartTimeAsInt(timeRange.get(0));
+        time.setRequestEndTimeAsInt(timeRange.get(timeRange.size() - 1));
+        return time;
+    }
 }
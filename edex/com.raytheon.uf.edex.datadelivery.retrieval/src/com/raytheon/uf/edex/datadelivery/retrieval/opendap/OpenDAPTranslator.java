@@ -21,6 +21,7 @@ package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 
 import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
@@ -55,6 +56,12 @@ import com.raytheon.uf.edex.datadelivery.retrieval.util.ResponseProcessingUtilit
  * Sep 20, 2017  6413     tjensen   Update for ParameterGroups
  * Sep 21, 2017  6441     tgurney   Remove references to dods-1.1.7
  * Nov 15, 2017  6498     tjensen   Use inherited logger for logging
+ * Oct 17, 2026           agent     Only translate this retrieval's variable
+ *                                  out of a coalesced response.
+ * Oct 17, 2026           agent     Translate streamed OpenDapData in place.
+ * Oct 17, 2026           agent     Use the missing value of each level of a
+ *                                  level range, restore the explicit PDO
+ *                                  class name constructor.
  *
  * </pre>
  *
@@ -64,19 +71,77 @@ import com.raytheon.uf.edex.datadelivery.retrieval.util.ResponseProcessingUtilit
 public class OpenDAPTranslator
         extends RetrievalTranslator<GriddedTime, GriddedCoverage, Integer> {
 
+    /**
+     * Supplies the values of each record in turn, flipped and with missing
+     * values replaced.
+     */
+    private interface SliceSource {
+        float[] nextSlice(int nx, int ny, float missingValue);
+    }
+
+    /**
+     * Slices records out of a single array of all the values.
+     */
+    private static class ArraySliceSource implements SliceSource {
+
+        private final float[] values;
+
+        private int start = 0;
+
+        private ArraySliceSource(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public float[] nextSlice(int nx, int ny, float missingValue) {
+            int end = start + nx * ny;
+            float[] subValues = Arrays.copyOfRange(values, start, end);
+            start = end;
+            return GridMetadataAdapter.adjustGrid(nx, ny, subValues,
+                    missingValue, true);
+        }
+    }
+
     public OpenDAPTranslator(Retrieval<GriddedTime, GriddedCoverage> retrieval)
             throws InstantiationException {
         super(retrieval);
     }
 
+    /**
+     * Package-level constructor so tests can use an explicit PDO class name
+     * rather than looking up the plugin.
+     *
+     * @param retrieval
+     * @param className
+     * @throws InstantiationException
+     */
+    OpenDAPTranslator(Retrieval<GriddedTime, GriddedCoverage> retrieval,
+            String className) throws InstantiationException {
+        super(retrieval, className);
+    }
+
     public PluginDataObject[] asPluginDataObjects(Object dds) {
+        if (dds instanceof OpenDapData) {
+            return translateData((OpenDapData) dds);
+        }
 
         PluginDataObject[] pdos = null;
 
+        /*
+         * A coalesced request returns several variables, translate only the
+         * one this retrieval's attribute asked for
+         */
+        String variableName = retrieval.getAttribute().getEntries().get(0)
+                .getProviderName();
+        boolean hasVariable = hasDDSVariable(dds, variableName);
+
         for (Enumeration<?> variables = getDDSVariables(dds); variables
                 .hasMoreElements();) {
 
             Object baseType = variables.nextElement();
+            if (hasVariable && !variableName.equals(getName(baseType))) {
+                continue;
+            }
             Class<?> dclass = getClass(baseType);
 
             try {
@@ -94,6 +159,65 @@ public class OpenDAPTranslator
         return pdos;
     }
 
+    /**
+     * Translates a streamed response to something AWIPS will recognize. Each
+     * decoded slice becomes the data of its record without being copied, so
+     * the data can only be translated once.
+     *
+     * @param data
+     * @return
+     */
+    private PluginDataObject[] translateData(OpenDapData data) {
+        String variableName = retrieval.getAttribute().getEntries().get(0)
+                .getProviderName();
+        OpenDapData.Variable array = data.getDataArray(variableName);
+        List<String> names = data.getVariableNames();
+        if (array == null && names.size() == 1) {
+            array = data.getDataArray(names.get(0));
+        }
+        if (array == null || array.getSlices() == null) {
+            logger.error("No Float32 data for '" + variableName
+                    + "' in OpenDAP Response for subscription '"
+                    + retrieval.getSubscriptionName() + "', found " + names);
+            return null;
+        }
+
+        int[] shape = array.getShape();
+        int dnx = shape.length > 0 ? shape[shape.length - 1] : 0;
+        int dny = shape.length > 1 ? shape[shape.length - 2] : 0;
+
+        try {
+            final List<float[]> slices = array.getSlices();
+            GriddedCoverage coverage = retrieval.getAttribute().getCoverage();
+            if (coverage != null && array.getSliceSize() != coverage
+                    .getRequestGridCoverage().getNx()
+                    * coverage.getRequestGridCoverage().getNy()) {
+                // records do not line up with the slices, fall back to copying
+                float[] values = new float[array.getSize()];
+                int start = 0;
+                for (float[] slice : slices) {
+                    System.arraycopy(slice, 0, values, start, slice.length);
+                    start += slice.length;
+                }
+                return translateSlices(dnx, dny, new ArraySliceSource(values));
+            }
+
+            final Iterator<float[]> iter = slices.iterator();
+            return translateSlices(dnx, dny, new SliceSource() {
+                @Override
+                public float[] nextSlice(int nx, int ny, float missingValue) {
+                    float[] slice = iter.next();
+                    GridMetadataAdapter.adjustGridInPlace(nx, ny, slice,
+                            missingValue, true);
+                    return slice;
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Unable to translate OpenDAP Response", e);
+            return null;
+        }
+    }
+
     /**
      * Translates the Grid to something AWIPS will recognize
      *
@@ -126,14 +250,8 @@ public class OpenDAPTranslator
      */
     private PluginDataObject[] translateArray(Object darray) throws Exception {
 
-        int nx = 0;
-        int ny = 0;
         int dnx = 0;
         int dny = 0;
-        int diffX = 0;
-        int numTimes = getSubsetNumTimes();
-        int numLevels = getSubsetNumLevels();
-        List<DataTime> times = getTimes();
 
         for (Enumeration<?> e = ((opendap.dap.DArray) darray).getDimensions(); e
                 .hasMoreElements();) {
@@ -147,6 +265,30 @@ public class OpenDAPTranslator
             }
         }
 
+        return translateSlices(dnx, dny,
+                new ArraySliceSource(getValues(darray)));
+    }
+
+    /**
+     * Creates the records of the retrieval from the slices of values.
+     *
+     * @param dnx
+     *            the provider's x size, for consistency checking
+     * @param dny
+     *            the provider's y size, for consistency checking
+     * @param slices
+     * @return
+     * @throws Exception
+     */
+    private PluginDataObject[] translateSlices(int dnx, int dny,
+            SliceSource slices) throws Exception {
+
+        int nx = 0;
+        int ny = 0;
+        int numTimes = getSubsetNumTimes();
+        int numLevels = getSubsetNumLevels();
+        List<DataTime> times = getTimes();
+
         // retrieve data
         RetrievalAttribute<GriddedTime, GriddedCoverage> attXML = retrieval
                 .getAttribute();
@@ -163,9 +305,6 @@ public class OpenDAPTranslator
             }
         }
 
-        int gridSize = nx * ny;
-        float[] values = getValues(darray);
-
         List<String> ensembles = null;
         if (attXML.getEnsemble() != null
                 && attXML.getEnsemble().hasSelection()) {
@@ -174,8 +313,10 @@ public class OpenDAPTranslator
             ensembles = Arrays.asList((String) null);
         }
 
+        // a level range has an entry per level
+        List<ParameterLevelEntry> entries = attXML.getEntries();
+
         // time dependencies
-        int start = 0;
         PluginDataObject[] records = new PluginDataObject[numLevels * numTimes
                 * ensembles.size()];
 
@@ -186,24 +327,17 @@ public class OpenDAPTranslator
                     PluginDataObject record = getPdo(bin);
                     record.setDataTime(dataTime);
 
-                    int end = start + gridSize;
-
-                    float[] subValues = Arrays.copyOfRange(values, start, end);
-
-                    ParameterLevelEntry entry = attXML.getEntry();
+                    ParameterLevelEntry entry = entries.get(j);
                     if (entry instanceof GriddedParameterLevelEntry) {
                         GriddedParameterLevelEntry gridEntry = (GriddedParameterLevelEntry) entry;
-                        subValues = GridMetadataAdapter.adjustGrid(nx, ny,
-                                subValues,
-                                Float.parseFloat(gridEntry.getMissingValue()),
-                                true);
+                        float[] subValues = slices.nextSlice(nx, ny,
+                                Float.parseFloat(gridEntry.getMissingValue()));
 
                         record.setMessageData(subValues);
                         record.setOverwriteAllowed(true);
                         records[bin] = record;
                         bin++;
                         logger.info("Creating record: " + record.getDataURI());
-                        start = end;
                     }
                 }
             }
@@ -238,6 +372,22 @@ public class OpenDAPTranslator
         return ((opendap.dap.BaseType) baseType).getClass();
     }
 
+    /** Gets the name of the BaseType */
+    private String getName(Object baseType) {
+        return ((opendap.dap.BaseType) baseType).getName();
+    }
+
+    /** Whether the DDS object contains the named variable */
+    private boolean hasDDSVariable(Object dds, String name) {
+        for (Enumeration<?> variables = getDDSVariables(dds); variables
+                .hasMoreElements();) {
+            if (name.equals(getName(variables.nextElement()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /** Gets the variable enumeration from the DDS object */
     private Enumeration<?> getDDSVariables(Object dds) {
         return ((opendap.dap.DataDDS) dds).getVariables();
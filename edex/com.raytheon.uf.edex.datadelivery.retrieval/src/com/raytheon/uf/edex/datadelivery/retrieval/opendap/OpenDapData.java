@@ -0,0 +1,286 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A DAP2 data response decoded by {@link OpenDapDataDecoder}. Float32 arrays
+ * are held as one float[] per horizontal slice, in the order the provider sent
+ * them, so each slice can be handed to a record without further copies.
+ * Everything else, e.g. the maps of a Grid, is kept as the raw XDR bytes.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDapData {
+
+    /** Separates the DDS from the XDR data in a DAP2 data response */
+    static final String DATA_MARKER = "Data:\n";
+
+    /**
+     * MIME headers written before a compressed response, as DataDDS does when
+     * externalized with headers.
+     */
+    private static final String DEFLATE_HEADERS = "HTTP/1.0 200 OK\n"
+            + "XDODS-Server: DODS/2.0\n"
+            + "Content-Type: application/octet-stream\n"
+            + "Content-Description: dods_data\n"
+            + "Content-Encoding: deflate\n\n";
+
+    /**
+     * A single array, or scalar, of the response.
+     */
+    public static class Variable {
+
+        private final String name;
+
+        private final String grid;
+
+        private final String type;
+
+        private final int[] shape;
+
+        private final List<float[]> slices;
+
+        private final byte[] raw;
+
+        Variable(String name, String grid, String type, int[] shape,
+                List<float[]> slices, byte[] raw) {
+            this.name = name;
+            this.grid = grid;
+            this.type = type;
+            this.shape = shape;
+            this.slices = slices;
+            this.raw = raw;
+        }
+
+        /**
+         * @return the name of the array
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the name of the enclosing Grid, null for a top level array
+         */
+        public String getGrid() {
+            return grid;
+        }
+
+        /**
+         * @return the DAP2 type, e.g. Float32
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the size of each dimension
+         */
+        public int[] getShape() {
+            return shape;
+        }
+
+        /**
+         * @return the horizontal slices of a Float32 array, null for any other
+         *         variable
+         */
+        public List<float[]> getSlices() {
+            return slices;
+        }
+
+        /**
+         * @return the number of values in a slice
+         */
+        public int getSliceSize() {
+            return OpenDapDataDecoder.getSliceSize(shape);
+        }
+
+        /**
+         * @return the number of values in the variable
+         */
+        public int getSize() {
+            int size = 1;
+            for (int dim : shape) {
+                size *= dim;
+            }
+            return size;
+        }
+
+        private void externalize(DataOutputStream out) throws IOException {
+            if (slices == null) {
+                out.write(raw);
+                return;
+            }
+
+            int size = getSize();
+            out.writeInt(size);
+            out.writeInt(size);
+            ByteBuffer buffer = ByteBuffer.allocate(getSliceSize() * 4);
+            for (float[] slice : slices) {
+                buffer.clear();
+                buffer.asFloatBuffer().put(slice);
+                out.write(buffer.array(), 0, slice.length * 4);
+            }
+        }
+    }
+
+    private final String dds;
+
+    private final List<Variable> variables;
+
+    OpenDapData(String dds, List<Variable> variables) {
+        this.dds = dds;
+        this.variables = Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * @return the DDS text of the response
+     */
+    public String getDds() {
+        return dds;
+    }
+
+    /**
+     * @return every variable in the order of the response
+     */
+    public List<Variable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Get the names of the requested variables, i.e. top level arrays and
+     * Grids.
+     *
+     * @return the names
+     */
+    public List<String> getVariableNames() {
+        List<String> names = new ArrayList<>(variables.size());
+        for (Variable variable : variables) {
+            String name = variable.getGrid() == null ? variable.getName()
+                    : variable.getGrid();
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Get the data array of a requested variable: the array of the named Grid
+     * or the named top level array.
+     *
+     * @param name
+     *            the requested variable
+     * @return the array, null if not in the response
+     */
+    public Variable getDataArray(String name) {
+        for (Variable variable : variables) {
+            if (name.equals(variable.getGrid())) {
+                // the array is declared first, then the maps
+                return variable;
+            }
+            if (variable.getGrid() == null && name.equals(variable.getName())) {
+                return variable;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Combine the responses to requests for different variables of the same
+     * dataset into one response, as if all of them had been requested at
+     * once.
+     *
+     * @param responses
+     * @return the combined response
+     */
+    public static OpenDapData merge(List<OpenDapData> responses) {
+        if (responses.size() == 1) {
+            return responses.get(0);
+        }
+
+        String first = responses.get(0).dds;
+        int close = first.lastIndexOf('}');
+        StringBuilder dds = new StringBuilder(first.substring(0, close));
+        List<Variable> variables = new ArrayList<>();
+        for (OpenDapData response : responses) {
+            if (response != responses.get(0)) {
+                String other = response.dds;
+                dds.append(other, other.indexOf('{') + 1,
+                        other.lastIndexOf('}'));
+            }
+            variables.addAll(response.variables);
+        }
+        dds.append(first.substring(close));
+        return new OpenDapData(dds.toString(), variables);
+    }
+
+    /**
+     * Write this response in the DAP2 data response format, as read by
+     * {@link OpenDapDataDecoder} or any DAP2 client.
+     *
+     * @param os
+     * @throws IOException
+     */
+    public void externalize(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.write(dds.getBytes(StandardCharsets.UTF_8));
+        out.write(DATA_MARKER.getBytes(StandardCharsets.UTF_8));
+        for (Variable variable : variables) {
+            variable.externalize(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Write this response with MIME headers and deflated, the same as
+     * DataDDS.externalize(os, true, true), so DAP2 clients reading a stream
+     * rather than a URL can read it.
+     *
+     * @param os
+     * @throws IOException
+     */
+    public void externalizeWithHeaders(OutputStream os) throws IOException {
+        os.write(DEFLATE_HEADERS.getBytes(StandardCharsets.US_ASCII));
+        DeflaterOutputStream deflater = new DeflaterOutputStream(os);
+        externalize(deflater);
+        deflater.finish();
+        os.flush();
+    }
+}
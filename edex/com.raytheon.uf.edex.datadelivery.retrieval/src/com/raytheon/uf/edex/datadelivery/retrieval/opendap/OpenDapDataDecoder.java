@@ -0,0 +1,449 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDapData.Variable;
+
+/**
+ * Decodes a DAP2 data response (DDS, then "Data:", then XDR) as it is read
+ * from the stream. Each horizontal slice of a Float32 array is read into its
+ * own float[] through one slice sized byte buffer, so neither the whole
+ * response nor a DataDDS object graph is ever held in memory.
+ *
+ * Only the shapes OpenDAP grid retrievals use are supported: top level
+ * scalars and arrays of atomic types, and Grids of them. Anything else fails
+ * with an {@link UnsupportedTypeException} so the caller can fall back to
+ * DConnect.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class OpenDapDataDecoder {
+
+    /** Largest DDS accepted, guards against a response with no data marker */
+    private static final int MAX_DDS_BYTES = 1024 * 1024;
+
+    private static final String FLOAT32 = "Float32";
+
+    /** Start of a response externalized with MIME headers */
+    private static final String MIME_START = "HTTP/";
+
+    /**
+     * Thrown for a response holding a DAP2 type the decoder does not handle.
+     */
+    static class UnsupportedTypeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedTypeException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Pattern TOKEN_PATTERN = Pattern
+            .compile("[{}\\[\\]=;:]|[^\\s{}\\[\\]=;:]+");
+
+    private final DataInputStream in;
+
+    private List<String> tokens;
+
+    private int tokenIndex;
+
+    private byte[] sliceBuffer;
+
+    private OpenDapDataDecoder(InputStream is) {
+        this.in = new DataInputStream(new BufferedInputStream(is));
+    }
+
+    /**
+     * Decode a DAP2 data response. The stream is read up to the end of the
+     * data but not closed.
+     *
+     * @param is
+     * @return the decoded response
+     * @throws IOException
+     *             if the stream could not be read, is a DAP2 error, or is not
+     *             a supported response
+     * @throws UnsupportedTypeException
+     *             if the response holds a DAP2 type that is not decoded
+     */
+    static OpenDapData decode(InputStream is) throws IOException {
+        BufferedInputStream bis = new BufferedInputStream(is);
+        bis.mark(MIME_START.length());
+        byte[] start = new byte[MIME_START.length()];
+        int read = 0;
+        int n;
+        while (read < start.length
+                && (n = bis.read(start, read, start.length - read)) > 0) {
+            read += n;
+        }
+        bis.reset();
+
+        InputStream data = bis;
+        if (MIME_START.equals(
+                new String(start, 0, read, StandardCharsets.US_ASCII))) {
+            data = skipMimeHeaders(bis);
+        }
+        return new OpenDapDataDecoder(data).decode();
+    }
+
+    /**
+     * Skip the MIME headers of a response externalized with headers, see
+     * {@link OpenDapData#externalizeWithHeaders(java.io.OutputStream)}.
+     *
+     * @return the body of the response, inflated if needed
+     */
+    private static InputStream skipMimeHeaders(InputStream is)
+            throws IOException {
+        String encoding = null;
+        String line;
+        while (!(line = readLine(is)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && "Content-Encoding".equalsIgnoreCase(
+                    line.substring(0, colon).trim())) {
+                encoding = line.substring(colon + 1).trim();
+            }
+        }
+
+        if ("deflate".equalsIgnoreCase(encoding)) {
+            return new InflaterInputStream(is);
+        } else if ("gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(is);
+        }
+        return is;
+    }
+
+    /**
+     * Read an ASCII line, without its line terminator.
+     */
+    private static String readLine(InputStream is) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = is.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+            if (line.length() > MAX_DDS_BYTES) {
+                throw new IOException("Invalid MIME header");
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * @param shape
+     * @return the number of values in a horizontal slice of an array with the
+     *         shape, i.e. the product of its last two dimensions
+     */
+    static int getSliceSize(int[] shape) {
+        int size = 1;
+        for (int i = Math.max(0, shape.length - 2); i < shape.length; i++) {
+            size *= shape[i];
+        }
+        return size;
+    }
+
+    private OpenDapData decode() throws IOException {
+        String dds = readDds();
+        tokenize(dds);
+
+        List<Variable> declarations = new ArrayList<>();
+        expect("Dataset");
+        expect("{");
+        while (!"}".equals(peek())) {
+            parseDeclaration(declarations);
+        }
+
+        List<Variable> variables = new ArrayList<>(declarations.size());
+        for (Variable declaration : declarations) {
+            variables.add(readData(declaration));
+        }
+        return new OpenDapData(dds, variables);
+    }
+
+    /**
+     * Read the DDS up to and excluding the data marker line.
+     */
+    private String readDds() throws IOException {
+        ByteArrayOutputStream dds = new ByteArrayOutputStream(1024);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            line.write(b);
+            if (b == '\n') {
+                String text = new String(line.toByteArray(),
+                        StandardCharsets.UTF_8);
+                if (OpenDapData.DATA_MARKER.equals(text)
+                        || "Data:\r\n".equals(text)) {
+                    return new String(dds.toByteArray(),
+                            StandardCharsets.UTF_8);
+                }
+                line.writeTo(dds);
+                line.reset();
+                if (dds.size() > MAX_DDS_BYTES) {
+                    break;
+                }
+            }
+        }
+        line.writeTo(dds);
+
+        String text = new String(dds.toByteArray(), StandardCharsets.UTF_8)
+                .trim();
+        if (text.startsWith("Error")) {
+            throw new IOException("OPeNDAP server returned an error: " + text);
+        }
+        throw new IOException(
+                "Response is not a DAP2 data response, no data section found");
+    }
+
+    private void tokenize(String dds) {
+        tokens = new ArrayList<>();
+        Matcher m = TOKEN_PATTERN.matcher(dds);
+        while (m.find()) {
+            tokens.add(m.group());
+        }
+        tokenIndex = 0;
+    }
+
+    private String peek() throws IOException {
+        if (tokenIndex >= tokens.size()) {
+            throw new IOException("Unexpected end of DDS");
+        }
+        return tokens.get(tokenIndex);
+    }
+
+    private String next() throws IOException {
+        String token = peek();
+        tokenIndex++;
+        return token;
+    }
+
+    private void expect(String expected) throws IOException {
+        String token = next();
+        if (!expected.equalsIgnoreCase(token)) {
+            throw new IOException("Unable to parse DDS, expected '" + expected
+                    + "' but found '" + token + "'");
+        }
+    }
+
+    private void parseDeclaration(List<Variable> declarations)
+            throws IOException {
+        String type = peek();
+        if ("Grid".equalsIgnoreCase(type)) {
+            next();
+            expect("{");
+            expect("ARRAY");
+            expect(":");
+            List<Variable> members = new ArrayList<>();
+            members.add(parseArray());
+            expect("MAPS");
+            expect(":");
+            while (!"}".equals(peek())) {
+                members.add(parseArray());
+            }
+            expect("}");
+            String grid = next();
+            expect(";");
+            for (Variable member : members) {
+                declarations.add(new Variable(member.getName(), grid,
+                        member.getType(), member.getShape(), null, null));
+            }
+        } else if ("Structure".equalsIgnoreCase(type)
+                || "Sequence".equalsIgnoreCase(type)) {
+            throw new UnsupportedTypeException("Unsupported DAP2 type " + type);
+        } else {
+            declarations.add(parseArray());
+        }
+    }
+
+    /**
+     * Parse e.g. "Float32 tmp2m[time = 1][lat = 721][lon = 1440];"
+     */
+    private Variable parseArray() throws IOException {
+        String type = next();
+        String name = next();
+        List<Integer> dims = new ArrayList<>();
+        while ("[".equals(peek())) {
+            next();
+            String size = next();
+            if ("=".equals(peek())) {
+                next();
+                size = next();
+            }
+            expect("]");
+            try {
+                dims.add(Integer.valueOf(size));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid dimension size '" + size
+                        + "' for " + name, e);
+            }
+        }
+        expect(";");
+
+        int[] shape = new int[dims.size()];
+        for (int i = 0; i < shape.length; i++) {
+            shape[i] = dims.get(i);
+        }
+        return new Variable(name, null, type, shape, null, null);
+    }
+
+    private Variable readData(Variable declaration) throws IOException {
+        int[] shape = declaration.getShape();
+        String type = declaration.getType();
+        if (shape.length > 0 && FLOAT32.equalsIgnoreCase(type)) {
+            return new Variable(declaration.getName(), declaration.getGrid(),
+                    type, shape, readFloatSlices(declaration), null);
+        }
+        return new Variable(declaration.getName(), declaration.getGrid(), type,
+                shape, null, readRaw(declaration));
+    }
+
+    private List<float[]> readFloatSlices(Variable declaration)
+            throws IOException {
+        int size = readLength(declaration);
+        int sliceSize = declaration.getSliceSize();
+        int sliceBytes = sliceSize * 4;
+        if (sliceBuffer == null || sliceBuffer.length < sliceBytes) {
+            sliceBuffer = new byte[sliceBytes];
+        }
+
+        int numSlices = sliceSize == 0 ? 0 : size / sliceSize;
+        List<float[]> slices = new ArrayList<>(numSlices);
+        for (int i = 0; i < numSlices; i++) {
+            in.readFully(sliceBuffer, 0, sliceBytes);
+            float[] slice = new float[sliceSize];
+            ByteBuffer.wrap(sliceBuffer, 0, sliceBytes).asFloatBuffer()
+                    .get(slice);
+            slices.add(slice);
+        }
+        return slices;
+    }
+
+    /**
+     * Read the XDR of a variable that is not decoded, including its length
+     * words.
+     */
+    private byte[] readRaw(Variable declaration) throws IOException {
+        String type = declaration.getType();
+        boolean array = declaration.getShape().length > 0;
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+
+        int count = 1;
+        if (array) {
+            count = readLength(declaration);
+            writeInt(raw, count);
+            writeInt(raw, count);
+        }
+
+        int bytes;
+        switch (type.toLowerCase()) {
+        case "byte":
+            // packed for arrays, padded to a 4 byte boundary
+            bytes = array ? (count + 3) / 4 * 4 : 4;
+            break;
+        case "int16":
+        case "uint16":
+        case "int32":
+        case "uint32":
+        case "float32":
+            bytes = count * 4;
+            break;
+        case "float64":
+            bytes = count * 8;
+            break;
+        case "string":
+        case "url":
+            if (array) {
+                throw new UnsupportedTypeException(
+                        "Unsupported DAP2 String array "
+                                + declaration.getName());
+            }
+            int length = in.readInt();
+            writeInt(raw, length);
+            bytes = (length + 3) / 4 * 4;
+            break;
+        default:
+            throw new UnsupportedTypeException("Unsupported DAP2 type " + type
+                    + " for " + declaration.getName());
+        }
+
+        byte[] data = new byte[bytes];
+        in.readFully(data);
+        raw.write(data);
+        return raw.toByteArray();
+    }
+
+    /**
+     * Read the length of an array, which DAP2 sends twice.
+     */
+    private int readLength(Variable declaration) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+            int repeat = in.readInt();
+            if (length != repeat) {
+                throw new IOException("Corrupt length for "
+                        + declaration.getName() + ": " + length + " and "
+                        + repeat);
+            }
+        } catch (EOFException e) {
+            throw new IOException(
+                    "Response ended before the data for "
+                            + declaration.getName(),
+                    e);
+        }
+        if (length != declaration.getSize()) {
+            throw new IOException("Expected " + declaration.getSize()
+                    + " values for " + declaration.getName() + " but found "
+                    + length);
+        }
+        return length;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -40,6 +40,7 @@ import com.raytheon.uf.edex.datadelivery.retrieval.response.RetrievalResponse;
  * Feb 15, 2013 1543       djohnson    Only allow DataDDS payloads.
  * Apr 14, 2015 4400       dhladky     Updated to DAP2 protocol made backward compatible.
  * Sep 21, 2017 6441       tgurney     Remove references to dods-1.1.7
+ * Oct 17, 2026            agent       Also allow streamed OpenDapData payloads.
  *
  * </pre>
  *
@@ -56,11 +57,12 @@ public class OpenDapRetrievalResponse extends RetrievalResponse {
     public void setPayLoad(Object payload) {
 
         if (payload != null) {
-            if (payload instanceof opendap.dap.DataDDS) {
-                this.payload = opendap.dap.DataDDS.class.cast(payload);
+            if (payload instanceof opendap.dap.DataDDS
+                    || payload instanceof OpenDapData) {
+                this.payload = payload;
             } else {
                 throw new IllegalArgumentException(
-                        "Payload must be a DataDDS instance, not "
+                        "Payload must be a DataDDS or OpenDapData instance, not "
                                 + payload.getClass().getName());
             }
         }
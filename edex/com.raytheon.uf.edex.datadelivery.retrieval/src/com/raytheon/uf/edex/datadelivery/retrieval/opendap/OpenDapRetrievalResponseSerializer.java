@@ -43,6 +43,7 @@ import com.raytheon.uf.common.serialization.SerializationException;
  *                                  compatibility.
  * Jul 27, 2017  6186     rjpeter   Remove Thrift Serialization.
  * Sep 21, 2017  6441     tgurney   Remove references to dods-1.1.7
+ * Oct 17, 2026           agent     Stream OpenDapData in both directions.
  *
  * </pre>
  *
@@ -52,16 +53,23 @@ public class OpenDapRetrievalResponseSerializer
         extends XmlAdapter<byte[], Object> {
     @Override
     public Object unmarshal(byte[] v) throws Exception {
-        opendap.dap.DConnect dconnect = new opendap.dap.DConnect(
-                new ByteArrayInputStream(v));
-        return dconnect.getData(null);
+        try {
+            return OpenDapDataDecoder.decode(new ByteArrayInputStream(v));
+        } catch (IOException e) {
+            // e.g. a type the streaming decoder does not support
+            opendap.dap.DConnect dconnect = new opendap.dap.DConnect(
+                    new ByteArrayInputStream(v));
+            return dconnect.getData(null);
+        }
     }
 
     @Override
     public byte[] marshal(Object v) throws Exception {
         try (ByteArrayOutputStream os = new ByteArrayOutputStream(700)) {
 
-            if (v instanceof opendap.dap.DataDDS) {
+            if (v instanceof OpenDapData) {
+                ((OpenDapData) v).externalizeWithHeaders(os);
+            } else if (v instanceof opendap.dap.DataDDS) {
                 ((opendap.dap.DataDDS) v).externalize(os, true, true);
             } else {
                 throw new SerializationException(
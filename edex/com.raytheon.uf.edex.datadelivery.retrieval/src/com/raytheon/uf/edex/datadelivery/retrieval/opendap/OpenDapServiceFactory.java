@@ -43,6 +43,7 @@ import opendap.dap.DAS;
  * Feb 07, 2013 1543       djohnson     Allow sub-classes.
  * May 31, 2013 2038       djohnson     Add setProvider.
  * Apr 14, 2015 4400       dhladky      Upgraded to DAP2 protocol
+ * Oct 17, 2026            agent        Pass provider name to extractor.
  *
  * </pre>
  *
@@ -65,7 +66,8 @@ public class OpenDapServiceFactory
      * @return the metadata extractor
      */
     public IExtractMetaData<String, DAS> getExtractor() {
-        return new OpenDAPMetaDataExtractor(provider.getConnection());
+        return new OpenDAPMetaDataExtractor(provider.getConnection(),
+                provider.getName());
     }
 
     @Override
@@ -32,6 +32,12 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import javax.net.ssl.KeyManagerFactory;
@@ -39,12 +45,14 @@ import javax.net.ssl.TrustManagerFactory;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPClientConfig;
 import org.apache.commons.net.ftp.FTPReply;
 import org.apache.commons.net.ftp.FTPSClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.raytheon.uf.common.datadelivery.registry.Connection;
 import com.raytheon.uf.common.datadelivery.registry.Provider.ServiceType;
 import com.raytheon.uf.common.datadelivery.registry.ProviderCredentials;
@@ -55,6 +63,7 @@ import com.raytheon.uf.common.util.SizeUtil;
 import com.raytheon.uf.common.util.rate.TokenBucket;
 import com.raytheon.uf.common.util.stream.CountingInputStream;
 import com.raytheon.uf.common.util.stream.RateLimitingInputStream;
+import com.raytheon.uf.edex.datadelivery.retrieval.pda.PDAFtpsSessionPool.Session;
 import com.raytheon.uf.edex.datadelivery.retrieval.util.ProviderCredentialsUtil;
 import com.raytheon.uf.edex.security.SecurityConfiguration;
 
@@ -88,6 +97,11 @@ import com.raytheon.uf.edex.security.SecurityConfiguration;
  * Jun 12, 2018  7320     rjpeter   Update ftp drop dir handling and added
  *                                  mkdirs call.
  * Jul 12, 2018  7358     tjensen   Fix reply code handling and improve logging
+ * Oct 17, 2026           agent     Reuse logged in sessions from a pool per
+ *                                  provider.
+ * Oct 17, 2026           agent     Resume failed downloads and verify their
+ *                                  size.
+ * Oct 17, 2026           agent     Purge stale partial downloads.
  *
  * </pre>
  *
@@ -110,6 +124,23 @@ public class PDAConnectionUtil {
 
     private static final String FTP_DROP_DIR;
 
+    /** Most FTPS sessions open to a server at once */
+    private static final int DEFAULT_SESSION_POOL_SIZE = 4;
+
+    /** Seconds an FTPS session may stay idle before it is closed */
+    private static final int DEFAULT_SESSION_IDLE_TIMEOUT = 60;
+
+    /** Hours a partial download is kept for a retry to resume it */
+    private static final int DEFAULT_PARTIAL_MAX_AGE = 24;
+
+    /** Last time stale partial downloads were purged from the drop dir */
+    private static final AtomicLong lastPartialPurge = new AtomicLong();
+
+    /** FTPS session pools by provider, user and server */
+    private static final ConcurrentMap<String, PDAFtpsSessionPool> sessionPools = new ConcurrentHashMap<>();
+
+    private static volatile ScheduledExecutorService sessionEvictor;
+
     static {
         serviceConfig = HarvesterServiceManager.getInstance()
                 .getServiceConfig(ServiceType.PDA);
@@ -191,6 +222,7 @@ public class PDAConnectionUtil {
             logger.error("Unable to make ftp drop directory: " + FTP_DROP_DIR);
         }
         if (localDir.exists()) {
+            purgeStalePartialDownloads(localDir);
             localFileName = FTP_DROP_DIR + File.separator
                     + remotePathAndFile[1];
             logger.info("Local File Name: " + localFileName);
@@ -202,10 +234,11 @@ public class PDAConnectionUtil {
             boolean usePassiveMode = Boolean.parseBoolean(
                     serviceConfig.getConstantValue("PASSIVE_MODE"));
             try {
-                FTPSClient ftp = createFtpClient();
-                ftpsRetrieveFile(ftp, userName, password, rootUrl, port,
-                        remotePathAndFile[1], remotePathAndFile[0],
-                        localFileName, doBinaryTransfer, usePassiveMode,
+                PDAFtpsSessionPool pool = getSessionPool(providerName,
+                        userName, password, rootUrl, port, doBinaryTransfer,
+                        usePassiveMode);
+                ftpsRetrieveFile(pool, remotePathAndFile[1],
+                        remotePathAndFile[0], localFileName, doBinaryTransfer,
                         tokenBucket, priority);
             } catch (Exception e) {
                 throw new Exception("Error retrieving file " + remoteFilename
@@ -219,22 +252,111 @@ public class PDAConnectionUtil {
         return localFileName;
     }
 
-    private static void ftpsRetrieveFile(FTPSClient ftp, String userName,
-            String password, String rootUrl, int port, String remoteFilename,
-            String remoteFilePath, String localFilename,
-            boolean doBinaryTransfer, boolean usePassiveMode,
-            TokenBucket tokenBucket, int priority)
-            throws FileNotFoundException, IOException {
+    /**
+     * Get the session pool for a user on a server, creating it on first use.
+     */
+    private static PDAFtpsSessionPool getSessionPool(String providerName,
+            String userName, String password, String rootUrl, int port,
+            boolean doBinaryTransfer, boolean usePassiveMode) {
+        String key = providerName + ":" + userName + "@" + rootUrl + ":"
+                + port;
+        PDAFtpsSessionPool pool = sessionPools.get(key);
+        if (pool == null) {
+            int idleTimeout = getIntConstant("FTP_SESSION_IDLE_TIMEOUT",
+                    DEFAULT_SESSION_IDLE_TIMEOUT);
+            startSessionEvictor(idleTimeout);
+            pool = sessionPools.computeIfAbsent(key,
+                    k -> new PDAFtpsSessionPool(
+                            getIntConstant("FTP_SESSION_POOL_SIZE",
+                                    DEFAULT_SESSION_POOL_SIZE),
+                            idleTimeout * TimeUtil.MILLIS_PER_SECOND,
+                            () -> openSession(userName, password, rootUrl,
+                                    port, doBinaryTransfer, usePassiveMode)));
+        }
+        return pool;
+    }
 
-        int reply = 0;
+    private static void startSessionEvictor(int idleTimeout) {
+        if (sessionEvictor == null) {
+            synchronized (sessionPools) {
+                if (sessionEvictor == null) {
+                    ScheduledExecutorService service = Executors
+                            .newSingleThreadScheduledExecutor(
+                                    new ThreadFactoryBuilder()
+                                            .setNameFormat(
+                                                    "PDA-FTPS-idle-evictor")
+                                            .setDaemon(true).build());
+                    long period = Math.max(1, idleTimeout / 2);
+                    service.scheduleWithFixedDelay(() -> {
+                        for (PDAFtpsSessionPool pool : sessionPools
+                                .values()) {
+                            pool.closeIdleSessions();
+                        }
+                    }, period, period, TimeUnit.SECONDS);
+                    sessionEvictor = service;
+                }
+            }
+        }
+    }
 
-        try (OutputStream fos = new FileOutputStream(localFilename)) {
+    /**
+     * Delete the partial downloads in the drop dir older than
+     * FTP_PARTIAL_MAX_AGE, at most once an hour.
+     */
+    private static void purgeStalePartialDownloads(File localDir) {
+        long now = System.currentTimeMillis();
+        long last = lastPartialPurge.get();
+        if (now - last < TimeUtil.MILLIS_PER_HOUR
+                || !lastPartialPurge.compareAndSet(last, now)) {
+            return;
+        }
+
+        int deleted = PDAPartialDownload.purgeStale(localDir,
+                getIntConstant("FTP_PARTIAL_MAX_AGE", DEFAULT_PARTIAL_MAX_AGE)
+                        * TimeUtil.MILLIS_PER_HOUR);
+        if (deleted > 0) {
+            logger.info("Deleted " + deleted
+                    + " stale partial downloads from " + localDir);
+        }
+    }
+
+    private static int getIntConstant(String name, int defaultValue) {
+        String value = serviceConfig.getConstantValue(name);
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value for " + name + ": " + value
+                        + ", using " + defaultValue, e);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Open a new FTPS session: connect, set the data channel protection, log
+     * in and set the transfer type and mode.
+     */
+    private static FTPClient openSession(String userName, String password,
+            String rootUrl, int port, boolean doBinaryTransfer,
+            boolean usePassiveMode) throws IOException {
+        FTPSClient ftp;
+        try {
+            ftp = createFtpClient();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to create FTPS client", e);
+        }
+
+        boolean opened = false;
+        try {
             ftp.connect(rootUrl, port);
             /*
              * After connection attempt, you should check the reply code to
              * verify success.
              */
-            reply = ftp.getReplyCode();
+            int reply = ftp.getReplyCode();
             if (!FTPReply.isPositiveCompletion(reply)) {
                 throw new IOException("FTP server refused connection. Reply: "
                         + ftp.getReplyString());
@@ -270,35 +392,82 @@ public class PDAConnectionUtil {
             } else {
                 ftp.enterLocalActiveMode();
             }
+            logger.info("Opened FTPS session to " + rootUrl + " as "
+                    + userName);
+            opened = true;
+            return ftp;
+        } finally {
+            // If still connected, disconnect.
+            if (!opened && ftp.isConnected()) {
+                try {
+                    ftp.disconnect();
+                } catch (IOException f) {
+                    logger.error("Error occurred during ftp disconnect", f);
+                }
+            }
+        }
+    }
+
+    private static void ftpsRetrieveFile(PDAFtpsSessionPool pool,
+            String remoteFilename, String remoteFilePath, String localFilename,
+            boolean doBinaryTransfer, TokenBucket tokenBucket, int priority)
+            throws FileNotFoundException, IOException {
 
+        Session session = pool.borrow(
+                getIntConstant("FTP_CONNECT_TIMEOUT", 30)
+                        * TimeUtil.MILLIS_PER_SECOND);
+        FTPClient ftp = session.getClient();
+        boolean reusable = false;
+        PDAPartialDownload download = null;
+
+        try {
             // If we don't have a path, skip changing directory.
             if (!"".equals(remoteFilePath) && remoteFilePath != null) {
-                // If debugging, print the directory information
-                printDirListing(ftp);
-
                 // Change directories to the location of the file to be
                 // transfered.
                 while (remoteFilePath.substring(0, 1).equals(File.separator)) {
                     remoteFilePath = remoteFilePath.substring(1,
                             remoteFilePath.length());
                 }
-                ftp.changeWorkingDirectory(remoteFilePath);
-                reply = ftp.getReplyCode();
-                if (!FTPReply.isPositiveCompletion(reply)) {
-                    throw new IOException("Change Working Dir to "
-                            + remoteFilePath + " was unsuccessful. Reply: "
-                            + ftp.getReplyString());
+                if (session.changeWorkingDirectory(remoteFilePath)) {
+                    // If debugging, print the directory information
+                    printDirListing(ftp);
                 }
             }
 
-            // If debugging, print the directory information
-            printDirListing(ftp);
+            /*
+             * Sizes and restart offsets are only meaningful for binary
+             * transfers.
+             */
+            long remoteSize = -1;
+            long remoteModified = -1;
+            if (doBinaryTransfer) {
+                ftp.sendCommand("SIZE", remoteFilename);
+                remoteSize = PDAPartialDownload
+                        .parseSizeReply(ftp.getReplyString());
+                ftp.sendCommand("MDTM", remoteFilename);
+                remoteModified = PDAPartialDownload
+                        .parseModificationTimeReply(ftp.getReplyString());
+            }
+            download = new PDAPartialDownload(new File(localFilename),
+                    remoteSize, remoteModified);
+            long offset = download.getResumeOffset();
 
             // Download the file
-            logger.info("Downloading file " + remoteFilename + " to "
-                    + localFilename);
+            if (offset > 0) {
+                logger.info("Resuming download of " + remoteFilename + " to "
+                        + localFilename + " at "
+                        + SizeUtil.prettyByteSize(offset) + " of "
+                        + SizeUtil.prettyByteSize(remoteSize));
+                ftp.setRestartOffset(offset);
+            } else {
+                logger.info("Downloading file " + remoteFilename + " to "
+                        + localFilename);
+            }
             CountingInputStream cis = null;
-            try (InputStream is = ftp.retrieveFileStream(remoteFilename)) {
+            try (OutputStream fos = new FileOutputStream(
+                    download.getPartFile(), offset > 0);
+                    InputStream is = ftp.retrieveFileStream(remoteFilename)) {
                 if (tokenBucket != null) {
                     cis = new CountingInputStream(new RateLimitingInputStream(
                             is, tokenBucket, 1.0 / priority));
@@ -319,20 +488,23 @@ public class PDAConnectionUtil {
                 throw new IOException("Retrieval was unsuccessful for "
                         + remoteFilename + " Reply: " + ftp.getReplyString());
             }
+            download.complete(offset);
             logger.info("Successfully retrieved " + remoteFilename + " ("
                     + SizeUtil.prettyByteSize(cis.getBytesRead()) + ") in "
                     + TimeUtil.prettyDuration(cis.getLastReadTimeMillis()
-                            - cis.getFirstReadTimeMillis()));
-            ftp.logout();
+                            - cis.getFirstReadTimeMillis())
+                    + (offset > 0 ? ", resumption saved "
+                            + SizeUtil.prettyByteSize(offset) + " ("
+                            + SizeUtil.prettyByteSize(
+                                    PDAPartialDownload.getBytesSaved())
+                            + " in " + PDAPartialDownload.getResumedDownloads()
+                            + " resumed downloads so far)" : ""));
+            reusable = true;
         } finally {
-            // If still connected, disconnect.
-            if (ftp.isConnected()) {
-                try {
-                    ftp.disconnect();
-                } catch (IOException f) {
-                    logger.error("Error occurred during ftp disconnect", f);
-                }
+            if (!reusable && download != null) {
+                download.incomplete();
             }
+            pool.release(session, reusable);
         }
     }
 
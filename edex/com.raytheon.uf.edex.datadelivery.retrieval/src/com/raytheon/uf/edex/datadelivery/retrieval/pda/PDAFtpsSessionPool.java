@@ -0,0 +1,333 @@
+package com.raytheon.uf.edex.datadelivery.retrieval.pda;
+
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of logged in FTP(S) sessions to one server, so consecutive downloads
+ * skip the connect, TLS negotiation and login. At most maxSessions are open
+ * at once; further borrowers wait for one to be released.
+ *
+ * A session that has been idle for a while is checked with a NOOP before it
+ * is lent out, and sessions idle for longer than the idle timeout are closed.
+ * Each session remembers its working directory so consecutive downloads from
+ * the same directory do not repeat the CWD. Relative directories are resolved
+ * against the directory the session logged in to, wherever the previous
+ * borrower left it.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Resolve relative directories against the
+ *                                  login directory.
+ *
+ * </pre>
+ *
+ */
+public class PDAFtpsSessionPool {
+
+    /** The logger */
+    private static final Logger logger = LoggerFactory
+            .getLogger(PDAFtpsSessionPool.class);
+
+    /** Sessions idle for longer than this are checked before reuse */
+    private static final long HEALTH_CHECK_AFTER_MILLIS = 5_000L;
+
+    /**
+     * Opens a new session: connected, logged in and with its transfer type
+     * and mode set.
+     */
+    public interface SessionFactory {
+        FTPClient open() throws IOException;
+    }
+
+    /**
+     * A session lent out by the pool.
+     */
+    public static class Session {
+
+        private final FTPClient client;
+
+        /** Directory the session logged in to, null if the server has no PWD */
+        private final String loginDirectory;
+
+        private String workingDirectory;
+
+        private boolean changedDirectory;
+
+        private long lastUsedMillis = System.currentTimeMillis();
+
+        private Session(FTPClient client) throws IOException {
+            this.client = client;
+            this.loginDirectory = client.printWorkingDirectory();
+        }
+
+        /**
+         * @return the client of the session
+         */
+        public FTPClient getClient() {
+            return client;
+        }
+
+        /**
+         * Change the working directory, unless the session is already in it.
+         * A relative directory is relative to the login directory.
+         *
+         * @param directory
+         * @return true if the directory was changed, false if the session was
+         *         already in it
+         * @throws IOException
+         *             if the server refused the change
+         */
+        public boolean changeWorkingDirectory(String directory)
+                throws IOException {
+            if (directory.equals(workingDirectory)) {
+                return false;
+            }
+
+            workingDirectory = null;
+            changedDirectory = true;
+            client.changeWorkingDirectory(resolve(directory));
+            int reply = client.getReplyCode();
+            if (!FTPReply.isPositiveCompletion(reply)) {
+                throw new IOException("Change Working Dir to " + directory
+                        + " was unsuccessful. Reply: "
+                        + client.getReplyString());
+            }
+            workingDirectory = directory;
+            return true;
+        }
+
+        /**
+         * @return the absolute path of a directory relative to the login
+         *         directory, the directory itself if it is absolute or the
+         *         login directory is unknown
+         */
+        private String resolve(String directory) {
+            if (loginDirectory == null || directory.startsWith("/")) {
+                return directory;
+            }
+            if (loginDirectory.endsWith("/")) {
+                return loginDirectory + directory;
+            }
+            return loginDirectory + "/" + directory;
+        }
+
+        /**
+         * A session whose login directory is unknown cannot find its way back
+         * to it, so it is only reused while it has not left it.
+         */
+        private boolean canReturnToLoginDirectory() {
+            return loginDirectory != null || !changedDirectory;
+        }
+    }
+
+    private final SessionFactory factory;
+
+    private final long idleTimeoutMillis;
+
+    private final Semaphore leases;
+
+    /** Idle sessions, most recently used first */
+    private final Deque<Session> idle = new ArrayDeque<>();
+
+    /**
+     * Constructor.
+     *
+     * @param maxSessions
+     *            most sessions open at once
+     * @param idleTimeoutMillis
+     *            sessions idle for longer than this are closed
+     * @param factory
+     *            opens new sessions
+     */
+    public PDAFtpsSessionPool(int maxSessions, long idleTimeoutMillis,
+            SessionFactory factory) {
+        this.leases = new Semaphore(Math.max(1, maxSessions), true);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.factory = factory;
+    }
+
+    /**
+     * Borrow a session, reusing an idle one if possible. Every session
+     * borrowed must be released.
+     *
+     * @param waitMillis
+     *            how long to wait for a session when all are in use
+     * @return the session
+     * @throws IOException
+     *             if no session was released in time or a new session could
+     *             not be opened
+     */
+    public Session borrow(long waitMillis) throws IOException {
+        try {
+            if (!leases.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException(
+                        "Timed out waiting for an FTPS session to be released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for an FTPS session",
+                    e);
+        }
+
+        try {
+            Session session;
+            while ((session = pollIdle()) != null) {
+                if (isUsable(session)) {
+                    return session;
+                }
+                disconnect(session);
+            }
+            return open();
+        } catch (IOException | RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed session to the pool.
+     *
+     * @param session
+     * @param reusable
+     *            false if the session failed and must be closed rather than
+     *            reused
+     */
+    public void release(Session session, boolean reusable) {
+        try {
+            if (reusable && session.client.isConnected()
+                    && session.canReturnToLoginDirectory()) {
+                session.lastUsedMillis = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.addFirst(session);
+                }
+            } else {
+                disconnect(session);
+            }
+        } finally {
+            leases.release();
+        }
+    }
+
+    /**
+     * Close the sessions that have been idle for longer than the idle
+     * timeout.
+     */
+    public void closeIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        List<Session> expired = new ArrayList<>();
+        synchronized (idle) {
+            Iterator<Session> iter = idle.iterator();
+            while (iter.hasNext()) {
+                Session session = iter.next();
+                if (session.lastUsedMillis < cutoff) {
+                    iter.remove();
+                    expired.add(session);
+                }
+            }
+        }
+        for (Session session : expired) {
+            disconnect(session);
+        }
+    }
+
+    /**
+     * @return the number of idle sessions
+     */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    private Session open() throws IOException {
+        FTPClient client = factory.open();
+        try {
+            return new Session(client);
+        } catch (IOException | RuntimeException e) {
+            if (client.isConnected()) {
+                try {
+                    client.disconnect();
+                } catch (IOException f) {
+                    logger.error("Error occurred during ftp disconnect", f);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private Session pollIdle() {
+        synchronized (idle) {
+            return idle.pollFirst();
+        }
+    }
+
+    private boolean isUsable(Session session) {
+        long idleMillis = System.currentTimeMillis() - session.lastUsedMillis;
+        if (idleMillis > idleTimeoutMillis
+                || !session.client.isConnected()) {
+            return false;
+        }
+        if (idleMillis > HEALTH_CHECK_AFTER_MILLIS) {
+            try {
+                return session.client.sendNoOp();
+            } catch (IOException e) {
+                logger.debug("Discarding broken FTPS session", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void disconnect(Session session) {
+        FTPClient client = session.client;
+        if (client.isConnected()) {
+            try {
+                client.logout();
+            } catch (IOException e) {
+                logger.debug("Error occurred during ftp logout", e);
+            }
+            try {
+                client.disconnect();
+            } catch (IOException e) {
+                logger.error("Error occurred during ftp disconnect", e);
+            }
+        }
+    }
+}
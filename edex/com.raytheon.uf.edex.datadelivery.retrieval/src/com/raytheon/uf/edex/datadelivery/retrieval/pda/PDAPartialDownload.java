@@ -0,0 +1,254 @@
+package com.raytheon.uf.edex.datadelivery.retrieval.pda;
+
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A PDA file being downloaded. The data is written to a ".part" file next to
+ * the final file, which is only moved into place once its size matches the
+ * size reported by the server. The name of the partial file holds the remote
+ * modification time, so a failed download leaves it behind for a retry of
+ * the same remote file to restart the transfer from where it stopped. A
+ * download whose remote size or modification time is unknown can not be
+ * resumed safely, so its partial file is deleted when it fails. Partial files
+ * that are never retried are removed by {@link #purgeStale(File, long)}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Only resume a known remote modification
+ *                                  time, purge stale partial files.
+ *
+ * </pre>
+ *
+ */
+public class PDAPartialDownload {
+
+    static final String PARTIAL_SUFFIX = ".part";
+
+    /** Reply to SIZE, e.g. "213 1048576" */
+    private static final Pattern SIZE_REPLY = Pattern
+            .compile("^213\\s+(\\d+)\\s*$");
+
+    /** Reply to MDTM, e.g. "213 20180712120000" with optional fraction */
+    private static final Pattern MDTM_REPLY = Pattern
+            .compile("^213\\s+(\\d{14})(\\.\\d+)?\\s*$");
+
+    /** Bytes that did not have to be downloaded again thanks to resumption */
+    private static final AtomicLong bytesSaved = new AtomicLong();
+
+    /** Number of downloads resumed from a partial file */
+    private static final AtomicLong resumedDownloads = new AtomicLong();
+
+    private final File localFile;
+
+    private final File partFile;
+
+    private final long remoteSize;
+
+    private final long remoteModified;
+
+    /**
+     * Constructor.
+     *
+     * @param localFile
+     *            where the completed download goes
+     * @param remoteSize
+     *            size of the remote file, negative if unknown
+     * @param remoteModified
+     *            modification time of the remote file in millis, negative if
+     *            unknown
+     */
+    public PDAPartialDownload(File localFile, long remoteSize,
+            long remoteModified) {
+        this.localFile = localFile;
+        this.partFile = new File(localFile.getPath()
+                + (remoteModified >= 0 ? "." + remoteModified : "")
+                + PARTIAL_SUFFIX);
+        this.remoteSize = remoteSize;
+        this.remoteModified = remoteModified;
+    }
+
+    /**
+     * @return the file the data is written to
+     */
+    public File getPartFile() {
+        return partFile;
+    }
+
+    /**
+     * Get the offset to restart the transfer from. A partial file is only
+     * resumed when the remote size is known and larger, and the remote
+     * modification time is known and the same as when the partial file was
+     * written; otherwise it is discarded.
+     *
+     * @return the offset, 0 to download the whole file
+     */
+    public long getResumeOffset() {
+        if (!partFile.exists()) {
+            return 0;
+        }
+
+        long length = partFile.length();
+        if (isResumable() && length > 0 && length < remoteSize) {
+            return length;
+        }
+
+        if (!partFile.delete()) {
+            partFile.deleteOnExit();
+        }
+        return 0;
+    }
+
+    /**
+     * Verify the downloaded size and move the partial file into place.
+     *
+     * @param resumedFrom
+     *            the offset the transfer was restarted from
+     * @throws IOException
+     *             if the size does not match the remote file or the file
+     *             could not be moved
+     */
+    public void complete(long resumedFrom) throws IOException {
+        long length = partFile.length();
+        if (remoteSize >= 0 && length != remoteSize) {
+            Files.deleteIfExists(partFile.toPath());
+            throw new IOException("Downloaded " + length + " bytes of "
+                    + localFile.getName() + " but the server reported "
+                    + remoteSize);
+        }
+
+        Files.move(partFile.toPath(), localFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        if (resumedFrom > 0) {
+            bytesSaved.addAndGet(resumedFrom);
+            resumedDownloads.incrementAndGet();
+        }
+    }
+
+    /**
+     * Keep the partial file of a failed download for the retry to resume, or
+     * delete it if it can not be resumed.
+     */
+    public void incomplete() {
+        if (!isResumable() && !partFile.delete() && partFile.exists()) {
+            partFile.deleteOnExit();
+        }
+    }
+
+    private boolean isResumable() {
+        return remoteSize > 0 && remoteModified >= 0;
+    }
+
+    /**
+     * Delete the partial files in a directory that have not been written to
+     * for longer than the max age, e.g. of downloads that were never retried
+     * or whose remote file changed.
+     *
+     * @param dir
+     * @param maxAgeMillis
+     * @return the number of files deleted
+     */
+    public static int purgeStale(File dir, long maxAgeMillis) {
+        final long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        File[] stale = dir.listFiles(file -> file.isFile()
+                && file.getName().endsWith(PARTIAL_SUFFIX)
+                && file.lastModified() < cutoff);
+
+        int deleted = 0;
+        if (stale != null) {
+            for (File file : stale) {
+                if (file.delete()) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return total bytes not downloaded again thanks to resumption
+     */
+    public static long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * @return total downloads resumed from a partial file
+     */
+    public static long getResumedDownloads() {
+        return resumedDownloads.get();
+    }
+
+    /**
+     * Parse the reply to a SIZE command.
+     *
+     * @param reply
+     * @return the size, -1 if the command failed
+     */
+    public static long parseSizeReply(String reply) {
+        if (reply != null) {
+            Matcher m = SIZE_REPLY.matcher(reply.trim());
+            if (m.matches()) {
+                return Long.parseLong(m.group(1));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the reply to an MDTM command.
+     *
+     * @param reply
+     * @return the modification time in millis, to the second, -1 if the
+     *         command failed
+     */
+    public static long parseModificationTimeReply(String reply) {
+        if (reply != null) {
+            Matcher m = MDTM_REPLY.matcher(reply.trim());
+            if (m.matches()) {
+                SimpleDateFormat format = new SimpleDateFormat(
+                        "yyyyMMddHHmmss");
+                format.setTimeZone(TimeZone.getTimeZone("GMT"));
+                try {
+                    return format.parse(m.group(1)).getTime();
+                } catch (ParseException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+}
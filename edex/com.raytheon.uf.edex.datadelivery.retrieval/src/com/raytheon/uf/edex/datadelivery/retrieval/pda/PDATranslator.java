@@ -24,8 +24,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
-import org.apache.commons.io.FileUtils;
-
 import com.raytheon.uf.common.datadelivery.registry.Coverage;
 import com.raytheon.uf.common.datadelivery.registry.DataSet;
 import com.raytheon.uf.common.datadelivery.registry.Time;
@@ -59,6 +57,8 @@ import com.raytheon.uf.edex.plugin.datadelivery.retrieval.dist.DecodeInfo;
  * Jul 25, 2017  6186     rjpeter   Use Retrieval
  * Nov 15, 2017  6498     tjensen   Use inherited logger for logging
  * Jun 12, 2018  7320     rjpeter   Update store directory.
+ * Oct 17, 2026           agent     Rename FTPS files into the store directory
+ *                                  instead of delete and move.
  *
  * </pre>
  *
@@ -128,19 +128,16 @@ public class PDATranslator
                  * If we have a file at the location given in the response, then
                  * the file came from FTPS and we just need to move it to the
                  * correct directory. If not, these bytes came via the SBN and
-                 * we need to uncompress and write the file.
+                 * we need to uncompress and write the file. Either way the
+                 * file replaces any existing one in a single rename.
                  */
                 File ftpsFile = new File(responseFileName);
                 if (!ftpsFile.exists()) {
                     ResponseProcessingUtilities.writeCompressedFile(
                             response.getFileBytes(), storeFileName);
                 } else {
-                    File storeFile = new File(storeFileName);
-                    // If file already exist at the destination, remove it first
-                    if (storeFile.exists()) {
-                        FileUtils.deleteQuietly(storeFile);
-                    }
-                    FileUtils.moveFile(ftpsFile, storeFile);
+                    ResponseProcessingUtilities.moveFile(ftpsFile,
+                            new File(storeFileName));
                 }
 
                 // Populate DecodeInfo for transfer
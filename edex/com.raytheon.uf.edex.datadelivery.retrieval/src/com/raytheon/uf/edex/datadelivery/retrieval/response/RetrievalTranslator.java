@@ -53,6 +53,8 @@ import com.raytheon.uf.edex.datadelivery.retrieval.metadata.adapters.AbstractMet
  * Sep 24, 2014  3121     dhladky   try to improve generic usage.
  * Jul 27, 2017  6186     rjpeter   Use Retrieval
  * Nov 15, 2017  6498     tjensen   Improved logging on InstantiationException
+ * Oct 17, 2026           agent     Add constructor with explicit PDO class
+ *                                  name.
  *
  * </pre>
  *
@@ -94,6 +96,27 @@ public abstract class RetrievalTranslator<T extends Time, C extends Coverage, Re
         }
     }
 
+    /**
+     * Constructor for an explicit PDO class name rather than the one
+     * registered for the retrieval's plugin.
+     *
+     * @param retrieval
+     * @param className
+     * @throws InstantiationException
+     */
+    protected RetrievalTranslator(Retrieval<T, C> retrieval, String className)
+            throws InstantiationException {
+        this.retrieval = retrieval;
+
+        try {
+            configureFromPdoClassName(className);
+        } catch (ClassNotFoundException e) {
+            throw new InstantiationException(
+                    "Failed to instantiate RetrievalTranslator for class ["
+                            + className + "]. Reason [" + e.toString() + "]");
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected void configureFromPdoClassName(String className)
             throws InstantiationException, ClassNotFoundException {
@@ -22,6 +22,13 @@ package com.raytheon.uf.edex.datadelivery.retrieval.util;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -31,7 +38,6 @@ import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 
-import com.google.common.io.Files;
 import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
 import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
 import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
@@ -72,6 +78,9 @@ import com.raytheon.uf.common.time.DataTime;
  *                                  when available. Cleanup.
  * Sep 12, 2017  6413     tjensen   Removed unnecessary requestLevelStart and
  *                                  End
+ * Oct 17, 2026           agent     Stream PDA file compression and
+ *                                  decompression through a bounded buffer.
+ *                                  Hand off files with an atomic rename.
  *
  * </pre>
  *
@@ -83,6 +92,9 @@ public class ResponseProcessingUtilities {
     private static final IUFStatusHandler statusHandler = UFStatus
             .getHandler(ResponseProcessingUtilities.class);
 
+    /** Buffer used when streaming PDA files through (de)compression */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     public static GridRecord getGridRecord(String name, ParameterGroup parm,
             ParameterLevelEntry entry, Level level, String ensembleId,
             GridCoverage gridCoverage) {
@@ -220,48 +232,112 @@ public class ResponseProcessingUtilities {
      * @return
      */
     public static byte[] getBytes(String fileName) throws Exception {
-        File f = new File(fileName);
-        return Files.toByteArray(f);
+        return Files.readAllBytes(new File(fileName).toPath());
     }
 
     /**
-     * Reads a file, compresses it.
+     * Reads a file, compresses it. The file is streamed through the
+     * compressor so only the compressed bytes are held in memory.
      *
      * @param fileName
      * @return
      */
     public static byte[] getCompressedFile(String fileName) throws Exception {
-
-        byte[] bytes = getBytes(fileName);
-        return compress(bytes);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (InputStream in = Files.newInputStream(new File(fileName).toPath());
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(
+                        byteArrayOutputStream, COPY_BUFFER_SIZE)) {
+            IOUtils.copyLarge(in, gzipOutputStream,
+                    new byte[COPY_BUFFER_SIZE]);
+        }
+        return byteArrayOutputStream.toByteArray();
     }
 
     /**
-     * Decodes, de-compresses and writes the gzipped bytes.
+     * Decodes, de-compresses and writes the gzipped bytes. The bytes are
+     * streamed through the decompressor into a hidden file next to the
+     * destination, which is then renamed into place, so the decompressed file
+     * is never held in memory and is never seen half written.
      *
-     * @param encodedFile
+     * @param zippedFile
      * @param filePath
      * @throws Exception
      */
     public static void writeCompressedFile(byte[] zippedFile, String filePath)
             throws Exception {
-
-        File file = new File(filePath);
-        byte[] fileBytes = decompress(zippedFile);
-        writeFileBytes(fileBytes, file);
-
+        File file = new File(filePath).getAbsoluteFile();
+        File tempFile = getHiddenFile(file);
+        file.getParentFile().mkdirs();
+        try (GZIPInputStream gzipper = new GZIPInputStream(
+                new ByteArrayInputStream(zippedFile), COPY_BUFFER_SIZE);
+                OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+            IOUtils.copyLarge(gzipper, out, new byte[COPY_BUFFER_SIZE]);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+        renameFile(tempFile, file);
     }
 
     /**
      * Decodes and writes the byte[] encoded into file
      *
-     * @param encodedFile
+     * @param bytes
      * @param file
      * @throws Exception
      */
     public static void writeFileBytes(byte[] bytes, File file)
             throws Exception {
-        Files.write(bytes, file);
+        Files.write(file.toPath(), bytes);
+    }
+
+    /**
+     * Move a file into place, replacing any file already there. Within a file
+     * system this is a rename, so no data is copied and the destination never
+     * holds a partial file. Across file systems the file is copied to a hidden
+     * file next to the destination first and then renamed.
+     *
+     * @param source
+     * @param destination
+     * @throws IOException
+     */
+    public static void moveFile(File source, File destination)
+            throws IOException {
+        destination.getAbsoluteFile().getParentFile().mkdirs();
+        try {
+            renameFile(source, destination);
+        } catch (AtomicMoveNotSupportedException e) {
+            File tempFile = getHiddenFile(destination);
+            try {
+                Files.copy(source.toPath(), tempFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                renameFile(tempFile, destination);
+            } catch (IOException e1) {
+                Files.deleteIfExists(tempFile.toPath());
+                throw e1;
+            }
+            Files.delete(source.toPath());
+        }
+    }
+
+    private static void renameFile(File source, File destination)
+            throws IOException {
+        Path target = destination.toPath();
+        try {
+            Files.move(source.toPath(), target,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            throw e;
+        } catch (IOException e) {
+            // Some platforms cannot atomically replace an existing file
+            Files.move(source.toPath(), target,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static File getHiddenFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(),
+                "." + file.getName());
     }
 
     /**
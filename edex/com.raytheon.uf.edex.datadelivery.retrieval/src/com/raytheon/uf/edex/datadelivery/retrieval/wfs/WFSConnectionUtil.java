@@ -24,11 +24,17 @@ import java.io.InputStream;
  **/
 
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.security.KeyStore;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
@@ -83,6 +89,8 @@ import com.raytheon.uf.edex.datadelivery.retrieval.util.ProviderCredentialsUtil;
  * Jun 22, 2017  6222     tgurney   Log download time and number of bytes
  * Jun 23, 2017  6322     tgurney   wfsConnect throws Exception
  * Jul 31, 2017  6186     rjpeter   Updated URL/Connection handling.
+ * Oct 17, 2026           agent     Decode the response straight from the
+ *                                  pooled buffer in the charset it declares.
  *
  * </pre>
  *
@@ -96,6 +104,13 @@ public class WFSConnectionUtil {
 
     private static final Pattern COMMA_PATTERN = Pattern.compile(",");
 
+    /** Encoding of an XML declaration */
+    private static final Pattern XML_ENCODING_PATTERN = Pattern.compile(
+            "^<\\?xml[^>]*?\\sencoding\\s*=\\s*[\"']([A-Za-z0-9._:\\-]+)[\"']");
+
+    /** Bytes searched for the XML declaration */
+    private static final int XML_DECLARATION_LENGTH = 256;
+
     /**
      * connections indexed by URI host:port keys
      */
@@ -219,9 +234,7 @@ public class WFSConnectionUtil {
                 } while (read > 0);
 
                 baos.setCount(index);
-                byte[] byteResult = new byte[index];
-                System.arraycopy(underlyingArray, 0, byteResult, 0, index);
-                response = new String(byteResult);
+                response = decode(underlyingArray, index);
                 bytesReceived = cis.getBytesRead();
                 timeTakenMillis = cis.getLastReadTimeMillis()
                         - cis.getFirstReadTimeMillis();
@@ -269,13 +282,53 @@ public class WFSConnectionUtil {
         }
 
         post.setEntity(new StringEntity(request, ContentType.TEXT_XML));
+        post.setHeader(HttpHeaders.ACCEPT_CHARSET,
+                StandardCharsets.UTF_8.name());
         RateLimitingStreamHandler handler = new RateLimitingStreamHandler(
                 tokenBucket, priority);
         http.executeRequest(post, handler);
         statusHandler.info("Downloaded "
                 + SizeUtil.prettyByteSize(handler.bytesReceived) + " in "
                 + TimeUtil.prettyDuration(handler.timeTakenMillis));
-        return new String(handler.response);
+        return handler.response;
+    }
+
+    /**
+     * Decode an XML response in the charset given by its byte order mark or
+     * XML declaration, UTF-8 if it gives none or one that is not supported.
+     *
+     * @param bytes
+     * @param length
+     *            number of bytes of the response
+     * @return the response
+     */
+    static String decode(byte[] bytes, int length) {
+        if (length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB
+                && bytes[2] == (byte) 0xBF) {
+            return new String(bytes, 3, length - 3, StandardCharsets.UTF_8);
+        }
+        if (length >= 2 && bytes[0] == (byte) 0xFE && bytes[1] == (byte) 0xFF) {
+            return new String(bytes, 2, length - 2, StandardCharsets.UTF_16BE);
+        }
+        if (length >= 2 && bytes[0] == (byte) 0xFF && bytes[1] == (byte) 0xFE) {
+            return new String(bytes, 2, length - 2, StandardCharsets.UTF_16LE);
+        }
+
+        Charset charset = StandardCharsets.UTF_8;
+        // Without a byte order mark the declaration is ASCII
+        Matcher matcher = XML_ENCODING_PATTERN.matcher(new String(bytes, 0,
+                Math.min(length, XML_DECLARATION_LENGTH),
+                StandardCharsets.ISO_8859_1));
+        if (matcher.find()) {
+            try {
+                charset = Charset.forName(matcher.group(1));
+            } catch (IllegalCharsetNameException
+                    | UnsupportedCharsetException e) {
+                statusHandler.warn("Unsupported response encoding "
+                        + matcher.group(1) + ", decoding as UTF-8");
+            }
+        }
+        return new String(bytes, 0, length, charset);
     }
 
     /**
@@ -0,0 +1,231 @@
+package com.raytheon.uf.edex.datadelivery.retrieval.wfs;
+
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+
+
+import java.io.Reader;
+import java.io.StringWriter;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Splits a WFS feature collection into smaller feature collections of at most
+ * a fixed number of features with StAX. Each batch is a complete document with
+ * the root element and namespaces of the response, so the adapter can
+ * unmarshal it as before while only the JAXB tree of one batch is held in
+ * memory rather than that of the whole collection.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+class WfsFeatureStreamReader {
+
+    private static final String GML_NAMESPACE = "http://www.opengis.net/gml";
+
+    private static final String FEATURE_COLLECTION = "FeatureCollection";
+
+    private static final String FEATURE_MEMBER = "featureMember";
+
+    private static final String FEATURE_MEMBERS = "featureMembers";
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+
+    private static final XMLOutputFactory outputFactory = createOutputFactory();
+
+    private static final XMLEventFactory eventFactory = XMLEventFactory
+            .newInstance();
+
+    /**
+     * Handles one batch of features.
+     */
+    interface BatchHandler {
+        void handle(String batch) throws Exception;
+    }
+
+    private final int batchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param batchSize
+     *            most features in a batch
+     */
+    WfsFeatureStreamReader(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(
+                    "Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Split a feature collection into batches, handing each to the handler as
+     * soon as it is complete. Every feature is written as a single
+     * featureMember of the batch.
+     *
+     * @param xml
+     *            the WFS response
+     * @param handler
+     *            receives the batches in document order
+     * @return false if the response is not a feature collection, in which
+     *         case nothing was handled
+     * @throws Exception
+     *             if the response is not well formed or the handler failed
+     */
+    boolean readBatches(Reader xml, BatchHandler handler) throws Exception {
+        XMLEventReader reader = inputFactory.createXMLEventReader(xml);
+        try {
+            StartElement root;
+            try {
+                XMLEvent event = reader.nextTag();
+                if (!event.isStartElement() || !FEATURE_COLLECTION.equals(
+                        event.asStartElement().getName().getLocalPart())) {
+                    return false;
+                }
+                root = event.asStartElement();
+            } catch (XMLStreamException e) {
+                // Raw text, e.g. an error message from the server
+                return false;
+            }
+
+            Batch batch = null;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (!event.isStartElement()
+                        || !isFeatureMember(event.asStartElement())) {
+                    continue;
+                }
+                /*
+                 * featureMember wraps a single feature and featureMembers any
+                 * number of them.
+                 */
+                StartElement member = event.asStartElement();
+                QName memberName = new QName(GML_NAMESPACE, FEATURE_MEMBER,
+                        member.getName().getPrefix());
+                for (event = reader.nextTag(); event
+                        .isStartElement(); event = reader.nextTag()) {
+                    if (batch == null) {
+                        batch = new Batch(root);
+                    }
+                    batch.writer.add(eventFactory.createStartElement(
+                            memberName, null, member.getNamespaces()));
+                    copyElement(event, reader, batch.writer);
+                    batch.writer.add(
+                            eventFactory.createEndElement(memberName, null));
+                    if (++batch.features == batchSize) {
+                        handler.handle(batch.finish(root));
+                        batch = null;
+                    }
+                }
+            }
+            if (batch != null) {
+                handler.handle(batch.finish(root));
+            }
+            return true;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Copy an element and everything in it, leaving the reader after its end.
+     */
+    private static void copyElement(XMLEvent start, XMLEventReader reader,
+            XMLEventWriter writer) throws XMLStreamException {
+        writer.add(start);
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            writer.add(event);
+        }
+    }
+
+    private static boolean isFeatureMember(StartElement element) {
+        QName name = element.getName();
+        return GML_NAMESPACE.equals(name.getNamespaceURI())
+                && (FEATURE_MEMBER.equals(name.getLocalPart())
+                        || FEATURE_MEMBERS.equals(name.getLocalPart()));
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                Boolean.FALSE);
+        return factory;
+    }
+
+    private static XMLOutputFactory createOutputFactory() {
+        XMLOutputFactory factory = XMLOutputFactory.newInstance();
+        // Declares namespaces of a feature that were bound between the root
+        // and the feature
+        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES,
+                Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * A feature collection document being written.
+     */
+    private static class Batch {
+
+        private final StringWriter buffer = new StringWriter();
+
+        private final XMLEventWriter writer;
+
+        private int features;
+
+        private Batch(StartElement root) throws XMLStreamException {
+            writer = outputFactory.createXMLEventWriter(buffer);
+            writer.add(eventFactory.createStartDocument());
+            writer.add(eventFactory.createStartElement(root.getName(), null,
+                    root.getNamespaces()));
+        }
+
+        private String finish(StartElement root) throws XMLStreamException {
+            writer.add(eventFactory.createEndElement(root.getName(), null));
+            writer.add(eventFactory.createEndDocument());
+            writer.close();
+            return buffer.toString();
+        }
+    }
+}
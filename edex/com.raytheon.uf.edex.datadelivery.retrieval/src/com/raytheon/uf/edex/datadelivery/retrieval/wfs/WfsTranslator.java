@@ -1,5 +1,7 @@
 package com.raytheon.uf.edex.datadelivery.retrieval.wfs;
 
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.raytheon.uf.common.datadelivery.registry.Coverage;
@@ -32,6 +34,8 @@ import net.opengis.wfs.v_1_1_0.FeatureCollectionType;
  * Sep 22, 2014  3121     dhladky   Generic clean up.
  * Jul 25, 2017  6186     rjpeter   Update signature
  * Nov 15, 2017  6498     tjensen   Use inherited logger for logging.
+ * Oct 17, 2026           agent     Unmarshal and translate feature
+ *                                  collections in batches.
  *
  * </pre>
  *
@@ -41,6 +45,10 @@ import net.opengis.wfs.v_1_1_0.FeatureCollectionType;
 public class WfsTranslator
         extends RetrievalTranslator<PointTime, Coverage, AbstractFeatureType> {
 
+    /** Most features unmarshalled at once */
+    private static final int FEATURE_BATCH_SIZE = Integer
+            .getInteger("wfs.retrieval.feature.batch.size", 1000);
+
     public WfsTranslator(Retrieval<PointTime, Coverage> retrieval)
             throws InstantiationException {
         super(retrieval);
@@ -75,6 +83,10 @@ public class WfsTranslator
 
         try {
             IWfsMetaDataAdapter wfsAdapter = (IWfsMetaDataAdapter) metadataAdapter;
+            if (streamFeatures(payload, wfsAdapter)) {
+                return metadataAdapter.getPdos();
+            }
+
             Object o = wfsAdapter.getData(payload);
 
             if (o instanceof FeatureCollectionType) {
@@ -121,4 +133,45 @@ public class WfsTranslator
         return metadataAdapter.getPdos();
     }
 
+    /**
+     * Unmarshal and translate the features of the payload a batch at a time,
+     * so only the JAXB tree of one batch is held rather than that of the
+     * whole feature collection.
+     *
+     * @param payload
+     * @param wfsAdapter
+     * @return false if the payload is not a feature collection
+     * @throws Exception
+     */
+    private boolean streamFeatures(String payload,
+            IWfsMetaDataAdapter wfsAdapter) throws Exception {
+        List<PluginDataObject> pdos = new ArrayList<>();
+        WfsFeatureStreamReader reader = new WfsFeatureStreamReader(
+                FEATURE_BATCH_SIZE);
+        if (!reader.readBatches(new StringReader(payload), batch -> {
+            Object o = wfsAdapter.getData(batch);
+            if (!(o instanceof FeatureCollectionType)) {
+                throw new IllegalStateException(
+                        "Received an invalid WFS return object. " + o);
+            }
+            for (FeaturePropertyType type : ((FeatureCollectionType) o)
+                    .getFeatureMember()) {
+                pdos.add(wfsAdapter
+                        .translateFeature(type.getFeature().getValue()));
+            }
+        })) {
+            return false;
+        }
+
+        if (!pdos.isEmpty()) {
+            metadataAdapter.allocatePdoArray(pdos.size());
+            pdos.toArray(metadataAdapter.getPdos());
+        }
+
+        if (metadataAdapter.isPointData()) {
+            wfsAdapter.setPointData(metadataAdapter.getPdos());
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,156 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.common.datadelivery.bandwidth.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.Network;
+import com.raytheon.uf.common.datadelivery.registry.Subscription.SubscriptionPriority;
+
+/**
+ * Test the versioning of {@link BandwidthGraphData}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class BandwidthGraphDataTest {
+
+    /** Time windows are kept to the minute */
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void testSameDataHasNoChanges() {
+        BandwidthGraphData base = graphData(1, 100L, 200L, "sub1", "sub2");
+        BandwidthGraphData current = graphData(2, 100L, 200L, "sub1", "sub2");
+
+        assertFalse(current.getChangesSince(base).hasChanges());
+    }
+
+    @Test
+    public void testOnlyChangedBucketsAndSubscriptionsAreSent() {
+        BandwidthGraphData base = graphData(1, 100L, 200L, "sub1", "sub2");
+        BandwidthGraphData current = graphData(2, 100L, 200L, "sub1", "sub2");
+        current.getNetworkBucketMap().get(Network.OPSNET).last()
+                .setUsedBytes(50);
+        current.getNetworkDataMap().get(Network.OPSNET).get(1)
+                .addTimeWindow(new TimeWindowData(300L * MINUTE,
+                        400L * MINUTE));
+
+        BandwidthGraphData changes = current.getChangesSince(base);
+
+        assertTrue(changes.isChangesOnly());
+        assertEquals(1, changes.getBaseVersion());
+        assertEquals(2, changes.getVersion());
+        assertEquals(1, changes.getNetworkBucketMap().get(Network.OPSNET)
+                .size());
+        assertEquals(200L, changes.getNetworkBucketMap().get(Network.OPSNET)
+                .first().getBucketStartTime());
+        assertEquals(1, changes.getNetworkDataMap().get(Network.OPSNET).size());
+        assertEquals("sub2", changes.getNetworkDataMap().get(Network.OPSNET)
+                .get(0).getRegistryId());
+        assertTrue(changes.getRemovedBucketMap().isEmpty());
+        assertTrue(changes.getRemovedSubscriptionMap().isEmpty());
+    }
+
+    @Test
+    public void testAppliedChangesMatchCurrentData() {
+        BandwidthGraphData base = graphData(1, 100L, 200L, "sub1", "sub2");
+        BandwidthGraphData current = graphData(2, 200L, 300L, "sub2", "sub3");
+        current.getNetworkBucketMap().get(Network.OPSNET).first()
+                .setUsedBytes(75);
+
+        BandwidthGraphData changes = current.getChangesSince(base);
+        assertEquals(Arrays.asList(100L),
+                changes.getRemovedBucketMap().get(Network.OPSNET));
+        assertEquals(Arrays.asList("sub1"),
+                changes.getRemovedSubscriptionMap().get(Network.OPSNET));
+
+        BandwidthGraphData result = base.applyChanges(changes);
+
+        assertFalse(result.isChangesOnly());
+        assertEquals(2, result.getVersion());
+        assertFalse(result.getChangesSince(current).hasChanges());
+        assertEquals(75, result.getNetworkBucketMap().get(Network.OPSNET)
+                .first().getUsedBytes());
+    }
+
+    @Test
+    public void testCompleteDataReplacesCurrentData() {
+        BandwidthGraphData base = graphData(1, 100L, 200L, "sub1");
+        BandwidthGraphData current = graphData(5, 300L, 400L, "sub2");
+
+        assertSame(current, base.applyChanges(current));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChangesForAnotherVersionAreRejected() {
+        BandwidthGraphData base = graphData(1, 100L, 200L, "sub1");
+        BandwidthGraphData other = graphData(2, 100L, 200L, "sub1");
+        BandwidthGraphData current = graphData(3, 100L, 200L, "sub2");
+
+        other.applyChanges(current.getChangesSince(base));
+    }
+
+    private static BandwidthGraphData graphData(long version,
+            long firstBucket, long lastBucket, String... registryIds) {
+        BandwidthGraphData data = new BandwidthGraphData();
+        data.setVersion(version);
+
+        SortedSet<BandwidthBucketDescription> buckets = new TreeSet<>();
+        for (long start = firstBucket; start <= lastBucket; start += 100L) {
+            buckets.add(new BandwidthBucketDescription(Network.OPSNET, 1000L,
+                    0L, start));
+        }
+        data.addBucketDescriptions(Network.OPSNET, buckets);
+
+        List<SubscriptionWindowData> subs = new ArrayList<>();
+        for (String registryId : registryIds) {
+            List<TimeWindowData> windows = new ArrayList<>();
+            windows.add(new TimeWindowData(firstBucket * MINUTE,
+                    lastBucket * MINUTE));
+            SubscriptionWindowData sub = new SubscriptionWindowData(
+                    registryId, windows, SubscriptionPriority.NORMAL);
+            sub.setNetwork(Network.OPSNET);
+            sub.setRegistryId(registryId);
+            subs.add(sub);
+        }
+        data.getNetworkDataMap().put(Network.OPSNET, subs);
+        return data;
+    }
+}
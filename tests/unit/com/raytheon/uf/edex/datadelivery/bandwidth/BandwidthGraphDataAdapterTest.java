@@ -19,9 +19,15 @@
  **/
 package com.raytheon.uf.edex.datadelivery.bandwidth;
 
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -30,10 +36,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthBucketDescription;
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthGraphData;
 import com.raytheon.uf.common.datadelivery.registry.Network;
 import com.raytheon.uf.common.time.util.TimeUtil;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
 import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
 import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalManager;
+import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalPlan;
 
 /**
  * Test class for {@link BandwidthGraphdataAdapter}.
@@ -47,6 +57,7 @@ import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalManager;
  * Nov 25, 2013            mpduff      Initial creation.
  * Jan 25, 2014   2636     mpduff      Removed test that has since become invalid.
  * Aug 26, 2014   3365     ccody       Separate Data Delivery tests out of AWIPS 2 baseline.
+ * Oct 17, 2026            agent       Test reusing bucket descriptions and windows.
  * 
  * </pre>
  * 
@@ -140,4 +151,90 @@ public class BandwidthGraphDataAdapterTest {
             }
         }
     }
+
+    @Test
+    public void testBucketDescriptionsAreReusedUntilThePlanChanges() {
+        RetrievalPlan plan = mockPlan(futureBuckets());
+        IBandwidthDao<?, ?> dao = mockDao();
+        BandwidthGraphDataAdapter graphAdapter = new BandwidthGraphDataAdapter(
+                mockManager(plan), dao);
+
+        BandwidthGraphData first = graphAdapter.get();
+        BandwidthGraphData second = graphAdapter.get();
+
+        verify(plan, times(1)).getBucketsInWindow(anyLong(), anyLong());
+        assertSame(first.getNetworkBucketMap().get(Network.OPSNET),
+                second.getNetworkBucketMap().get(Network.OPSNET));
+
+        when(plan.getChangeCount()).thenReturn(2L);
+        graphAdapter.get();
+
+        verify(plan, times(2)).getBucketsInWindow(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testBucketDescriptionsAreReadAgainOnceTheFirstBucketPassed() {
+        // The first bucket started in the past
+        RetrievalPlan plan = mockPlan(bucketSet);
+        BandwidthGraphDataAdapter graphAdapter = new BandwidthGraphDataAdapter(
+                mockManager(plan), mockDao());
+
+        graphAdapter.get();
+        graphAdapter.get();
+
+        verify(plan, times(2)).getBucketsInWindow(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testWindowsAreRebuiltWhenSubscriptionsChange() {
+        IBandwidthDao<?, ?> dao = mockDao();
+        BandwidthGraphDataAdapter graphAdapter = new BandwidthGraphDataAdapter(
+                mockManager(mockPlan(futureBuckets())), dao);
+
+        graphAdapter.get();
+        graphAdapter.get();
+
+        verify(dao, times(1)).getBandwidthAllocations(Network.OPSNET);
+
+        graphAdapter.subscriptionsChanged();
+        graphAdapter.get();
+        graphAdapter.get();
+
+        verify(dao, times(2)).getBandwidthAllocations(Network.OPSNET);
+    }
+
+    private static SortedSet<BandwidthBucket> futureBuckets() {
+        SortedSet<BandwidthBucket> buckets = new TreeSet<BandwidthBucket>();
+        long bucketStart = TimeUtil.currentTimeMillis()
+                + TimeUtil.MILLIS_PER_HOUR;
+        for (int i = 0; i < 10; i++) {
+            buckets.add(new BandwidthBucket(bucketStart, BUCKET_SIZE,
+                    Network.OPSNET));
+            bucketStart += 3 * TimeUtil.MILLIS_PER_MINUTE;
+        }
+        return buckets;
+    }
+
+    private static RetrievalPlan mockPlan(SortedSet<BandwidthBucket> buckets) {
+        RetrievalPlan plan = mock(RetrievalPlan.class);
+        when(plan.getNetwork()).thenReturn(Network.OPSNET);
+        when(plan.getChangeCount()).thenReturn(1L);
+        when(plan.getBucketsInWindow(anyLong(), anyLong()))
+                .thenReturn(buckets);
+        return plan;
+    }
+
+    private static RetrievalManager mockManager(RetrievalPlan plan) {
+        RetrievalManager manager = mock(RetrievalManager.class);
+        when(manager.getRetrievalPlans())
+                .thenReturn(Collections.singletonMap(Network.OPSNET, plan));
+        return manager;
+    }
+
+    private static IBandwidthDao<?, ?> mockDao() {
+        IBandwidthDao<?, ?> dao = mock(IBandwidthDao.class);
+        when(dao.getBandwidthAllocations(Network.OPSNET))
+                .thenReturn(Collections.<BandwidthAllocation> emptyList());
+        return dao;
+    }
 }
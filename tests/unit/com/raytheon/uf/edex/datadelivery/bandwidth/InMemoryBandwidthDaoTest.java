@@ -19,8 +19,21 @@
  **/
 package com.raytheon.uf.edex.datadelivery.bandwidth;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
 import com.raytheon.uf.common.datadelivery.registry.Coverage;
 import com.raytheon.uf.common.datadelivery.registry.Time;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocationFixture;
+import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.RetrievalStatus;
 
 /**
  * Implementation of {@link AbstractBandwidthDaoTest} for
@@ -35,6 +48,8 @@ import com.raytheon.uf.common.datadelivery.registry.Time;
  * Nov 13, 2012 1286       djohnson     Initial creation
  * Oct 3,  2013 1797       dhladky      crazy generics
  * Aug 26, 2014 3365       ccody        Separate Data Delivery tests out of AWIPS 2 baseline.
+ * Oct 17, 2026            agent        Test the allocation indexes are kept current.
+ * Oct 17, 2026            agent        Test copyState() stores independent copies.
  * 
  * </pre>
  * 
@@ -51,4 +66,87 @@ public class InMemoryBandwidthDaoTest<T extends Time, C extends Coverage> extend
     protected InMemoryBandwidthDao<T, C> getDao() {
         return new InMemoryBandwidthDao<T, C>();
     }
+
+    @Test
+    public void testUpdatedStatusMovesAllocationBetweenStates() {
+        InMemoryBandwidthDao<T, C> dao = getDao();
+        BandwidthAllocation entity = BandwidthAllocationFixture.INSTANCE.get();
+        entity.setStatus(RetrievalStatus.SCHEDULED);
+        dao.store(entity);
+
+        entity.setStatus(RetrievalStatus.READY);
+        dao.createOrUpdate(entity);
+
+        assertTrue(dao.getBandwidthAllocationsInState(RetrievalStatus.SCHEDULED)
+                .isEmpty());
+        List<BandwidthAllocation> ready = dao
+                .getBandwidthAllocationsInState(RetrievalStatus.READY);
+        assertEquals(1, ready.size());
+        assertEquals(entity.getId(), ready.get(0).getId());
+    }
+
+    @Test
+    public void testUpdatedBucketMovesAllocationBetweenBuckets() {
+        InMemoryBandwidthDao<T, C> dao = getDao();
+        BandwidthAllocation entity = BandwidthAllocationFixture.INSTANCE.get();
+        entity.setBandwidthBucket(1L);
+        dao.store(entity);
+
+        entity.setBandwidthBucket(2L);
+        dao.update(entity);
+
+        assertTrue(dao.getBandwidthAllocations(entity.getNetwork(),
+                Arrays.asList(1L)).isEmpty());
+        assertEquals(1, dao.getBandwidthAllocations(entity.getNetwork(),
+                Arrays.asList(2L)).size());
+    }
+
+    @Test
+    public void testGetBandwidthAllocationByIdReturnsStoredInstance() {
+        InMemoryBandwidthDao<T, C> dao = getDao();
+        BandwidthAllocation entity = BandwidthAllocationFixture.INSTANCE.get();
+        dao.store(entity);
+
+        assertSame(entity, dao.getBandwidthAllocation(entity.getId()));
+    }
+
+    @Test
+    public void testRemoveOnlyRemovesStoredInstance() {
+        InMemoryBandwidthDao<T, C> dao = getDao();
+        BandwidthAllocation entity = BandwidthAllocationFixture.INSTANCE.get();
+        entity.setSubscriptionId("subscriptionId");
+        dao.store(entity);
+
+        dao.remove(Arrays.asList(entity.copy()));
+        assertSame(entity, dao.getBandwidthAllocation(entity.getId()));
+
+        dao.remove(Arrays.asList(entity));
+        assertNull(dao.getBandwidthAllocation(entity.getId()));
+        assertTrue(dao.getBandwidthAllocationsByRegistryId(
+                entity.getSubscriptionId()).isEmpty());
+    }
+
+    @Test
+    public void testCopyStateReplacesAllocationsWithCopies() {
+        InMemoryBandwidthDao<T, C> from = getDao();
+        BandwidthAllocation entity = BandwidthAllocationFixture.INSTANCE.get();
+        entity.setStatus(RetrievalStatus.SCHEDULED);
+        from.store(entity);
+
+        InMemoryBandwidthDao<T, C> to = getDao();
+        BandwidthAllocation stale = BandwidthAllocationFixture.INSTANCE.get();
+        to.store(stale);
+        to.copyState(from);
+
+        assertNull(to.getBandwidthAllocation(stale.getId()));
+        BandwidthAllocation copy = to.getBandwidthAllocation(entity.getId());
+        assertTrue(copy != entity);
+
+        copy.setStatus(RetrievalStatus.READY);
+        to.update(copy);
+        assertEquals(RetrievalStatus.SCHEDULED, entity.getStatus());
+        assertEquals(1, from
+                .getBandwidthAllocationsInState(RetrievalStatus.SCHEDULED)
+                .size());
+    }
 }
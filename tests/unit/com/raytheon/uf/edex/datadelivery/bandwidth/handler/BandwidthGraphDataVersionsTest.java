@@ -0,0 +1,110 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthBucketDescription;
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthGraphData;
+import com.raytheon.uf.common.datadelivery.registry.Network;
+
+/**
+ * Test {@link BandwidthGraphDataVersions}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class BandwidthGraphDataVersionsTest {
+
+    private final BandwidthGraphDataVersions versions = new BandwidthGraphDataVersions(
+            2);
+
+    @Test
+    public void testUnknownVersionGetsAllData() {
+        BandwidthGraphData data = graphData(10L);
+
+        BandwidthGraphData update = versions.getUpdate(data, 0L);
+
+        assertSame(data, update);
+        assertFalse(update.isChangesOnly());
+    }
+
+    @Test
+    public void testUnchangedDataKeepsItsVersion() {
+        long version = versions.getUpdate(graphData(10L), 0L).getVersion();
+
+        BandwidthGraphData update = versions.getUpdate(graphData(10L),
+                version);
+
+        assertTrue(update.isChangesOnly());
+        assertEquals(version, update.getVersion());
+        assertFalse(update.hasChanges());
+    }
+
+    @Test
+    public void testKnownVersionGetsOnlyChanges() {
+        long version = versions.getUpdate(graphData(10L), 0L).getVersion();
+
+        BandwidthGraphData update = versions.getUpdate(graphData(20L),
+                version);
+
+        assertTrue(update.isChangesOnly());
+        assertEquals(version, update.getBaseVersion());
+        assertTrue(update.getVersion() > version);
+        assertEquals(20L, update.getNetworkBucketMap().get(Network.OPSNET)
+                .first().getUsedBytes());
+    }
+
+    @Test
+    public void testEvictedVersionGetsAllData() {
+        long version = versions.getUpdate(graphData(10L), 0L).getVersion();
+        versions.getUpdate(graphData(20L), 0L);
+        BandwidthGraphData latest = graphData(30L);
+
+        BandwidthGraphData update = versions.getUpdate(latest, version);
+
+        assertSame(latest, update);
+    }
+
+    private static BandwidthGraphData graphData(long usedBytes) {
+        BandwidthGraphData data = new BandwidthGraphData();
+        SortedSet<BandwidthBucketDescription> buckets = new TreeSet<>();
+        buckets.add(new BandwidthBucketDescription(Network.OPSNET, 1000L,
+                usedBytes, 0L));
+        data.addBucketDescriptions(Network.OPSNET, buckets);
+        return data;
+    }
+}
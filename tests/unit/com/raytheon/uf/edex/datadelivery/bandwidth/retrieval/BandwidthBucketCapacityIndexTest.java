@@ -0,0 +1,182 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.Subscription.SubscriptionPriority;
+import com.raytheon.uf.edex.datadelivery.bandwidth.retrieval.BandwidthBucketCapacityIndex.Window;
+
+/**
+ * Test {@link BandwidthBucketCapacityIndex} against a linear walk of the same
+ * buckets.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class BandwidthBucketCapacityIndexTest {
+
+    private static final long BUCKET_MILLIS = 180_000L;
+
+    private static final int BUCKETS = 1000;
+
+    private final Random random = new Random(726L);
+
+    private BandwidthBucketCapacityIndex index;
+
+    private long[] available;
+
+    private int[] occupants;
+
+    @Before
+    public void setUp() {
+        index = new BandwidthBucketCapacityIndex();
+        available = new long[BUCKETS];
+        occupants = new int[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            available[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(10_000);
+            occupants[i] = random.nextInt(
+                    SubscriptionPriority.values().length + 1) - 1;
+            index.append(i * BUCKET_MILLIS, available[i], occupants[i]);
+        }
+    }
+
+    @Test
+    public void windowTotalsMatchLinearWalk() {
+        for (int i = 0; i < 500; i++) {
+            int first = random.nextInt(BUCKETS);
+            int last = first + random.nextInt(BUCKETS - first);
+            Window window = index.getWindow(first * BUCKET_MILLIS,
+                    last * BUCKET_MILLIS);
+
+            long expected = 0;
+            for (int j = first; j <= last; j++) {
+                expected += available[j];
+            }
+
+            assertThat(index.getAvailableBytes(window), is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void firstBucketWithRoomMatchesLinearWalk() {
+        for (int i = 0; i < 500; i++) {
+            int first = random.nextInt(BUCKETS);
+            int last = first + random.nextInt(BUCKETS - first);
+            long required = random.nextInt(10_000);
+
+            int expected = BandwidthBucketCapacityIndex.NOT_FOUND;
+            for (int j = first; j <= last; j++) {
+                if (available[j] >= required) {
+                    expected = j;
+                    break;
+                }
+            }
+
+            assertThat(index.findFirstWithAvailableBytes(first, last, required),
+                    is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void firstBucketWithLowerPriorityOccupantMatchesLinearWalk() {
+        for (SubscriptionPriority priority : SubscriptionPriority.values()) {
+            int expected = BandwidthBucketCapacityIndex.NOT_FOUND;
+            for (int j = 0; j < BUCKETS; j++) {
+                if (occupants[j] > priority.ordinal()) {
+                    expected = j;
+                    break;
+                }
+            }
+
+            assertThat(index.findFirstWithLowerPriorityOccupant(0,
+                    BUCKETS - 1, priority), is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void updatesAreReflectedInQueries() {
+        Window window = index.getWindow(0, (BUCKETS - 1) * BUCKET_MILLIS);
+        long total = index.getAvailableBytes(window);
+
+        index.update(10 * BUCKET_MILLIS, available[10] + 5,
+                BandwidthBucketCapacityIndex.NO_OCCUPANT);
+
+        assertThat(index.getAvailableBytes(window), is(equalTo(total + 5)));
+        assertThat(index.getAvailableBytes(10), is(equalTo(available[10] + 5)));
+    }
+
+    @Test
+    public void removedBucketsAreNotInWindows() {
+        index.removeUpTo(99 * BUCKET_MILLIS);
+
+        assertThat(index.size(), is(equalTo(BUCKETS - 100)));
+
+        Window window = index.getWindow(0, 199 * BUCKET_MILLIS);
+        assertThat(index.getBucketStartTime(window.getFirst()),
+                is(equalTo(100 * BUCKET_MILLIS)));
+
+        long expected = 0;
+        for (int j = 100; j < 200; j++) {
+            expected += available[j];
+        }
+        assertThat(index.getAvailableBytes(window), is(equalTo(expected)));
+    }
+
+    @Test
+    public void appendAfterRemovalCompactsWithoutLosingBuckets() {
+        for (int round = 0; round < 5; round++) {
+            int base = BUCKETS + round * BUCKETS;
+            index.removeUpTo((base - 1) * BUCKET_MILLIS);
+            for (int i = 0; i < BUCKETS; i++) {
+                index.append((base + i) * BUCKET_MILLIS, 1, 0);
+            }
+        }
+
+        assertThat(index.size(), is(equalTo(BUCKETS)));
+        Window window = index.getWindow(0, Long.MAX_VALUE);
+        assertThat(index.getAvailableBytes(window), is(equalTo((long) BUCKETS)));
+    }
+
+    @Test
+    public void windowBetweenBucketsMatchesBucketDaoBoundaries() {
+        Window window = index.getWindow(5 * BUCKET_MILLIS + 1,
+                5 * BUCKET_MILLIS + 2);
+
+        assertThat(window.getFirst(), is(equalTo(5)));
+        assertThat(window.getLast(), is(equalTo(6)));
+    }
+}
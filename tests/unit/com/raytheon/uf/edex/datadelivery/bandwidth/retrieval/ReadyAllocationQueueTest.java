@@ -0,0 +1,128 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.Subscription.SubscriptionPriority;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
+
+/**
+ * Test {@link ReadyAllocationQueue}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class ReadyAllocationQueueTest {
+
+    private final ReadyAllocationQueue queue = new ReadyAllocationQueue();
+
+    private long nextId = 1;
+
+    @Test
+    public void pollsInBucketThenPriorityOrder() {
+        BandwidthAllocation lowLater = allocation(SubscriptionPriority.LOW);
+        BandwidthAllocation normal = allocation(SubscriptionPriority.NORMAL);
+        BandwidthAllocation high = allocation(SubscriptionPriority.HIGH);
+        queue.update(lowLater, 20L);
+        queue.update(normal, 10L);
+        queue.update(high, 10L);
+
+        assertSame(high, queue.poll(Long.MIN_VALUE, 100L).getAllocation());
+        assertSame(normal, queue.poll(Long.MIN_VALUE, 100L).getAllocation());
+        assertSame(lowLater, queue.poll(Long.MIN_VALUE, 100L).getAllocation());
+        assertNull(queue.poll(Long.MIN_VALUE, 100L));
+    }
+
+    @Test
+    public void doesNotPollFutureBuckets() {
+        BandwidthAllocation future = allocation(SubscriptionPriority.HIGH);
+        queue.update(future, 200L);
+
+        assertNull(queue.poll(Long.MIN_VALUE, 100L));
+        assertSame(future, queue.poll(Long.MIN_VALUE, 200L).getAllocation());
+    }
+
+    @Test
+    public void pollStartsAtEarliestBucket() {
+        BandwidthAllocation first = allocation(SubscriptionPriority.HIGH);
+        BandwidthAllocation second = allocation(SubscriptionPriority.HIGH);
+        queue.update(first, 10L);
+        queue.update(second, 20L);
+
+        assertSame(second, queue.poll(11L, 100L).getAllocation());
+        assertSame(first, queue.poll(Long.MIN_VALUE, 100L).getAllocation());
+    }
+
+    @Test
+    public void allocationsNoLongerReadyAreRemoved() {
+        BandwidthAllocation allocation = allocation(SubscriptionPriority.HIGH);
+        queue.update(allocation, 10L);
+
+        allocation.setStatus(RetrievalStatus.PROCESSING);
+        queue.update(allocation, 10L);
+
+        assertNull(queue.poll(Long.MIN_VALUE, 100L));
+    }
+
+    @Test
+    public void allocationStaysUnderEarliestBucket() {
+        BandwidthAllocation allocation = allocation(SubscriptionPriority.HIGH);
+        queue.update(allocation, 20L);
+        queue.update(allocation, 10L);
+        queue.update(allocation, 30L);
+
+        ReadyAllocationQueue.Ready ready = queue.poll(Long.MIN_VALUE, 100L);
+        assertEquals(10L, ready.getBucketStartTime());
+        assertNull(queue.poll(Long.MIN_VALUE, 100L));
+    }
+
+    @Test
+    public void removeUpToReturnsRemovedAllocations() {
+        BandwidthAllocation past = allocation(SubscriptionPriority.HIGH);
+        BandwidthAllocation current = allocation(SubscriptionPriority.HIGH);
+        queue.update(past, 10L);
+        queue.update(current, 20L);
+
+        assertEquals(1, queue.removeUpTo(10L).size());
+        assertSame(current, queue.poll(Long.MIN_VALUE, 100L).getAllocation());
+    }
+
+    private BandwidthAllocation allocation(SubscriptionPriority priority) {
+        BandwidthAllocation allocation = new BandwidthAllocation();
+        allocation.setId(nextId++);
+        allocation.setPriority(priority);
+        allocation.setStatus(RetrievalStatus.READY);
+        return allocation;
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthMap;
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthRoute;
+import com.raytheon.uf.common.datadelivery.registry.Network;
+import com.raytheon.uf.common.datadelivery.registry.Subscription.SubscriptionPriority;
+import com.raytheon.uf.common.time.util.TimeUtil;
+import com.raytheon.uf.edex.datadelivery.bandwidth.InMemoryBandwidthBucketDao;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthAllocation;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthBucketDao;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
+
+/**
+ * Stress {@link RetrievalPlan} from several threads at once and verify the
+ * bucket byte counts and request mappings stay consistent.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class RetrievalPlanConcurrencyTest {
+
+    private static final Network NETWORK = Network.SBN;
+
+    private static final int BANDWIDTH = 100;
+
+    private static final int WRITERS = 8;
+
+    private static final int READERS = 2;
+
+    private static final int OPERATIONS_PER_WRITER = 250;
+
+    private final AtomicLong ids = new AtomicLong(1);
+
+    private final Map<Long, BandwidthAllocation> scheduled = new ConcurrentHashMap<>();
+
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    private IBandwidthBucketDao bucketsDao;
+
+    private RetrievalPlan plan;
+
+    @Before
+    public void setUp() {
+        BandwidthRoute route = new BandwidthRoute();
+        route.setNetwork(NETWORK);
+        route.setPlanDays(1);
+        route.setBucketSizeMinutes(3);
+        route.setDefaultBandwidth(BANDWIDTH);
+
+        BandwidthMap map = mock(BandwidthMap.class);
+        when(map.getRoute(NETWORK)).thenReturn(route);
+        when(map.getBandwidth(eq(NETWORK), any(Calendar.class)))
+                .thenReturn(BANDWIDTH);
+
+        IBandwidthDao<?, ?> bandwidthDao = mock(IBandwidthDao.class);
+        bucketsDao = new InMemoryBandwidthBucketDao();
+
+        plan = new RetrievalPlan();
+        plan.setNetwork(NETWORK);
+        plan.setMap(map);
+        plan.setBandwidthDao(bandwidthDao);
+        plan.setBucketsDao(bucketsDao);
+        plan.setAssociator(new InMemoryBandwidthBucketAllocationAssociator(
+                bandwidthDao, bucketsDao));
+        plan.init();
+    }
+
+    @Test
+    public void concurrentScheduleRemoveAndReadsKeepPlanConsistent()
+            throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+
+        for (int i = 0; i < WRITERS; i++) {
+            final long seed = i;
+            writers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    write(new Random(seed));
+                }
+            }));
+        }
+        for (int i = 0; i < READERS; i++) {
+            readers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    while (writing.get()) {
+                        read();
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : readers) {
+            thread.start();
+        }
+        for (Thread thread : writers) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : writers) {
+            thread.join();
+        }
+        writing.set(false);
+        for (Thread thread : readers) {
+            thread.join();
+        }
+
+        assertTrue("Unexpected failures: " + failures, failures.isEmpty());
+        assertTrue("Expected some allocations to remain scheduled",
+                !scheduled.isEmpty());
+
+        // Every bucket holds exactly the bytes of its allocations, and every
+        // remaining allocation is in exactly one bucket
+        Set<Long> found = new HashSet<>();
+        for (BandwidthBucket bucket : bucketsDao.getAll(NETWORK)) {
+            long expectedBytes = 0;
+            for (BandwidthAllocation allocation : plan
+                    .getBandwidthAllocationsForBucket(bucket)) {
+                expectedBytes += allocation.getEstimatedSizeInBytes();
+                assertTrue("Allocation in more than one bucket",
+                        found.add(allocation.getId()));
+            }
+            assertEquals(expectedBytes, bucket.getCurrentSize());
+        }
+        assertEquals(scheduled.keySet(), found);
+
+        // The request mappings must lead back to those buckets
+        for (BandwidthAllocation allocation : scheduled.values()) {
+            plan.remove(allocation);
+        }
+        for (BandwidthBucket bucket : bucketsDao.getAll(NETWORK)) {
+            assertEquals(0L, bucket.getCurrentSize());
+            assertTrue(plan.getBandwidthAllocationsForBucket(bucket).isEmpty());
+        }
+    }
+
+    private void write(Random random) {
+        try {
+            List<BandwidthAllocation> mine = new ArrayList<>();
+            long planStart = plan.getPlanStart().getTimeInMillis();
+            for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                int operation = random.nextInt(4);
+                if (operation == 0 && !mine.isEmpty()) {
+                    BandwidthAllocation allocation = mine
+                            .remove(random.nextInt(mine.size()));
+                    plan.remove(allocation);
+                    scheduled.remove(allocation.getId());
+                } else if (operation == 1 && !mine.isEmpty()) {
+                    plan.updateBandwidthReservation(
+                            mine.get(random.nextInt(mine.size())));
+                } else {
+                    BandwidthAllocation allocation = newAllocation(random,
+                            planStart);
+                    List<UnscheduledAllocationReport> unscheduled = plan
+                            .schedule(allocation);
+                    assertTrue(unscheduled.isEmpty());
+                    mine.add(allocation);
+                    scheduled.put(allocation.getId(), allocation);
+                }
+            }
+        } catch (Throwable t) {
+            failures.add(t);
+        }
+    }
+
+    private void read() {
+        try {
+            for (BandwidthBucket bucket : plan.getBucketsInWindow(
+                    plan.getPlanStart().getTimeInMillis(),
+                    plan.getPlanEnd().getTimeInMillis())) {
+                plan.getBandwidthAllocationsForBucket(bucket);
+            }
+            plan.showPlan();
+        } catch (Throwable t) {
+            failures.add(t);
+        }
+    }
+
+    private BandwidthAllocation newAllocation(Random random, long planStart) {
+        long start = planStart + TimeUtil.MILLIS_PER_MINUTE
+                + random.nextInt((int) (12 * TimeUtil.MILLIS_PER_HOUR));
+        BandwidthAllocation allocation = new BandwidthAllocation();
+        allocation.setId(ids.getAndIncrement());
+        allocation.setNetwork(NETWORK);
+        allocation.setPriority(SubscriptionPriority.values()[random
+                .nextInt(SubscriptionPriority.values().length)]);
+        allocation.setStartTime(new Date(start));
+        allocation.setEndTime(new Date(start + TimeUtil.MILLIS_PER_HOUR));
+        // Small enough to never fill or split across buckets
+        allocation.setEstimatedSize(1 + random.nextInt(10));
+        return allocation;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
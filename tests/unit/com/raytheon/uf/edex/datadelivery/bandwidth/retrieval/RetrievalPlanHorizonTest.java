@@ -0,0 +1,167 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.bandwidth.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthMap;
+import com.raytheon.uf.common.datadelivery.bandwidth.data.BandwidthRoute;
+import com.raytheon.uf.common.datadelivery.registry.Network;
+import com.raytheon.uf.common.time.util.TimeUtil;
+import com.raytheon.uf.edex.datadelivery.bandwidth.InMemoryBandwidthBucketDao;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.BandwidthBucket;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthBucketDao;
+import com.raytheon.uf.edex.datadelivery.bandwidth.dao.IBandwidthDao;
+
+/**
+ * Test the buckets {@link RetrievalPlan} creates past the end of the plan.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class RetrievalPlanHorizonTest {
+
+    private static final Network NETWORK = Network.SBN;
+
+    private static final int BUCKET_MINUTES = 3;
+
+    private static final long BUCKET_MILLIS = BUCKET_MINUTES
+            * TimeUtil.MILLIS_PER_MINUTE;
+
+    private static final int HORIZON_MINUTES = 60;
+
+    private IBandwidthBucketDao bucketsDao;
+
+    private RetrievalPlan plan;
+
+    @Before
+    public void setUp() {
+        BandwidthRoute route = new BandwidthRoute();
+        route.setNetwork(NETWORK);
+        route.setPlanDays(1);
+        route.setBucketSizeMinutes(BUCKET_MINUTES);
+        route.setDefaultBandwidth(100);
+
+        BandwidthMap map = mock(BandwidthMap.class);
+        when(map.getRoute(NETWORK)).thenReturn(route);
+        when(map.getBandwidth(eq(NETWORK), any(Calendar.class)))
+                .thenReturn(100);
+
+        IBandwidthDao<?, ?> bandwidthDao = mock(IBandwidthDao.class);
+        bucketsDao = new InMemoryBandwidthBucketDao();
+
+        plan = new RetrievalPlan();
+        plan.setNetwork(NETWORK);
+        plan.setMap(map);
+        plan.setBandwidthDao(bandwidthDao);
+        plan.setBucketsDao(bucketsDao);
+        plan.setAssociator(new InMemoryBandwidthBucketAllocationAssociator(
+                bandwidthDao, bucketsDao));
+        plan.setHorizonMinutes(HORIZON_MINUTES);
+        plan.init();
+    }
+
+    @Test
+    public void initCreatesBucketsPastTheEndOfThePlan() {
+        long end = plan.getPlanEnd().getTimeInMillis();
+        long last = lastBucketStart();
+
+        assertTrue(last > end + (HORIZON_MINUTES - BUCKET_MINUTES)
+                * TimeUtil.MILLIS_PER_MINUTE);
+        assertTrue(last <= end + HORIZON_MINUTES * TimeUtil.MILLIS_PER_MINUTE);
+        assertContiguous();
+    }
+
+    @Test
+    public void resizeWithinTheHorizonCreatesNoBuckets() {
+        long last = lastBucketStart();
+
+        RetrievalPlanTest.resizePlan(plan,
+                plan.getPlanStart().getTimeInMillis(), last);
+
+        assertEquals(last, lastBucketStart());
+        assertEquals(last, plan.getPlanEnd().getTimeInMillis());
+    }
+
+    @Test
+    public void resizePastTheHorizonCreatesTheMissingBuckets() {
+        long end = lastBucketStart() + 10 * BUCKET_MILLIS;
+
+        RetrievalPlanTest.resizePlan(plan,
+                plan.getPlanStart().getTimeInMillis(), end);
+
+        assertEquals(end, lastBucketStart());
+        assertContiguous();
+    }
+
+    @Test
+    public void extendHorizonOnlyExtendsBelowTheLowWaterMark() {
+        long start = plan.getPlanStart().getTimeInMillis();
+        long end = plan.getPlanEnd().getTimeInMillis();
+        long last = lastBucketStart();
+
+        // Less than half the horizon used
+        RetrievalPlanTest.resizePlan(plan, start,
+                end + HORIZON_MINUTES / 4 * TimeUtil.MILLIS_PER_MINUTE);
+        plan.extendHorizon();
+        assertEquals(last, lastBucketStart());
+
+        // More than half the horizon used
+        RetrievalPlanTest.resizePlan(plan, start,
+                end + HORIZON_MINUTES * 3 / 4 * TimeUtil.MILLIS_PER_MINUTE);
+        plan.extendHorizon();
+        assertTrue(lastBucketStart() > plan.getPlanEnd().getTimeInMillis()
+                + (HORIZON_MINUTES - BUCKET_MINUTES)
+                        * TimeUtil.MILLIS_PER_MINUTE);
+        assertContiguous();
+    }
+
+    private long lastBucketStart() {
+        return bucketsDao.getLastBucket(NETWORK).getBucketStartTime();
+    }
+
+    private void assertContiguous() {
+        List<BandwidthBucket> buckets = bucketsDao.getAll(NETWORK);
+        for (int i = 1; i < buckets.size(); i++) {
+            assertEquals(BUCKET_MILLIS, buckets.get(i).getBucketStartTime()
+                    - buckets.get(i - 1).getBucketStartTime());
+        }
+    }
+}
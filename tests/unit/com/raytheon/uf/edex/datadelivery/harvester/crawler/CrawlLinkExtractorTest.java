@@ -0,0 +1,319 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.harvester.crawler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.raytheon.uf.edex.datadelivery.harvester.crawler.CrawlLinkExtractor.Extraction;
+import com.raytheon.uf.edex.datadelivery.harvester.crawler.CrawlLinkExtractor.Result;
+import com.raytheon.uf.edex.datadelivery.retrieval.interfaces.IExtractMetaData;
+
+import opendap.dap.DAS;
+
+/**
+ * Test {@link CrawlLinkExtractor}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Test the per host queues.
+ *
+ * </pre>
+ *
+ */
+public class CrawlLinkExtractorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    /** Extractions running per host */
+    private final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+
+    /** Most extractions seen running per host */
+    private final Map<String, Integer> maxRunning = new ConcurrentHashMap<>();
+
+    private final AtomicInteger maxRunningTotal = new AtomicInteger();
+
+    private final AtomicInteger runningTotal = new AtomicInteger();
+
+    private final List<Long> startTimes = Collections
+            .synchronizedList(new ArrayList<Long>());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAllLinksAreExtracted() throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 2, 0L,
+                0, 0L);
+        List<CrawlerLink> links = links("nomads.ncep.noaa.gov", 10);
+
+        List<Result> results = getAll(
+                extractor.extract(links, () -> new TestExtractor(10L), "gfs"));
+
+        assertEquals(links.size(), results.size());
+        for (Result result : results) {
+            assertTrue(result.isExtracted());
+            assertTrue(result.getLink().getMetadata()
+                    .containsKey(result.getLink().getUrl()));
+        }
+    }
+
+    @Test
+    public void testFailedLinkIsRetriedThenReported()
+            throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 2, 0L,
+                2, 1L);
+        TestExtractor failing = new TestExtractor(0L);
+        failing.fail = true;
+
+        List<Result> results = getAll(extractor.extract(
+                links("nomads.ncep.noaa.gov", 1), () -> failing, "gfs"));
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isExtracted());
+        assertEquals(3, failing.attempts.get());
+    }
+
+    @Test
+    public void testRequestsPerHostAreLimited() throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 2, 0L,
+                0, 0L);
+        List<CrawlerLink> links = links("nomads.ncep.noaa.gov", 8);
+        links.addAll(links("ftp.ncep.noaa.gov", 8));
+
+        getAll(extractor.extract(links, () -> new TestExtractor(30L), "gfs"));
+
+        assertTrue(maxRunning.get("nomads.ncep.noaa.gov") <= 2);
+        assertTrue(maxRunning.get("ftp.ncep.noaa.gov") <= 2);
+        // Both hosts were extracted from at the same time
+        assertTrue(maxRunningTotal.get() > 2);
+    }
+
+    @Test
+    public void testRequestsToHostAreSpacedByDelay()
+            throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 4,
+                50L, 0, 0L);
+
+        getAll(extractor.extract(links("nomads.ncep.noaa.gov", 4),
+                () -> new TestExtractor(0L), "gfs"));
+
+        List<Long> starts = new ArrayList<>(startTimes);
+        Collections.sort(starts);
+        for (int i = 1; i < starts.size(); i++) {
+            // Allow for the clock granularity
+            assertTrue(starts.get(i) - starts.get(i - 1) >= 40L);
+        }
+    }
+
+    @Test
+    public void testFinishedLinksAreReturnedBeforeSlowLink()
+            throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 4, 0L,
+                0, 0L);
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        List<CrawlerLink> links = links("nomads.ncep.noaa.gov", 3);
+        AtomicInteger created = new AtomicInteger();
+
+        Extraction extraction = extractor.extract(links, () -> {
+            TestExtractor mde = new TestExtractor(0L);
+            if (created.getAndIncrement() == 0) {
+                mde.release = slowRelease;
+            }
+            return mde;
+        }, "gfs");
+
+        int returned = 0;
+        while (returned < 2) {
+            returned += extraction.next().size();
+        }
+        assertEquals(2, returned);
+        assertTrue(extraction.hasNext());
+
+        slowRelease.countDown();
+        assertEquals(1, extraction.next().size());
+        assertFalse(extraction.hasNext());
+    }
+
+    @Test
+    public void testBusyHostDoesNotHoldUpOtherHosts()
+            throws InterruptedException {
+        ExecutorService twoThreads = Executors.newFixedThreadPool(2);
+        try {
+            CrawlLinkExtractor extractor = new CrawlLinkExtractor(twoThreads,
+                    1, 0L, 0, 0L);
+            CountDownLatch slowRelease = new CountDownLatch(1);
+
+            Extraction slow = extractor.extract(
+                    links("nomads.ncep.noaa.gov", 4), () -> {
+                        TestExtractor mde = new TestExtractor(0L);
+                        mde.release = slowRelease;
+                        return mde;
+                    }, "gfs");
+            List<Result> results = getAll(extractor.extract(
+                    links("ftp.ncep.noaa.gov", 3), () -> new TestExtractor(0L),
+                    "gfs"));
+
+            // Only one thread went to the slow host, the other did the rest
+            assertEquals(3, results.size());
+            assertEquals(1, running.get("nomads.ncep.noaa.gov").get());
+            assertTrue(slow.hasNext());
+
+            slowRelease.countDown();
+            assertEquals(4, getAll(slow).size());
+        } finally {
+            twoThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHostLimitIsSharedBetweenExtractions()
+            throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 2, 0L,
+                0, 0L);
+
+        Extraction first = extractor.extract(links("nomads.ncep.noaa.gov", 6),
+                () -> new TestExtractor(20L), "gfs");
+        Extraction second = extractor.extract(
+                links("nomads.ncep.noaa.gov", 6), () -> new TestExtractor(20L),
+                "rap");
+
+        assertEquals(6, getAll(first).size());
+        assertEquals(6, getAll(second).size());
+        assertEquals(2, maxRunning.get("nomads.ncep.noaa.gov").intValue());
+    }
+
+    @Test
+    public void testCancelledLinksAreNotExtracted()
+            throws InterruptedException {
+        CrawlLinkExtractor extractor = new CrawlLinkExtractor(executor, 1, 0L,
+                0, 0L);
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+
+        Extraction extraction = extractor.extract(
+                links("nomads.ncep.noaa.gov", 5), () -> {
+                    TestExtractor mde = new TestExtractor(0L);
+                    if (created.getAndIncrement() == 0) {
+                        mde.release = slowRelease;
+                    }
+                    return mde;
+                }, "gfs");
+        extraction.cancel();
+        slowRelease.countDown();
+
+        for (Result result : getAll(extraction)) {
+            assertFalse(result.isExtracted());
+        }
+        assertTrue(startTimes.size() <= 1);
+    }
+
+    private static List<Result> getAll(Extraction extraction)
+            throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        while (extraction.hasNext()) {
+            results.addAll(extraction.next());
+        }
+        return results;
+    }
+
+    private static List<CrawlerLink> links(String host, int count) {
+        List<CrawlerLink> links = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CrawlerLink link = new CrawlerLink();
+            link.setUrl("http://" + host + "/dods/gfs/gfs" + i + ".das");
+            links.add(link);
+        }
+        return links;
+    }
+
+    private class TestExtractor implements IExtractMetaData<String, DAS> {
+
+        private final long sleepMillis;
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private boolean fail;
+
+        private CountDownLatch release;
+
+        private TestExtractor(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public Map<String, DAS> extractMetaData(String url) throws Exception {
+            startTimes.add(System.currentTimeMillis());
+            attempts.incrementAndGet();
+            String host = url.split("/")[2];
+            int nowRunning = running
+                    .computeIfAbsent(host, h -> new AtomicInteger())
+                    .incrementAndGet();
+            maxRunning.merge(host, nowRunning, Math::max);
+            maxRunningTotal.accumulateAndGet(runningTotal.incrementAndGet(),
+                    Math::max);
+            try {
+                if (release != null) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                Thread.sleep(sleepMillis);
+                if (fail) {
+                    throw new IllegalStateException("Unable to reach " + url);
+                }
+                return Collections.singletonMap(url, new DAS());
+            } finally {
+                running.get(host).decrementAndGet();
+                runningTotal.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void setDataDate() throws Exception {
+        }
+
+        @Override
+        public Date getDataDate() {
+            return null;
+        }
+    }
+}
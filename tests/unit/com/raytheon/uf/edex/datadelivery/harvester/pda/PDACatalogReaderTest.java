@@ -0,0 +1,269 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.harvester.pda;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.raytheon.uf.common.util.TestUtil;
+import com.raytheon.uf.edex.datadelivery.harvester.pda.PDACatalogReader.Result;
+
+import net.opengis.cat.csw.v_2_0_2.BriefRecordType;
+import net.opengis.ows.v_1_0_0.BoundingBoxType;
+
+/**
+ * Test {@link PDACatalogReader}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Bind a PDA catalog sample with the handler's
+ *                                  classes, run the heap benchmark by hand.
+ *
+ * </pre>
+ *
+ */
+public class PDACatalogReaderTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<csw:GetRecordsResponse"
+            + " xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\""
+            + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\""
+            + " xmlns:ows=\"http://www.opengis.net/ows\" version=\"2.0.2\">\n"
+            + "<csw:SearchStatus timestamp=\"2026-10-17T00:00:00Z\"/>\n"
+            + "<csw:SearchResults elementSet=\"brief\">\n";
+
+    private static final String FOOTER = "</csw:SearchResults>\n"
+            + "</csw:GetRecordsResponse>\n";
+
+    private static final int PARSE_THREADS = 4;
+
+    private static final int MAX_PENDING = PARSE_THREADS + 100;
+
+    private final ExecutorService executor = Executors
+            .newFixedThreadPool(PARSE_THREADS);
+
+    private PDACatalogReader reader;
+
+    private File catalog;
+
+    @Before
+    public void setUp() throws Exception {
+        reader = new PDACatalogReader(
+                JAXBContext.newInstance(PDAMetaDataHandler.classes), executor,
+                MAX_PENDING);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (catalog != null) {
+            catalog.delete();
+        }
+    }
+
+    @Test
+    public void testAllRecordsAreRead() throws Exception {
+        // Records back to back, without whitespace between them
+        String xml = HEADER + record(0) + record(1) + "\n" + record(2)
+                + FOOTER;
+        List<String> ids = Collections
+                .synchronizedList(new ArrayList<String>());
+
+        Result result = reader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                record -> ids.add(getIdentifier(record)));
+
+        assertEquals(3, result.getHandled());
+        assertEquals(0, result.getFailed());
+        Collections.sort(ids);
+        assertEquals(Arrays.asList("record-0", "record-1", "record-2"), ids);
+    }
+
+    @Test
+    public void testFailedRecordsAreCounted() throws Exception {
+        String xml = HEADER + record(0) + record(1) + record(2) + FOOTER;
+
+        Result result = reader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                record -> {
+                    if ("record-1".equals(getIdentifier(record))) {
+                        throw new IllegalStateException("Unable to parse");
+                    }
+                });
+
+        assertEquals(2, result.getHandled());
+        assertEquals(1, result.getFailed());
+    }
+
+    @Test
+    public void testEmptyCatalog() throws Exception {
+        String xml = HEADER + FOOTER;
+
+        Result result = reader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                record -> {
+                    throw new IllegalStateException("No records expected");
+                });
+
+        assertEquals(0, result.getHandled());
+        assertEquals(0, result.getFailed());
+    }
+
+    /**
+     * Reads a catalog laid out the way PDA returns one, with the full
+     * identifiers the metadata parser splits apart.
+     */
+    @Test
+    public void testCatalogSampleIsBound() throws Exception {
+        Map<String, BriefRecordType> records = new ConcurrentHashMap<>();
+
+        Result result = reader.read(
+                new ByteArrayInputStream(TestUtil.readResource(
+                        PDACatalogReaderTest.class, "pdaCatalog.xml")),
+                record -> records.put(getTitle(record), record));
+
+        assertEquals(3, result.getHandled());
+        assertEquals(0, result.getFailed());
+        BriefRecordType record = records.get(
+                "OR_ABI-L2-DMWF-M4C07_G16_s20161932020192_e20161932025000_c20161932032500.nc");
+        assertNotNull(record);
+        assertTrue(getIdentifier(record).startsWith("38948631|ABI-L2-DMWF|"));
+        assertTrue(getIdentifier(record).endsWith(
+                "|OR_ABI-L2-DMWF-M4C07_G16_s20161932020192_e20161932025000_c20161932032500.nc|NetCDF4"));
+        BoundingBoxType boundingBox = record.getBoundingBox().get(0)
+                .getValue();
+        assertEquals("urn:ogc:def:crs:EPSG::4326", boundingBox.getCrs());
+        assertEquals(Arrays.asList(-81.3282, -156.2995),
+                boundingBox.getLowerCorner());
+        assertEquals(Arrays.asList(81.3282, 6.2995),
+                boundingBox.getUpperCorner());
+    }
+
+    /**
+     * Reads a synthetic catalog of 100,000 records, sampling the live heap as
+     * it goes. Reading the whole catalog into a JAXB tree needs several times
+     * the size of the file, streaming it should need about the same no matter
+     * how many records there are.
+     */
+    @Ignore("Benchmark, run by hand")
+    @Test
+    public void testPeakHeapIsIndependentOfCatalogSize() throws Exception {
+        final int records = 100_000;
+        final int sampleInterval = 10_000;
+        catalog = writeCatalog(records);
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        final AtomicLong peak = new AtomicLong(baseline);
+        final AtomicInteger count = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        Result result;
+        try (InputStream is = new BufferedInputStream(
+                new FileInputStream(catalog))) {
+            result = reader.read(is, record -> {
+                if (count.incrementAndGet() % sampleInterval == 0) {
+                    // Only what is still reachable counts
+                    System.gc();
+                    peak.accumulateAndGet(
+                            memory.getHeapMemoryUsage().getUsed(), Math::max);
+                }
+            });
+        }
+        long millis = System.currentTimeMillis() - start;
+
+        long growth = Math.max(0L, peak.get() - baseline);
+        System.out.println("Read " + result.getHandled() + " records from a "
+                + catalog.length() / 1024 + " KB catalog in " + millis
+                + " ms, peak live heap growth " + growth / 1024 + " KB");
+        assertEquals(records, result.getHandled());
+        assertEquals(0, result.getFailed());
+        assertTrue("Live heap grew by " + growth + " bytes",
+                growth < catalog.length() / 4);
+    }
+
+    private static File writeCatalog(int records) throws IOException {
+        File file = File.createTempFile("pdaCatalog", ".xml");
+        try (Writer writer = Files.newBufferedWriter(file.toPath(),
+                StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            for (int i = 0; i < records; i++) {
+                writer.write(record(i));
+                writer.write('\n');
+            }
+            writer.write(FOOTER);
+        }
+        return file;
+    }
+
+    private static String record(int i) {
+        return "<csw:BriefRecord>" + "<dc:identifier>record-" + i
+                + "</dc:identifier>"
+                + "<dc:title>OR_ABI-L2-CMIPF-M6C13_G16_s2026290" + i
+                + ".nc</dc:title>" + "<dc:type>dataset</dc:type>"
+                + "<ows:BoundingBox crs=\"urn:ogc:def:crs:EPSG::4326\">"
+                + "<ows:LowerCorner>-81.3282 -156.2995</ows:LowerCorner>"
+                + "<ows:UpperCorner>81.3282 6.2995</ows:UpperCorner>"
+                + "</ows:BoundingBox>" + "</csw:BriefRecord>";
+    }
+
+    private static String getIdentifier(BriefRecordType record) {
+        return record.getIdentifier().get(0).getValue().getContent().get(0);
+    }
+
+    private static String getTitle(BriefRecordType record) {
+        return record.getTitle().get(0).getValue().getContent().get(0);
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.HibernateException;
+import org.hibernate.exception.GenericJDBCException;
+import org.hibernate.exception.SQLGrammarException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.raytheon.uf.common.util.SpringFiles;
+import com.raytheon.uf.common.util.TestUtil;
+import com.raytheon.uf.edex.database.DataAccessLayerException;
+import com.raytheon.uf.edex.datadelivery.retrieval.db.RetrievalRequestRecord.State;
+
+/**
+ * Test claiming retrievals with
+ * {@link RetrievalDao#activateNextRetrievalRequests(String, int)}. The unit
+ * test database is not PostgreSQL, so this covers the row locking claim; the
+ * SKIP LOCKED statement needs PostgreSQL 9.5 or later.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Test which errors disable SKIP LOCKED.
+ *
+ * </pre>
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { SpringFiles.UNIT_TEST_DB_BEANS_XML,
+        SpringFiles.RETRIEVAL_DATADELIVERY_DAOS_XML })
+@TransactionConfiguration(transactionManager = TestUtil.METADATA_TX_MANAGER, defaultRollback = true)
+@Transactional
+public class RetrievalDaoTest {
+
+    private static final String NOMADS = "NOMADS";
+
+    private static final String PDA = "PDA";
+
+    @Autowired
+    private RetrievalDao dao;
+
+    @Test
+    public void testBestPendingAreClaimedInPriorityThenIdOrder()
+            throws DataAccessLayerException {
+        RetrievalRequestRecord low = create(NOMADS, 3, State.PENDING);
+        RetrievalRequestRecord firstHigh = create(NOMADS, 1, State.PENDING);
+        RetrievalRequestRecord secondHigh = create(NOMADS, 1, State.PENDING);
+        RetrievalRequestRecord middle = create(NOMADS, 2, State.PENDING);
+
+        List<RetrievalRequestRecord> claimed = dao
+                .activateNextRetrievalRequests(NOMADS, 3);
+
+        assertEquals(ids(firstHigh, secondHigh, middle), ids(claimed));
+        for (RetrievalRequestRecord rec : claimed) {
+            assertEquals(State.RUNNING, dao.getById(rec.getId()).getState());
+        }
+        assertEquals(State.PENDING, dao.getById(low.getId()).getState());
+    }
+
+    @Test
+    public void testOnlyPendingOfProviderAreClaimed()
+            throws DataAccessLayerException {
+        RetrievalRequestRecord pending = create(NOMADS, 2, State.PENDING);
+        create(NOMADS, 1, State.RUNNING);
+        create(NOMADS, 1, State.COMPLETED);
+        RetrievalRequestRecord otherProvider = create(PDA, 1, State.PENDING);
+
+        List<RetrievalRequestRecord> claimed = dao
+                .activateNextRetrievalRequests(NOMADS, 10);
+
+        assertEquals(ids(pending), ids(claimed));
+        assertEquals(State.PENDING,
+                dao.getById(otherProvider.getId()).getState());
+    }
+
+    @Test
+    public void testClaimedRetrievalsAreNotClaimedAgain()
+            throws DataAccessLayerException {
+        for (int i = 0; i < 5; i++) {
+            create(NOMADS, i % 2, State.PENDING);
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        int claims = 0;
+        List<RetrievalRequestRecord> claimed;
+        while (!(claimed = dao.activateNextRetrievalRequests(NOMADS, 2))
+                .isEmpty()) {
+            assertTrue(claimed.size() <= 2);
+            for (RetrievalRequestRecord rec : claimed) {
+                assertTrue("Claimed twice: " + rec.getId(),
+                        seen.add(rec.getId()));
+            }
+            claims++;
+        }
+
+        assertEquals(5, seen.size());
+        assertEquals(3, claims);
+    }
+
+    @Test
+    public void testUnsupportedSkipLockedIsRecognized() {
+        assertTrue(RetrievalDao.isUnsupportedStatement(new SQLGrammarException(
+                "could not execute query",
+                new SQLException("syntax error at or near \"skip\"",
+                        "42601"))));
+        assertTrue(RetrievalDao.isUnsupportedStatement(
+                new HibernateException(new SQLException("not supported",
+                        "0A000"))));
+    }
+
+    @Test
+    public void testTransientErrorsAreNotUnsupported() {
+        // connection failure, deadlock and statement timeout
+        for (String state : new String[] { "08006", "40P01", "57014" }) {
+            assertFalse(state, RetrievalDao.isUnsupportedStatement(
+                    new GenericJDBCException("could not execute query",
+                            new SQLException("failed", state))));
+        }
+        assertFalse(RetrievalDao.isUnsupportedStatement(
+                new HibernateException("no SQLException")));
+    }
+
+    private RetrievalRequestRecord create(String provider, int priority,
+            State state) {
+        RetrievalRequestRecord rec = new RetrievalRequestRecord();
+        rec.setDsmdUrl("http://nomads.ncep.noaa.gov/dods/gfs");
+        rec.setOwner("owner");
+        rec.setSubscriptionName("subscription");
+        rec.setState(state);
+        rec.setPriority(priority);
+        rec.setProvider(provider);
+        rec.setDataSetName("gfs");
+        rec.setInsertTime(new Date());
+        rec.setLatencyExpireTime(new Date());
+        rec.setLatencyMinutes(60);
+        rec.setRetrieval(new byte[] { 0 });
+        dao.create(rec);
+        return rec;
+    }
+
+    private static List<Integer> ids(RetrievalRequestRecord... records) {
+        List<Integer> ids = new ArrayList<>();
+        for (RetrievalRequestRecord rec : records) {
+            ids.add(rec.getId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<RetrievalRequestRecord> records) {
+        return ids(records.toArray(new RetrievalRequestRecord[0]));
+    }
+}
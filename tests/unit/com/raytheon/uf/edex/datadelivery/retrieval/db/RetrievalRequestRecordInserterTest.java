@@ -0,0 +1,204 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.h2.tools.SimpleResultSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.Network;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval.SubscriptionType;
+import com.raytheon.uf.edex.datadelivery.retrieval.db.RetrievalRequestRecord.State;
+
+/**
+ * Test {@link RetrievalRequestRecordInserter} against an in-memory H2
+ * database.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class RetrievalRequestRecordInserterTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        Class.forName("org.h2.Driver");
+        connection = DriverManager
+                .getConnection("jdbc:h2:mem:retrievalInsert;MODE=PostgreSQL");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create sequence subscription_retrieval_seq");
+            stmt.execute("create alias generate_series for \""
+                    + getClass().getName() + ".generateSeries\"");
+            stmt.execute("create table subscription_retrieval ("
+                    + "id integer primary key, dsmdUrl varchar(255) not null, "
+                    + "owner varchar(255) not null, "
+                    + "subscriptionName varchar(255) not null, "
+                    + "state varchar(255) not null, priority integer not null, "
+                    + "provider varchar(255) not null, "
+                    + "dataSetName varchar(255) not null, "
+                    + "insertTime timestamp not null, "
+                    + "latencyExpireTime timestamp not null, "
+                    + "latencyMinutes integer not null, "
+                    + "requestRetrievalTime bigint, network varchar(255), "
+                    + "subscriptionType varchar(255), "
+                    + "retrieval binary(100000) not null)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testRecordsAreInsertedInBatchesWithUniqueIds()
+            throws SQLException {
+        List<RetrievalRequestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            records.add(record(i));
+        }
+
+        new RetrievalRequestRecordInserter(10).insert(connection, records);
+
+        Set<Integer> ids = new HashSet<>();
+        for (RetrievalRequestRecord rec : records) {
+            assertTrue(rec.getId() > 0);
+            ids.add(rec.getId());
+        }
+        assertEquals(records.size(), ids.size());
+
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "select count(*) from subscription_retrieval")) {
+            assertTrue(rs.next());
+            assertEquals(records.size(), rs.getInt(1));
+        }
+    }
+
+    @Test
+    public void testColumnsAreWritten() throws SQLException {
+        RetrievalRequestRecord rec = record(7);
+        rec.setRequestRetrievalTime(null);
+        rec.setNetwork(Network.OPSNET);
+        List<RetrievalRequestRecord> records = new ArrayList<>();
+        records.add(rec);
+
+        new RetrievalRequestRecordInserter(500).insert(connection, records);
+
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "select subscriptionName, state, priority, network, "
+                                + "subscriptionType, requestRetrievalTime, "
+                                + "retrieval from subscription_retrieval where id = "
+                                + rec.getId())) {
+            assertTrue(rs.next());
+            assertEquals("sub7", rs.getString(1));
+            assertEquals(State.PENDING.name(), rs.getString(2));
+            assertEquals(7, rs.getInt(3));
+            assertEquals(Network.OPSNET.name(), rs.getString(4));
+            assertEquals(SubscriptionType.SUBSCRIBED.name(), rs.getString(5));
+            rs.getLong(6);
+            assertTrue(rs.wasNull());
+            assertArrayEquals(new byte[] { 1, 2, 7 }, rs.getBytes(7));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testNullColumnsAreWritten() throws SQLException {
+        RetrievalRequestRecord rec = record(1);
+        rec.setNetwork(null);
+        rec.setSubscriptionType(null);
+        List<RetrievalRequestRecord> records = new ArrayList<>();
+        records.add(rec);
+
+        new RetrievalRequestRecordInserter(1).insert(connection, records);
+
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "select network, subscriptionType from subscription_retrieval")) {
+            assertTrue(rs.next());
+            assertNull(rs.getString(1));
+            assertNull(rs.getString(2));
+        }
+    }
+
+    /**
+     * Stands in for the PostgreSQL generate_series function.
+     */
+    public static ResultSet generateSeries(int start, int end) {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("X", Types.INTEGER, 10, 0);
+        for (int i = start; i <= end; i++) {
+            rs.addRow(i);
+        }
+        return rs;
+    }
+
+    private static RetrievalRequestRecord record(int i) {
+        RetrievalRequestRecord rec = new RetrievalRequestRecord();
+        rec.setDsmdUrl("http://nomads.ncep.noaa.gov/dods/gfs/" + i);
+        rec.setOwner("owner");
+        rec.setSubscriptionName("sub" + i);
+        rec.setState(State.PENDING);
+        rec.setPriority(i);
+        rec.setProvider("NOMADS");
+        rec.setDataSetName("gfs");
+        rec.setInsertTime(new Date());
+        rec.setLatencyExpireTime(new Date());
+        rec.setLatencyMinutes(60);
+        rec.setRequestRetrievalTime(System.currentTimeMillis());
+        rec.setNetwork(Network.SBN);
+        rec.setSubscriptionType(SubscriptionType.SUBSCRIBED);
+        rec.setRetrieval(new byte[] { 1, 2, (byte) i });
+        return rec;
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.db;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
+import com.raytheon.uf.common.serialization.SerializationException;
+import com.raytheon.uf.common.serialization.SerializationUtil;
+
+/**
+ * Test {@link RetrievalSerializer}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Test the deflate threshold, benchmark
+ *                                  against plain thrift.
+ *
+ * </pre>
+ *
+ */
+public class RetrievalSerializerTest {
+
+    @Test
+    public void testEncodedBytesAreDecoded() throws SerializationException {
+        byte[] thrift = payload(200);
+
+        byte[] encoded = RetrievalSerializer.encode(thrift, 0);
+        assertTrue(encoded.length < thrift.length / 4);
+        assertArrayEquals(thrift, RetrievalSerializer.decode(encoded));
+    }
+
+    @Test
+    public void testEmptyPayloadIsDecoded() throws SerializationException {
+        byte[] encoded = RetrievalSerializer.encode(new byte[0], 0);
+        assertArrayEquals(new byte[0], RetrievalSerializer.decode(encoded));
+    }
+
+    @Test
+    public void testPlainThriftIsReturnedUnchanged()
+            throws SerializationException {
+        // Thrift structs start with the struct type byte
+        byte[] thrift = payload(1);
+        thrift[0] = 12;
+
+        assertSame(thrift, RetrievalSerializer.decode(thrift));
+    }
+
+    @Test
+    public void testSmallPayloadIsNotDeflated() throws SerializationException {
+        byte[] thrift = payload(1);
+        thrift[0] = 12;
+
+        byte[] encoded = RetrievalSerializer.encode(thrift);
+
+        assertSame(thrift, encoded);
+        assertSame(thrift, RetrievalSerializer.decode(encoded));
+    }
+
+    @Test
+    public void testPayloadIsDeflatedFromThreshold()
+            throws SerializationException {
+        byte[] thrift = payload(200);
+        thrift[0] = 12;
+
+        assertSame(thrift,
+                RetrievalSerializer.encode(thrift, thrift.length + 1));
+        byte[] encoded = RetrievalSerializer.encode(thrift, thrift.length);
+        assertTrue(encoded.length < thrift.length);
+        assertArrayEquals(thrift, RetrievalSerializer.decode(encoded));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testTruncatedPayloadIsRejected() throws SerializationException {
+        byte[] encoded = RetrievalSerializer.encode(payload(200), 0);
+        RetrievalSerializer.decode(Arrays.copyOf(encoded, encoded.length / 2));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testUnknownVersionIsRejected() throws SerializationException {
+        byte[] encoded = RetrievalSerializer.encode(payload(1), 0);
+        encoded[2] = 99;
+        RetrievalSerializer.decode(encoded);
+    }
+
+    private static byte[] payload(int attributes) {
+        StringBuilder sb = new StringBuilder(
+                "com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval");
+        for (int i = 0; i < attributes; i++) {
+            sb.append(
+                    "com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute")
+                    .append("parameter").append("Temperature").append(i)
+                    .append("levelType").append("MB").append(1000 - i);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares storing retrievals as plain thrift, as before, with
+     * {@link RetrievalSerializer}: encode time, decode time and stored bytes
+     * for retrievals of increasing size.
+     */
+    @Ignore("Benchmark, run by hand")
+    @Test
+    public void benchmarkAgainstPlainThrift() throws Exception {
+        final int iterations = 2_000;
+        for (int attributes : new int[] { 1, 10, 50, 200 }) {
+            Retrieval<GriddedTime, GriddedCoverage> retrieval = retrieval(
+                    attributes);
+            byte[] thrift = SerializationUtil.transformToThrift(retrieval);
+            byte[] stored = RetrievalSerializer.serialize(retrieval);
+            assertEquals(attributes, RetrievalSerializer.deserialize(stored)
+                    .getAttributes().size());
+
+            long plainEncode = 0L;
+            long encode = 0L;
+            long plainDecode = 0L;
+            long decode = 0L;
+            // First pass warms up
+            for (int pass = 0; pass < 2; pass++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    SerializationUtil.transformToThrift(retrieval);
+                }
+                plainEncode = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    RetrievalSerializer.serialize(retrieval);
+                }
+                encode = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    SerializationUtil.transformFromThrift(Retrieval.class,
+                            thrift);
+                }
+                plainDecode = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    RetrievalSerializer.deserialize(stored);
+                }
+                decode = System.nanoTime() - start;
+            }
+
+            System.out.println(String.format(
+                    "%3d attributes: plain %7d bytes, encode %7.1f us, decode %7.1f us;"
+                            + " serializer %7d bytes, encode %7.1f us, decode %7.1f us",
+                    attributes, thrift.length,
+                    plainEncode / 1_000.0 / iterations,
+                    plainDecode / 1_000.0 / iterations, stored.length,
+                    encode / 1_000.0 / iterations,
+                    decode / 1_000.0 / iterations));
+        }
+    }
+
+    private static Retrieval<GriddedTime, GriddedCoverage> retrieval(
+            int attributes) {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
+        retrieval.setUrl("http://nomads.ncep.noaa.gov:9090/dods/gfs_0p25/gfs20261017/gfs_0p25_00z");
+        retrieval.setProvider("NOMADS");
+        retrieval.setDataSetName("GFS0p25");
+        retrieval.setOwner("awips");
+        retrieval.setSubscriptionName("GFS temperature");
+        retrieval.setPlugin("grid");
+        List<RetrievalAttribute<GriddedTime, GriddedCoverage>> coalesced = new ArrayList<>();
+        for (int i = 0; i < attributes; i++) {
+            LevelGroup levelGroup = new LevelGroup("MB", "mb");
+            levelGroup.addLevel(new GriddedParameterLevelEntry("tmpprs" + i,
+                    "** (1000 975 950 ..) temperature [k]",
+                    Integer.toString(1000 - i)));
+            ParameterGroup parameterGroup = new ParameterGroup("T" + i, "K");
+            parameterGroup.putLevelGroup(levelGroup);
+            GriddedTime time = new GriddedTime();
+            time.setNumTimes(1);
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att = new RetrievalAttribute<>();
+            att.setParameterGroup(parameterGroup);
+            att.setCoverage(new GriddedCoverage());
+            att.setTime(time);
+            if (i == 0) {
+                retrieval.setAttribute(att);
+            } else {
+                coalesced.add(att);
+            }
+        }
+        retrieval.setCoalescedAttributes(coalesced);
+        return retrieval;
+    }
+}
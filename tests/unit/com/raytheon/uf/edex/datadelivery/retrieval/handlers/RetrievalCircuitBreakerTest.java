@@ -0,0 +1,161 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.raytheon.uf.edex.datadelivery.retrieval.handlers.RetrievalCircuitBreaker.State;
+
+/**
+ * Test {@link RetrievalCircuitBreaker}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class RetrievalCircuitBreakerTest {
+
+    private static final String HOST = "NOMADS@nomads.ncep.noaa.gov";
+
+    private static final String OTHER_HOST = "PDA@pda.nesdis.noaa.gov";
+
+    @Test
+    public void testBreakerOpensAfterConsecutiveFailures() {
+        RetrievalCircuitBreaker breaker = new RetrievalCircuitBreaker(3,
+                60_000, 600_000);
+
+        breaker.recordFailure(HOST);
+        breaker.recordFailure(HOST);
+        assertTrue(breaker.allowRequest(HOST));
+        breaker.recordFailure(HOST);
+
+        assertEquals(State.OPEN, breaker.getState(HOST));
+        assertFalse(breaker.allowRequest(HOST));
+        assertTrue(breaker.getRemainingOpenMillis(HOST) > 0);
+        assertEquals(1, breaker.getMetrics().get(HOST).getRejected());
+
+        // Other hosts are not affected
+        assertTrue(breaker.allowRequest(OTHER_HOST));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        RetrievalCircuitBreaker breaker = new RetrievalCircuitBreaker(2,
+                60_000, 600_000);
+
+        breaker.recordFailure(HOST);
+        breaker.recordSuccess(HOST);
+        breaker.recordFailure(HOST);
+
+        assertEquals(State.CLOSED, breaker.getState(HOST));
+        assertTrue(breaker.allowRequest(HOST));
+    }
+
+    @Test
+    public void testTrialRequestClosesBreaker() throws InterruptedException {
+        RetrievalCircuitBreaker breaker = new RetrievalCircuitBreaker(1, 10,
+                600_000);
+
+        breaker.recordFailure(HOST);
+        Thread.sleep(20);
+
+        assertTrue(breaker.allowRequest(HOST));
+        assertEquals(State.HALF_OPEN, breaker.getState(HOST));
+        // Only one trial at a time
+        assertFalse(breaker.allowRequest(HOST));
+
+        breaker.recordSuccess(HOST);
+        assertEquals(State.CLOSED, breaker.getState(HOST));
+        assertTrue(breaker.allowRequest(HOST));
+    }
+
+    @Test
+    public void testFailedTrialDoublesOpenPeriod() throws InterruptedException {
+        RetrievalCircuitBreaker breaker = new RetrievalCircuitBreaker(1, 10,
+                600_000);
+
+        breaker.recordFailure(HOST);
+        Thread.sleep(20);
+        assertTrue(breaker.allowRequest(HOST));
+        breaker.recordFailure(HOST);
+
+        assertEquals(State.OPEN, breaker.getState(HOST));
+        assertEquals(2, breaker.getMetrics().get(HOST).getTrips());
+        assertTrue(breaker.getRemainingOpenMillis(HOST) > 10);
+    }
+
+    @Test
+    public void testProviderIsOpenOnlyWhileEveryHostIsOpen()
+            throws InterruptedException {
+        RetrievalCircuitBreaker breaker = new RetrievalCircuitBreaker(1, 50,
+                600_000);
+        String otherNomadsHost = "NOMADS@nomads2.ncep.noaa.gov";
+
+        assertEquals(0, breaker.getProviderRemainingOpenMillis("NOMADS"));
+
+        breaker.recordFailure(HOST);
+        assertTrue(breaker.getProviderRemainingOpenMillis("NOMADS") > 0);
+        assertEquals(0, breaker.getProviderRemainingOpenMillis("PDA"));
+
+        // Another host of the provider still takes requests
+        breaker.recordSuccess(otherNomadsHost);
+        assertEquals(0, breaker.getProviderRemainingOpenMillis("NOMADS"));
+        breaker.recordFailure(otherNomadsHost);
+        assertTrue(breaker.getProviderRemainingOpenMillis("NOMADS") > 0);
+
+        // Open once a breaker is ready for a trial request
+        Thread.sleep(60);
+        assertEquals(0, breaker.getProviderRemainingOpenMillis("NOMADS"));
+
+        // and again while the trial request is in flight
+        assertTrue(breaker.allowRequest(HOST));
+        assertTrue(breaker.allowRequest(otherNomadsHost));
+        assertTrue(breaker.getProviderRemainingOpenMillis("NOMADS") > 0);
+    }
+
+    @Test
+    public void testBackoffGrowsWithJitterUpToMax() {
+        for (int i = 0; i < 100; i++) {
+            long first = RetrievalCircuitBreaker.backoffMillis(1_000, 30_000,
+                    0);
+            assertTrue(first >= 500 && first <= 1_000);
+
+            long third = RetrievalCircuitBreaker.backoffMillis(1_000, 30_000,
+                    2);
+            assertTrue(third >= 2_000 && third <= 4_000);
+
+            long capped = RetrievalCircuitBreaker.backoffMillis(1_000, 30_000,
+                    40);
+            assertTrue(capped >= 15_000 && capped <= 30_000);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test {@link RetrievalDispatcher}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class RetrievalDispatcherTest {
+
+    /**
+     * Processes a fixed number of retrievals per provider, optionally blocking
+     * each one until released.
+     */
+    private static class CountingWorker
+            implements RetrievalDispatcher.RetrievalWorker {
+
+        private final Map<String, AtomicInteger> remaining = new ConcurrentHashMap<>();
+
+        private final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+
+        private final Map<String, AtomicInteger> maxRunning = new ConcurrentHashMap<>();
+
+        private final List<String> order = new CopyOnWriteArrayList<>();
+
+        private volatile CountDownLatch release = new CountDownLatch(0);
+
+        private final CountDownLatch done;
+
+        private CountingWorker(int total) {
+            done = new CountDownLatch(total);
+        }
+
+        private void queue(String provider, int count) {
+            remaining.put(provider, new AtomicInteger(count));
+            running.put(provider, new AtomicInteger());
+            maxRunning.put(provider, new AtomicInteger());
+        }
+
+        @Override
+        public boolean processNext(String provider) {
+            if (remaining.get(provider).getAndDecrement() <= 0) {
+                return false;
+            }
+            int now = running.get(provider).incrementAndGet();
+            AtomicInteger max = maxRunning.get(provider);
+            int previous;
+            while ((previous = max.get()) < now
+                    && !max.compareAndSet(previous, now)) {
+                // retry
+            }
+            order.add(provider);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.get(provider).decrementAndGet();
+            done.countDown();
+            return true;
+        }
+    }
+
+    private RetrievalDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void processesAllQueuedRetrievals() throws InterruptedException {
+        CountingWorker worker = new CountingWorker(30);
+        worker.queue("A", 20);
+        worker.queue("B", 10);
+        dispatcher = new RetrievalDispatcher(worker);
+        dispatcher.setProviderLimits(limits("A", 2, "B", 1), 0);
+        dispatcher.start();
+
+        assertTrue(worker.done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void providerLimitIsEnforced() throws InterruptedException {
+        CountingWorker worker = new CountingWorker(10);
+        worker.release = new CountDownLatch(1);
+        worker.queue("A", 10);
+        dispatcher = new RetrievalDispatcher(worker);
+        dispatcher.setProviderLimits(limits("A", 2), 8);
+        dispatcher.start();
+
+        Thread.sleep(200);
+        assertEquals(2, worker.running.get("A").get());
+        worker.release.countDown();
+        assertTrue(worker.done.await(10, TimeUnit.SECONDS));
+        assertEquals(2, worker.maxRunning.get("A").get());
+    }
+
+    @Test
+    public void idleProvidersDoNotHoldThreads() throws InterruptedException {
+        CountingWorker worker = new CountingWorker(4);
+        worker.release = new CountDownLatch(1);
+        worker.queue("A", 4);
+        worker.queue("B", 0);
+        dispatcher = new RetrievalDispatcher(worker);
+        dispatcher.setProviderLimits(limits("A", 2, "B", 2), 2);
+        dispatcher.start();
+
+        Thread.sleep(200);
+        assertEquals(2, worker.running.get("A").get());
+        worker.release.countDown();
+        assertTrue(worker.done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void betterPriorityProviderGoesFirst() throws InterruptedException {
+        CountingWorker worker = new CountingWorker(2);
+        worker.queue("A", 1);
+        worker.queue("B", 1);
+        dispatcher = new RetrievalDispatcher(worker);
+        dispatcher.setProviderLimits(limits("A", 1, "B", 1), 1);
+        dispatcher.notifyQueued("A", 5, 1);
+        dispatcher.notifyQueued("B", 1, 1);
+        dispatcher.start();
+
+        assertTrue(worker.done.await(10, TimeUnit.SECONDS));
+        assertEquals("B", worker.order.get(0));
+    }
+
+    @Test
+    public void metricsTrackQueueDepthAndWaits() {
+        dispatcher = new RetrievalDispatcher(new CountingWorker(0));
+        dispatcher.setProviderLimits(limits("A", 1), 0);
+        dispatcher.setQueueDepths(Collections.singletonMap("A", 3),
+                Collections.singletonMap("A", 2));
+        dispatcher.notifyQueued("A", 2, 2);
+        dispatcher.recordWait("A", 100);
+        dispatcher.recordWait("A", 300);
+
+        RetrievalDispatcher.ProviderMetrics metrics = dispatcher.getMetrics()
+                .get("A");
+        assertEquals(1, metrics.getLimit());
+        assertEquals(3, metrics.getQueueDepth());
+        assertEquals(2, metrics.getProcessed());
+        assertEquals(200, metrics.getAverageWaitMillis());
+        assertEquals(300, metrics.getMaxWaitMillis());
+    }
+
+    private static Map<String, Integer> limits(Object... providerLimits) {
+        Map<String, Integer> limits = new HashMap<>();
+        for (int i = 0; i < providerLimits.length; i += 2) {
+            limits.put((String) providerLimits[i],
+                    (Integer) providerLimits[i + 1]);
+        }
+        return limits;
+    }
+}
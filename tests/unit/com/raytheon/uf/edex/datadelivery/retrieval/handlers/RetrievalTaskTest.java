@@ -0,0 +1,121 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.edex.datadelivery.retrieval.handlers.RetrievalTask.Outcome;
+import com.raytheon.uf.edex.datadelivery.retrieval.interfaces.IRetrievalResponse;
+
+/**
+ * Test {@link RetrievalTask}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date         Ticket#    Engineer    Description
+ * ------------ ---------- ----------- --------------------------
+ * Oct 17, 2026            agent       Initial creation
+ *
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class RetrievalTaskTest {
+
+    /**
+     * A task whose requests all fail without a response.
+     */
+    private static class FailingRetrievalTask extends RetrievalTask {
+
+        private int requests;
+
+        private FailingRetrievalTask() {
+            super(null);
+        }
+
+        @Override
+        protected IRetrievalResponse retrieveData(Retrieval retrieval,
+                int priority, String host) {
+            requests++;
+            circuitBreaker.recordFailure(host);
+            return null;
+        }
+
+        @Override
+        protected boolean processRetrievedData(Retrieval retrieval,
+                IRetrievalResponse retrievalResponse) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testRefusedRequestIsRejectedWithoutBeingMade() {
+        FailingRetrievalTask task = new FailingRetrievalTask();
+        Retrieval retrieval = createRetrieval("NOMADS",
+                "http://nomads.ncep.noaa.gov:9090/dods/gfs_0p25");
+
+        // The default failure threshold opens the breaker after 3 failures
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Outcome.RETRY, task.processRetrieval(retrieval, 1));
+        }
+        assertEquals(3, task.requests);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Outcome.REJECTED,
+                    task.processRetrieval(retrieval, 1));
+        }
+        assertEquals(3, task.requests);
+    }
+
+    @Test
+    public void testRejectedRetrievalWaitsForBreaker() {
+        FailingRetrievalTask task = new FailingRetrievalTask();
+        Retrieval retrieval = createRetrieval("PDA",
+                "https://pda.nesdis.noaa.gov/pda-data/abi");
+        Retrieval otherProvider = createRetrieval("MADIS",
+                "https://madis-data.ncep.noaa.gov/madisPublic");
+
+        assertEquals(0, task.getProviderRemainingOpenMillis("PDA"));
+        for (int i = 0; i < 3; i++) {
+            task.processRetrieval(retrieval, 1);
+        }
+
+        long remaining = task.getProviderRemainingOpenMillis("PDA");
+        assertTrue(remaining > 0);
+        long delay = task.getRejectedDelayMillis(retrieval);
+        assertTrue(delay > 0 && delay <= remaining);
+
+        assertEquals(0, task.getProviderRemainingOpenMillis("MADIS"));
+        assertEquals(Outcome.RETRY, task.processRetrieval(otherProvider, 1));
+    }
+
+    private static Retrieval createRetrieval(String provider, String url) {
+        Retrieval retrieval = new Retrieval();
+        retrieval.setProvider(provider);
+        retrieval.setUrl(url);
+        return retrieval;
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.registry.handler.RegistryHandlerException;
+import com.raytheon.uf.edex.datadelivery.retrieval.metadata.MetaDataRegistryStore.Kind;
+import com.raytheon.uf.edex.datadelivery.retrieval.metadata.MetaDataRegistryStore.Writer;
+
+/**
+ * Test {@link MetaDataRegistryStore}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ * Oct 17, 2026           agent     Test equal content, retries and eviction.
+ *
+ * </pre>
+ *
+ */
+public class MetaDataRegistryStoreTest {
+
+    private final MetaDataRegistryStore store = new MetaDataRegistryStore(2,
+            100);
+
+    private final List<String> written = new ArrayList<>();
+
+    private final Writer<String> writer = written::add;
+
+    private final Writer<String> failing = object -> {
+        throw new RegistryHandlerException(
+                new IllegalStateException("registry is down"));
+    };
+
+    @Test
+    public void testUnchangedObjectIsNotWrittenAgain() {
+        assertTrue(store.store(Kind.PARAMETER, "T", 1, "T1", writer));
+        store.flush();
+
+        assertFalse(store.store(Kind.PARAMETER, "T", 1, "T1", writer));
+        store.flush();
+
+        assertEquals(Arrays.asList("T1"), written);
+        assertEquals(1, store.getCacheHitCount());
+        assertEquals(1, store.getSkippedCount());
+    }
+
+    @Test
+    public void testChangedObjectIsWritten() {
+        store.store(Kind.PARAMETER, "T", 1, "T1", writer);
+        store.flush();
+
+        assertTrue(store.store(Kind.PARAMETER, "T", 2, "T2", writer));
+        store.flush();
+
+        assertEquals(Arrays.asList("T1", "T2"), written);
+        assertEquals(1, store.getCacheHitCount());
+        assertEquals(0, store.getSkippedCount());
+    }
+
+    @Test
+    public void testPendingWritesAreCoalesced() {
+        store.store(Kind.PARAMETER, "T", 1, "T1", writer);
+        store.store(Kind.PARAMETER, "T", 2, "T2", writer);
+        store.store(Kind.DATA_SET, "GFS", 1, "a", writer,
+                (pending, newer) -> pending + newer);
+        store.store(Kind.DATA_SET, "GFS", 2, "b", writer,
+                (pending, newer) -> pending + newer);
+        assertEquals(2, store.getPendingCount());
+
+        store.flush();
+
+        assertEquals(Arrays.asList("T2", "ab"), written);
+        assertEquals(2, store.getCoalescedCount());
+        assertEquals(0, store.getPendingCount());
+        assertEquals(2, store.getLargestBatch());
+    }
+
+    @Test
+    public void testKindsAreWrittenInOrder() {
+        store.store(Kind.DATA_SET_NAME, "GFS", 0, "name", writer);
+        store.store(Kind.DATA_SET, "GFS", 1, "dataSet", writer);
+        store.store(Kind.PARAMETER, "T", 1, "parameter", writer);
+
+        store.flush();
+
+        assertEquals(Arrays.asList("parameter", "dataSet", "name"), written);
+    }
+
+    @Test
+    public void testObjectsStoredByWritesAreWrittenBySameFlush() {
+        store.store(Kind.DATA_SET, "GFS", 1, "dataSet", object -> {
+            written.add(object);
+            store.store(Kind.DATA_SET_NAME, "GFS", 0, "name", writer);
+        });
+
+        store.flush();
+
+        assertEquals(Arrays.asList("dataSet", "name"), written);
+        assertEquals(1, store.getFlushCount());
+    }
+
+    @Test
+    public void testFailedWriteIsRetriedOnNextStore() {
+        store.store(Kind.PARAMETER, "T", 1, "T1", failing);
+        store.flush();
+        assertEquals(1, store.getFailedCount());
+
+        assertTrue(store.store(Kind.PARAMETER, "T", 1, "T1", writer));
+        store.flush();
+
+        assertEquals(Arrays.asList("T1"), written);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedHashesAreEvicted() {
+        store.store(Kind.PARAMETER, "A", 1, "A", writer);
+        store.store(Kind.PARAMETER, "B", 1, "B", writer);
+        store.flush();
+        // Use A so B is evicted by C
+        store.store(Kind.PARAMETER, "A", 1, "A", writer);
+        store.store(Kind.PARAMETER, "C", 1, "C", writer);
+        store.flush();
+        assertEquals(2, store.getCacheSize());
+
+        assertFalse(store.store(Kind.PARAMETER, "A", 1, "A", writer));
+        assertTrue(store.store(Kind.PARAMETER, "B", 1, "B", writer));
+    }
+
+    @Test
+    public void testEqualContentIsSkipped() {
+        store.store(Kind.PARAMETER, "T", new String("digest"), "T1", writer);
+        store.flush();
+
+        assertFalse(store.store(Kind.PARAMETER, "T", new String("digest"),
+                "T1", writer));
+    }
+
+    @Test
+    public void testDifferentContentWithEqualHashCodeIsWritten() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        store.store(Kind.PARAMETER, "T", "Aa", "T1", writer);
+        store.flush();
+
+        assertTrue(store.store(Kind.PARAMETER, "T", "BB", "T2", writer));
+        store.flush();
+
+        assertEquals(Arrays.asList("T1", "T2"), written);
+    }
+
+    @Test
+    public void testNullContentIsAlwaysWritten() {
+        store.store(Kind.PARAMETER, "T", null, "T1", writer);
+        store.flush();
+
+        assertTrue(store.store(Kind.PARAMETER, "T", null, "T1", writer));
+    }
+
+    @Test
+    public void testFailedWriteIsQueuedAgain() {
+        final boolean[] down = { true };
+        store.store(Kind.PARAMETER, "T", 1, "T1", object -> {
+            if (down[0]) {
+                failing.write(object);
+            }
+            written.add(object);
+        });
+        store.flush();
+        assertEquals(1, store.getFailedCount());
+        assertEquals(1, store.getRetriedCount());
+        assertEquals(1, store.getPendingCount());
+
+        down[0] = false;
+        store.flush();
+
+        assertEquals(Arrays.asList("T1"), written);
+        assertEquals(0, store.getPendingCount());
+        assertFalse(store.store(Kind.PARAMETER, "T", 1, "T1", writer));
+    }
+
+    @Test
+    public void testFailedWriteIsDroppedAfterMostAttempts() {
+        MetaDataRegistryStore store = new MetaDataRegistryStore(2, 100, 2);
+        store.store(Kind.PARAMETER, "T", 1, "T1", failing);
+
+        store.flush();
+        store.flush();
+        store.flush();
+
+        assertEquals(2, store.getFailedCount());
+        assertEquals(1, store.getRetriedCount());
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    public void testFailedRetryIsCombinedIntoNewerWrite() {
+        store.store(Kind.DATA_SET, "GFS", 1, "a", object -> {
+            // Stored again while the write that fails is being written
+            store.store(Kind.DATA_SET, "GFS", 2, "b", writer,
+                    (pending, newer) -> pending + newer);
+            failing.write(object);
+        }, (pending, newer) -> pending + newer);
+        store.flush();
+        assertEquals(1, store.getPendingCount());
+
+        store.flush();
+
+        assertEquals(Arrays.asList("ab"), written);
+    }
+
+    @Test
+    public void testFailedWriteIsEvictedFromCache() {
+        MetaDataRegistryStore store = new MetaDataRegistryStore(2, 100, 1);
+        store.store(Kind.PARAMETER, "T", 1, "T1", writer);
+        store.flush();
+        store.store(Kind.PARAMETER, "T", 2, "T2", failing);
+        store.flush();
+        assertEquals(0, store.getCacheSize());
+
+        // The registry may hold either, so the first is written again
+        assertTrue(store.store(Kind.PARAMETER, "T", 1, "T1", writer));
+    }
+
+    @Test
+    public void testEvictedKindIsWrittenAgain() {
+        store.store(Kind.PARAMETER, "T", 1, "T1", writer);
+        store.store(Kind.DATA_SET, "GFS", 1, "GFS", writer);
+        store.flush();
+
+        store.evict(Kind.DATA_SET);
+
+        assertFalse(store.store(Kind.PARAMETER, "T", 1, "T1", writer));
+        assertTrue(store.store(Kind.DATA_SET, "GFS", 1, "GFS", writer));
+    }
+}
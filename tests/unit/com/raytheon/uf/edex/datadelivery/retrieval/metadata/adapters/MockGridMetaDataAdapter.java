@@ -19,10 +19,17 @@
  **/
 package com.raytheon.uf.edex.datadelivery.retrieval.metadata.adapters;
 
+import java.util.List;
+
 import org.junit.Ignore;
 
+import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
 import com.raytheon.uf.common.datadelivery.registry.GriddedCoverageFixture;
+import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterLevelEntry;
 import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
+import com.raytheon.uf.common.dataplugin.grid.GridRecord;
 import com.raytheon.uf.common.dataplugin.level.Level;
 import com.raytheon.uf.common.gridcoverage.GridCoverage;
 
@@ -38,6 +45,8 @@ import com.raytheon.uf.common.gridcoverage.GridCoverage;
  * ------------ ---------- ----------- --------------------------
  * Feb 06, 2013 1543       djohnson     Initial creation
  * Aug 26, 2014 3365       ccody        Separate Data Delivery tests out of AWIPS 2 baseline.
+ * Oct 17, 2026            agent        A level per level entry, records without
+ *                                      the coverage cache.
  * 
  * </pre>
  * 
@@ -68,7 +77,35 @@ public class MockGridMetaDataAdapter extends GridMetadataAdapter {
      * {@inheritDoc}
      */
     @Override
-    Level[] getLevels(RetrievalAttribute attXML) {
-        return new Level[] { new Level("0.0") };
+    Level[] getLevels(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> attXML) {
+        List<ParameterLevelEntry> entries = attXML.getEntries();
+        Level[] levels = new Level[entries.size()];
+        for (int i = 0; i < levels.length; i++) {
+            String levelOne = entries.get(i).getLevelOne();
+            levels[i] = new Level(levelOne == null ? "0.0" : levelOne);
+        }
+        return levels;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    GridRecord populateGridRecord(String name, ParameterGroup parm,
+            ParameterLevelEntry entry, Level level, String ensembleId,
+            GridCoverage gridCoverage) {
+        com.raytheon.uf.common.parameter.Parameter parameter = new com.raytheon.uf.common.parameter.Parameter();
+        parameter.setAbbreviation(parm.getAbbrev());
+        parameter.setName(entry.getDescription());
+        parameter.setUnitString(parm.getUnits());
+
+        GridRecord record = new GridRecord();
+        record.setLocation(gridCoverage);
+        record.setLevel(level);
+        record.setParameter(parameter);
+        record.setDatasetId(name);
+        record.setEnsembleId(ensembleId);
+        return record;
     }
 }
@@ -0,0 +1,395 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.DataType;
+import com.raytheon.uf.common.datadelivery.registry.Ensemble;
+import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.Network;
+import com.raytheon.uf.common.datadelivery.registry.OpenDapGriddedDataSetMetaData;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.Provider;
+import com.raytheon.uf.common.datadelivery.registry.ProviderType;
+import com.raytheon.uf.common.datadelivery.registry.SiteSubscription;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
+import com.raytheon.uf.common.gridcoverage.GridCoverage;
+import com.raytheon.uf.common.gridcoverage.LatLonGridCoverage;
+
+/**
+ * Test how {@link OpenDAPRetrievalGenerator} groups the parameters, levels and
+ * times of a subscription into coalesced retrievals.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPCoalescedRetrievalGeneratorTest {
+
+    private static final int NX = 10;
+
+    private static final int NY = 10;
+
+    /** Estimated bytes of one Float32 grid */
+    private static final long GRID_BYTES = 4L * NX * NY;
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private static final List<Double> PROVIDER_LEVELS = Arrays.asList(1000.0,
+            925.0, 850.0, 700.0, 500.0, 250.0);
+
+    @Test
+    public void testVariablesAtSameTimesShareOneRequest() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0, 1), createSurfaceParameter("tmp2m"),
+                createSurfaceParameter("rh2m"));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                UNLIMITED, sub);
+
+        assertEquals(1, retrievals.size());
+        List<RetrievalAttribute<GriddedTime, GriddedCoverage>> attributes = retrievals
+                .get(0).getAttributes();
+        assertEquals(Arrays.asList("tmp2m", "rh2m"), getVariables(attributes));
+        for (RetrievalAttribute<GriddedTime, GriddedCoverage> att : attributes) {
+            assertTimes(att, 0, 1);
+        }
+    }
+
+    @Test
+    public void testEnsembleMembersAreSeparateRequests() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0), createSurfaceParameter("tmp2m"),
+                createSurfaceParameter("rh2m"));
+        Ensemble ensemble = new Ensemble();
+        ensemble.setMembers(Arrays.asList("gep01", "gep02", "gep03"));
+        ensemble.setSelectedMembers(Arrays.asList("gep01", "gep02"));
+        sub.setEnsemble(ensemble);
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                UNLIMITED, sub);
+
+        assertEquals(2, retrievals.size());
+        for (int i = 0; i < retrievals.size(); i++) {
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att = retrievals
+                    .get(i).getAttribute();
+            assertEquals(Arrays.asList("tmp2m", "rh2m"),
+                    getVariables(retrievals.get(i).getAttributes()));
+            assertEquals(Arrays.asList(i == 0 ? "gep01" : "gep02"),
+                    att.getEnsemble().getSelectedMembers());
+        }
+    }
+
+    @Test
+    public void testConsecutiveLevelsAreOneLevelRange() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0),
+                createPressureParameter("tmpprs", 850.0, 1000.0, 925.0));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                UNLIMITED, sub);
+
+        assertEquals(1, retrievals.size());
+        assertEquals(1, retrievals.get(0).getAttributes().size());
+        assertLevels(retrievals.get(0).getAttribute(), "1000.0", "925.0",
+                "850.0");
+    }
+
+    @Test
+    public void testNonConsecutiveLevelsOfVariableAreSeparateRequests() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0), createPressureParameter("tmpprs", 1000.0,
+                        850.0, 700.0),
+                createSurfaceParameter("tmp2m"));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                UNLIMITED, sub);
+
+        // a variable can only be projected once per request
+        assertEquals(2, retrievals.size());
+        List<RetrievalAttribute<GriddedTime, GriddedCoverage>> first = retrievals
+                .get(0).getAttributes();
+        assertEquals(Arrays.asList("tmpprs", "tmp2m"), getVariables(first));
+        assertLevels(first.get(0), "1000.0");
+        List<RetrievalAttribute<GriddedTime, GriddedCoverage>> second = retrievals
+                .get(1).getAttributes();
+        assertEquals(1, second.size());
+        assertLevels(second.get(0), "850.0", "700.0");
+    }
+
+    @Test
+    public void testLevelsThatAreNotProviderLevelsAreNotMerged() {
+        ParameterGroup param = createPressureParameter("tmpprs", 1000.0, 925.0);
+        // a level the data set does not have
+        GriddedParameterLevelEntry missing = createLevel("tmpprs", 975.0);
+        param.getLevelGroup("Pressure Levels (mb)").addLevel(missing);
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0), param);
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                UNLIMITED, sub);
+
+        assertEquals(2, retrievals.size());
+        assertLevels(retrievals.get(0).getAttribute(), "975.0");
+        assertLevels(retrievals.get(1).getAttribute(), "1000.0", "925.0");
+    }
+
+    @Test
+    public void testMaxBytesSplitsTimeSequence() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0, 1, 2), createSurfaceParameter("tmp2m"));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                2 * GRID_BYTES, sub);
+
+        assertEquals(2, retrievals.size());
+        assertTimes(retrievals.get(0).getAttribute(), 0, 1);
+        assertTimes(retrievals.get(1).getAttribute(), 2, 2);
+    }
+
+    @Test
+    public void testMaxBytesSplitsLevelRange() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0), createPressureParameter("tmpprs", 1000.0,
+                        925.0, 850.0, 700.0, 500.0));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                2 * GRID_BYTES, sub);
+
+        assertEquals(3, retrievals.size());
+        assertLevels(retrievals.get(0).getAttribute(), "1000.0", "925.0");
+        assertLevels(retrievals.get(1).getAttribute(), "850.0", "700.0");
+        assertLevels(retrievals.get(2).getAttribute(), "500.0");
+    }
+
+    @Test
+    public void testMaxBytesFillsTimesBeforeLevels() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0, 1), createPressureParameter("tmpprs", 1000.0,
+                        925.0));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                2 * GRID_BYTES, sub);
+
+        assertEquals(2, retrievals.size());
+        for (Retrieval<GriddedTime, GriddedCoverage> retrieval : retrievals) {
+            assertTimes(retrieval.getAttribute(), 0, 1);
+        }
+        assertLevels(retrievals.get(0).getAttribute(), "1000.0");
+        assertLevels(retrievals.get(1).getAttribute(), "925.0");
+    }
+
+    @Test
+    public void testMaxBytesLimitsVariablesPerRequest() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0), createSurfaceParameter("tmp2m"),
+                createSurfaceParameter("rh2m"), createSurfaceParameter("ugrd10m"),
+                createPressureParameter("tmpprs", 1000.0, 925.0));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                3 * GRID_BYTES, sub);
+
+        assertEquals(2, retrievals.size());
+        assertEquals(Arrays.asList("tmp2m", "rh2m", "ugrd10m"),
+                getVariables(retrievals.get(0).getAttributes()));
+        assertEquals(Arrays.asList("tmpprs"),
+                getVariables(retrievals.get(1).getAttributes()));
+        assertLevels(retrievals.get(1).getAttribute(), "1000.0", "925.0");
+    }
+
+    @Test
+    public void testSbnRetrievalsAreNotCombined() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0, 1), createSurfaceParameter("tmp2m"),
+                createSurfaceParameter("rh2m"));
+        sub.setRoute(Network.SBN);
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = buildRetrievals(
+                UNLIMITED, sub);
+
+        assertEquals(2, retrievals.size());
+        for (Retrieval<GriddedTime, GriddedCoverage> retrieval : retrievals) {
+            assertNull(retrieval.getCoalescedAttributes());
+            assertTimes(retrieval.getAttribute(), 0, 1);
+        }
+    }
+
+    @Test
+    public void testUncoalescedRetrievalsAreSingleLevelAndTime() {
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = createSubscription(
+                Arrays.asList(0, 1),
+                createPressureParameter("tmpprs", 1000.0, 925.0));
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> retrievals = new OpenDAPRetrievalGenerator(
+                false, UNLIMITED).buildRetrieval(createMetaData(), sub,
+                        createProvider());
+
+        assertEquals(4, retrievals.size());
+        for (Retrieval<GriddedTime, GriddedCoverage> retrieval : retrievals) {
+            assertEquals(1, retrieval.getAttributes().size());
+            assertEquals(1, retrieval.getAttribute().getEntries().size());
+        }
+    }
+
+    private static List<Retrieval<GriddedTime, GriddedCoverage>> buildRetrievals(
+            long maxCoalescedBytes,
+            SiteSubscription<GriddedTime, GriddedCoverage> sub) {
+        return new OpenDAPRetrievalGenerator(true, maxCoalescedBytes)
+                .buildRetrieval(createMetaData(), sub, createProvider());
+    }
+
+    private static void assertTimes(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att, int start,
+            int end) {
+        assertEquals(start, att.getTime().getRequestStartTimeAsInt());
+        assertEquals(end, att.getTime().getRequestEndTimeAsInt());
+    }
+
+    private static void assertLevels(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att,
+            String... levels) {
+        List<String> actual = new ArrayList<>();
+        for (ParameterLevelEntry entry : att.getEntries()) {
+            actual.add(entry.getLevelOne());
+        }
+        assertEquals(Arrays.asList(levels), actual);
+    }
+
+    private static List<String> getVariables(
+            List<RetrievalAttribute<GriddedTime, GriddedCoverage>> attributes) {
+        List<String> variables = new ArrayList<>();
+        for (RetrievalAttribute<GriddedTime, GriddedCoverage> att : attributes) {
+            variables.add(att.getEntries().get(0).getProviderName());
+        }
+        return variables;
+    }
+
+    private static SiteSubscription<GriddedTime, GriddedCoverage> createSubscription(
+            List<Integer> timeIndices, ParameterGroup... params) {
+        GridCoverage gridCoverage = new LatLonGridCoverage();
+        gridCoverage.setNx(NX);
+        gridCoverage.setNy(NY);
+        GriddedCoverage coverage = new GriddedCoverage();
+        coverage.setGridCoverage(gridCoverage);
+
+        GriddedTime time = createTime();
+        time.setSelectedTimeIndices(new ArrayList<>(timeIndices));
+
+        Map<String, ParameterGroup> paramGroups = new LinkedHashMap<>();
+        for (ParameterGroup param : params) {
+            paramGroups.put(param.getKey(), param);
+        }
+
+        SiteSubscription<GriddedTime, GriddedCoverage> sub = new SiteSubscription<>();
+        sub.setName("coalesced");
+        sub.setOwner("user");
+        sub.setProvider("NOMADS");
+        sub.setDataSetName("gfs");
+        sub.setDataSetType(DataType.GRID);
+        sub.setRoute(Network.OPSNET);
+        sub.setCoverage(coverage);
+        sub.setTime(time);
+        sub.setParameterGroups(paramGroups);
+        return sub;
+    }
+
+    private static OpenDapGriddedDataSetMetaData createMetaData() {
+        OpenDapGriddedDataSetMetaData dsmd = new OpenDapGriddedDataSetMetaData();
+        dsmd.setUrl("http://nomads.ncep.noaa.gov:9090/dods/gfs/gfs20261017/gfs_00z");
+        dsmd.setTime(createTime());
+        dsmd.setProviderLevels(PROVIDER_LEVELS);
+        return dsmd;
+    }
+
+    private static GriddedTime createTime() {
+        GriddedTime time = new GriddedTime();
+        time.setStart(new Date(0));
+        time.setEnd(new Date(TimeUnit.HOURS.toMillis(27)));
+        time.setNumTimes(10);
+        time.setStep(3.0);
+        time.setStepUnit("hour");
+        return time;
+    }
+
+    private static Provider createProvider() {
+        Provider provider = new Provider();
+        provider.setProviderType(
+                Arrays.asList(new ProviderType(DataType.GRID, "grid", 0)));
+        return provider;
+    }
+
+    private static ParameterGroup createSurfaceParameter(String providerName) {
+        GriddedParameterLevelEntry entry = new GriddedParameterLevelEntry(
+                providerName, providerName, "0.0");
+        entry.setMissingValue("9.999E20");
+        LevelGroup levelGroup = new LevelGroup("Surface", null);
+        levelGroup.setMasterKey("SFC");
+        levelGroup.addLevel(entry);
+        ParameterGroup param = new ParameterGroup(providerName, "");
+        param.putLevelGroup(levelGroup);
+        return param;
+    }
+
+    private static ParameterGroup createPressureParameter(String providerName,
+            double... levels) {
+        LevelGroup levelGroup = new LevelGroup("Pressure Levels", "mb");
+        levelGroup.setMasterKey("MB");
+        for (double level : levels) {
+            levelGroup.addLevel(createLevel(providerName, level));
+        }
+        ParameterGroup param = new ParameterGroup(providerName, "K");
+        param.putLevelGroup(levelGroup);
+        return param;
+    }
+
+    private static GriddedParameterLevelEntry createLevel(String providerName,
+            double level) {
+        GriddedParameterLevelEntry entry = new GriddedParameterLevelEntry(
+                providerName, providerName + " at " + level + " mb",
+                String.valueOf(level));
+        entry.setMissingValue("9.999E20");
+        entry.setUseProviderLevel(true);
+        return entry;
+    }
+}
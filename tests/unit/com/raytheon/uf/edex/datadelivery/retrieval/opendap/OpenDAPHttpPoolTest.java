@@ -0,0 +1,417 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.raytheon.opendap.InputStreamWrapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test {@link OpenDAPHttpPool} against an embedded HTTP server.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPHttpPoolTest {
+
+    private static final byte[] BODY = "Dataset {\n} test;\nData:\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final String ETAG = "\"v1\"";
+
+    private static final AtomicInteger providers = new AtomicInteger();
+
+    private static byte[] dods;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+
+    private String baseUrl;
+
+    private OpenDAPHttpPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                50);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/", this::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        // a pool of its own for each test
+        pool = OpenDAPHttpPool
+                .getPool("test-provider-" + providers.incrementAndGet());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConsecutiveRequestsReuseTheConnection()
+            throws IOException {
+        for (int i = 0; i < 5; i++) {
+            try (InputStream is = pool.get(baseUrl + "/plain", null)) {
+                assertArrayEquals(BODY, IOUtils.toByteArray(is));
+            }
+        }
+
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void testCompressedResponseIsInflatedAfterTheWrapper()
+            throws IOException {
+        CountingWrapper wrapper = new CountingWrapper();
+        try (InputStream is = pool.get(baseUrl + "/gzip", wrapper)) {
+            assertArrayEquals(BODY, IOUtils.toByteArray(is));
+        }
+
+        assertEquals(gzip(BODY).length, wrapper.count);
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorStatusThrows() throws IOException {
+        pool.get(baseUrl + "/missing", null).close();
+    }
+
+    @Test
+    public void testConnectionIsReusedAfterAnError() throws IOException {
+        try {
+            pool.get(baseUrl + "/missing", null).close();
+        } catch (IOException e) {
+            // expected
+        }
+        try (InputStream is = pool.get(baseUrl + "/plain", null)) {
+            IOUtils.toByteArray(is);
+        }
+
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void testConditionalGetOfUnchangedResource() throws IOException {
+        OpenDAPHttpPool.ConditionalResponse first = pool
+                .getIfModified(baseUrl + "/etag", null, null);
+        assertFalse(first.isNotModified());
+        assertArrayEquals(BODY, first.getBody());
+        assertEquals(ETAG, first.getETag());
+
+        OpenDAPHttpPool.ConditionalResponse second = pool
+                .getIfModified(baseUrl + "/etag", first.getETag(), null);
+        assertTrue(second.isNotModified());
+        assertNull(second.getBody());
+        assertEquals(ETAG, second.getETag());
+    }
+
+    @Test
+    public void testRequestWaitsForAConnectionWhenThePoolIsFull()
+            throws Exception {
+        List<InputStream> open = new ArrayList<>();
+        try {
+            for (int i = 0; i < OpenDAPHttpPool.getPoolSize(); i++) {
+                open.add(pool.get(baseUrl + "/plain", null));
+            }
+
+            Future<byte[]> waiting = executor.submit(() -> {
+                try (InputStream is = pool.get(baseUrl + "/plain", null)) {
+                    return IOUtils.toByteArray(is);
+                }
+            });
+            try {
+                waiting.get(500, TimeUnit.MILLISECONDS);
+                throw new AssertionError(
+                        "Request did not wait for a free connection");
+            } catch (TimeoutException e) {
+                // expected
+            }
+
+            open.remove(0).close();
+            assertArrayEquals(BODY, waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            for (InputStream is : open) {
+                is.close();
+            }
+        }
+    }
+
+    /**
+     * Compares sequential requests for a canned, gzipped .dods response of a
+     * 100 x 200 grid over pooled connections and over a new connection each.
+     * The requests go through a relay that delays each new connection, as
+     * TCP and TLS setup to a remote provider would. Run by hand.
+     */
+    @Ignore("Benchmark, run by hand")
+    @Test
+    public void benchmarkPooledThroughput() throws Exception {
+        final int requests = 200;
+        final long connectDelayMillis = 20;
+        try (ServerSocket relay = new ServerSocket(0, 50,
+                InetAddress.getLoopbackAddress())) {
+            executor.submit(() -> relay(relay, connectDelayMillis));
+            String url = "http://127.0.0.1:" + relay.getLocalPort() + "/dods";
+
+            for (int run = 0; run < 2; run++) {
+                // the first run is a warm up
+                long start = System.nanoTime();
+                for (int i = 0; i < requests; i++) {
+                    HttpGet get = new HttpGet(url);
+                    get.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                    try (CloseableHttpClient client = HttpClients.custom()
+                            .disableContentCompression().build();
+                            CloseableHttpResponse response = client
+                                    .execute(get)) {
+                        EntityUtils.toByteArray(response.getEntity());
+                    }
+                }
+                long unpooled = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < requests; i++) {
+                    try (InputStream is = pool.get(url, null)) {
+                        IOUtils.toByteArray(is);
+                    }
+                }
+                long pooled = System.nanoTime() - start;
+
+                if (run == 1) {
+                    System.out.println(requests + " requests, "
+                            + connectDelayMillis
+                            + " ms to connect: a new connection each "
+                            + requests * TimeUnit.SECONDS.toNanos(1) / unpooled
+                            + " req/s, pooled "
+                            + requests * TimeUnit.SECONDS.toNanos(1) / pooled
+                            + " req/s");
+                }
+            }
+        }
+    }
+
+    /**
+     * Relay connections to the server, delaying each new one.
+     */
+    private Void relay(ServerSocket relay, long delayMillis) {
+        while (!relay.isClosed()) {
+            try {
+                Socket client = relay.accept();
+                executor.submit(() -> {
+                    Thread.sleep(delayMillis);
+                    Socket target = new Socket(
+                            InetAddress.getLoopbackAddress(),
+                            server.getAddress().getPort());
+                    // forward each read as it is, without Nagle delays
+                    client.setTcpNoDelay(true);
+                    target.setTcpNoDelay(true);
+                    executor.submit(() -> pipe(client, target));
+                    pipe(target, client);
+                    return null;
+                });
+            } catch (IOException e) {
+                // relay closed
+            }
+        }
+        return null;
+    }
+
+    private static Void pipe(Socket from, Socket to) {
+        try {
+            IOUtils.copy(from.getInputStream(), to.getOutputStream());
+        } catch (IOException e) {
+            // connection closed
+        } finally {
+            IOUtils.closeQuietly(from);
+            IOUtils.closeQuietly(to);
+        }
+        return null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        IOUtils.toByteArray(exchange.getRequestBody());
+        String path = exchange.getRequestURI().getPath();
+        try {
+            switch (path) {
+            case "/plain":
+                send(exchange, 200, BODY);
+                break;
+            case "/gzip":
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                send(exchange, 200, gzip(BODY));
+                break;
+            case "/dods":
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                send(exchange, 200, getDods());
+                break;
+            case "/etag":
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                if (ETAG.equals(exchange.getRequestHeaders()
+                        .getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    send(exchange, 200, BODY);
+                }
+                break;
+            default:
+                send(exchange, 404,
+                        "Not found".getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body)
+            throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * @return a gzipped .dods response of a 100 x 200 Float32 grid
+     */
+    private static synchronized byte[] getDods() throws IOException {
+        if (dods == null) {
+            int lats = 100;
+            int lons = 200;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.write(("Dataset {\n    Grid {\n     ARRAY:\n"
+                    + "        Float32 tmp2m[time = 1][lat = " + lats
+                    + "][lon = " + lons + "];\n     MAPS:\n"
+                    + "        Float64 time[time = 1];\n"
+                    + "        Float64 lat[lat = " + lats + "];\n"
+                    + "        Float64 lon[lon = " + lons + "];\n"
+                    + "    } tmp2m;\n} gfs;\nData:\n")
+                            .getBytes(StandardCharsets.UTF_8));
+            Random random = new Random(1);
+            out.writeInt(lats * lons);
+            out.writeInt(lats * lons);
+            for (int i = 0; i < lats * lons; i++) {
+                out.writeFloat(random.nextFloat());
+            }
+            for (int size : new int[] { 1, lats, lons }) {
+                out.writeInt(size);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeDouble(i);
+                }
+            }
+            out.flush();
+            dods = gzip(bytes.toByteArray());
+        }
+        return dods;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(os)) {
+            gzip.write(bytes);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * Counts the bytes read through the wrapped stream.
+     */
+    private static class CountingWrapper implements InputStreamWrapper {
+
+        private long count;
+
+        @Override
+        public InputStream wrapStream(InputStream wrappedStream) {
+            return new FilterInputStream(wrappedStream) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        count++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len)
+                        throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) {
+                        count += n;
+                    }
+                    return n;
+                }
+            };
+        }
+    }
+}
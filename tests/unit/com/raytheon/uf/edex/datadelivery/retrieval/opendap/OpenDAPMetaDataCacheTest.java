@@ -0,0 +1,186 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDAPHttpPool.ConditionalResponse;
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDAPMetaDataCache.Fetcher;
+
+/**
+ * Test {@link OpenDAPMetaDataCache} by replaying recorded DAS responses.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPMetaDataCacheTest {
+
+    private static final String[] DAS_FILES = { "rap32_00z.das",
+            "rap32_01z.das", "ncom_amseas_20130109.das",
+            "ncom_useast_20130109.das" };
+
+    private static final String URL = "http://nomads.ncep.noaa.gov:9090/dods/";
+
+    private File directory;
+
+    /** Recorded responses by url */
+    private final Map<String, byte[]> responses = new LinkedHashMap<>();
+
+    /** Entity tag of each url, changed when its response changes */
+    private final Map<String, String> eTags = new HashMap<>();
+
+    private int transfers;
+
+    private long bytesTransferred;
+
+    /** Replays the recorded responses, honoring If-None-Match */
+    private final Fetcher fetcher = (url, eTag, lastModified) -> {
+        String current = eTags.get(url);
+        if (current.equals(eTag)) {
+            return new ConditionalResponse(null, eTag, lastModified);
+        }
+        transfers++;
+        bytesTransferred += responses.get(url).length;
+        return new ConditionalResponse(responses.get(url), current, null);
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("opendapMetaData").toFile();
+        for (String dasFile : DAS_FILES) {
+            try (InputStream is = OpenDAPMetaDataCacheTest.class
+                    .getResourceAsStream(dasFile)) {
+                String url = URL + dasFile;
+                responses.put(url, IOUtils.toByteArray(is));
+                eTags.put(url, "\"" + dasFile + "-1\"");
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testRecrawlOnlyTransfersChangedResponses() throws IOException {
+        OpenDAPMetaDataCache cache = new OpenDAPMetaDataCache(directory,
+                60_000L);
+        long total = 0L;
+        for (byte[] response : responses.values()) {
+            total += response.length;
+        }
+
+        // First crawl transfers everything
+        crawl(cache);
+        assertEquals(DAS_FILES.length, transfers);
+        assertEquals(total, bytesTransferred);
+
+        // Re-crawl within the posted file delay, one DAS was updated
+        String updated = URL + DAS_FILES[1];
+        eTags.put(updated, "\"" + DAS_FILES[1] + "-2\"");
+        crawl(cache);
+
+        assertEquals(DAS_FILES.length + 1, transfers);
+        assertEquals(2 * DAS_FILES.length, cache.getRequestCount());
+        assertEquals(DAS_FILES.length + 1, cache.getFetchedCount());
+        assertEquals(DAS_FILES.length - 1, cache.getNotModifiedCount());
+        assertEquals(total - responses.get(updated).length,
+                cache.getBytesSaved());
+        System.out.println("Replayed " + cache.getRequestCount()
+                + " DAS requests: fetched " + cache.getFetchedCount()
+                + ", not modified " + cache.getNotModifiedCount()
+                + ", bytes saved " + cache.getBytesSaved());
+    }
+
+    @Test
+    public void testCacheSurvivesRestart() throws IOException {
+        crawl(new OpenDAPMetaDataCache(directory, 60_000L));
+
+        OpenDAPMetaDataCache restarted = new OpenDAPMetaDataCache(directory,
+                60_000L);
+        crawl(restarted);
+
+        assertEquals(DAS_FILES.length, transfers);
+        assertEquals(DAS_FILES.length, restarted.getNotModifiedCount());
+    }
+
+    @Test
+    public void testResponseWithoutValidatorsIsNotCached() throws IOException {
+        OpenDAPMetaDataCache cache = new OpenDAPMetaDataCache(directory,
+                60_000L);
+        String url = URL + DAS_FILES[0];
+        Fetcher noValidators = (u, eTag, lastModified) -> {
+            transfers++;
+            return new ConditionalResponse(responses.get(u), null, null);
+        };
+
+        cache.get(url, noValidators);
+        cache.get(url, noValidators);
+
+        assertEquals(2, transfers);
+        assertEquals(0, cache.getNotModifiedCount());
+    }
+
+    @Test
+    public void testRemovedResponseIsTransferredAgain() throws IOException {
+        OpenDAPMetaDataCache cache = new OpenDAPMetaDataCache(directory,
+                60_000L);
+        String url = URL + DAS_FILES[0];
+        cache.get(url, fetcher);
+
+        cache.remove(url);
+        cache.get(url, fetcher);
+
+        assertEquals(2, transfers);
+    }
+
+    private void crawl(OpenDAPMetaDataCache cache) throws IOException {
+        for (Map.Entry<String, byte[]> entry : responses.entrySet()) {
+            assertArrayEquals(entry.getValue(),
+                    cache.get(entry.getKey(), fetcher));
+        }
+    }
+}
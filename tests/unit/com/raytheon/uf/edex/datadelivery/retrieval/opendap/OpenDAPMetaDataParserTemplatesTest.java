@@ -0,0 +1,222 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.OpenDapGriddedDataSet;
+import com.raytheon.uf.common.datadelivery.registry.OpenDapGriddedDataSetMetaData;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.Projection.ProjectionType;
+import com.raytheon.uf.common.datadelivery.retrieval.util.LookupManager;
+import com.raytheon.uf.common.localization.PathManagerFactoryTest;
+import com.raytheon.uf.common.util.TestUtil;
+
+import opendap.dap.DAS;
+
+/**
+ * Replay the recorded RAP DAS files through
+ * {@link OpenDAPMetaDataParser#getParameters}, checking that two cycles of a
+ * model share their parameter groups and that the shared groups are the
+ * groups a fresh parse builds.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPMetaDataParserTemplatesTest {
+
+    private static final String COLLECTION_NAME = "rap";
+
+    private static final String DATASET_NAME = "rap32";
+
+    private static final String URL = "http://nomads.ncep.noaa.gov:9090/dods/rap/rap20120729/";
+
+    private static final String DATE_FORMAT = "HHddMMMyyyy";
+
+    private static DAS das00z;
+
+    private static DAS das01z;
+
+    @BeforeClass
+    public static void classSetUp() throws Exception {
+        PathManagerFactoryTest.initLocalization();
+        das00z = readDas("rap32_00z.das");
+        das01z = readDas("rap32_01z.das");
+
+        // Generate the pressure levels instead of asking the provider
+        LookupManager.getInstance().modifyLevelLookups(COLLECTION_NAME, 25.0,
+                1000.0f, 100.0f, null);
+    }
+
+    @Test
+    public void testCyclesOfModelHaveSameSignature() throws Exception {
+        OpenDAPMetaDataParser parser = new OpenDAPMetaDataParser();
+
+        String signature00z = parser.getParameterSignature(das00z,
+                parser.getGlobalNames(), DATASET_NAME, COLLECTION_NAME, 25.0,
+                1000.0f, 100.0f);
+        String signature01z = parser.getParameterSignature(das01z,
+                parser.getGlobalNames(), DATASET_NAME, COLLECTION_NAME, 25.0,
+                1000.0f, 100.0f);
+
+        assertEquals(signature00z, signature01z);
+        assertFalse("Cycle is part of the signature",
+                signature00z.contains("00Z29jul2012"));
+    }
+
+    @Test
+    public void testSecondCycleReusesParameterGroups() throws Exception {
+        OpenDAPMetaDataParser parser = new OpenDAPMetaDataParser();
+
+        getParameters(parser, das00z, "rap32_00z");
+        getParameters(parser, das01z, "rap32_01z");
+
+        OpenDAPParameterTemplates templates = parser.getParameterTemplates();
+        assertEquals(1, templates.getBuildCount());
+        assertEquals(1, templates.getReuseCount());
+    }
+
+    @Test
+    public void testReusedGroupsEqualFreshParse() throws Exception {
+        OpenDAPMetaDataParser reusing = new OpenDAPMetaDataParser();
+        getParameters(reusing, das00z, "rap32_00z");
+        Map<String, ParameterGroup> reused = getParameters(reusing, das01z,
+                "rap32_01z");
+        assertEquals(1, reusing.getParameterTemplates().getReuseCount());
+
+        Map<String, ParameterGroup> fresh = getParameters(
+                new OpenDAPMetaDataParser(), das01z, "rap32_01z");
+
+        assertFalse(fresh.isEmpty());
+        assertGroupsEqual(fresh, reused);
+    }
+
+    /**
+     * Reports the time a reused template saves over parsing the parameters
+     * of a cycle again.
+     */
+    @Test
+    public void testReuseSavesParseTime() throws Exception {
+        final int cycles = 20;
+        long freshNanos = 0L;
+        for (int i = 0; i < cycles; i++) {
+            long start = System.nanoTime();
+            getParameters(new OpenDAPMetaDataParser(), das01z, "rap32_01z");
+            freshNanos += System.nanoTime() - start;
+        }
+
+        OpenDAPMetaDataParser parser = new OpenDAPMetaDataParser();
+        getParameters(parser, das00z, "rap32_00z");
+        long reusedNanos = 0L;
+        for (int i = 0; i < cycles; i++) {
+            long start = System.nanoTime();
+            getParameters(parser, das01z, "rap32_01z");
+            reusedNanos += System.nanoTime() - start;
+        }
+
+        OpenDAPParameterTemplates templates = parser.getParameterTemplates();
+        System.out.println("Parsed the parameters of " + cycles
+                + " RAP cycles in "
+                + TimeUnit.NANOSECONDS.toMicros(freshNanos / cycles)
+                + " us each, reused them in "
+                + TimeUnit.NANOSECONDS.toMicros(reusedNanos / cycles)
+                + " us each; the parser counts "
+                + TimeUnit.NANOSECONDS.toMillis(templates.getSavedNanos())
+                + " ms saved");
+        assertEquals(cycles, templates.getReuseCount());
+        assertTrue(templates.getSavedNanos() > 0L);
+    }
+
+    private static Map<String, ParameterGroup> getParameters(
+            OpenDAPMetaDataParser parser, DAS das, String subName)
+            throws Exception {
+        OpenDapGriddedDataSet dataSet = new OpenDapGriddedDataSet();
+        dataSet.setCollectionName(COLLECTION_NAME);
+        dataSet.setDataSetName(DATASET_NAME);
+        OpenDapGriddedDataSetMetaData gdsmd = new OpenDapGriddedDataSetMetaData();
+        gdsmd.setDataSetName(DATASET_NAME);
+        gdsmd.setUrl(URL + subName);
+        return parser.getParameters(das, dataSet, gdsmd, subName, null,
+                DATE_FORMAT, ProjectionType.LatLon);
+    }
+
+    private static void assertGroupsEqual(Map<String, ParameterGroup> expected,
+            Map<String, ParameterGroup> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (ParameterGroup pg : expected.values()) {
+            Map<String, LevelGroup> expectedLevels = pg.getGroupedLevels();
+            Map<String, LevelGroup> actualLevels = actual.get(pg.getKey())
+                    .getGroupedLevels();
+            assertEquals(pg.getKey(), expectedLevels.keySet(),
+                    actualLevels.keySet());
+            for (LevelGroup lg : expectedLevels.values()) {
+                LevelGroup other = actualLevels.get(lg.getKey());
+                String name = pg.getKey() + " " + lg.getKey();
+                assertEquals(name, lg.getMasterKey(), other.getMasterKey());
+                assertEquals(name, lg.isReverseOrder(), other.isReverseOrder());
+                assertLevelsEqual(name, lg.getLevels(), other.getLevels());
+            }
+        }
+    }
+
+    private static void assertLevelsEqual(String name,
+            List<ParameterLevelEntry> expected,
+            List<ParameterLevelEntry> actual) {
+        assertEquals(name, expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            GriddedParameterLevelEntry level = (GriddedParameterLevelEntry) expected
+                    .get(i);
+            GriddedParameterLevelEntry other = (GriddedParameterLevelEntry) actual
+                    .get(i);
+            assertEquals(name, level.getMissingValue(),
+                    other.getMissingValue());
+            assertEquals(name, level.isUseProviderLevel(),
+                    other.isUseProviderLevel());
+        }
+    }
+
+    private static DAS readDas(String file) throws Exception {
+        DAS das = new DAS();
+        das.parse(new ByteArrayInputStream(TestUtil
+                .readResource(OpenDAPMetaDataParserTemplatesTest.class, file)));
+        return das;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterUtils;
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDAPParameterTemplates.Template;
+
+/**
+ * Test {@link OpenDAPParameterTemplates}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPParameterTemplatesTest {
+
+    private static final String T_KEY = ParameterUtils.buildKey("T", "K");
+
+    private static final String MB_KEY = ParameterUtils.buildKey("MB", "mb");
+
+    private final OpenDAPParameterTemplates templates = new OpenDAPParameterTemplates(
+            2);
+
+    @Test
+    public void testReusedGroupsEqualBuiltGroups() {
+        Map<String, ParameterGroup> built = parameterGroups();
+        templates.put("rap32", built, null, 1_000_000L);
+
+        Map<String, ParameterGroup> reused = templates
+                .reuse(templates.get("rap32"));
+
+        assertEquals(built.keySet(), reused.keySet());
+        LevelGroup builtLevels = built.get(T_KEY).getLevelGroup(MB_KEY);
+        LevelGroup reusedLevels = reused.get(T_KEY).getLevelGroup(MB_KEY);
+        assertEquals(builtLevels.getLevels(), reusedLevels.getLevels());
+        assertEquals(builtLevels.getMasterKey(), reusedLevels.getMasterKey());
+        assertTrue(reusedLevels.isReverseOrder());
+        GriddedParameterLevelEntry level = (GriddedParameterLevelEntry) reusedLevels
+                .getLevels().get(0);
+        assertEquals("-999", level.getMissingValue());
+        assertTrue(level.isUseProviderLevel());
+    }
+
+    @Test
+    public void testReusedGroupsAreCopies() {
+        Map<String, ParameterGroup> built = parameterGroups();
+        templates.put("rap32", built, null, 1_000_000L);
+
+        // Changing what was built or reused does not change the template
+        built.get(T_KEY).getLevelGroup(MB_KEY).addLevel(
+                new GriddedParameterLevelEntry("tmpprs", "temp", "500"));
+        Map<String, ParameterGroup> first = templates
+                .reuse(templates.get("rap32"));
+        first.remove(T_KEY);
+        Map<String, ParameterGroup> second = templates
+                .reuse(templates.get("rap32"));
+
+        assertNotSame(first, second);
+        assertEquals(1, second.get(T_KEY).getLevelGroup(MB_KEY).getLevels()
+                .size());
+    }
+
+    @Test
+    public void testReuseSavesBuildTime() {
+        templates.put("rap32", parameterGroups(), null, 1_000_000L);
+
+        templates.reuse(templates.get("rap32"));
+        templates.reuse(templates.get("rap32"));
+
+        assertEquals(1, templates.getBuildCount());
+        assertEquals(2, templates.getReuseCount());
+        assertEquals(2_000_000L, templates.getSavedNanos());
+    }
+
+    @Test
+    public void testProviderLevelsAreKept() {
+        List<Double> levels = Arrays.asList(1000.0, 850.0, 500.0);
+        templates.put("rap32", parameterGroups(), levels, 1L);
+
+        Template template = templates.get("rap32");
+
+        assertEquals(levels, template.getProviderLevels());
+        assertNull(templates.get("ncom"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTemplatesAreEvicted() {
+        templates.put("a", parameterGroups(), null, 1L);
+        templates.put("b", parameterGroups(), null, 1L);
+        templates.get("a");
+        templates.put("c", parameterGroups(), null, 1L);
+
+        assertNotNull(templates.get("a"));
+        assertNull(templates.get("b"));
+        assertNotNull(templates.get("c"));
+    }
+
+    private static Map<String, ParameterGroup> parameterGroups() {
+        Map<String, ParameterGroup> groups = new HashMap<>();
+        ParameterGroup pg = new ParameterGroup("T", "K");
+        LevelGroup lg = new LevelGroup("MB", "mb");
+        lg.setReverseOrder(true);
+        lg.setMasterKey("MB");
+        GriddedParameterLevelEntry level = new GriddedParameterLevelEntry(
+                "tmpprs", "temp", "1000");
+        level.setMissingValue("-999");
+        level.setUseProviderLevel(true);
+        lg.addLevel(level);
+        pg.putLevelGroup(lg);
+        groups.put(pg.getKey(), pg);
+        return groups;
+    }
+}
@@ -21,15 +21,29 @@ package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.OpenDapGriddedDataSetMetaData;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.registry.handlers.DataDeliveryHandlers;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
 import com.raytheon.uf.common.geospatial.MapUtil;
 import com.raytheon.uf.common.gridcoverage.Corner;
 import com.raytheon.uf.common.gridcoverage.GridCoverage;
 import com.raytheon.uf.common.gridcoverage.LatLonGridCoverage;
 import com.raytheon.uf.common.gridcoverage.exception.GridCoverageException;
+import com.raytheon.uf.common.registry.ebxml.RegistryUtil;
+import com.raytheon.uf.common.registry.handler.RegistryHandlerException;
+import com.raytheon.uf.common.registry.handler.RegistryObjectHandlersUtil;
 
 /**
  * Test {@link OpenDAPRequestBuilder}.
@@ -43,6 +57,8 @@ import com.raytheon.uf.common.gridcoverage.exception.GridCoverageException;
  * Aug 14, 2012 1022       djohnson     Initial creation
  * Dec 10, 2012 1259       bsteffen     Switch Data Delivery from LatLon to referenced envelopes.
  * Aug 26, 2014 3365       ccody        Separate Data Delivery tests out of AWIPS 2 baseline.
+ * Oct 17, 2026            agent        Test coalesced retrievals.
+ * Oct 17, 2026            agent        Test level ranges.
  * 
  * </pre>
  * 
@@ -52,6 +68,21 @@ import com.raytheon.uf.common.gridcoverage.exception.GridCoverageException;
 
 public class OpenDAPRequestBuilderTest {
 
+    private static final String PRESSURE_URL = "http://host/dods/gfs/gfs_00z";
+
+    @BeforeClass
+    public static void classSetUp() throws RegistryHandlerException {
+        RegistryObjectHandlersUtil.initMemory();
+
+        OpenDapGriddedDataSetMetaData dsmd = new OpenDapGriddedDataSetMetaData();
+        dsmd.setDataSetName("gfs");
+        dsmd.setUrl(PRESSURE_URL);
+        dsmd.setProviderLevels(
+                Arrays.asList(1000.0, 925.0, 850.0, 700.0, 500.0));
+        DataDeliveryHandlers.getDataSetMetaDataHandler()
+                .store(RegistryUtil.registryUser, dsmd);
+    }
+
     @Test
     public void testProperGridCoordinatesResultsInCorrectOpenDapString() {
         GridCoverage coverage = new LatLonGridCoverage();
@@ -81,4 +112,110 @@ public class OpenDAPRequestBuilderTest {
         assertEquals("Improper OpenDAP grid coordinate string specified!",
                 "[10:1:20][30:1:40]", coverageString);
     }
+
+    @Test
+    public void testCoalescedRetrievalProjectsEveryVariable() {
+        GriddedCoverage coverage = createCoverage();
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
+        retrieval.setUrl("http://host/dods/gfs");
+        retrieval.setAttribute(createAttribute("tmp2m", coverage));
+        retrieval.setCoalescedAttributes(
+                Arrays.asList(createAttribute("rh2m", coverage),
+                        createAttribute("ugrd10m", coverage)));
+
+        assertEquals("Improper coalesced OpenDAP request specified!",
+                "http://host/dods/gfs?tmp2m[0][10:1:20][30:1:40],"
+                        + "rh2m[0][10:1:20][30:1:40],"
+                        + "ugrd10m[0][10:1:20][30:1:40]",
+                new OpenDAPRequestBuilder(retrieval).getRequest());
+    }
+
+    @Test
+    public void testLevelRangeIsOneHyperslab() {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
+        retrieval.setUrl(PRESSURE_URL);
+        retrieval.setAttribute(createPressureAttribute(createCoverage(),
+                "925.0", "850.0", "700.0"));
+
+        assertEquals("Improper OpenDAP level range specified!",
+                PRESSURE_URL + "?tmpprs[0][1:1:3][10:1:20][30:1:40]",
+                new OpenDAPRequestBuilder(retrieval).getRequest());
+    }
+
+    @Test
+    public void testSingleLevelIsOneIndex() {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
+        retrieval.setUrl(PRESSURE_URL);
+        retrieval.setAttribute(
+                createPressureAttribute(createCoverage(), "850.0"));
+
+        assertEquals("Improper OpenDAP level specified!",
+                PRESSURE_URL + "?tmpprs[0][2][10:1:20][30:1:40]",
+                new OpenDAPRequestBuilder(retrieval).getRequest());
+    }
+
+    private static RetrievalAttribute<GriddedTime, GriddedCoverage> createPressureAttribute(
+            GriddedCoverage coverage, String... levels) {
+        LevelGroup levelGroup = new LevelGroup("Pressure Levels", "mb");
+        for (String level : levels) {
+            GriddedParameterLevelEntry entry = new GriddedParameterLevelEntry(
+                    "tmpprs", "", level);
+            entry.setUseProviderLevel(true);
+            levelGroup.addLevel(entry);
+        }
+        ParameterGroup parameterGroup = new ParameterGroup("tmpprs", "");
+        parameterGroup.putLevelGroup(levelGroup);
+
+        GriddedTime time = new GriddedTime();
+        time.setNumTimes(1);
+
+        RetrievalAttribute<GriddedTime, GriddedCoverage> att = new RetrievalAttribute<>();
+        att.setParameterGroup(parameterGroup);
+        att.setCoverage(coverage);
+        att.setTime(time);
+        return att;
+    }
+
+    private static RetrievalAttribute<GriddedTime, GriddedCoverage> createAttribute(
+            String providerName, GriddedCoverage coverage) {
+        LevelGroup levelGroup = new LevelGroup("Surface", "");
+        levelGroup.addLevel(
+                new GriddedParameterLevelEntry(providerName, "", null));
+        ParameterGroup parameterGroup = new ParameterGroup(providerName, "");
+        parameterGroup.putLevelGroup(levelGroup);
+
+        GriddedTime time = new GriddedTime();
+        time.setNumTimes(1);
+
+        RetrievalAttribute<GriddedTime, GriddedCoverage> att = new RetrievalAttribute<>();
+        att.setParameterGroup(parameterGroup);
+        att.setCoverage(coverage);
+        att.setTime(time);
+        return att;
+    }
+
+    private static GriddedCoverage createCoverage() {
+        GridCoverage coverage = new LatLonGridCoverage();
+        coverage.setDx(1.0);
+        coverage.setDy(1.0);
+        coverage.setNx(61);
+        coverage.setNy(61);
+        coverage.setLa1(30);
+        coverage.setLo1(-30);
+        coverage.setSpacingUnit("degree");
+        coverage.setFirstGridPointCorner(Corner.UpperLeft);
+
+        try {
+            coverage.initialize();
+        } catch (GridCoverageException e) {
+            e.printStackTrace();
+        }
+
+        GriddedCoverage griddedCoverage = new GriddedCoverage();
+        griddedCoverage.setGridCoverage(coverage);
+
+        griddedCoverage.setRequestEnvelope(new ReferencedEnvelope(0, 10, -20,
+                -10, MapUtil.LATLON_PROJECTION));
+        return griddedCoverage;
+    }
 }
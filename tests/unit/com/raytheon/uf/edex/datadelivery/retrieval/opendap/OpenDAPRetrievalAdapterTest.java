@@ -0,0 +1,274 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
+import com.raytheon.uf.common.dataplugin.PluginDataObject;
+import com.raytheon.uf.common.dataplugin.grid.GridRecord;
+
+/**
+ * Test {@link OpenDAPRetrievalAdapter} hands each attribute of a coalesced
+ * retrieval to its own translator, and splits coalesced retrievals into
+ * parallel requests.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPRetrievalAdapterTest {
+
+    private static final String URL = "http://nomads.ncep.noaa.gov:9090/dods/gfs/gfs20261017/gfs_00z";
+
+    /**
+     * A translator that records what it translates and returns a record
+     * tagged with the variable of its attribute.
+     */
+    private static class RecordingTranslator extends OpenDAPTranslator {
+
+        private final Retrieval<GriddedTime, GriddedCoverage> attRetrieval;
+
+        private Object payload;
+
+        private RecordingTranslator(
+                Retrieval<GriddedTime, GriddedCoverage> retrieval)
+                throws InstantiationException {
+            super(retrieval, GridRecord.class.getName());
+            this.attRetrieval = retrieval;
+        }
+
+        @Override
+        protected void configureFromPdoClassName(String className) {
+            // no metadata adapter is needed
+        }
+
+        @Override
+        public PluginDataObject[] asPluginDataObjects(Object payload) {
+            this.payload = payload;
+            GridRecord record = new GridRecord();
+            record.setDatasetId(retrieval.getAttribute().getEntries().get(0)
+                    .getProviderName());
+            return new PluginDataObject[] { record };
+        }
+    }
+
+    /**
+     * An adapter that keeps the translators it creates.
+     */
+    private static class RecordingAdapter extends OpenDAPRetrievalAdapter {
+
+        private final List<RecordingTranslator> translators = new ArrayList<>();
+
+        @Override
+        OpenDAPTranslator getOpenDapTranslator(
+                Retrieval<GriddedTime, GriddedCoverage> retrieval)
+                throws InstantiationException {
+            RecordingTranslator translator = new RecordingTranslator(
+                    retrieval);
+            translators.add(translator);
+            return translator;
+        }
+    }
+
+    @Test
+    public void testEachAttributeIsTranslatedAlone() throws Exception {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = createRetrieval(
+                "tmpprs", "tmp2m", "rh2m");
+        OpenDapRetrievalResponse response = new OpenDapRetrievalResponse();
+        Object payload = createPayload();
+        response.setPayLoad(payload);
+
+        RecordingAdapter adapter = new RecordingAdapter();
+        Map<String, PluginDataObject[]> map = adapter
+                .processResponse(retrieval, response);
+
+        assertEquals(3, adapter.translators.size());
+        for (int i = 0; i < adapter.translators.size(); i++) {
+            RecordingTranslator translator = adapter.translators.get(i);
+            Retrieval<GriddedTime, GriddedCoverage> attRetrieval = translator.attRetrieval;
+            assertEquals(1, attRetrieval.getAttributes().size());
+            assertSame(retrieval.getAttributes().get(i),
+                    attRetrieval.getAttribute());
+            assertEquals(retrieval.getSubscriptionName(),
+                    attRetrieval.getSubscriptionName());
+            assertEquals(retrieval.getUrl(), attRetrieval.getUrl());
+            assertSame(payload, translator.payload);
+        }
+
+        assertEquals(1, map.size());
+        assertEquals(Arrays.asList("tmpprs", "tmp2m", "rh2m"),
+                getDatasetIds(map.get("grid")));
+    }
+
+    @Test
+    public void testSingleAttributeIsTranslatedWithRetrieval()
+            throws Exception {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = createRetrieval(
+                "tmpprs");
+        OpenDapRetrievalResponse response = new OpenDapRetrievalResponse();
+        response.setPayLoad(createPayload());
+
+        RecordingAdapter adapter = new RecordingAdapter();
+        Map<String, PluginDataObject[]> map = adapter
+                .processResponse(retrieval, response);
+
+        assertEquals(1, adapter.translators.size());
+        assertSame(retrieval, adapter.translators.get(0).attRetrieval);
+        assertEquals(Arrays.asList("tmpprs"), getDatasetIds(map.get("grid")));
+    }
+
+    @Test
+    public void testNoPayloadIsNotTranslated() throws Exception {
+        RecordingAdapter adapter = new RecordingAdapter();
+        Map<String, PluginDataObject[]> map = adapter.processResponse(
+                createRetrieval("tmpprs", "tmp2m"),
+                new OpenDapRetrievalResponse());
+
+        assertTrue(adapter.translators.isEmpty());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testSplitRetrievalKeepsAttributeOrder() {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = createRetrieval(
+                "tmpprs", "tmp2m", "rh2m", "ugrd10m", "vgrd10m");
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> parts = OpenDAPRetrievalAdapter
+                .splitRetrieval(retrieval, 2);
+
+        assertEquals(2, parts.size());
+        assertEquals(Arrays.asList("tmpprs", "tmp2m", "rh2m"),
+                getVariables(parts.get(0)));
+        assertEquals(Arrays.asList("ugrd10m", "vgrd10m"),
+                getVariables(parts.get(1)));
+        for (Retrieval<GriddedTime, GriddedCoverage> part : parts) {
+            assertEquals(retrieval.getSubscriptionName(),
+                    part.getSubscriptionName());
+            assertEquals(retrieval.getUrl(), part.getUrl());
+        }
+    }
+
+    @Test
+    public void testSplitRetrievalIntoMorePartsThanAttributes() {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = createRetrieval(
+                "tmpprs", "tmp2m");
+
+        List<Retrieval<GriddedTime, GriddedCoverage>> parts = OpenDAPRetrievalAdapter
+                .splitRetrieval(retrieval, 4);
+
+        assertEquals(2, parts.size());
+        assertEquals(Arrays.asList("tmpprs"), getVariables(parts.get(0)));
+        assertEquals(Arrays.asList("tmp2m"), getVariables(parts.get(1)));
+    }
+
+    @Test
+    public void testRetrievalIsNotSplitForOneRequest() {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = createRetrieval(
+                "tmpprs", "tmp2m", "rh2m");
+        Retrieval<GriddedTime, GriddedCoverage> single = createRetrieval(
+                "tmpprs");
+
+        assertEquals(Arrays.asList(retrieval),
+                OpenDAPRetrievalAdapter.splitRetrieval(retrieval, 1));
+        assertEquals(Arrays.asList(single),
+                OpenDAPRetrievalAdapter.splitRetrieval(single, 4));
+    }
+
+    private static OpenDapData createPayload() {
+        return new OpenDapData("Dataset {\n} gfs/gfs_00z;\n",
+                new ArrayList<OpenDapData.Variable>());
+    }
+
+    private static List<String> getDatasetIds(PluginDataObject[] pdos) {
+        List<String> datasetIds = new ArrayList<>();
+        for (PluginDataObject pdo : pdos) {
+            datasetIds.add(((GridRecord) pdo).getDatasetId());
+        }
+        return datasetIds;
+    }
+
+    private static List<String> getVariables(
+            Retrieval<GriddedTime, GriddedCoverage> retrieval) {
+        List<String> variables = new ArrayList<>();
+        for (RetrievalAttribute<GriddedTime, GriddedCoverage> att : retrieval
+                .getAttributes()) {
+            variables.add(att.getEntries().get(0).getProviderName());
+        }
+        return variables;
+    }
+
+    private static Retrieval<GriddedTime, GriddedCoverage> createRetrieval(
+            String... variables) {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
+        retrieval.setSubscriptionName("coalesced");
+        retrieval.setDataSetName("gfs");
+        retrieval.setProvider("NOMADS");
+        retrieval.setPlugin("grid");
+        retrieval.setUrl(URL);
+        retrieval.setAttribute(createAttribute(variables[0]));
+        if (variables.length > 1) {
+            List<RetrievalAttribute<GriddedTime, GriddedCoverage>> coalesced = new ArrayList<>();
+            for (int i = 1; i < variables.length; i++) {
+                coalesced.add(createAttribute(variables[i]));
+            }
+            retrieval.setCoalescedAttributes(coalesced);
+        }
+        return retrieval;
+    }
+
+    private static RetrievalAttribute<GriddedTime, GriddedCoverage> createAttribute(
+            String variable) {
+        LevelGroup levelGroup = new LevelGroup("Surface", "");
+        levelGroup.setMasterKey("SFC");
+        levelGroup.addLevel(
+                new GriddedParameterLevelEntry(variable, variable, null));
+        ParameterGroup param = new ParameterGroup(variable, "K");
+        param.putLevelGroup(levelGroup);
+
+        RetrievalAttribute<GriddedTime, GriddedCoverage> att = new RetrievalAttribute<>();
+        att.setParameterGroup(param);
+        att.setTime(new GriddedTime());
+        att.setCoverage(new GriddedCoverage());
+        return att;
+    }
+}
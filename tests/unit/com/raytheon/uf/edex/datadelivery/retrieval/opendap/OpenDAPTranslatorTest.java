@@ -0,0 +1,420 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.raytheon.uf.common.datadelivery.registry.GriddedCoverage;
+import com.raytheon.uf.common.datadelivery.registry.GriddedParameterLevelEntry;
+import com.raytheon.uf.common.datadelivery.registry.GriddedTime;
+import com.raytheon.uf.common.datadelivery.registry.LevelGroup;
+import com.raytheon.uf.common.datadelivery.registry.ParameterGroup;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.Retrieval;
+import com.raytheon.uf.common.datadelivery.retrieval.xml.RetrievalAttribute;
+import com.raytheon.uf.common.dataplugin.PluginDataObject;
+import com.raytheon.uf.common.dataplugin.grid.GridRecord;
+import com.raytheon.uf.common.geospatial.MapUtil;
+import com.raytheon.uf.common.gridcoverage.Corner;
+import com.raytheon.uf.common.gridcoverage.GridCoverage;
+import com.raytheon.uf.common.gridcoverage.LatLonGridCoverage;
+import com.raytheon.uf.common.gridcoverage.exception.GridCoverageException;
+import com.raytheon.uf.edex.datadelivery.retrieval.metadata.adapters.AbstractMetadataAdapter;
+import com.raytheon.uf.edex.datadelivery.retrieval.metadata.adapters.MockGridMetaDataAdapter;
+
+/**
+ * Test that {@link OpenDAPTranslator} translates each attribute of a
+ * coalesced response into the same records as retrieving every variable,
+ * level and time on its own.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDAPTranslatorTest {
+
+    /** Size of the requested sub grid of {@link #createCoverage()} */
+    private static final int NX = 11;
+
+    private static final int NY = 11;
+
+    private static final double[] PROVIDER_LEVELS = { 1000.0, 925.0 };
+
+    /** Missing value of each provider level, and of the surface */
+    private static final String[] MISSING_VALUES = { "-9999.0", "9.999E20" };
+
+    private static final String SURFACE_MISSING_VALUE = "9.999E20";
+
+    private static final int[] TIMES = { 0, 1 };
+
+    /**
+     * Turns the bytes of a DAP2 data response into the payload of a
+     * retrieval response.
+     */
+    private interface PayloadDecoder {
+        Object decode(byte[] response) throws Exception;
+    }
+
+    /**
+     * A Float32 variable of a response. Its values depend on the variable,
+     * time and level.
+     */
+    private static class Grid {
+
+        private final String name;
+
+        private final int[] times;
+
+        /** Provider level indexes, null for a surface variable */
+        private final int[] levels;
+
+        private Grid(String name, int[] times, int[] levels) {
+            this.name = name;
+            this.times = times;
+            this.levels = levels;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @BeforeClass
+    public static void classSetUp() throws Exception {
+        AbstractMetadataAdapter.getMetadataAdapterRegistry().register(
+                GridRecord.class.getName(),
+                (Class) MockGridMetaDataAdapter.class);
+    }
+
+    @Test
+    public void testCoalescedDataDdsTranslatesAsSingleRetrievals()
+            throws Exception {
+        PayloadDecoder decoder = response -> new opendap.dap.DConnect(
+                new ByteArrayInputStream(response)).getData(null);
+
+        assertSameRecords(translateSingleRetrievals(decoder),
+                translateCoalescedRetrieval(decoder));
+    }
+
+    @Test
+    public void testCoalescedOpenDapDataTranslatesAsSingleRetrievals()
+            throws Exception {
+        PayloadDecoder decoder = response -> OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(response));
+
+        assertSameRecords(translateSingleRetrievals(decoder),
+                translateCoalescedRetrieval(decoder));
+    }
+
+    @Test
+    public void testLevelRangeUsesMissingValueOfEachLevel() throws Exception {
+        PayloadDecoder decoder = response -> OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(response));
+
+        Map<String, GridRecord> records = translateCoalescedRetrieval(decoder);
+
+        assertEquals(6, records.size());
+        for (GridRecord record : records.values()) {
+            for (float value : (float[]) record.getMessageData()) {
+                assertNotEquals(record.getParameter().getName(), -9999.0f,
+                        value, 0.0f);
+                assertNotEquals(record.getParameter().getName(), 9.999E20f,
+                        value, 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testMissingVariableIsNotTranslated() throws Exception {
+        Object payload = OpenDapDataDecoder.decode(new ByteArrayInputStream(
+                createResponse(new Grid("tmp2m", TIMES, null),
+                        new Grid("rh2m", TIMES, null))));
+
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = createRetrieval(
+                createAttribute(createPressureParameter(0, 1), 0, 1));
+
+        assertNull(new OpenDAPTranslator(retrieval, GridRecord.class.getName())
+                .asPluginDataObjects(payload));
+    }
+
+    /**
+     * Translate a response of every variable, level and time, one attribute
+     * at a time as the retrieval adapter fans it out.
+     */
+    private static Map<String, GridRecord> translateCoalescedRetrieval(
+            PayloadDecoder decoder) throws Exception {
+        Object payload = decoder.decode(
+                createResponse(new Grid("tmpprs", TIMES, new int[] { 0, 1 }),
+                        new Grid("tmp2m", TIMES, null)));
+
+        Map<String, GridRecord> records = new TreeMap<>();
+        translate(createAttribute(createPressureParameter(0, 1), 0, 1),
+                payload, records);
+        translate(createAttribute(createSurfaceParameter(), 0, 1), payload,
+                records);
+        return records;
+    }
+
+    /**
+     * Translate a response per variable, level and time.
+     */
+    private static Map<String, GridRecord> translateSingleRetrievals(
+            PayloadDecoder decoder) throws Exception {
+        Map<String, GridRecord> records = new TreeMap<>();
+        for (int time : TIMES) {
+            int[] times = { time };
+            for (int level = 0; level < PROVIDER_LEVELS.length; level++) {
+                Object payload = decoder.decode(createResponse(
+                        new Grid("tmpprs", times, new int[] { level })));
+                translate(createAttribute(createPressureParameter(level), time,
+                        time), payload, records);
+            }
+            Object payload = decoder
+                    .decode(createResponse(new Grid("tmp2m", times, null)));
+            translate(createAttribute(createSurfaceParameter(), time, time),
+                    payload, records);
+        }
+        return records;
+    }
+
+    private static void translate(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att,
+            Object payload, Map<String, GridRecord> records) throws Exception {
+        PluginDataObject[] pdos = new OpenDAPTranslator(createRetrieval(att),
+                GridRecord.class.getName()).asPluginDataObjects(payload);
+        for (PluginDataObject pdo : pdos) {
+            GridRecord record = (GridRecord) pdo;
+            String key = record.getParameter().getAbbreviation() + " "
+                    + record.getParameter().getName() + " "
+                    + record.getDataTime();
+            assertNull("Duplicate record " + key, records.put(key, record));
+        }
+    }
+
+    private static void assertSameRecords(Map<String, GridRecord> expected,
+            Map<String, GridRecord> actual) {
+        assertEquals(6, expected.size());
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, GridRecord> entry : expected.entrySet()) {
+            GridRecord record = entry.getValue();
+            GridRecord other = actual.get(entry.getKey());
+            assertEquals(entry.getKey(), record.getDataTime(),
+                    other.getDataTime());
+            assertEquals(entry.getKey(), record.getLevel(), other.getLevel());
+            assertEquals(entry.getKey(), record.getDatasetId(),
+                    other.getDatasetId());
+            assertArrayEquals(entry.getKey(),
+                    (float[]) record.getMessageData(),
+                    (float[]) other.getMessageData(), 0.0f);
+        }
+    }
+
+    private static Retrieval<GriddedTime, GriddedCoverage> createRetrieval(
+            RetrievalAttribute<GriddedTime, GriddedCoverage> att) {
+        Retrieval<GriddedTime, GriddedCoverage> retrieval = new Retrieval<>();
+        retrieval.setSubscriptionName("coalesced");
+        retrieval.setDataSetName("gfs");
+        retrieval.setPlugin("grid");
+        retrieval.setUrl(
+                "http://nomads.ncep.noaa.gov:9090/dods/gfs/gfs20261017/gfs_00z");
+        retrieval.setAttribute(att);
+        return retrieval;
+    }
+
+    private static RetrievalAttribute<GriddedTime, GriddedCoverage> createAttribute(
+            ParameterGroup param, int startTime, int endTime) {
+        GriddedTime time = new GriddedTime();
+        time.setStart(new Date(0));
+        time.setEnd(new Date(TimeUnit.HOURS.toMillis(27)));
+        time.setNumTimes(10);
+        time.setStep(3.0);
+        time.setStepUnit("hour");
+        List<Integer> indices = new ArrayList<>();
+        for (int i = startTime; i <= endTime; i++) {
+            indices.add(i);
+        }
+        time.setSelectedTimeIndices(indices);
+        time.setRequestStartTimeAsInt(startTime);
+        time.setRequestEndTimeAsInt(endTime);
+
+        RetrievalAttribute<GriddedTime, GriddedCoverage> att = new RetrievalAttribute<>();
+        att.setParameterGroup(param);
+        att.setCoverage(createCoverage());
+        att.setTime(time);
+        return att;
+    }
+
+    private static ParameterGroup createPressureParameter(int... levels) {
+        LevelGroup levelGroup = new LevelGroup("Pressure Levels", "mb");
+        levelGroup.setMasterKey("MB");
+        for (int level : levels) {
+            GriddedParameterLevelEntry entry = new GriddedParameterLevelEntry(
+                    "tmpprs", "Temperature at " + PROVIDER_LEVELS[level] + " mb",
+                    String.valueOf(PROVIDER_LEVELS[level]));
+            entry.setMissingValue(MISSING_VALUES[level]);
+            entry.setUseProviderLevel(true);
+            levelGroup.addLevel(entry);
+        }
+        ParameterGroup param = new ParameterGroup("T", "K");
+        param.putLevelGroup(levelGroup);
+        return param;
+    }
+
+    private static ParameterGroup createSurfaceParameter() {
+        GriddedParameterLevelEntry entry = new GriddedParameterLevelEntry(
+                "tmp2m", "Temperature at 2 m", "2.0");
+        entry.setMissingValue(SURFACE_MISSING_VALUE);
+        LevelGroup levelGroup = new LevelGroup("Height Level", "m");
+        levelGroup.setMasterKey("FHAG");
+        levelGroup.addLevel(entry);
+        ParameterGroup param = new ParameterGroup("T", "K");
+        param.putLevelGroup(levelGroup);
+        return param;
+    }
+
+    private static GriddedCoverage createCoverage() {
+        GridCoverage coverage = new LatLonGridCoverage();
+        coverage.setDx(1.0);
+        coverage.setDy(1.0);
+        coverage.setNx(61);
+        coverage.setNy(61);
+        coverage.setLa1(30);
+        coverage.setLo1(-30);
+        coverage.setSpacingUnit("degree");
+        coverage.setFirstGridPointCorner(Corner.UpperLeft);
+
+        try {
+            coverage.initialize();
+        } catch (GridCoverageException e) {
+            e.printStackTrace();
+        }
+
+        GriddedCoverage griddedCoverage = new GriddedCoverage();
+        griddedCoverage.setGridCoverage(coverage);
+
+        // requests the 11 x 11 sub grid [10:1:20][30:1:40]
+        griddedCoverage.setRequestEnvelope(new ReferencedEnvelope(0, 10, -20,
+                -10, MapUtil.LATLON_PROJECTION));
+        return griddedCoverage;
+    }
+
+    /**
+     * A value of a variable, the first value of the last time is the missing
+     * value of its level.
+     */
+    private static float getValue(Grid grid, int time, int level, int i) {
+        if (i == 0 && time == TIMES[TIMES.length - 1]) {
+            return Float.parseFloat(grid.levels == null ? SURFACE_MISSING_VALUE
+                    : MISSING_VALUES[level]);
+        }
+        return grid.name.length() * 10_000 + time * 1_000 + level * 100 + i;
+    }
+
+    /**
+     * Create the DAP2 data response of the grids.
+     */
+    private static byte[] createResponse(Grid... grids) throws IOException {
+        StringBuilder dds = new StringBuilder("Dataset {\n");
+        for (Grid grid : grids) {
+            String levelDim = grid.levels == null ? ""
+                    : "[lev = " + grid.levels.length + "]";
+            dds.append("    Grid {\n     ARRAY:\n        Float32 ")
+                    .append(grid.name).append("[time = ")
+                    .append(grid.times.length).append("]").append(levelDim)
+                    .append("[lat = " + NY + "][lon = " + NX + "];\n")
+                    .append("     MAPS:\n        Float64 time[time = ")
+                    .append(grid.times.length).append("];\n");
+            if (grid.levels != null) {
+                dds.append("        Float64 lev").append(levelDim)
+                        .append(";\n");
+            }
+            dds.append("        Float64 lat[lat = " + NY + "];\n")
+                    .append("        Float64 lon[lon = " + NX + "];\n")
+                    .append("    } ").append(grid.name).append(";\n");
+        }
+        dds.append("} gfs/gfs_00z;\n");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(dds.toString().getBytes(StandardCharsets.UTF_8));
+        out.write("Data:\n".getBytes(StandardCharsets.UTF_8));
+        for (Grid grid : grids) {
+            int[] levels = grid.levels == null ? new int[] { 0 } : grid.levels;
+            int size = grid.times.length * levels.length * NY * NX;
+            out.writeInt(size);
+            out.writeInt(size);
+            for (int time : grid.times) {
+                for (int level : levels) {
+                    for (int i = 0; i < NY * NX; i++) {
+                        out.writeFloat(getValue(grid, time, level, i));
+                    }
+                }
+            }
+
+            double[] times = new double[grid.times.length];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = grid.times[i];
+            }
+            writeMap(out, times);
+            if (grid.levels != null) {
+                double[] levelValues = new double[levels.length];
+                for (int i = 0; i < levels.length; i++) {
+                    levelValues[i] = PROVIDER_LEVELS[levels[i]];
+                }
+                writeMap(out, levelValues);
+            }
+            writeMap(out, new double[NY]);
+            writeMap(out, new double[NX]);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeMap(DataOutputStream out, double... values)
+            throws IOException {
+        out.writeInt(values.length);
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.opendap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.raytheon.uf.edex.datadelivery.retrieval.opendap.OpenDapData.Variable;
+
+/**
+ * Test {@link OpenDapDataDecoder}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class OpenDapDataDecoderTest {
+
+    private static final String DDS = "Dataset {\n" + "    Grid {\n"
+            + "     ARRAY:\n"
+            + "        Float32 tmp2m[time = 2][lat = 2][lon = 3];\n"
+            + "     MAPS:\n" + "        Float64 time[time = 2];\n"
+            + "        Float64 lat[lat = 2];\n"
+            + "        Float64 lon[lon = 3];\n" + "    } tmp2m;\n"
+            + "} gfs/gfs_0p25_00z;\n";
+
+    @Test
+    public void testGridArrayIsDecodedIntoSlices() throws IOException {
+        OpenDapData data = OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(createResponse()));
+
+        assertEquals(Arrays.asList("tmp2m"), data.getVariableNames());
+        assertEquals(4, data.getVariables().size());
+
+        Variable array = data.getDataArray("tmp2m");
+        assertEquals("tmp2m", array.getName());
+        assertArrayEquals(new int[] { 2, 2, 3 }, array.getShape());
+        List<float[]> slices = array.getSlices();
+        assertEquals(2, slices.size());
+        assertArrayEquals(new float[] { 0, 1, 2, 3, 4, 5 }, slices.get(0),
+                0.0f);
+        assertArrayEquals(new float[] { 6, 7, 8, 9, 10, 11 }, slices.get(1),
+                0.0f);
+
+        assertNull(data.getVariables().get(1).getSlices());
+        assertNull(data.getDataArray("rh2m"));
+    }
+
+    @Test
+    public void testExternalizeWritesTheResponseUnchanged()
+            throws IOException {
+        byte[] response = createResponse();
+        OpenDapData data = OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(response));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        data.externalize(os);
+        assertArrayEquals(response, os.toByteArray());
+    }
+
+    @Test
+    public void testResponseWithHeadersIsInflated() throws IOException {
+        OpenDapData data = OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(createResponse()));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        data.externalizeWithHeaders(os);
+        OpenDapData read = OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(os.toByteArray()));
+
+        assertEquals(data.getDds(), read.getDds());
+        assertArrayEquals(new float[] { 6, 7, 8, 9, 10, 11 },
+                read.getDataArray("tmp2m").getSlices().get(1), 0.0f);
+    }
+
+    @Test
+    public void testMergedResponsesDecodeAsOne() throws IOException {
+        OpenDapData data = OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(createResponse()));
+        OpenDapData other = OpenDapDataDecoder.decode(new ByteArrayInputStream(
+                createResponse(DDS.replace("tmp2m", "rh2m"))));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        OpenDapData.merge(Arrays.asList(data, other)).externalize(os);
+        OpenDapData merged = OpenDapDataDecoder
+                .decode(new ByteArrayInputStream(os.toByteArray()));
+
+        assertEquals(Arrays.asList("tmp2m", "rh2m"),
+                merged.getVariableNames());
+        assertArrayEquals(new float[] { 6, 7, 8, 9, 10, 11 },
+                merged.getDataArray("rh2m").getSlices().get(1), 0.0f);
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorResponseThrows() throws IOException {
+        OpenDapDataDecoder.decode(new ByteArrayInputStream(
+                "Error {\n    code = 404;\n    message = \"No such file\";\n};\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedResponseThrows() throws IOException {
+        byte[] response = createResponse();
+        OpenDapDataDecoder.decode(new ByteArrayInputStream(
+                Arrays.copyOf(response, response.length - 10)));
+    }
+
+    @Test(expected = OpenDapDataDecoder.UnsupportedTypeException.class)
+    public void testStructureThrowsUnsupportedType() throws IOException {
+        OpenDapDataDecoder.decode(new ByteArrayInputStream(
+                ("Dataset {\n    Structure {\n        Float32 tmp2m;\n"
+                        + "    } point;\n} gfs;\nData:\n")
+                                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Compares decoding a 10 x 721 x 1440 Float32 grid with the decoder and
+     * with DConnect, reporting the bytes each allocates and the live heap
+     * each holds once decoded. Run by hand, it needs about 200 MB of heap.
+     */
+    @Ignore("Benchmark, run by hand")
+    @Test
+    public void benchmarkDecoderAgainstDConnect() throws Exception {
+        File file = File.createTempFile("gfs", ".dods");
+        try {
+            writeLargeResponse(file, 10, 721, 1440);
+
+            // the first run of each is a warm up
+            long[] dconnectStats = null;
+            for (int i = 0; i < 2; i++) {
+                dconnectStats = measure(() -> {
+                    try (InputStream is = new BufferedInputStream(
+                            new FileInputStream(file))) {
+                        return new opendap.dap.DConnect(is).getData(null);
+                    }
+                });
+            }
+            long[] decoderStats = null;
+            for (int i = 0; i < 2; i++) {
+                decoderStats = measure(() -> {
+                    try (InputStream is = new BufferedInputStream(
+                            new FileInputStream(file))) {
+                        return OpenDapDataDecoder.decode(is);
+                    }
+                });
+            }
+
+            System.out.println("Decoding a " + file.length() / 1024 / 1024
+                    + " MB response: DConnect allocated "
+                    + dconnectStats[0] / 1024 / 1024 + " MB and held "
+                    + dconnectStats[1] / 1024 / 1024
+                    + " MB, the decoder allocated "
+                    + decoderStats[0] / 1024 / 1024 + " MB and held "
+                    + decoderStats[1] / 1024 / 1024 + " MB");
+        } finally {
+            file.delete();
+        }
+    }
+
+    private interface Decode {
+        Object decode() throws Exception;
+    }
+
+    /**
+     * @return the bytes allocated by the decode and the growth of the live
+     *         heap while its result is held
+     */
+    private static long[] measure(Decode decode) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        System.gc();
+        long heapBefore = usedHeap();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+        Object result = decode.decode();
+
+        long allocated = threads.getThreadAllocatedBytes(threadId)
+                - allocatedBefore;
+        System.gc();
+        long held = usedHeap() - heapBefore;
+        // keep the result reachable until the heap is measured
+        assertNotNull(result);
+        return new long[] { allocated, held };
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage()
+                .getUsed();
+    }
+
+    /**
+     * Write the DAP2 data response of a times x lats x lons Float32 grid.
+     */
+    private static void writeLargeResponse(File file, int times, int lats,
+            int lons) throws IOException {
+        String dds = DDS.replace("time = 2", "time = " + times)
+                .replace("lat = 2", "lat = " + lats)
+                .replace("lon = 3", "lon = " + lons);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(dds.getBytes(StandardCharsets.UTF_8));
+            out.write("Data:\n".getBytes(StandardCharsets.UTF_8));
+
+            int size = times * lats * lons;
+            out.writeInt(size);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeFloat(i % 400);
+            }
+            writeMap(out, new double[times]);
+            writeMap(out, new double[lats]);
+            writeMap(out, new double[lons]);
+        }
+    }
+
+    private static byte[] createResponse() throws IOException {
+        return createResponse(DDS);
+    }
+
+    /**
+     * Create the DAP2 data response of a DDS shaped like {@link #DDS}.
+     */
+    private static byte[] createResponse(String dds) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(dds.getBytes(StandardCharsets.UTF_8));
+        out.write("Data:\n".getBytes(StandardCharsets.UTF_8));
+
+        out.writeInt(12);
+        out.writeInt(12);
+        for (int i = 0; i < 12; i++) {
+            out.writeFloat(i);
+        }
+        writeMap(out, 0, 6);
+        writeMap(out, -90, 90);
+        writeMap(out, 0, 0.25, 0.5);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeMap(DataOutputStream out, double... values)
+            throws IOException {
+        out.writeInt(values.length);
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.pda;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+import org.junit.Test;
+
+import com.raytheon.uf.edex.datadelivery.retrieval.pda.PDAFtpsSessionPool.Session;
+
+/**
+ * Test {@link PDAFtpsSessionPool}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class PDAFtpsSessionPoolTest {
+
+    private static final String LOGIN_DIRECTORY = "/home/pda";
+
+    private final List<FakeFtpClient> opened = new ArrayList<>();
+
+    private PDAFtpsSessionPool createPool(int maxSessions,
+            long idleTimeoutMillis) {
+        return new PDAFtpsSessionPool(maxSessions, idleTimeoutMillis, () -> {
+            FakeFtpClient client = new FakeFtpClient();
+            opened.add(client);
+            return client;
+        });
+    }
+
+    @Test
+    public void testReleasedSessionIsReused() throws IOException {
+        PDAFtpsSessionPool pool = createPool(2, 60_000L);
+
+        Session session = pool.borrow(100);
+        pool.release(session, true);
+        assertEquals(1, pool.getIdleCount());
+
+        assertSame(session, pool.borrow(100));
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    public void testFailedSessionIsClosedAndReplaced() throws IOException {
+        PDAFtpsSessionPool pool = createPool(2, 60_000L);
+
+        Session session = pool.borrow(100);
+        pool.release(session, false);
+        assertFalse(opened.get(0).isConnected());
+        assertEquals(0, pool.getIdleCount());
+
+        assertNotSame(session, pool.borrow(100));
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    public void testDisconnectedSessionIsNotReused() throws IOException {
+        PDAFtpsSessionPool pool = createPool(2, 60_000L);
+
+        Session session = pool.borrow(100);
+        pool.release(session, true);
+        opened.get(0).connected = false;
+
+        assertNotSame(session, pool.borrow(100));
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    public void testIdleSessionsAreClosed() throws Exception {
+        PDAFtpsSessionPool pool = createPool(2, 0L);
+
+        pool.release(pool.borrow(100), true);
+        Thread.sleep(5);
+        pool.closeIdleSessions();
+
+        assertEquals(0, pool.getIdleCount());
+        assertFalse(opened.get(0).isConnected());
+    }
+
+    @Test
+    public void testWorkingDirectoryIsOnlyChangedWhenDifferent()
+            throws IOException {
+        PDAFtpsSessionPool pool = createPool(1, 60_000L);
+
+        Session session = pool.borrow(100);
+        assertTrue(session.changeWorkingDirectory("goes/east"));
+        pool.release(session, true);
+
+        session = pool.borrow(100);
+        assertFalse(session.changeWorkingDirectory("goes/east"));
+        assertTrue(session.changeWorkingDirectory("goes/west"));
+        assertEquals(2, opened.get(0).directoryChanges);
+    }
+
+    @Test
+    public void testRelativeDirectoriesResolveAgainstTheLoginDirectory()
+            throws IOException {
+        PDAFtpsSessionPool pool = createPool(1, 60_000L);
+
+        Session session = pool.borrow(100);
+        session.changeWorkingDirectory("goes/east");
+        assertEquals(LOGIN_DIRECTORY + "/goes/east",
+                opened.get(0).workingDirectory);
+        pool.release(session, true);
+
+        // the same session, left in goes/east by the previous download
+        session = pool.borrow(100);
+        session.changeWorkingDirectory("goes/west");
+        assertEquals(LOGIN_DIRECTORY + "/goes/west",
+                opened.get(0).workingDirectory);
+        pool.release(session, true);
+
+        session = pool.borrow(100);
+        session.changeWorkingDirectory("/data/goes");
+        session.changeWorkingDirectory("goes/east");
+        assertEquals(LOGIN_DIRECTORY + "/goes/east",
+                opened.get(0).workingDirectory);
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    public void testSessionWithoutLoginDirectoryIsNotReusedAfterMoving()
+            throws IOException {
+        PDAFtpsSessionPool pool = new PDAFtpsSessionPool(1, 60_000L, () -> {
+            FakeFtpClient client = new FakeFtpClient();
+            client.workingDirectory = null;
+            opened.add(client);
+            return client;
+        });
+
+        Session session = pool.borrow(100);
+        pool.release(session, true);
+        assertEquals(1, pool.getIdleCount());
+
+        session = pool.borrow(100);
+        session.changeWorkingDirectory("goes/east");
+        pool.release(session, true);
+        assertEquals(0, pool.getIdleCount());
+        assertFalse(opened.get(0).isConnected());
+    }
+
+    @Test(expected = IOException.class)
+    public void testBorrowTimesOutWhenAllSessionsAreInUse()
+            throws IOException {
+        PDAFtpsSessionPool pool = createPool(1, 60_000L);
+
+        pool.borrow(100);
+        pool.borrow(10);
+    }
+
+    /**
+     * Stands in for a logged in FTP session, resolving directories the way a
+     * server does.
+     */
+    private static class FakeFtpClient extends FTPClient {
+
+        private boolean connected = true;
+
+        private int directoryChanges;
+
+        /** null for a server without PWD */
+        private String workingDirectory = LOGIN_DIRECTORY;
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public String printWorkingDirectory() {
+            return workingDirectory;
+        }
+
+        @Override
+        public boolean changeWorkingDirectory(String pathname) {
+            directoryChanges++;
+            if (pathname.startsWith("/") || workingDirectory == null) {
+                workingDirectory = pathname;
+            } else {
+                workingDirectory = workingDirectory + "/" + pathname;
+            }
+            return true;
+        }
+
+        @Override
+        public int getReplyCode() {
+            return FTPReply.COMMAND_OK;
+        }
+
+        @Override
+        public boolean sendNoOp() {
+            return connected;
+        }
+
+        @Override
+        public boolean logout() {
+            return true;
+        }
+
+        @Override
+        public void disconnect() {
+            connected = false;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.pda;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link PDAPartialDownload}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class PDAPartialDownloadTest {
+
+    private static final long MODIFIED = 1_531_396_800_000L;
+
+    private File dir;
+
+    private File localFile;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pdaDownload").toFile();
+        localFile = new File(dir, "OR_ABI-L1b-RadF-M3C01_G16.nc");
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testIncompleteDownloadIsResumed() throws IOException {
+        PDAPartialDownload download = new PDAPartialDownload(localFile, 100,
+                MODIFIED);
+        assertEquals(0, download.getResumeOffset());
+        Files.write(download.getPartFile().toPath(), new byte[40]);
+        download.incomplete();
+
+        PDAPartialDownload retry = new PDAPartialDownload(localFile, 100,
+                MODIFIED);
+        assertEquals(40, retry.getResumeOffset());
+    }
+
+    @Test
+    public void testModifiedRemoteFileIsDownloadedAgain() throws IOException {
+        PDAPartialDownload download = new PDAPartialDownload(localFile, 100,
+                MODIFIED);
+        Files.write(download.getPartFile().toPath(), new byte[40]);
+        download.incomplete();
+
+        PDAPartialDownload retry = new PDAPartialDownload(localFile, 100,
+                MODIFIED + 60_000L);
+        assertEquals(0, retry.getResumeOffset());
+        assertFalse(retry.getPartFile().exists());
+    }
+
+    @Test
+    public void testPartialFileIsNotResumedWithoutRemoteSize()
+            throws IOException {
+        PDAPartialDownload download = new PDAPartialDownload(localFile, -1,
+                -1);
+        Files.write(download.getPartFile().toPath(), new byte[40]);
+
+        assertEquals(0, download.getResumeOffset());
+    }
+
+    @Test
+    public void testPartialFileIsNotResumedWithoutModificationTime()
+            throws IOException {
+        PDAPartialDownload download = new PDAPartialDownload(localFile, 100,
+                -1);
+        Files.write(download.getPartFile().toPath(), new byte[40]);
+
+        assertEquals(0, download.getResumeOffset());
+        assertFalse(download.getPartFile().exists());
+    }
+
+    @Test
+    public void testUnresumablePartialFileIsDeletedOnFailure()
+            throws IOException {
+        PDAPartialDownload download = new PDAPartialDownload(localFile, 100,
+                -1);
+        Files.write(download.getPartFile().toPath(), new byte[40]);
+
+        download.incomplete();
+        assertFalse(download.getPartFile().exists());
+    }
+
+    @Test
+    public void testStalePartialFilesArePurged() throws IOException {
+        PDAPartialDownload stale = new PDAPartialDownload(localFile, 100,
+                MODIFIED);
+        Files.write(stale.getPartFile().toPath(), new byte[40]);
+        stale.getPartFile().setLastModified(
+                System.currentTimeMillis() - 2 * 60 * 60 * 1000L);
+        PDAPartialDownload recent = new PDAPartialDownload(
+                new File(dir, "OR_ABI-L1b-RadF-M3C02_G16.nc"), 100, MODIFIED);
+        Files.write(recent.getPartFile().toPath(), new byte[40]);
+        Files.write(localFile.toPath(), new byte[100]);
+        localFile.setLastModified(0);
+
+        assertEquals(1, PDAPartialDownload.purgeStale(dir, 60 * 60 * 1000L));
+        assertFalse(stale.getPartFile().exists());
+        assertTrue(recent.getPartFile().exists());
+        assertTrue(localFile.exists());
+    }
+
+    @Test
+    public void testCompleteMovesFileIntoPlace() throws IOException {
+        long saved = PDAPartialDownload.getBytesSaved();
+        PDAPartialDownload download = new PDAPartialDownload(localFile, 100,
+                MODIFIED);
+        Files.write(download.getPartFile().toPath(), new byte[100]);
+
+        download.complete(40);
+        assertTrue(localFile.exists());
+        assertFalse(download.getPartFile().exists());
+        assertEquals(saved + 40, PDAPartialDownload.getBytesSaved());
+    }
+
+    @Test
+    public void testSizeMismatchIsRejected() throws IOException {
+        PDAPartialDownload download = new PDAPartialDownload(localFile, 100,
+                MODIFIED);
+        Files.write(download.getPartFile().toPath(), new byte[120]);
+
+        try {
+            download.complete(0);
+            throw new AssertionError("Expected the size mismatch to fail");
+        } catch (IOException e) {
+            assertFalse(localFile.exists());
+            assertFalse(download.getPartFile().exists());
+        }
+    }
+
+    @Test
+    public void testRepliesAreParsed() {
+        assertEquals(1048576,
+                PDAPartialDownload.parseSizeReply("213 1048576\r\n"));
+        assertEquals(-1, PDAPartialDownload
+                .parseSizeReply("550 Could not get file size.\r\n"));
+        assertEquals(MODIFIED, PDAPartialDownload
+                .parseModificationTimeReply("213 20180712120000\r\n"));
+        assertEquals(MODIFIED, PDAPartialDownload
+                .parseModificationTimeReply("213 20180712120000.123"));
+        assertEquals(-1, PDAPartialDownload
+                .parseModificationTimeReply("502 Command not implemented."));
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the PDA file handling of {@link ResponseProcessingUtilities}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class ResponseProcessingUtilitiesTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pdaStore").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(dir);
+    }
+
+    @Test
+    public void testCompressedFileIsWrittenUnchanged() throws Exception {
+        byte[] content = new byte[300_000];
+        new Random(7).nextBytes(content);
+        File source = new File(dir, "source.nc");
+        Files.write(source.toPath(), content);
+
+        byte[] zipped = ResponseProcessingUtilities
+                .getCompressedFile(source.getPath());
+        assertArrayEquals(content,
+                ResponseProcessingUtilities.decompress(zipped));
+
+        File stored = new File(dir, "goes/stored.nc");
+        ResponseProcessingUtilities.writeCompressedFile(zipped,
+                stored.getPath());
+        assertArrayEquals(content, Files.readAllBytes(stored.toPath()));
+        assertFalse(new File(stored.getParentFile(), ".stored.nc").exists());
+    }
+
+    @Test
+    public void testMoveReplacesExistingFile() throws IOException {
+        File source = new File(dir, "download.nc");
+        Files.write(source.toPath(), new byte[] { 1, 2, 3 });
+        File stored = new File(dir, "goes/stored.nc");
+        stored.getParentFile().mkdirs();
+        Files.write(stored.toPath(), new byte[] { 9 });
+
+        ResponseProcessingUtilities.moveFile(source, stored);
+        assertFalse(source.exists());
+        assertTrue(stored.exists());
+        assertEquals(3, stored.length());
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
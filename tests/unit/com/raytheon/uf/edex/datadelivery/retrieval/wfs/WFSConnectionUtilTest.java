@@ -0,0 +1,119 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.wfs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test decoding WFS responses in {@link WFSConnectionUtil}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class WFSConnectionUtilTest {
+
+    private static final String BODY = "<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\">"
+            + "<name>Sainte-Th\u00e9r\u00e8se</name></wfs:FeatureCollection>";
+
+    @Test
+    public void testResponseWithoutDeclarationIsUtf8() {
+        assertEquals(BODY, decode(BODY, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDeclaredEncodingIsUsed() {
+        String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n"
+                + BODY;
+
+        assertEquals(xml, decode(xml, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testSingleQuotedDeclaredEncodingIsUsed() {
+        String xml = "<?xml version='1.0' encoding='windows-1252' standalone='yes'?>"
+                + BODY;
+
+        assertEquals(xml, decode(xml, Charset.forName("windows-1252")));
+    }
+
+    @Test
+    public void testUnsupportedDeclaredEncodingFallsBackToUtf8() {
+        String xml = "<?xml version=\"1.0\" encoding=\"x-no-such-charset\"?>"
+                + BODY;
+
+        assertEquals(xml, decode(xml, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEncodingOutsideTheDeclarationIsIgnored() {
+        String xml = "<?xml version=\"1.0\"?>" + BODY
+                + "<!-- encoding=\"ISO-8859-1\" -->";
+
+        assertEquals(xml, decode(xml, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testUtf8ByteOrderMarkIsDropped() {
+        byte[] bom = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+        assertEquals(BODY, decode(bom, BODY, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testUtf16ByteOrderMarkIsUsed() {
+        byte[] bom = { (byte) 0xFF, (byte) 0xFE };
+
+        assertEquals(BODY, decode(bom, BODY, StandardCharsets.UTF_16LE));
+    }
+
+    @Test
+    public void testOnlyTheGivenLengthIsDecoded() {
+        byte[] bytes = Arrays.copyOf(BODY.getBytes(StandardCharsets.UTF_8),
+                1024);
+
+        assertEquals(BODY, WFSConnectionUtil.decode(bytes,
+                BODY.getBytes(StandardCharsets.UTF_8).length));
+    }
+
+    private static String decode(String xml, Charset charset) {
+        return decode(new byte[0], xml, charset);
+    }
+
+    private static String decode(byte[] bom, String xml, Charset charset) {
+        byte[] body = xml.getBytes(charset);
+        byte[] bytes = Arrays.copyOf(bom, bom.length + body.length);
+        System.arraycopy(body, 0, bytes, bom.length, body.length);
+        return WFSConnectionUtil.decode(bytes, bytes.length);
+    }
+}
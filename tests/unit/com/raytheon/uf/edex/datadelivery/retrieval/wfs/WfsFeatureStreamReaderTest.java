@@ -0,0 +1,283 @@
+/**
+ * This software was developed and / or modified by Raytheon Company,
+ * pursuant to Contract DG133W-05-CQ-1067 with the US Government.
+ *
+ * U.S. EXPORT CONTROLLED TECHNICAL DATA
+ * This software product contains export-restricted data whose
+ * export/transfer/disclosure is restricted by U.S. law. Dissemination
+ * to non-U.S. persons whether in the United States or abroad requires
+ * an export license or other authorization.
+ *
+ * Contractor Name:        Raytheon Company
+ * Contractor Address:     6825 Pine Street, Suite 340
+ *                         Mail Stop B8
+ *                         Omaha, NE 68106
+ *                         402.291.0100
+ *
+ * See the AWIPS II Master Rights File ("Master Rights File.pdf") for
+ * further licensing information.
+ **/
+package com.raytheon.uf.edex.datadelivery.retrieval.wfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import net.opengis.gml.v_3_1_1.AbstractFeatureType;
+import net.opengis.gml.v_3_1_1.FeaturePropertyType;
+import net.opengis.wfs.v_1_1_0.FeatureCollectionType;
+
+/**
+ * Test {@link WfsFeatureStreamReader}.
+ *
+ * <pre>
+ *
+ * SOFTWARE HISTORY
+ *
+ * Date          Ticket#  Engineer  Description
+ * ------------- -------- --------- --------------------------------------------
+ * Oct 17, 2026           agent     Initial creation
+ *
+ * </pre>
+ *
+ */
+public class WfsFeatureStreamReaderTest {
+
+    private static final String WFS_NAMESPACE = "http://www.opengis.net/wfs";
+
+    private static final String GML_NAMESPACE = "http://www.opengis.net/gml";
+
+    private static final String TEST_NAMESPACE = "urn:test";
+
+    private static final String NAMESPACES = "xmlns:wfs=\"" + WFS_NAMESPACE
+            + "\" xmlns:gml=\"" + GML_NAMESPACE + "\" xmlns:test=\""
+            + TEST_NAMESPACE + "\"";
+
+    private final List<String> batches = new ArrayList<>();
+
+    @Test
+    public void testFeaturesAreSplitIntoBatches() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<wfs:FeatureCollection " + NAMESPACES
+                + " numberOfFeatures=\"3\">\n"
+                + "  <gml:boundedBy><gml:null>unknown</gml:null></gml:boundedBy>\n"
+                + "  <gml:featureMember>\n" + "    " + station("KOMA") + "\n"
+                + "  </gml:featureMember>\n" + "  <gml:featureMember>"
+                + station("KLNK") + "</gml:featureMember>\n"
+                + "  <gml:featureMember>\n" + "    " + station("KOFF") + "\n"
+                + "  </gml:featureMember>\n" + "</wfs:FeatureCollection>";
+
+        assertTrue(read(xml, 2));
+        assertEquals(2, batches.size());
+        assertEquals(Arrays.asList("KOMA", "KLNK"), stations(batches.get(0)));
+        assertEquals(Arrays.asList("KOFF"), stations(batches.get(1)));
+    }
+
+    @Test
+    public void testAdjacentFeaturesInFeatureMembersAreSplit()
+            throws Exception {
+        String xml = "<wfs:FeatureCollection " + NAMESPACES
+                + "><gml:featureMembers>" + station("KOMA") + station("KLNK")
+                + "</gml:featureMembers></wfs:FeatureCollection>";
+
+        assertTrue(read(xml, 10));
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList("KOMA", "KLNK"), stations(batches.get(0)));
+    }
+
+    @Test
+    public void testNamespacesDeclaredBelowTheRootAreKept()
+            throws Exception {
+        String xml = "<wfs:FeatureCollection xmlns:wfs=\"" + WFS_NAMESPACE
+                + "\"><gml:featureMember xmlns:gml=\"" + GML_NAMESPACE
+                + "\"><test:station xmlns:test=\"" + TEST_NAMESPACE
+                + "\"><test:name>KOMA</test:name></test:station>"
+                + "</gml:featureMember></wfs:FeatureCollection>";
+
+        assertTrue(read(xml, 10));
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList("KOMA"), stations(batches.get(0)));
+    }
+
+    @Test
+    public void testEmptyFeatureCollectionHasNoBatches() throws Exception {
+        String xml = "<wfs:FeatureCollection " + NAMESPACES
+                + " numberOfFeatures=\"0\"/>";
+
+        assertTrue(read(xml, 10));
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void testExceptionReportIsNotRead() throws Exception {
+        String xml = "<ows:ExceptionReport xmlns:ows=\"http://www.opengis.net/ows\">"
+                + "<ows:Exception exceptionCode=\"NoApplicableCode\"/>"
+                + "</ows:ExceptionReport>";
+
+        assertFalse(read(xml, 10));
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void testRawTextIsNotRead() throws Exception {
+        assertFalse(read("Service temporarily unavailable", 10));
+        assertTrue(batches.isEmpty());
+    }
+
+    /**
+     * Compares the peak live heap of unmarshalling a large feature collection
+     * at once with unmarshalling it in batches, as
+     * {@link WfsTranslator#asPluginDataObjects(String)} does. The payload
+     * string is live in both cases.
+     */
+    @Ignore("Benchmark, run by hand")
+    @Test
+    public void benchmarkBatchesAgainstWholeCollection() throws Exception {
+        final int features = 200_000;
+        final int batchSize = 1000;
+        StringBuilder sb = new StringBuilder("<wfs:FeatureCollection ")
+                .append(NAMESPACES).append('>');
+        for (int i = 0; i < features; i++) {
+            sb.append("<gml:featureMember>").append(station("K" + i))
+                    .append("</gml:featureMember>");
+        }
+        String xml = sb.append("</wfs:FeatureCollection>").toString();
+        final Unmarshaller unmarshaller = JAXBContext
+                .newInstance(net.opengis.wfs.v_1_1_0.ObjectFactory.class,
+                        TestStation.class)
+                .createUnmarshaller();
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        long start = System.currentTimeMillis();
+        FeatureCollectionType whole = unmarshalCollection(unmarshaller, xml);
+        System.gc();
+        long wholePeak = memory.getHeapMemoryUsage().getUsed() - baseline;
+        long wholeMillis = System.currentTimeMillis() - start;
+        assertEquals(features, whole.getFeatureMember().size());
+        whole = null;
+
+        System.gc();
+        final long batchedBaseline = memory.getHeapMemoryUsage().getUsed();
+        final AtomicLong batchedPeak = new AtomicLong();
+        final AtomicInteger count = new AtomicInteger();
+        start = System.currentTimeMillis();
+        new WfsFeatureStreamReader(batchSize).readBatches(
+                new StringReader(xml), batch -> {
+                    FeatureCollectionType collection = unmarshalCollection(
+                            unmarshaller, batch);
+                    count.addAndGet(collection.getFeatureMember().size());
+                    if (count.get() % (features / 10) == 0) {
+                        System.gc();
+                        batchedPeak.accumulateAndGet(
+                                memory.getHeapMemoryUsage().getUsed()
+                                        - batchedBaseline,
+                                Math::max);
+                    }
+                });
+        long batchedMillis = System.currentTimeMillis() - start;
+        assertEquals(features, count.get());
+
+        System.out.println("Payload of " + xml.length() / 1024
+                + " K chars, " + features + " features");
+        System.out.println("Whole collection: " + wholeMillis
+                + " ms, live heap growth " + wholePeak / 1024 + " KB");
+        System.out.println("Batches of " + batchSize + ": " + batchedMillis
+                + " ms, peak live heap growth " + batchedPeak.get() / 1024
+                + " KB");
+    }
+
+    private boolean read(String xml, int batchSize) throws Exception {
+        return new WfsFeatureStreamReader(batchSize)
+                .readBatches(new StringReader(xml), batches::add);
+    }
+
+    private static String station(String name) {
+        return "<test:station><test:name>" + name
+                + "</test:name></test:station>";
+    }
+
+    /**
+     * Parse a batch on its own and return the station names, checking that
+     * each station is the only feature of a gml:featureMember of a
+     * wfs:FeatureCollection.
+     */
+    private static List<String> stations(String batch) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document doc = builder.parse(new InputSource(new StringReader(batch)));
+        Element root = doc.getDocumentElement();
+        assertEquals(WFS_NAMESPACE, root.getNamespaceURI());
+        assertEquals("FeatureCollection", root.getLocalName());
+
+        List<String> names = new ArrayList<>();
+        NodeList stations = doc.getElementsByTagNameNS(TEST_NAMESPACE,
+                "station");
+        for (int i = 0; i < stations.getLength(); i++) {
+            Element station = (Element) stations.item(i);
+            Element member = (Element) station.getParentNode();
+            assertEquals(GML_NAMESPACE, member.getNamespaceURI());
+            assertEquals("featureMember", member.getLocalName());
+            assertEquals(1, member.getElementsByTagNameNS(TEST_NAMESPACE,
+                    "station").getLength());
+            assertTrue(member.getParentNode() == root);
+            names.add(station
+                    .getElementsByTagNameNS(TEST_NAMESPACE, "name").item(0)
+                    .getTextContent());
+        }
+        return names;
+    }
+
+    private static FeatureCollectionType unmarshalCollection(
+            Unmarshaller unmarshaller, String xml) throws Exception {
+        Object o = unmarshaller.unmarshal(new StringReader(xml));
+        if (o instanceof JAXBElement) {
+            o = ((JAXBElement<?>) o).getValue();
+        }
+        FeatureCollectionType collection = (FeatureCollectionType) o;
+        for (FeaturePropertyType member : collection.getFeatureMember()) {
+            // Every feature is bound
+            member.getFeature().getValue();
+        }
+        return collection;
+    }
+
+    /**
+     * Minimal feature type.
+     */
+    @XmlRootElement(name = "station", namespace = TEST_NAMESPACE)
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class TestStation extends AbstractFeatureType {
+
+        @XmlElement(namespace = TEST_NAMESPACE)
+        private String name;
+    }
+}
@@ -54,6 +54,8 @@ import com.raytheon.uf.viz.core.exception.VizCommunicationException;
  * Feb 03, 2015 4041       dhladky      Restructured to run off UI thread.
  * Mar 16, 2016 3919       tjensen      Cleanup unneeded interfaces
  * Jan 05, 2017 746        bsteffen     Don't ignore updates if job is running.
+ * Oct 17, 2026            agent        Request only the changes since the
+ *                                      current graph data.
  * 
  * </pre>
  * 
@@ -70,7 +72,7 @@ public class GraphDataUtil extends Job {
     private final BandwidthCanvasComp dataUpdatedCB;
 
     /** Bandwidth graph data */
-    private BandwidthGraphData graphData;
+    private volatile BandwidthGraphData graphData;
 
     /**
      * Constructor.
@@ -94,12 +96,32 @@ public class GraphDataUtil extends Job {
     /**
      * Perform a data retrieval on the UI thread.
      */
-    private void retrieveData() {
-        GraphDataResponse response = sendRequest(new GraphDataRequest());
+    private synchronized void retrieveData() {
+        BandwidthGraphData current = graphData;
+        GraphDataRequest request = new GraphDataRequest();
+        if (current != null) {
+            request.setVersion(current.getVersion());
+        }
+        GraphDataResponse response = sendRequest(request);
+        if (response == null) {
+            return;
+        }
 
-        if (response != null) {
-            graphData = response.getGraphData();
+        BandwidthGraphData update = response.getGraphData();
+        if (update != null && update.isChangesOnly()) {
+            if (current != null
+                    && current.getVersion() == update.getBaseVersion()) {
+                update = current.applyChanges(update);
+            } else {
+                // Not relative to the data we have, get all of it
+                response = sendRequest(new GraphDataRequest());
+                if (response == null) {
+                    return;
+                }
+                update = response.getGraphData();
+            }
         }
+        graphData = update;
     }
 
     /**